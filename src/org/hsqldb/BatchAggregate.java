@@ -0,0 +1,858 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import org.hsqldb.RangeVariable.RangeVariableConditions;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.LongKeyIntValueHashMap;
+import org.hsqldb.lib.OrderedIntHashSet;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.navigator.RowSetNavigatorData;
+import org.hsqldb.persist.ColumnSegment;
+import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
+
+/**
+ * Batch execution of aggregate queries on a single table.<p>
+ *
+ * Used when the search condition is an AND of comparisons of columns with
+ * literals or parameters and of IS [NOT] NULL tests, the set functions are
+ * COUNT, SUM, AVG, MIN and MAX without DISTINCT or FILTER, and there is no
+ * GROUP BY or a GROUP BY on a single column. All the referenced columns must
+ * be of integral types. Other queries are executed row by row.<p>
+ *
+ * The values of the referenced columns of up to 1024 rows at a time are
+ * copied to primitive vectors. The conditions are applied to the vectors to
+ * produce a selection vector of the matching rows, which is passed to the
+ * set functions. For COLUMNAR tables, the vectors are filled from the column
+ * segments and the segments that cannot match the conditions are skipped.
+ * The groups are added to the result in the same order and with the same
+ * values as in row-by-row execution.<p>
+ *
+ * Batch execution is enabled for a session with
+ * SET SESSION FEATURE H901_05 TRUE, which is the default.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class BatchAggregate {
+
+    /** session optimisation bit for this feature */
+    static final int sessionFeature = 32;
+
+    //
+    static final int vectorSize = 1024;
+
+    //
+    final QuerySpecification select;
+    final Table              table;
+
+    // table columns copied to vectors
+    final int[] columns;
+
+    // vector of the GROUP BY column or -1
+    final int groupVector;
+
+    // vector of the argument of each set function or -1 for COUNT(*)
+    final ExpressionAggregate[] aggregates;
+    final int[]                 aggregateVectors;
+
+    // conditions, with NOT for IS NOT NULL
+    final int[]        filterVectors;
+    final int[]        filterOps;
+    final Expression[] filterValues;
+
+    private BatchAggregate(QuerySpecification select, int[] columns,
+                           int groupVector,
+                           ExpressionAggregate[] aggregates,
+                           int[] aggregateVectors, int[] filterVectors,
+                           int[] filterOps, Expression[] filterValues) {
+
+        this.select           = select;
+        this.table            = select.rangeVariables[0].rangeTable;
+        this.columns          = columns;
+        this.groupVector      = groupVector;
+        this.aggregates       = aggregates;
+        this.aggregateVectors = aggregateVectors;
+        this.filterVectors    = filterVectors;
+        this.filterOps        = filterOps;
+        this.filterValues     = filterValues;
+    }
+
+    static boolean isEnabled(Session session) {
+        return (session.sessionOptimization & sessionFeature) != 0;
+    }
+
+    /**
+     * Returns a BatchAggregate for the resolved query, or null if the query
+     * is not supported.
+     */
+    static BatchAggregate newBatchAggregate(QuerySpecification select) {
+
+        if (!select.isAggregated || select.isSimpleCount
+                || select.rangeVariables.length != 1
+                || select.sortAndSlice.isGenerated) {
+            return null;
+        }
+
+        RangeVariable range = select.rangeVariables[0];
+
+        if (range.isLeftJoin || range.isRightJoin
+                || range.indexDistinctCount > 0
+                || range.whereConditions.length != 1
+                || range.joinConditions.length != 1) {
+            return null;
+        }
+
+        switch (range.rangeTable.getTableType()) {
+
+            case TableBase.MEMORY_TABLE :
+            case TableBase.CACHED_TABLE :
+            case TableBase.TEXT_TABLE :
+            case TableBase.TEMP_TABLE :
+                break;
+
+            default :
+                return null;
+        }
+
+        RangeVariableConditions where = range.whereConditions[0];
+        RangeVariableConditions join  = range.joinConditions[0];
+
+        if (!isFullScan(where) || !isFullScan(join)) {
+            return null;
+        }
+
+        OrderedIntHashSet columnSet   = new OrderedIntHashSet();
+        int               groupColumn = -1;
+
+        // the columns that are not set functions must be the GROUP BY column
+        for (int i = 0; i < select.indexStartAggregates; i++) {
+            if (select.aggregateCheck[i]) {
+                continue;
+            }
+
+            int column = getColumnIndex(range, select.exprColumns[i]);
+
+            if (column < 0 || !select.isGrouped) {
+                return null;
+            }
+
+            if (groupColumn == -1) {
+                groupColumn = column;
+
+                columnSet.add(column);
+            } else if (groupColumn != column) {
+                return null;
+            }
+        }
+
+        if (select.isGrouped && groupColumn == -1) {
+            return null;
+        }
+
+        int count = select.indexLimitExpressions - select.indexStartAggregates;
+        ExpressionAggregate[] aggregates       = new ExpressionAggregate[count];
+        int[]                 aggregateColumns = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            Expression e = select.exprColumns[select.indexStartAggregates + i];
+
+            if (!(e instanceof ExpressionAggregate)) {
+                return null;
+            }
+
+            aggregates[i] = (ExpressionAggregate) e;
+
+            switch (e.getType()) {
+
+                case OpTypes.COUNT :
+                case OpTypes.SUM :
+                case OpTypes.AVG :
+                case OpTypes.MIN :
+                case OpTypes.MAX :
+                    break;
+
+                default :
+                    return null;
+            }
+
+            if (aggregates[i].isDistinctAggregate || e.hasCondition()) {
+                return null;
+            }
+
+            if (e.getLeftNode().getType() == OpTypes.ASTERISK) {
+                aggregateColumns[i] = -1;
+
+                continue;
+            }
+
+            aggregateColumns[i] = getColumnIndex(range, e.getLeftNode());
+
+            if (aggregateColumns[i] < 0) {
+                return null;
+            }
+
+            columnSet.add(aggregateColumns[i]);
+        }
+
+        HsqlArrayList filters = new HsqlArrayList();
+
+        if (!addFilters(range, join.nonIndexCondition, filters)
+                || !addFilters(range, where.nonIndexCondition, filters)) {
+            return null;
+        }
+
+        int          filterCount   = filters.size();
+        int[]        filterVectors = new int[filterCount];
+        int[]        filterOps     = new int[filterCount];
+        Expression[] filterValues  = new Expression[filterCount];
+
+        for (int i = 0; i < filterCount; i++) {
+            Expression e = (Expression) filters.get(i);
+
+            filterOps[i] = e.getType();
+
+            if (e.getType() == OpTypes.NOT) {
+                e = e.getLeftNode();
+            } else if (e.getType() != OpTypes.IS_NULL) {
+                filterValues[i] = e.getRightNode();
+            }
+
+            int column = getColumnIndex(range, e.getLeftNode());
+
+            columnSet.add(column);
+
+            filterVectors[i] = columnSet.getIndex(column);
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (aggregateColumns[i] != -1) {
+                aggregateColumns[i] = columnSet.getIndex(aggregateColumns[i]);
+            }
+        }
+
+        return new BatchAggregate(select, columnSet.toArray(),
+                                  groupColumn == -1 ? -1
+                                                    : 0, aggregates,
+                                                    aggregateColumns,
+                                                    filterVectors, filterOps,
+                                                    filterValues);
+    }
+
+    private static boolean isFullScan(RangeVariableConditions conditions) {
+
+        return !conditions.hasIndexCondition() && !conditions.isFalse
+               && conditions.terminalCondition == null
+               && conditions.excludeConditions == null;
+    }
+
+    /**
+     * Returns the index of an integral column of the range, or -1.
+     */
+    private static int getColumnIndex(RangeVariable range, Expression e) {
+
+        if (e.getType() != OpTypes.COLUMN || e.getRangeVariable() != range
+                || !isIntegral(e.getDataType())) {
+            return -1;
+        }
+
+        return e.getColumnIndex();
+    }
+
+    private static boolean isIntegral(Type type) {
+
+        if (type == null) {
+            return false;
+        }
+
+        switch (type.typeCode) {
+
+            case Types.TINYINT :
+            case Types.SQL_SMALLINT :
+            case Types.SQL_INTEGER :
+            case Types.SQL_BIGINT :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+    /**
+     * Adds the ANDed conditions to the list. Returns false if one of them is
+     * not supported.
+     */
+    private static boolean addFilters(RangeVariable range, Expression e,
+                                      HsqlArrayList filters) {
+
+        if (e == null) {
+            return true;
+        }
+
+        switch (e.getType()) {
+
+            case OpTypes.AND :
+                return addFilters(range, e.getLeftNode(), filters)
+                       && addFilters(range, e.getRightNode(), filters);
+
+            case OpTypes.NOT :
+                if (e.getLeftNode().getType() != OpTypes.IS_NULL) {
+                    return false;
+                }
+
+                return addNullFilter(range, e, e.getLeftNode(), filters);
+
+            case OpTypes.IS_NULL :
+                return addNullFilter(range, e, e, filters);
+
+            case OpTypes.EQUAL :
+            case OpTypes.NOT_EQUAL :
+            case OpTypes.GREATER :
+            case OpTypes.GREATER_EQUAL :
+            case OpTypes.SMALLER :
+            case OpTypes.SMALLER_EQUAL : {
+                if (e.exprSubType == OpTypes.ANY_QUANTIFIED
+                        || e.exprSubType == OpTypes.ALL_QUANTIFIED) {
+                    return false;
+                }
+
+                Expression right = e.getRightNode();
+
+                if (getColumnIndex(range, e.getLeftNode()) < 0
+                        || !isIntegral(right.getDataType())) {
+                    return false;
+                }
+
+                if (right.getType() != OpTypes.VALUE
+                        && right.getType() != OpTypes.DYNAMIC_PARAM) {
+                    return false;
+                }
+
+                filters.add(e);
+
+                return true;
+            }
+            default :
+                return false;
+        }
+    }
+
+    /**
+     * Adds an IS NULL or IS NOT NULL condition on a column of the table.
+     */
+    private static boolean addNullFilter(RangeVariable range, Expression e,
+                                         Expression test,
+                                         HsqlArrayList filters) {
+
+        if (getColumnIndex(range, test.getLeftNode()) < 0) {
+            return false;
+        }
+
+        filters.add(e);
+
+        return true;
+    }
+
+    /**
+     * Aggregates the rows of the table and adds the groups to the navigator.
+     * Returns false if the query must be executed row by row.
+     */
+    boolean addGroups(Session session, RowSetNavigatorData navigator) {
+
+        if (!isEnabled(session)) {
+            return false;
+        }
+
+        Execution execution = new Execution(session);
+
+        for (int i = 0; i < filterValues.length; i++) {
+            if (filterValues[i] == null) {
+                continue;
+            }
+
+            Object value = filterValues[i].getValue(session);
+
+            if (value == null) {
+                execution.isEmpty = true;
+            } else if (value instanceof Number) {
+                execution.filterLongs[i] = ((Number) value).longValue();
+            } else {
+                return false;
+            }
+        }
+
+        if (!execution.isEmpty) {
+            ColumnStore store = table.isColumnar()
+                                ? ColumnStore.getColumnStore(session, table)
+                                : null;
+
+            if (store == null) {
+                execution.scanRows();
+            } else {
+                execution.scanSegments(store);
+            }
+        }
+
+        for (int i = 0; i < execution.groupCount; i++) {
+            navigator.add(execution.groups[i]);
+        }
+
+        return true;
+    }
+
+    /**
+     * The state of one execution of the query.
+     */
+    class Execution {
+
+        final Session session;
+
+        //
+        boolean isEmpty;
+        long[]  filterLongs = new long[filterValues.length];
+
+        //
+        long[][]    values;
+        boolean[][] nulls;
+        int[]       selection;
+        int[]       groupIds;
+
+        //
+        Object[][]             groups = new Object[8][];
+        int                    groupCount;
+        int                    nullGroup = -1;
+        LongKeyIntValueHashMap groupMap  = new LongKeyIntValueHashMap();
+
+        Execution(Session session) {
+            this.session = session;
+        }
+
+        private void setVectors(int size) {
+
+            values    = new long[columns.length][size];
+            nulls     = new boolean[columns.length][size];
+            selection = new int[size];
+            groupIds  = new int[size];
+        }
+
+        void scanRows() {
+
+            setVectors(vectorSize);
+
+            PersistentStore store = table.getRowStore(session);
+            RowIterator it = table.getPrimaryIndex().firstRow(session, store,
+                0, null);
+
+            try {
+                while (true) {
+                    int count = 0;
+
+                    for (; count < vectorSize; count++) {
+                        Row row = it.getNextRow();
+
+                        if (row == null) {
+                            break;
+                        }
+
+                        Object[] data = row.getData();
+
+                        for (int i = 0; i < columns.length; i++) {
+                            Object value = data[columns[i]];
+
+                            if (value == null) {
+                                nulls[i][count] = true;
+                            } else {
+                                nulls[i][count]  = false;
+                                values[i][count] =
+                                    ((Number) value).longValue();
+                            }
+                        }
+                    }
+
+                    if (count > 0) {
+                        addBatch(count);
+                    }
+
+                    if (count < vectorSize) {
+                        break;
+                    }
+                }
+            } finally {
+                it.release();
+            }
+        }
+
+        void scanSegments(ColumnStore store) {
+
+            setVectors(ColumnStore.segmentSize);
+
+            int countColumn = columns.length == 0 ? 0
+                                                  : columns[0];
+
+            for (int segment = 0; segment < store.getSegmentCount();
+                    segment++) {
+                if (canSkip(store, segment)) {
+                    continue;
+                }
+
+                for (int i = 0; i < columns.length; i++) {
+                    store.getSegment(columns[i], segment).getLongValues(
+                        values[i], nulls[i]);
+                }
+
+                addBatch(store.getSegment(countColumn, segment).getCount());
+            }
+        }
+
+        /**
+         * Returns true if the smallest and largest values of the segment show
+         * that no row can match the conditions.
+         */
+        private boolean canSkip(ColumnStore store, int segment) {
+
+            for (int i = 0; i < filterOps.length; i++) {
+                ColumnSegment columnSegment =
+                    store.getSegment(columns[filterVectors[i]], segment);
+                Number min    = (Number) columnSegment.getMin();
+                Number max    = (Number) columnSegment.getMax();
+                long   value  = filterLongs[i];
+                int    opType = filterOps[i];
+
+                if (opType == OpTypes.IS_NULL) {
+                    continue;
+                }
+
+                // all values are null
+                if (min == null) {
+                    return true;
+                }
+
+                switch (opType) {
+
+                    case OpTypes.EQUAL :
+                        if (value < min.longValue()
+                                || value > max.longValue()) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.NOT_EQUAL :
+                        if (value == min.longValue()
+                                && value == max.longValue()) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.GREATER :
+                        if (max.longValue() <= value) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.GREATER_EQUAL :
+                        if (max.longValue() < value) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.SMALLER :
+                        if (min.longValue() >= value) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.SMALLER_EQUAL :
+                        if (min.longValue() > value) {
+                            return true;
+                        }
+                        break;
+                }
+            }
+
+            return false;
+        }
+
+        private void addBatch(int count) {
+
+            if (session.abortTransaction) {
+                throw Error.error(ErrorCode.X_40000);
+            }
+
+            int size = setSelection(count);
+
+            if (size == 0) {
+                return;
+            }
+
+            if (groupVector == -1) {
+                if (groupCount == 0) {
+                    addGroup(null);
+                }
+
+                Object[] data = groups[0];
+
+                for (int i = 0; i < aggregates.length; i++) {
+                    SetFunction function =
+                        (SetFunction) data[select.indexStartAggregates + i];
+                    int vector = aggregateVectors[i];
+
+                    if (vector == -1) {
+                        function.addLongValues(null, null, selection, size);
+                    } else {
+                        function.addLongValues(values[vector], nulls[vector],
+                                               selection, size);
+                    }
+                }
+
+                return;
+            }
+
+            setGroupIds(size);
+
+            for (int i = 0; i < aggregates.length; i++) {
+                int       vector   = aggregateVectors[i];
+                int       position = select.indexStartAggregates + i;
+                long[]    vValues  = vector == -1 ? null
+                                                  : values[vector];
+                boolean[] vNulls   = vector == -1 ? null
+                                                  : nulls[vector];
+
+                for (int j = 0; j < size; j++) {
+                    SetFunction function =
+                        (SetFunction) groups[groupIds[j]][position];
+                    int row = selection[j];
+
+                    if (vector == -1) {
+                        function.addLongValue(1);
+                    } else if (vNulls[row]) {
+                        function.addNullValue();
+                    } else {
+                        function.addLongValue(vValues[row]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Fills the selection vector with the rows that match all the
+         * conditions and returns the count.
+         */
+        private int setSelection(int count) {
+
+            for (int i = 0; i < count; i++) {
+                selection[i] = i;
+            }
+
+            int size = count;
+
+            for (int i = 0; i < filterOps.length && size > 0; i++) {
+                long[]    vValues = values[filterVectors[i]];
+                boolean[] vNulls  = nulls[filterVectors[i]];
+                long      value   = filterLongs[i];
+                int       out     = 0;
+
+                switch (filterOps[i]) {
+
+                    case OpTypes.IS_NULL :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (vNulls[row]) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.NOT :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row]) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.EQUAL :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row] && vValues[row] == value) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.NOT_EQUAL :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row] && vValues[row] != value) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.GREATER :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row] && vValues[row] > value) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.GREATER_EQUAL :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row] && vValues[row] >= value) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.SMALLER :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row] && vValues[row] < value) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+
+                    case OpTypes.SMALLER_EQUAL :
+                        for (int j = 0; j < size; j++) {
+                            int row = selection[j];
+
+                            if (!vNulls[row] && vValues[row] <= value) {
+                                selection[out++] = row;
+                            }
+                        }
+                        break;
+                }
+
+                size = out;
+            }
+
+            return size;
+        }
+
+        /**
+         * Sets the group of each selected row, adding the new groups in the
+         * order they are found.
+         */
+        private void setGroupIds(int size) {
+
+            long[]    keys     = values[groupVector];
+            boolean[] keyNulls = nulls[groupVector];
+
+            for (int i = 0; i < size; i++) {
+                int row = selection[i];
+                int group;
+
+                if (keyNulls[row]) {
+                    if (nullGroup == -1) {
+                        nullGroup = addGroup(null);
+                    }
+
+                    group = nullGroup;
+                } else {
+                    long key = keys[row];
+
+                    group = groupMap.get(key, -1);
+
+                    if (group == -1) {
+                        group = addGroup(getKeyObject(key));
+
+                        groupMap.put(key, group);
+                    }
+                }
+
+                groupIds[i] = group;
+            }
+        }
+
+        private Object getKeyObject(long key) {
+
+            Type type = table.getColumnTypes()[columns[groupVector]];
+
+            return type.typeCode == Types.SQL_BIGINT
+                   ? (Object) ValuePool.getLong(key)
+                   : (Object) ValuePool.getInt((int) key);
+        }
+
+        /**
+         * Adds a result row for a group, with the key in the place of the
+         * GROUP BY column and new set functions.
+         */
+        private int addGroup(Object key) {
+
+            Object[] data = new Object[select.indexLimitData];
+
+            for (int i = 0; i < select.indexStartAggregates; i++) {
+                if (!select.aggregateCheck[i]) {
+                    data[i] = key;
+                }
+            }
+
+            for (int i = 0; i < aggregates.length; i++) {
+                ExpressionAggregate e = aggregates[i];
+
+                data[select.indexStartAggregates + i] =
+                    new SetFunction(session, e.getType(),
+                                    e.getLeftNode().getDataType(),
+                                    e.getDataType(), false, null);
+            }
+
+            if (groupCount == groups.length) {
+                groups = (Object[][]) ArrayUtil.resizeArray(
+                    groups, groupCount * 2);
+            }
+
+            groups[groupCount] = data;
+
+            return groupCount++;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+/**
+ * The interface an HSQLDB TRIGGER declared with QUEUE n may implement to
+ * receive the queued rows in batches instead of one call per row.<p>
+ *
+ * Queued triggers are fired by a pool of threads shared by all the triggers
+ * of the database. When the Trigger class implements this interface, all the
+ * rows that are pending in the queue of the trigger when it is run are
+ * passed to a single call of fireBatch(). Batches for each trigger are
+ * always delivered in the order the rows were queued. If fireBatch() throws,
+ * the exception is logged and the rows of the batch are passed one by one to
+ * the fire() method, where each exception is also logged.<p>
+ *
+ * The fire() method of the Trigger interface is still used when the trigger
+ * is declared without a queue.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public interface BatchTrigger extends Trigger {
+
+    /**
+     * The method invoked with the queued triggered actions.
+     *
+     * <p> The arrays have the same length, one element for each queued
+     * action. Each pair of elements has the same content as the oldRow and
+     * newRow arguments of the fire() method of the Trigger interface.
+     *
+     * @param type the type as one of the int values defined in the interface
+     * @param trigName the name of the trigger
+     * @param tabName the name of the table upon which the triggered actions
+     *   occured
+     * @param oldRows the old rows
+     * @param newRows the new rows
+     */
+    void fireBatch(int type, String trigName, String tabName,
+                   Object[][] oldRows, Object[][] newRows);
+}
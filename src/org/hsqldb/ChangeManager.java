@@ -0,0 +1,436 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.hsqldb.lib.HashMap;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.persist.HsqlDatabaseProperties;
+
+/**
+ * Change data capture for the tables of a database.<p>
+ *
+ * The row changes of each transaction are collected when the transaction
+ * commits and are handed over to a single thread. This thread pairs the
+ * delete and insert of an updated row, assigns positions in commit order,
+ * keeps the most recent changes for the INFORMATION_SCHEMA.SYSTEM_CHANGES
+ * table and calls the registered listeners. No other work is done in the
+ * committing session. Changes are collected only while a listener is
+ * registered or when the hsqldb.change_capture_size connection property
+ * is set.<p>
+ *
+ * The queue of the thread holds up to maxQueueSize transactions. When the
+ * queue is full, the changes of a committing transaction are dropped and
+ * their positions are skipped. The first change after the gap reports the
+ * count of the dropped changes.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ChangeManager {
+
+    static final int           maxQueueSize = 1024;
+    Database                   database;
+    private final int          captureSize;
+    private ChangeRecord[]     retained;
+    private int                retainedStart;
+    private int                retainedCount;
+    private long               lastPosition;
+    private long               droppedCount;
+    private HsqlArrayList      listeners = new HsqlArrayList();
+    private volatile int       listenerCount;
+    private ThreadPoolExecutor executor;
+
+    ChangeManager(Database database) {
+
+        this.database = database;
+        captureSize = database.getURLProperties().getIntegerProperty(
+            HsqlDatabaseProperties.hsqldb_change_capture_size, 0);
+
+        if (captureSize > 0) {
+            retained = new ChangeRecord[captureSize];
+        }
+    }
+
+    /**
+     * Returns true if committed changes are collected.
+     */
+    public boolean isEnabled() {
+        return captureSize > 0 || listenerCount > 0;
+    }
+
+    /**
+     * Registers a listener. If position is not negative, the retained
+     * changes after the position are reported to the listener before any
+     * new changes.
+     */
+    public void addListener(final ChangeListener listener,
+                            final long position) {
+
+        synchronized (this) {
+            listenerCount++;
+        }
+
+        executeWait(new Runnable() {
+
+            public void run() {
+
+                if (position >= 0) {
+                    deliver(listener, getChanges(position));
+                }
+
+                listeners.add(listener);
+            }
+        });
+    }
+
+    public void removeListener(final ChangeListener listener) {
+
+        executeWait(new Runnable() {
+
+            public void run() {
+
+                int index = listeners.indexOf(listener);
+
+                if (index >= 0) {
+                    listeners.remove(index);
+
+                    synchronized (ChangeManager.this) {
+                        listenerCount--;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the retained changes after the given position.
+     */
+    public synchronized ChangeRecord[] getChanges(long position) {
+
+        HsqlArrayList list = new HsqlArrayList();
+
+        for (int i = 0; i < retainedCount; i++) {
+            ChangeRecord record =
+                retained[(retainedStart + i) % retained.length];
+
+            if (record.position > position) {
+                list.add(record);
+            }
+        }
+
+        ChangeRecord[] records = new ChangeRecord[list.size()];
+
+        list.toArray(records);
+
+        return records;
+    }
+
+    /**
+     * Called at commit with the changes of the transaction. Commits are
+     * serialized by the transaction manager. The changes are dropped if
+     * the queue is full.
+     */
+    synchronized void addCommit(Session session,
+                                final HsqlArrayList changes) {
+
+        final long commitTimestamp = session.actionTimestamp;
+        final long sessionId       = session.getId();
+        final long dropped         = droppedCount;
+
+        if (execute(new Runnable() {
+
+            public void run() {
+                processCommit(commitTimestamp, sessionId, dropped, changes);
+            }
+        })) {
+            droppedCount = 0;
+
+            return;
+        }
+
+        if (droppedCount == 0) {
+            database.logger.logInfoEvent(
+                "change capture queue full - changes dropped");
+        }
+
+        droppedCount += pairUpdates(changes);
+    }
+
+    void close() {
+
+        synchronized (this) {
+            if (executor != null) {
+
+                // the changes already committed are still reported
+                executor.shutdown();
+
+                executor = null;
+            }
+        }
+    }
+
+    /**
+     * Returns false if the queue is full.
+     */
+    private synchronized boolean execute(Runnable task) {
+
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                              new ArrayBlockingQueue<Runnable>(
+                                                  maxQueueSize),
+                                              new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "HSQLDB Change Capture "
+                                               + database.getUniqueName());
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+
+            executor.prestartCoreThread();
+        }
+
+        try {
+            executor.execute(task);
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            return executor.isShutdown();
+        }
+    }
+
+    /**
+     * Used for the listener changes, which are not dropped. Waits for space
+     * in the queue outside the monitor, which the capture thread uses.
+     */
+    private void executeWait(Runnable task) {
+
+        while (!execute(task)) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                return;
+            }
+        }
+    }
+
+    private void processCommit(long commitTimestamp, long sessionId,
+                               long dropped, HsqlArrayList changes) {
+
+        int count = pairUpdates(changes);
+
+        ChangeRecord[] records = new ChangeRecord[count];
+
+        for (int i = 0, j = 0; i < changes.size(); i++) {
+            ChangeRecord record = (ChangeRecord) changes.get(i);
+
+            if (record.changeType != 0) {
+                records[j++] = record;
+            }
+        }
+
+        synchronized (this) {
+            if (dropped > 0 && records.length > 0) {
+                lastPosition            += dropped;
+                records[0].droppedCount = dropped;
+            }
+
+            for (int i = 0; i < records.length; i++) {
+                ChangeRecord record = records[i];
+
+                record.position        = ++lastPosition;
+                record.commitTimestamp = commitTimestamp;
+                record.sessionId       = sessionId;
+
+                if (retained != null) {
+                    if (retainedCount == retained.length) {
+                        retained[retainedStart] = record;
+                        retainedStart = (retainedStart + 1) % retained.length;
+                    } else {
+                        retained[(retainedStart + retainedCount)
+                                 % retained.length] = record;
+
+                        retainedCount++;
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < listeners.size(); i++) {
+            deliver((ChangeListener) listeners.get(i), records);
+        }
+    }
+
+    /**
+     * Merges the delete of a row and a following insert into the same
+     * table with the same primary key into one UPDATE change. The change
+     * type of the merged insert is set to 0. Returns the count of changes
+     * after the merge.
+     */
+    private int pairUpdates(HsqlArrayList changes) {
+
+        HashMap deletes = null;
+        int     count   = changes.size();
+
+        for (int i = 0; i < changes.size(); i++) {
+            ChangeRecord record = (ChangeRecord) changes.get(i);
+
+            if (!record.table.hasPrimaryKey()) {
+                continue;
+            }
+
+            if (record.changeType == ChangeRecord.DELETE) {
+                if (deletes == null) {
+                    deletes = new HashMap();
+                }
+
+                deletes.put(new RowKey(record.table, record.beforeImage),
+                            record);
+
+                continue;
+            }
+
+            if (deletes == null) {
+                continue;
+            }
+
+            RowKey       key    = new RowKey(record.table, record.afterImage);
+            ChangeRecord delete = (ChangeRecord) deletes.remove(key);
+
+            if (delete != null) {
+                delete.changeType = ChangeRecord.UPDATE;
+                delete.afterImage = record.afterImage;
+                record.changeType = 0;
+
+                count--;
+            }
+        }
+
+        return count;
+    }
+
+    private void deliver(ChangeListener listener, ChangeRecord[] records) {
+
+        int start = 0;
+
+        for (int i = 1; i <= records.length; i++) {
+            if (i < records.length
+                    && records[i].commitTimestamp
+                       == records[start].commitTimestamp) {
+                continue;
+            }
+
+            ChangeRecord[] transaction = new ChangeRecord[i - start];
+
+            System.arraycopy(records, start, transaction, 0, i - start);
+
+            try {
+                listener.changesCommitted(transaction);
+            } catch (Throwable t) {
+                database.logger.logWarningEvent("change listener failed", t);
+            }
+
+            start = i;
+        }
+    }
+
+    /**
+     * The primary key values of a row image.
+     */
+    static class RowKey {
+
+        Table    table;
+        Object[] data;
+
+        RowKey(Table table, Object[] data) {
+            this.table = table;
+            this.data  = data;
+        }
+
+        public int hashCode() {
+
+            int[] cols = table.getPrimaryKey();
+            int   hash = table.hashCode();
+
+            for (int i = 0; i < cols.length; i++) {
+                Object value = data[cols[i]];
+
+                hash = hash * 31 + (value == null ? 0
+                                                  : value.hashCode());
+            }
+
+            return hash;
+        }
+
+        public boolean equals(Object other) {
+
+            if (!(other instanceof RowKey)) {
+                return false;
+            }
+
+            RowKey key = (RowKey) other;
+
+            if (key.table != table) {
+                return false;
+            }
+
+            int[] cols = table.getPrimaryKey();
+
+            for (int i = 0; i < cols.length; i++) {
+                Object a = data[cols[i]];
+                Object b = key.data[cols[i]];
+
+                if (a == null ? b != null
+                              : !a.equals(b)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
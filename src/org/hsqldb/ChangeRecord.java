@@ -0,0 +1,170 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import org.hsqldb.types.Type;
+
+/**
+ * A committed row change reported by the ChangeManager.<p>
+ *
+ * The before image is the full row that was deleted or updated and the
+ * after image is the full row that was inserted or updated. The values are
+ * the objects used internally in the rows of the table.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ChangeRecord {
+
+    public static final int INSERT = 1;
+    public static final int DELETE = 2;
+    public static final int UPDATE = 3;
+
+    //
+    long     position;
+    long     commitTimestamp;
+    long     sessionId;
+    long     droppedCount;
+    int      changeType;
+    Table    table;
+    Object[] beforeImage;
+    Object[] afterImage;
+
+    ChangeRecord(int changeType, Table table, Object[] data) {
+
+        this.changeType = changeType;
+        this.table      = table;
+
+        if (changeType == INSERT) {
+            afterImage = data;
+        } else {
+            beforeImage = data;
+        }
+    }
+
+    /**
+     * Returns the position of the change in the stream. Positions increase
+     * in commit order and restart when the database is opened.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the system change number of the transaction commit.
+     */
+    public long getCommitTimestamp() {
+        return commitTimestamp;
+    }
+
+    /**
+     * Returns the count of changes dropped immediately before this change
+     * because the capture queue was full. The positions of the dropped
+     * changes are skipped.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    public int getChangeType() {
+        return changeType;
+    }
+
+    public String getChangeTypeName() {
+
+        switch (changeType) {
+
+            case INSERT :
+                return Tokens.T_INSERT;
+
+            case DELETE :
+                return Tokens.T_DELETE;
+
+            default :
+                return Tokens.T_UPDATE;
+        }
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    public String getSchemaName() {
+        return table.getName().schema.name;
+    }
+
+    public String getTableName() {
+        return table.getName().name;
+    }
+
+    public Object[] getBeforeImage() {
+        return beforeImage;
+    }
+
+    public Object[] getAfterImage() {
+        return afterImage;
+    }
+
+    /**
+     * Returns the row image as a list of SQL literals.
+     */
+    public String getImageSQL(Object[] data) {
+
+        if (data == null) {
+            return null;
+        }
+
+        Type[]       types = table.getColumnTypes();
+        StringBuffer sb    = new StringBuffer();
+
+        sb.append('(');
+
+        for (int i = 0; i < table.getColumnCount(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append(types[i].convertToSQLString(data[i]));
+        }
+
+        sb.append(')');
+
+        return sb.toString();
+    }
+}
@@ -303,6 +303,9 @@ public class ClientConnection implements SessionInterface {
 
             case SessionInterface.INFO_CATALOG :
                 return data[SessionInterface.INFO_VARCHAR];
+
+            case SessionInterface.INFO_SCHEMA :
+                return data[SessionInterface.INFO_VARCHAR];
         }
 
         return null;
@@ -320,6 +323,7 @@ public class ClientConnection implements SessionInterface {
 
             case SessionInterface.INFO_AUTOCOMMIT :
             case SessionInterface.INFO_CONNECTION_READONLY :
+            case SessionInterface.INFO_KEEP_STATEMENTS :
                 data[SessionInterface.INFO_BOOLEAN] = value;
                 break;
 
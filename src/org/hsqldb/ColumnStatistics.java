@@ -0,0 +1,446 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import java.util.Comparator;
+import java.util.Random;
+
+import org.hsqldb.lib.ArraySort;
+import org.hsqldb.lib.StringConverter;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
+
+/**
+ * Statistics for one column of a table, gathered by ANALYZE TABLE.<p>
+ *
+ * The null count, minimum and maximum are exact at the time of collection.
+ * The distinct count and the equi-depth histogram are derived from a random
+ * sample of up to sampleSize rows. When the table is larger than the sample,
+ * the distinct count is estimated from the number of values that occur only
+ * once in the sample. The optimiser uses the ratios of these counts to the
+ * row count of the table at the time of collection, so the figures remain
+ * useful as the table grows.<p>
+ *
+ * Values are kept only for numeric, character, datetime and boolean
+ * columns. For other comparable types only the counts are kept.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public final class ColumnStatistics {
+
+    static final int sampleSize      = 20000;
+    static final int histogramSize   = 16;
+    static final int maxStringLength = 256;
+
+    //
+    final Type     type;
+    final long     rowCount;
+    final long     nullCount;
+    final long     distinctCount;
+    final Object   minValue;
+    final Object   maxValue;
+    final Object[] histogram;
+
+    ColumnStatistics(Type type, long rowCount, long nullCount,
+                     long distinctCount, Object minValue, Object maxValue,
+                     Object[] histogram) {
+
+        this.type          = type;
+        this.rowCount      = rowCount;
+        this.nullCount     = nullCount;
+        this.distinctCount = distinctCount;
+        this.minValue      = minValue;
+        this.maxValue      = maxValue;
+        this.histogram     = histogram;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    public Object getMinValue() {
+        return minValue;
+    }
+
+    public Object getMaxValue() {
+        return maxValue;
+    }
+
+    public Object[] getHistogram() {
+        return histogram;
+    }
+
+    public double getNullFraction() {
+
+        if (rowCount == 0) {
+            return 0;
+        }
+
+        return (double) nullCount / rowCount;
+    }
+
+    /**
+     * Fraction of rows that match an equality condition on the column.
+     */
+    public double getEqualSelectivity() {
+
+        if (rowCount == 0) {
+            return 1;
+        }
+
+        if (distinctCount == 0) {
+            return 1.0 / 10;
+        }
+
+        return (1 - getNullFraction()) / distinctCount;
+    }
+
+    /**
+     * Fraction of rows that match a comparison of the column with the value,
+     * using the histogram. Returns -1 when there is no histogram.
+     */
+    public double getRangeSelectivity(Session session, int opType,
+                                      Object value) {
+
+        if (histogram == null || value == null) {
+            return -1;
+        }
+
+        boolean below;
+
+        switch (opType) {
+
+            case OpTypes.SMALLER :
+            case OpTypes.SMALLER_EQUAL :
+                below = true;
+                break;
+
+            case OpTypes.GREATER :
+            case OpTypes.GREATER_EQUAL :
+            case OpTypes.GREATER_EQUAL_PRE :
+                below = false;
+                break;
+
+            default :
+                return -1;
+        }
+
+        double fraction;
+
+        if (type.compare(session, value, minValue) < 0) {
+            fraction = 0;
+        } else if (type.compare(session, value, maxValue) > 0) {
+            fraction = 1;
+        } else {
+            int count = 0;
+
+            for (int i = 0; i < histogram.length; i++) {
+                if (type.compare(session, histogram[i], value) < 0) {
+                    count++;
+                }
+            }
+
+            fraction = (count + 0.5) / (histogram.length + 1);
+        }
+
+        if (!below) {
+            fraction = 1 - fraction;
+        }
+
+        return fraction * (1 - getNullFraction());
+    }
+
+    /**
+     * Returns the statement used to persist the statistics.
+     */
+    public String getSQL(Table table, int colIndex) {
+
+        StringBuffer sb = new StringBuffer(128);
+
+        sb.append(Tokens.T_SET).append(' ').append(Tokens.T_TABLE).append(' ');
+        sb.append(table.getName().getSchemaQualifiedStatementName());
+        sb.append(' ').append(Tokens.T_COLUMN).append(' ');
+        sb.append(table.getColumn(colIndex).getName().statementName);
+        sb.append(' ').append(Tokens.T_STATISTICS).append(' ');
+        sb.append(rowCount).append(' ');
+        sb.append(nullCount).append(' ');
+        sb.append(distinctCount);
+
+        if (histogram != null) {
+            sb.append(' ').append('(');
+            sb.append(getValueSQL(minValue)).append(',');
+            sb.append(getValueSQL(maxValue));
+
+            for (int i = 0; i < histogram.length; i++) {
+                sb.append(',').append(getValueSQL(histogram[i]));
+            }
+
+            sb.append(')');
+        }
+
+        return sb.toString();
+    }
+
+    private String getValueSQL(Object value) {
+        return StringConverter.toQuotedString(type.convertToString(value),
+                                              '\'', true);
+    }
+
+    /**
+     * Creates an object from the values in a persisted statement. The first
+     * two strings in the array are the minimum and maximum, the rest are the
+     * histogram.
+     */
+    static ColumnStatistics newColumnStatistics(Session session, Type type,
+            long rowCount, long nullCount, long distinctCount,
+            String[] values) {
+
+        Object   min       = null;
+        Object   max       = null;
+        Object[] histogram = null;
+
+        if (values != null && values.length >= 2 && isValueType(type)) {
+            min       = type.convertToType(session, values[0],
+                                           Type.SQL_VARCHAR);
+            max       = type.convertToType(session, values[1],
+                                           Type.SQL_VARCHAR);
+            histogram = new Object[values.length - 2];
+
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = type.convertToType(session, values[i + 2],
+                                                  Type.SQL_VARCHAR);
+            }
+        }
+
+        return new ColumnStatistics(type, rowCount, nullCount, distinctCount,
+                                    min, max, histogram);
+    }
+
+    static boolean isComparableType(Type type) {
+        return !type.isLobType() && !type.isArrayType()
+               && type.typeCode != Types.OTHER;
+    }
+
+    static boolean isValueType(Type type) {
+        return type.isNumberType() || type.isCharacterType()
+               || type.isDateTimeType() || type.isBooleanType();
+    }
+
+    /**
+     * Scans the table and returns the statistics for all columns. Elements
+     * for columns of types that are not comparable are null.
+     */
+    static ColumnStatistics[] collect(Session session, Table table) {
+
+        Type[]   types       = table.getColumnTypes();
+        int      columnCount = table.getColumnCount();
+        long[]   nullCounts  = new long[columnCount];
+        Object[] mins        = new Object[columnCount];
+        Object[] maxs        = new Object[columnCount];
+        Object[] sample      = new Object[sampleSize];
+        Random   random      = new Random();
+        long     rowCount    = 0;
+        int      sampleCount = 0;
+
+        RowIterator it = table.rowIterator(session);
+
+        while (it.hasNext()) {
+            Object[] data = it.getNextRow().getData();
+
+            rowCount++;
+
+            for (int i = 0; i < columnCount; i++) {
+                Object value = data[i];
+
+                if (value == null) {
+                    nullCounts[i]++;
+
+                    continue;
+                }
+
+                if (!isValueType(types[i])) {
+                    continue;
+                }
+
+                if (mins[i] == null
+                        || types[i].compare(session, value, mins[i]) < 0) {
+                    mins[i] = value;
+                }
+
+                if (maxs[i] == null
+                        || types[i].compare(session, value, maxs[i]) > 0) {
+                    maxs[i] = value;
+                }
+            }
+
+            // reservoir sample of rows
+            if (sampleCount < sampleSize) {
+                sample[sampleCount++] = data;
+            } else {
+                long position = (long) (random.nextDouble() * rowCount);
+
+                if (position < sampleSize) {
+                    sample[(int) position] = data;
+                }
+            }
+        }
+
+        ColumnStatistics[] stats  = new ColumnStatistics[columnCount];
+        Object[]           values = new Object[sampleCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            Type type = types[i];
+
+            if (!isComparableType(type)) {
+                continue;
+            }
+
+            int valueCount = 0;
+
+            for (int j = 0; j < sampleCount; j++) {
+                Object value = ((Object[]) sample[j])[i];
+
+                if (value != null) {
+                    values[valueCount++] = value;
+                }
+            }
+
+            ArraySort.sort(values, 0, valueCount,
+                           new ValueComparator(session, type));
+
+            long distinct = 0;
+            long once     = 0;
+
+            for (int j = 0; j < valueCount; ) {
+                int k = j + 1;
+
+                while (k < valueCount
+                        && type.compare(session, values[j], values[k])
+                           == 0) {
+                    k++;
+                }
+
+                distinct++;
+
+                if (k - j == 1) {
+                    once++;
+                }
+
+                j = k;
+            }
+
+            long nonNullCount = rowCount - nullCounts[i];
+
+            if (valueCount > 0 && valueCount < nonNullCount) {
+
+                // Duj1 estimator for the distinct count of the population
+                double n = valueCount;
+                double d = n * distinct
+                           / (n - once + once * n / nonNullCount);
+
+                distinct = Math.max(distinct,
+                                    Math.min(nonNullCount, (long) d));
+            }
+
+            Object[] histogram = null;
+            Object   min       = mins[i];
+            Object   max       = maxs[i];
+
+            if (min != null && valueCount > 0) {
+                histogram = new Object[histogramSize - 1];
+
+                for (int j = 0; j < histogram.length; j++) {
+                    int position = (int) ((long) valueCount * (j + 1)
+                                          / histogramSize);
+
+                    histogram[j] = values[position];
+                }
+
+                if (type.isCharacterType()) {
+                    boolean isShort = isShortString(min)
+                                      && isShortString(max);
+
+                    for (int j = 0; j < histogram.length; j++) {
+                        isShort &= isShortString(histogram[j]);
+                    }
+
+                    if (!isShort) {
+                        min       = null;
+                        max       = null;
+                        histogram = null;
+                    }
+                }
+            }
+
+            stats[i] = new ColumnStatistics(type, rowCount, nullCounts[i],
+                                            distinct, min, max, histogram);
+
+            for (int j = 0; j < valueCount; j++) {
+                values[j] = null;
+            }
+        }
+
+        return stats;
+    }
+
+    private static boolean isShortString(Object value) {
+        return ((String) value).length() <= maxStringLength;
+    }
+
+    private static class ValueComparator implements Comparator {
+
+        final Session session;
+        final Type    type;
+
+        ValueComparator(Session session, Type type) {
+            this.session = session;
+            this.type    = type;
+        }
+
+        public int compare(Object a, Object b) {
+            return type.compare(session, a, b);
+        }
+    }
+}
@@ -0,0 +1,578 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import org.hsqldb.index.Index;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.persist.ColumnSegment;
+import org.hsqldb.persist.HsqlDatabaseProperties;
+import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.types.Type;
+
+/**
+ * Snapshot of the committed rows of a COLUMNAR table, held as compressed
+ * column segments in the order of the primary index.<p>
+ *
+ * The rows of the table are still stored and indexed as in other tables.
+ * The snapshot is built by the first full scan of the table in a query and
+ * is used by later scans until a transaction that changes the table is
+ * committed. When the committed changes since the snapshot are only inserts
+ * of rows with primary keys greater than the last row of the snapshot, the
+ * new rows are appended to the last segment on the next scan. Otherwise the
+ * snapshot is built again. A scan decodes only the columns that are
+ * referenced in the query and skips the segments that cannot satisfy simple
+ * comparisons in the WHERE clause.<p>
+ *
+ * No snapshot is kept for a table with more rows than the
+ * hsqldb.columnar_max_rows property allows. Such tables are scanned row by
+ * row.<p>
+ *
+ * A snapshot is used only by top-level SELECT statements of sessions that
+ * have no uncommitted changes, when the rows seen by the statement are
+ * the latest committed rows of the table.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ColumnStore {
+
+    static final int segmentSize    = 4096;
+    static final int defaultMaxRows = 1000000;
+
+    //
+    final long              timestamp;
+    final int               rowCount;
+    final ColumnSegment[][] segments;
+
+    // data of the last row in primary key order, null if no primary key
+    final Object[] lastRow;
+
+    private ColumnStore(long timestamp, int rowCount,
+                        ColumnSegment[][] segments, Object[] lastRow) {
+
+        this.timestamp = timestamp;
+        this.rowCount  = rowCount;
+        this.segments  = segments;
+        this.lastRow   = lastRow;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getSegmentCount() {
+        return segments.length == 0 ? 0
+                                    : segments[0].length;
+    }
+
+    public ColumnSegment getSegment(int column, int segment) {
+        return segments[column][segment];
+    }
+
+    /**
+     * Returns a scan of the table for the condition index of the range, or
+     * null if the snapshot cannot be used.
+     */
+    static Scan getScan(Session session, RangeVariable range,
+                        int condIndex) {
+
+        ColumnStore store = getColumnStore(session, range.rangeTable);
+
+        if (store == null) {
+            return null;
+        }
+
+        Scan scan = new Scan(store, range.usedColumns);
+
+        scan.addFilters(session, range,
+                        range.whereConditions[condIndex].nonIndexCondition);
+        scan.addFilters(session, range,
+                        range.joinConditions[condIndex].nonIndexCondition);
+
+        return scan;
+    }
+
+    /**
+     * Returns the current snapshot of the table, or builds a new one.
+     */
+    static ColumnStore getColumnStore(Session session, Table table) {
+
+        if (!isUsable(session, table)) {
+            return null;
+        }
+
+        long        timestamp = table.dataChangeTimestamp;
+        ColumnStore store     = table.columnStore;
+
+        if (store != null && store.timestamp == timestamp) {
+            return store;
+        }
+
+        int maxRows = session.database.getURLProperties().getIntegerProperty(
+            HsqlDatabaseProperties.hsqldb_columnar_max_rows,
+            defaultMaxRows);
+
+        if (maxRows == 0) {
+            return null;
+        }
+
+        if (store != null && store.lastRow != null
+                && table.columnAppendTimestamp == timestamp) {
+            store = store.append(session, table, timestamp, maxRows);
+        } else {
+            store = newColumnStore(session, table, timestamp, maxRows);
+        }
+
+        // a commit during the build may have been partly seen
+        if (store == null || table.dataChangeTimestamp != timestamp) {
+            return null;
+        }
+
+        table.columnAppendTimestamp = timestamp;
+        table.columnStore           = store;
+
+        return store;
+    }
+
+    /**
+     * Called for each row of a table committed by a transaction, before the
+     * data change timestamp of the table is updated. The snapshot of a
+     * COLUMNAR table remains usable for appending the rows when the
+     * committed change is an insert after the last row of the snapshot.
+     * Otherwise the snapshot is discarded.
+     */
+    static void setRowCommitted(Session session, TableBase tableBase,
+                                Row row, int type) {
+
+        if (!(tableBase instanceof Table)) {
+            return;
+        }
+
+        Table       table = (Table) tableBase;
+        ColumnStore store = table.columnStore;
+
+        if (store == null) {
+            return;
+        }
+
+        if (type == RowActionBase.ACTION_INSERT && row != null
+                && store.lastRow != null
+                && table.columnAppendTimestamp == table.dataChangeTimestamp) {
+            Index index = table.getPrimaryIndex();
+
+            if (index.compareRowNonUnique(
+                    session, row.getData(), store.lastRow,
+                    index.getColumnCount()) > 0) {
+                table.columnAppendTimestamp = session.actionTimestamp;
+
+                return;
+            }
+        }
+
+        table.columnStore = null;
+    }
+
+    private static boolean isUsable(Session session, Table table) {
+
+        if (!table.isColumnar || session.sessionContext.depth > 0
+                || !session.rowActionList.isEmpty()) {
+            return false;
+        }
+
+        Statement cs = session.sessionContext.currentStatement;
+
+        if (cs == null || cs.getType() != StatementTypes.SELECT_CURSOR
+                || ((StatementQuery) cs).queryExpression.isUpdatable) {
+            return false;
+        }
+
+        // changes committed after the start of the statement are not seen
+        if (table.dataChangeTimestamp > session.actionTimestamp) {
+            return false;
+        }
+
+        return session.isolationLevel == SessionInterface.TX_READ_COMMITTED
+               || session.database.txManager.getTransactionControl()
+                  == TransactionManager.LOCKS;
+    }
+
+    /**
+     * Builds a snapshot of all the rows of the table, or returns null if the
+     * table has more than maxRows rows.
+     */
+    private static ColumnStore newColumnStore(Session session, Table table,
+            long timestamp, int maxRows) {
+
+        PersistentStore store       = table.getRowStore(session);
+        int             columnCount = table.getColumnCount();
+        HsqlArrayList[] lists       = new HsqlArrayList[columnCount];
+
+        if (store.elementCount() > maxRows) {
+            return null;
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            lists[i] = new HsqlArrayList();
+        }
+
+        RowIterator it = table.getPrimaryIndex().firstRow(session, store, 0,
+            null);
+
+        return addRows(session, table, timestamp, maxRows, it, lists,
+                       new Object[columnCount][segmentSize], 0, 0, null);
+    }
+
+    /**
+     * Returns a new snapshot with the committed rows that follow the last
+     * row of this snapshot in primary key order. The values of the last
+     * segment, if not full, are decoded and encoded again together with the
+     * new rows. The other segments are shared with this snapshot. Returns
+     * null if the table has more than maxRows rows.
+     */
+    private ColumnStore append(Session session, Table table, long timestamp,
+                               int maxRows) {
+
+        PersistentStore store        = table.getRowStore(session);
+        Index           index        = table.getPrimaryIndex();
+        int[]           keyColumns   = index.getColumns();
+        int             columnCount  = segments.length;
+        int             segmentCount = getSegmentCount();
+        Object[][]      buffer       = new Object[columnCount][segmentSize];
+        HsqlArrayList[] lists        = new HsqlArrayList[columnCount];
+        Object[]        key          = new Object[keyColumns.length];
+        int             position     = 0;
+
+        for (int i = 0; i < keyColumns.length; i++) {
+            key[i] = lastRow[keyColumns[i]];
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            lists[i] = new HsqlArrayList();
+
+            for (int j = 0; j < segmentCount - 1; j++) {
+                lists[i].add(segments[i][j]);
+            }
+
+            if (segmentCount > 0) {
+                ColumnSegment last = segments[i][segmentCount - 1];
+
+                if (last.getCount() < segmentSize) {
+                    last.getValues(buffer[i]);
+
+                    position = last.getCount();
+                } else {
+                    lists[i].add(last);
+                }
+            }
+        }
+
+        RowIterator it = index.findFirstRow(session, store, key, key.length,
+                                            0, OpTypes.GREATER, false, null);
+
+        return addRows(session, table, timestamp, maxRows, it, lists, buffer,
+                       position, rowCount, lastRow);
+    }
+
+    /**
+     * Adds the rows of the iterator after the rows already in the buffer and
+     * returns the snapshot with all the segments. Returns null when the
+     * total number of rows exceeds maxRows.
+     */
+    private static ColumnStore addRows(Session session, Table table,
+                                       long timestamp, int maxRows,
+                                       RowIterator it,
+                                       HsqlArrayList[] lists,
+                                       Object[][] buffer, int position,
+                                       int rowCount, Object[] lastRow) {
+
+        int    columnCount = lists.length;
+        Type[] types       = table.getColumnTypes();
+
+        try {
+            while (true) {
+                Row row = it.getNextRow();
+
+                if (row == null) {
+                    break;
+                }
+
+                if (rowCount == maxRows) {
+                    return null;
+                }
+
+                Object[] data = row.getData();
+
+                for (int i = 0; i < columnCount; i++) {
+                    buffer[i][position] = data[i];
+                }
+
+                lastRow = data;
+
+                position++;
+                rowCount++;
+
+                if (position == segmentSize) {
+                    addSegments(session, types, buffer, position, lists);
+
+                    position = 0;
+                }
+            }
+        } finally {
+            it.release();
+        }
+
+        if (position > 0) {
+            addSegments(session, types, buffer, position, lists);
+        }
+
+        ColumnSegment[][] segments = new ColumnSegment[columnCount][];
+
+        for (int i = 0; i < columnCount; i++) {
+            segments[i] = new ColumnSegment[lists[i].size()];
+
+            lists[i].toArray(segments[i]);
+        }
+
+        if (!table.hasPrimaryKey()) {
+            lastRow = null;
+        }
+
+        return new ColumnStore(timestamp, rowCount, segments, lastRow);
+    }
+
+    private static void addSegments(Session session, Type[] types,
+                                    Object[][] buffer, int count,
+                                    HsqlArrayList[] lists) {
+
+        for (int i = 0; i < types.length; i++) {
+            lists[i].add(ColumnSegment.newSegment(session, types[i],
+                                                  buffer[i], count));
+        }
+    }
+
+    /**
+     * Returns the rows of the snapshot with the values of the used columns
+     * and null for the rest.
+     */
+    static class Scan {
+
+        final ColumnStore store;
+        final boolean[]   usedColumns;
+        final Object[][]  values;
+        final int         columnCount;
+        final int         segmentCount;
+        int               segment  = -1;
+        int               position = 0;
+        int               count    = 0;
+
+        // comparisons of a column with a value
+        HsqlArrayList filterColumns = new HsqlArrayList();
+        HsqlArrayList filterTypes   = new HsqlArrayList();
+        HsqlArrayList filterOps     = new HsqlArrayList();
+        HsqlArrayList filterValues  = new HsqlArrayList();
+
+        Scan(ColumnStore store, boolean[] usedColumns) {
+
+            this.store        = store;
+            this.usedColumns  = usedColumns;
+            this.columnCount  = store.segments.length;
+            this.segmentCount = store.getSegmentCount();
+            this.values       = new Object[columnCount][];
+        }
+
+        /**
+         * Adds the comparisons of a column of the range with a literal or
+         * parameter value that are ANDed in the condition.
+         */
+        void addFilters(Session session, RangeVariable range, Expression e) {
+
+            if (e == null) {
+                return;
+            }
+
+            switch (e.getType()) {
+
+                case OpTypes.AND :
+                    addFilters(session, range, e.getLeftNode());
+                    addFilters(session, range, e.getRightNode());
+
+                    return;
+
+                case OpTypes.EQUAL :
+                case OpTypes.GREATER :
+                case OpTypes.GREATER_EQUAL :
+                case OpTypes.SMALLER :
+                case OpTypes.SMALLER_EQUAL :
+                    break;
+
+                default :
+                    return;
+            }
+
+            if (e.exprSubType == OpTypes.ANY_QUANTIFIED
+                    || e.exprSubType == OpTypes.ALL_QUANTIFIED) {
+                return;
+            }
+
+            Expression left  = e.getLeftNode();
+            Expression right = e.getRightNode();
+
+            if (left.getType() != OpTypes.COLUMN
+                    || left.getRangeVariable() != range) {
+                return;
+            }
+
+            if (right.getType() != OpTypes.VALUE
+                    && right.getType() != OpTypes.DYNAMIC_PARAM) {
+                return;
+            }
+
+            Type type = left.getDataType();
+
+            if (!type.isNumberType() && !type.isDateTimeType()) {
+                return;
+            }
+
+            Object value = right.getValue(session);
+
+            if (value instanceof Object[]) {
+                return;
+            }
+
+            filterColumns.add(Integer.valueOf(left.getColumnIndex()));
+            filterTypes.add(type);
+            filterOps.add(Integer.valueOf(e.getType()));
+            filterValues.add(value);
+        }
+
+        Object[] getNext(Session session) {
+
+            while (position == count) {
+                segment++;
+
+                if (segment >= segmentCount) {
+                    return null;
+                }
+
+                if (canSkip(session)) {
+                    continue;
+                }
+
+                for (int i = 0; i < columnCount; i++) {
+                    if (usedColumns == null || usedColumns[i]) {
+                        if (values[i] == null) {
+                            values[i] = new Object[segmentSize];
+                        }
+
+                        store.segments[i][segment].getValues(values[i]);
+                    }
+                }
+
+                position = 0;
+                count    = store.segments[0][segment].getCount();
+            }
+
+            Object[] data = new Object[columnCount];
+
+            for (int i = 0; i < columnCount; i++) {
+                if (values[i] != null) {
+                    data[i] = values[i][position];
+                }
+            }
+
+            position++;
+
+            return data;
+        }
+
+        /**
+         * Returns true if no row of the segment can satisfy all the
+         * comparisons.
+         */
+        private boolean canSkip(Session session) {
+
+            for (int i = 0; i < filterColumns.size(); i++) {
+                int    column = ((Integer) filterColumns.get(i)).intValue();
+                int    opType = ((Integer) filterOps.get(i)).intValue();
+                Type   type   = (Type) filterTypes.get(i);
+                Object value  = filterValues.get(i);
+                Object min    = store.segments[column][segment].getMin();
+                Object max    = store.segments[column][segment].getMax();
+
+                if (value == null || min == null) {
+                    return true;
+                }
+
+                switch (opType) {
+
+                    case OpTypes.EQUAL :
+                        if (type.compare(session, min, value, opType) > 0
+                                || type.compare(session, max, value, opType)
+                                   < 0) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.GREATER :
+                        if (type.compare(session, max, value, opType) <= 0) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.GREATER_EQUAL :
+                        if (type.compare(session, max, value, opType) < 0) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.SMALLER :
+                        if (type.compare(session, min, value, opType) >= 0) {
+                            return true;
+                        }
+                        break;
+
+                    case OpTypes.SMALLER_EQUAL :
+                        if (type.compare(session, min, value, opType) > 0) {
+                            return true;
+                        }
+                        break;
+                }
+            }
+
+            return false;
+        }
+    }
+}
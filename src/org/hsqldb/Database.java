@@ -31,6 +31,11 @@
 
 package org.hsqldb;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.dbinfo.DatabaseInformation;
 import org.hsqldb.error.Error;
@@ -112,6 +117,7 @@ public class Database {
     public boolean                sqlDoubleNaN           = true;
     public boolean                sqlLongvarIsLob        = false;
     public boolean                sqlIgnoreCase          = false;
+    public boolean                sqlParameterize        = false;
     public boolean                sqlSyntaxDb2           = false;
     public boolean                sqlSyntaxMss           = false;
     public boolean                sqlSyntaxMys           = false;
@@ -122,6 +128,7 @@ public class Database {
     public HsqlDatabaseProperties databaseProperties;
     private final boolean         shutdownOnNoConnection;
     int                           resultMaxMemoryRows;
+    public ResultCache            resultCache;
 
     // schema invarient objects
     public UserManager     userManager;
@@ -133,6 +140,7 @@ public class Database {
     public TransactionManager txManager;
     public int defaultIsolationLevel = SessionInterface.TX_READ_COMMITTED;
     public boolean            txConflictRollback = true;
+    public int                txRowLockLimit     = 0;
 
     // schema objects
     public SchemaManager schemaManager;
@@ -143,9 +151,13 @@ public class Database {
     //
     public LobManager lobManager;
 
+    //
+    public ChangeManager changeManager;
+
     //
     public CheckpointRunner checkpointRunner;
     public TimeoutRunner    timeoutRunner;
+    public TriggerRunner    triggerRunner;
 
     //
     Result updateZeroResult = Result.updateZeroResult;
@@ -229,6 +241,9 @@ public class Database {
             collation              = collation.newDatabaseInstance();
             dbInfo = DatabaseInformation.newDatabaseInformation(this);
             txManager              = new TransactionManager2PL(this);
+            resultCache            = new ResultCache(this);
+            triggerRunner          = new TriggerRunner();
+            changeManager          = new ChangeManager(this);
 
             lobManager.createSchema();
             sessionManager.getSysLobSession().setSchema(
@@ -291,6 +306,14 @@ public class Database {
             timeoutRunner.stop();
         }
 
+        if (triggerRunner != null) {
+            triggerRunner.stop();
+        }
+
+        if (changeManager != null) {
+            changeManager.close();
+        }
+
         lobManager       = null;
         granteeManager   = null;
         userManager      = null;
@@ -528,6 +551,10 @@ public class Database {
         sqlIgnoreCase = mode;
     }
 
+    public void setParameterize(boolean mode) {
+        sqlParameterize = mode;
+    }
+
     public void setSyntaxDb2(boolean mode) {
         sqlSyntaxDb2 = mode;
     }
@@ -825,6 +852,19 @@ public class Database {
         return timeoutRunner;
     }
 
+    /**
+     * Registers a listener for the row changes of committed transactions.
+     * If position is not negative, the changes after the position that are
+     * still retained are reported first.
+     */
+    public void addChangeListener(ChangeListener listener, long position) {
+        changeManager.addListener(listener, position);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeManager.removeListener(listener);
+    }
+
     class CheckpointRunner implements Runnable {
 
         private volatile boolean waiting;
@@ -945,4 +985,61 @@ public class Database {
             }
         }
     }
+
+    /**
+     * Shared pool of threads that fire the Java triggers declared with a
+     * queue. The number of threads is set with the hsqldb.trigger_threads
+     * connection property.
+     */
+    class TriggerRunner {
+
+        private ExecutorService executor;
+
+        /**
+         * Returns false if the task cannot be accepted as the database
+         * is closing.
+         */
+        synchronized boolean execute(Runnable task) {
+
+            if (executor == null) {
+                int threads = urlProperties.getIntegerProperty(
+                    HsqlDatabaseProperties.hsqldb_trigger_threads, 4);
+
+                if (threads < 1) {
+                    threads = 1;
+                }
+
+                executor = Executors.newFixedThreadPool(threads,
+                        new ThreadFactory() {
+
+                    public Thread newThread(Runnable r) {
+
+                        Thread thread = new Thread(r, "HSQLDB Trigger "
+                                                   + getUniqueName());
+
+                        thread.setDaemon(true);
+
+                        return thread;
+                    }
+                });
+            }
+
+            try {
+                executor.execute(task);
+
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        synchronized void stop() {
+
+            if (executor != null) {
+                executor.shutdownNow();
+
+                executor = null;
+            }
+        }
+    }
 }
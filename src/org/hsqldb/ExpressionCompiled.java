@@ -0,0 +1,89 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+/**
+ * Wrapper for an expression compiled by ExpressionCompiler.<p>
+ *
+ * The generated evaluator is used when expression compilation is enabled
+ * for the executing session, otherwise the original expression is evaluated.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ExpressionCompiled extends Expression {
+
+    final Expression                   expression;
+    final ExpressionCompiler.Evaluator evaluator;
+
+    ExpressionCompiled(Expression expression,
+                       ExpressionCompiler.Evaluator evaluator) {
+
+        super(expression.opType);
+
+        this.expression = expression;
+        this.evaluator  = evaluator;
+        nodes           = expression.nodes;
+        dataType        = expression.dataType;
+        exprSubType     = expression.exprSubType;
+        nullability     = expression.nullability;
+    }
+
+    public Object getValue(Session session) {
+
+        if (ExpressionCompiler.isEnabled(session)) {
+            return evaluator.getValue(session);
+        }
+
+        return expression.getValue(session);
+    }
+
+    public String getSQL() {
+        return expression.getSQL();
+    }
+
+    protected String describe(Session session, int blanks) {
+        return expression.describe(session, blanks);
+    }
+
+    /**
+     * The generated code references the original nodes, therefore the
+     * original expression is returned after replacement.
+     */
+    Expression replaceColumnReferences(RangeVariable range,
+                                       Expression[] list) {
+        return expression.replaceColumnReferences(range, list);
+    }
+}
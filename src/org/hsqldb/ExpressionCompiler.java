@@ -0,0 +1,894 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ClassFileWriter;
+import org.hsqldb.lib.HashMap;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.StringConverter;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
+
+/**
+ * Compiles resolved expression trees into generated JVM classes.<p>
+ *
+ * Boolean operations, comparisons and arithmetic on INTEGER, BIGINT, DOUBLE
+ * and BOOLEAN values are compiled to primitive operations. Intermediate
+ * values are not boxed and three-valued logic is represented with int
+ * values. All other nodes, including columns and parameters, are evaluated
+ * by the interpreter via Expression.getValue(Session) and their values are
+ * unboxed. The generated code follows the order of evaluation, null handling
+ * and exceptions of the interpreted expressions.<p>
+ *
+ * The generated code depends only on the shape of the expression: the
+ * operations, their types and the positions of the interpreted nodes. One
+ * class is generated for each shape and is shared by all the expressions
+ * with the same shape, including those of recompiled statements. The nodes
+ * of each expression are held by its own Evaluator instance. The number of
+ * generated classes is limited and expressions with new shapes are no
+ * longer compiled once the limit is reached.<p>
+ *
+ * Compilation is enabled for a session with
+ * SET SESSION FEATURE H901_04 TRUE.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public final class ExpressionCompiler {
+
+    /** session optimisation bit for this feature */
+    static final int sessionFeature = 16;
+
+    //
+    static final int KIND_NONE    = 0;
+    static final int KIND_INT     = 1;
+    static final int KIND_LONG    = 2;
+    static final int KIND_DOUBLE  = 3;
+    static final int KIND_BOOLEAN = 4;
+
+    // three-valued logic
+    static final int FALSE   = 0;
+    static final int TRUE    = 1;
+    static final int UNKNOWN = 2;
+
+    //
+    static final String compilerClass   = "org/hsqldb/ExpressionCompiler";
+    static final String evaluatorClass  = "org/hsqldb/ExpressionCompiler$Evaluator";
+    static final String expressionClass = "org/hsqldb/Expression";
+    static final String getValueDescriptor =
+        "(Lorg/hsqldb/Session;)Ljava/lang/Object;";
+    static final String generatedPackage = "org/hsqldb/gen/Evaluator";
+    static final int    maxClassCount    = 1024;
+
+    // generated classes by the code generated for a shape
+    private static final HashMap         classMap = new HashMap();
+    private static final EvaluatorLoader loader   = new EvaluatorLoader();
+
+    //
+    private final ClassFileWriter writer;
+    private final HsqlArrayList   leaves = new HsqlArrayList();
+    private int                   nodesLocal;
+    private int                   nullLocal;
+
+    private ExpressionCompiler(String className) {
+        writer = new ClassFileWriter(className, evaluatorClass);
+    }
+
+    /**
+     * Returns the number of generated classes, which is limited to
+     * maxClassCount for the lifetime of the JVM.
+     */
+    public static int getClassCount() {
+
+        synchronized (classMap) {
+            return classMap.size();
+        }
+    }
+
+    static boolean isEnabled(Session session) {
+        return (session.sessionOptimization & sessionFeature) != 0;
+    }
+
+    /**
+     * Returns an ExpressionCompiled wrapper for the expression, or the
+     * expression itself if it is null, has no operations that can be
+     * compiled or the generated class cannot be loaded.
+     */
+    static Expression compile(Session session, Expression e) {
+
+        if (e == null || e instanceof ExpressionCompiled) {
+            return e;
+        }
+
+        boolean isBoolean = isLogical(e) || isComparison(e);
+
+        if (!isBoolean && !isArithmetic(e)) {
+            return e;
+        }
+
+        try {
+            ExpressionCompiler compiler =
+                new ExpressionCompiler(generatedPackage);
+            String shape =
+                StringConverter.byteArrayToHexString(compiler.generate(e,
+                    isBoolean));
+            Class cls;
+
+            synchronized (classMap) {
+                cls = (Class) classMap.get(shape);
+
+                if (cls == null) {
+                    if (classMap.size() >= maxClassCount) {
+                        return e;
+                    }
+
+                    String className = generatedPackage + classMap.size();
+                    byte[] bytes = new ExpressionCompiler(className).generate(e,
+                        isBoolean);
+
+                    cls = loader.define(className.replace('/', '.'), bytes);
+
+                    classMap.put(shape, cls);
+                }
+            }
+
+            Evaluator evaluator =
+                (Evaluator) cls.getDeclaredConstructor().newInstance();
+
+            evaluator.nodes = new Expression[compiler.leaves.size()];
+
+            compiler.leaves.toArray(evaluator.nodes);
+
+            return new ExpressionCompiled(e, evaluator);
+        } catch (Throwable t) {
+            return e;
+        }
+    }
+
+    private byte[] generate(Expression e, boolean isBoolean) {
+
+        writer.addDefaultConstructor();
+        writer.startMethod(ClassFileWriter.ACC_PUBLIC, "getValue",
+                           getValueDescriptor);
+
+        nodesLocal = writer.newLocal(1);
+        nullLocal  = writer.newLocal(1);
+
+        writer.emitLocal(ClassFileWriter.ALOAD, 0);
+        writer.emitField(ClassFileWriter.GETFIELD, evaluatorClass, "nodes",
+                         "[Lorg/hsqldb/Expression;");
+        writer.emitLocal(ClassFileWriter.ASTORE, nodesLocal);
+        writer.emitInt(0);
+        writer.emitLocal(ClassFileWriter.ISTORE, nullLocal);
+
+        if (isBoolean) {
+            emitBoolean(e);
+            writer.emitMethod(ClassFileWriter.INVOKESTATIC, compilerClass,
+                              "toBoolean", "(I)Ljava/lang/Object;");
+        } else {
+            int                   kind   = getKind(e.dataType);
+            ClassFileWriter.Label isNull = writer.newLabel();
+
+            emitNumber(e, kind);
+            writer.emitLocal(ClassFileWriter.ILOAD, nullLocal);
+            writer.emitJump(ClassFileWriter.IFNE, isNull);
+
+            switch (kind) {
+
+                case KIND_INT :
+                    writer.emitMethod(ClassFileWriter.INVOKESTATIC,
+                                      "org/hsqldb/map/ValuePool", "getInt",
+                                      "(I)Ljava/lang/Integer;");
+                    break;
+
+                case KIND_LONG :
+                    writer.emitMethod(ClassFileWriter.INVOKESTATIC,
+                                      "org/hsqldb/map/ValuePool", "getLong",
+                                      "(J)Ljava/lang/Long;");
+                    break;
+
+                case KIND_DOUBLE :
+                    writer.emitMethod(ClassFileWriter.INVOKESTATIC,
+                                      "java/lang/Double", "doubleToLongBits",
+                                      "(D)J");
+                    writer.emitMethod(ClassFileWriter.INVOKESTATIC,
+                                      "org/hsqldb/map/ValuePool", "getDouble",
+                                      "(J)Ljava/lang/Double;");
+                    break;
+            }
+
+            writer.emit(ClassFileWriter.ARETURN);
+            writer.markLabel(isNull);
+            writer.emit(kind == KIND_INT ? ClassFileWriter.POP
+                                         : ClassFileWriter.POP2);
+            writer.emit(ClassFileWriter.ACONST_NULL);
+        }
+
+        writer.emit(ClassFileWriter.ARETURN);
+        writer.endMethod();
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Leaves an int FALSE, TRUE or UNKNOWN on the stack
+     */
+    private void emitBoolean(Expression e) {
+
+        if (isLogical(e)) {
+            ClassFileWriter.Label next = writer.newLabel();
+            ClassFileWriter.Label end  = writer.newLabel();
+
+            switch (e.opType) {
+
+                case OpTypes.AND :
+                    emitBoolean(e.nodes[Expression.LEFT]);
+                    writer.emit(ClassFileWriter.DUP);
+                    writer.emitJump(ClassFileWriter.IFNE, next);
+                    writer.emitJump(ClassFileWriter.GOTO, end);
+                    writer.markLabel(next);
+                    emitBoolean(e.nodes[Expression.RIGHT]);
+                    emitHelper("and", "(II)I");
+                    writer.markLabel(end);
+
+                    return;
+
+                case OpTypes.OR :
+                    emitBoolean(e.nodes[Expression.LEFT]);
+                    writer.emit(ClassFileWriter.DUP);
+                    writer.emitInt(TRUE);
+                    writer.emitJump(ClassFileWriter.IF_ICMPNE, next);
+                    writer.emitJump(ClassFileWriter.GOTO, end);
+                    writer.markLabel(next);
+                    emitBoolean(e.nodes[Expression.RIGHT]);
+                    emitHelper("or", "(II)I");
+                    writer.markLabel(end);
+
+                    return;
+
+                case OpTypes.NOT :
+                    emitBoolean(e.nodes[Expression.LEFT]);
+                    emitHelper("not", "(I)I");
+
+                    return;
+
+                case OpTypes.IS_NULL :
+                    emitLeaf(e.nodes[Expression.LEFT]);
+                    emitHelper("isNull", "(Ljava/lang/Object;)I");
+
+                    return;
+
+                case OpTypes.IS_NOT_NULL :
+                    emitLeaf(e.nodes[Expression.LEFT]);
+                    emitHelper("isNotNull", "(Ljava/lang/Object;)I");
+
+                    return;
+            }
+        }
+
+        if (isComparison(e)) {
+            int leftKind  = getOperandKind(e.nodes[Expression.LEFT]);
+            int rightKind = getOperandKind(e.nodes[Expression.RIGHT]);
+            int kind      = KIND_DOUBLE;
+            String helper = "compareDouble";
+
+            // follows NumberType.compare(Session, Object, Object)
+            if (leftKind == KIND_INT) {
+                if (rightKind == KIND_INT) {
+                    kind   = KIND_INT;
+                    helper = "compareInt";
+                } else if (rightKind == KIND_LONG) {
+                    kind   = KIND_LONG;
+                    helper = "compareLong";
+                } else {
+                    helper = "compareDoubleSimple";
+                }
+            } else if (leftKind == KIND_LONG && rightKind == KIND_LONG) {
+                kind   = KIND_LONG;
+                helper = "compareLong";
+            }
+
+            String descriptor = kind == KIND_INT ? "(II)I"
+                                                 : kind == KIND_LONG
+                                                   ? "(JJ)I"
+                                                   : "(DD)I";
+
+            writer.emitInt(0);
+            writer.emitLocal(ClassFileWriter.ISTORE, nullLocal);
+            emitNumber(e.nodes[Expression.LEFT], kind);
+            emitNumber(e.nodes[Expression.RIGHT], kind);
+            emitHelper(helper, descriptor);
+            writer.emitLocal(ClassFileWriter.ILOAD, nullLocal);
+            writer.emitInt(e.opType);
+            emitHelper("result", "(III)I");
+
+            return;
+        }
+
+        emitLeaf(e);
+        emitHelper("toTriState", "(Ljava/lang/Object;)I");
+    }
+
+    /**
+     * Leaves a primitive value of the given kind on the stack. When the SQL
+     * value is null, a zero value is used and the null local is set.
+     */
+    private void emitNumber(Expression e, int kind) {
+
+        if (isArithmetic(e)) {
+            int        nodeKind = getKind(e.dataType);
+            Expression left     = e.nodes[Expression.LEFT];
+            Expression right    = e.nodes[Expression.RIGHT];
+
+            if (e.opType == OpTypes.DIVIDE) {
+
+                // division by zero is an exception only when both operands
+                // are not null
+                int saved = writer.newLocal(1);
+
+                writer.emitLocal(ClassFileWriter.ILOAD, nullLocal);
+                writer.emitLocal(ClassFileWriter.ISTORE, saved);
+                writer.emitInt(0);
+                writer.emitLocal(ClassFileWriter.ISTORE, nullLocal);
+                emitNumber(left, nodeKind);
+                emitNumber(right, nodeKind);
+                writer.emitLocal(ClassFileWriter.ILOAD, nullLocal);
+
+                switch (nodeKind) {
+
+                    case KIND_INT :
+                        emitHelper("divideInt", "(III)I");
+                        break;
+
+                    case KIND_LONG :
+                        emitHelper("divideLong", "(JJI)J");
+                        break;
+
+                    case KIND_DOUBLE :
+                        writer.emitLocal(ClassFileWriter.ALOAD, 1);
+                        emitHelper("divideDouble",
+                                   "(DDILorg/hsqldb/Session;)D");
+                        break;
+                }
+
+                writer.emitLocal(ClassFileWriter.ILOAD, nullLocal);
+                writer.emitLocal(ClassFileWriter.ILOAD, saved);
+                writer.emit(ClassFileWriter.IOR);
+                writer.emitLocal(ClassFileWriter.ISTORE, nullLocal);
+            } else {
+                emitNumber(left, nodeKind);
+                emitNumber(right, nodeKind);
+                writer.emit(getArithmeticOpcode(e.opType, nodeKind));
+            }
+
+            emitConversion(nodeKind, kind);
+
+            return;
+        }
+
+        if (e.opType == OpTypes.VALUE && e.valueData instanceof Number) {
+            Number value = (Number) e.valueData;
+
+            switch (kind) {
+
+                case KIND_INT :
+                    writer.emitInt(value.intValue());
+                    break;
+
+                case KIND_LONG :
+                    writer.emitLong(value.longValue());
+                    break;
+
+                case KIND_DOUBLE :
+                    writer.emitDouble(value.doubleValue());
+                    break;
+            }
+
+            return;
+        }
+
+        ClassFileWriter.Label notNull = writer.newLabel();
+        ClassFileWriter.Label end     = writer.newLabel();
+
+        emitLeaf(e);
+        writer.emit(ClassFileWriter.DUP);
+        writer.emitJump(ClassFileWriter.IFNONNULL, notNull);
+        writer.emit(ClassFileWriter.POP);
+        writer.emitInt(1);
+        writer.emitLocal(ClassFileWriter.ISTORE, nullLocal);
+
+        switch (kind) {
+
+            case KIND_INT :
+                writer.emitInt(0);
+                break;
+
+            case KIND_LONG :
+                writer.emitLong(0);
+                break;
+
+            case KIND_DOUBLE :
+                writer.emitDouble(0);
+                break;
+        }
+
+        writer.emitJump(ClassFileWriter.GOTO, end);
+        writer.markLabel(notNull);
+        writer.emitType(ClassFileWriter.CHECKCAST, "java/lang/Number");
+
+        switch (kind) {
+
+            case KIND_INT :
+                writer.emitMethod(ClassFileWriter.INVOKEVIRTUAL,
+                                  "java/lang/Number", "intValue", "()I");
+                break;
+
+            case KIND_LONG :
+                writer.emitMethod(ClassFileWriter.INVOKEVIRTUAL,
+                                  "java/lang/Number", "longValue", "()J");
+                break;
+
+            case KIND_DOUBLE :
+                writer.emitMethod(ClassFileWriter.INVOKEVIRTUAL,
+                                  "java/lang/Number", "doubleValue", "()D");
+                break;
+        }
+
+        writer.markLabel(end);
+    }
+
+    /**
+     * Leaves the value of an interpreted node on the stack
+     */
+    private void emitLeaf(Expression e) {
+
+        int index = leaves.size();
+
+        leaves.add(e);
+        writer.emitLocal(ClassFileWriter.ALOAD, nodesLocal);
+        writer.emitInt(index);
+        writer.emit(ClassFileWriter.AALOAD);
+        writer.emitLocal(ClassFileWriter.ALOAD, 1);
+        writer.emitMethod(ClassFileWriter.INVOKEVIRTUAL, expressionClass,
+                          "getValue", getValueDescriptor);
+    }
+
+    private void emitHelper(String name, String descriptor) {
+        writer.emitMethod(ClassFileWriter.INVOKESTATIC, compilerClass, name,
+                          descriptor);
+    }
+
+    private void emitConversion(int from, int to) {
+
+        if (from == to) {
+            return;
+        }
+
+        switch (from) {
+
+            case KIND_INT :
+                writer.emit(to == KIND_LONG ? ClassFileWriter.I2L
+                                            : ClassFileWriter.I2D);
+                break;
+
+            case KIND_LONG :
+                writer.emit(to == KIND_INT ? ClassFileWriter.L2I
+                                           : ClassFileWriter.L2D);
+                break;
+
+            case KIND_DOUBLE :
+                writer.emit(to == KIND_INT ? ClassFileWriter.D2I
+                                           : ClassFileWriter.D2L);
+                break;
+        }
+    }
+
+    private static int getArithmeticOpcode(int opType, int kind) {
+
+        int offset = kind == KIND_INT ? 0
+                                      : kind == KIND_LONG ? 1
+                                                          : 3;
+
+        switch (opType) {
+
+            case OpTypes.ADD :
+                return ClassFileWriter.IADD + offset;
+
+            case OpTypes.SUBTRACT :
+                return ClassFileWriter.ISUB + offset;
+
+            case OpTypes.MULTIPLY :
+                return ClassFileWriter.IMUL + offset;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionCompiler");
+        }
+    }
+
+    static int getKind(Type type) {
+
+        if (type == null) {
+            return KIND_NONE;
+        }
+
+        switch (type.typeCode) {
+
+            case Types.TINYINT :
+            case Types.SQL_SMALLINT :
+            case Types.SQL_INTEGER :
+                return KIND_INT;
+
+            case Types.SQL_BIGINT :
+                return KIND_LONG;
+
+            case Types.SQL_REAL :
+            case Types.SQL_FLOAT :
+            case Types.SQL_DOUBLE :
+                return KIND_DOUBLE;
+
+            case Types.SQL_BOOLEAN :
+                return KIND_BOOLEAN;
+
+            default :
+                return KIND_NONE;
+        }
+    }
+
+    /**
+     * Returns the numeric kind of an operand, or KIND_NONE if the operand
+     * may return a row value
+     */
+    static int getOperandKind(Expression e) {
+
+        switch (e.opType) {
+
+            case OpTypes.ROW :
+            case OpTypes.ROW_SUBQUERY :
+            case OpTypes.TABLE_SUBQUERY :
+                return KIND_NONE;
+        }
+
+        int kind = getKind(e.dataType);
+
+        return kind == KIND_BOOLEAN ? KIND_NONE
+                                    : kind;
+    }
+
+    static boolean isLogical(Expression e) {
+
+        if (!(e instanceof ExpressionLogical)) {
+            return false;
+        }
+
+        switch (e.opType) {
+
+            case OpTypes.AND :
+            case OpTypes.OR :
+            case OpTypes.NOT :
+                return true;
+
+            case OpTypes.IS_NULL :
+            case OpTypes.IS_NOT_NULL :
+                switch (e.nodes[Expression.LEFT].opType) {
+
+                    case OpTypes.ROW :
+                    case OpTypes.ROW_SUBQUERY :
+                    case OpTypes.TABLE_SUBQUERY :
+                        return false;
+                }
+
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+    static boolean isComparison(Expression e) {
+
+        if (!(e instanceof ExpressionLogical)) {
+            return false;
+        }
+
+        switch (e.opType) {
+
+            case OpTypes.EQUAL :
+            case OpTypes.GREATER :
+            case OpTypes.GREATER_EQUAL :
+            case OpTypes.GREATER_EQUAL_PRE :
+            case OpTypes.SMALLER_EQUAL :
+            case OpTypes.SMALLER :
+            case OpTypes.NOT_EQUAL :
+                break;
+
+            default :
+                return false;
+        }
+
+        if (e.exprSubType == OpTypes.ANY_QUANTIFIED
+                || e.exprSubType == OpTypes.ALL_QUANTIFIED) {
+            return false;
+        }
+
+        int leftKind  = getOperandKind(e.nodes[Expression.LEFT]);
+        int rightKind = getOperandKind(e.nodes[Expression.RIGHT]);
+
+        if (leftKind == KIND_NONE || rightKind == KIND_NONE) {
+            return false;
+        }
+
+        // BIGINT with DOUBLE is compared as BigDecimal
+        return !(leftKind == KIND_LONG && rightKind == KIND_DOUBLE);
+    }
+
+    static boolean isArithmetic(Expression e) {
+
+        if (!(e instanceof ExpressionArithmetic)) {
+            return false;
+        }
+
+        switch (e.opType) {
+
+            case OpTypes.ADD :
+            case OpTypes.SUBTRACT :
+            case OpTypes.MULTIPLY :
+            case OpTypes.DIVIDE :
+                break;
+
+            default :
+                return false;
+        }
+
+        int kind = getKind(e.dataType);
+
+        if (kind == KIND_NONE || kind == KIND_BOOLEAN) {
+            return false;
+        }
+
+        return getOperandKind(e.nodes[Expression.LEFT]) != KIND_NONE
+               && getOperandKind(e.nodes[Expression.RIGHT]) != KIND_NONE;
+    }
+
+    // runtime methods called from generated code
+    public static int toTriState(Object value) {
+
+        if (value == null) {
+            return UNKNOWN;
+        }
+
+        return ((Boolean) value).booleanValue() ? TRUE
+                                                : FALSE;
+    }
+
+    public static Object toBoolean(int value) {
+
+        switch (value) {
+
+            case FALSE :
+                return Boolean.FALSE;
+
+            case TRUE :
+                return Boolean.TRUE;
+
+            default :
+                return null;
+        }
+    }
+
+    /**
+     * Called only when left is TRUE or UNKNOWN
+     */
+    public static int and(int left, int right) {
+
+        if (right == FALSE) {
+            return FALSE;
+        }
+
+        return left == UNKNOWN || right == UNKNOWN ? UNKNOWN
+                                                   : TRUE;
+    }
+
+    /**
+     * Called only when left is FALSE or UNKNOWN
+     */
+    public static int or(int left, int right) {
+
+        if (right == TRUE) {
+            return TRUE;
+        }
+
+        return left == UNKNOWN || right == UNKNOWN ? UNKNOWN
+                                                   : FALSE;
+    }
+
+    public static int not(int value) {
+
+        return value == UNKNOWN ? UNKNOWN
+                                : TRUE - value;
+    }
+
+    public static int isNull(Object value) {
+
+        return value == null ? TRUE
+                             : FALSE;
+    }
+
+    public static int isNotNull(Object value) {
+
+        return value == null ? FALSE
+                             : TRUE;
+    }
+
+    public static int compareInt(int a, int b) {
+
+        return (a > b) ? 1
+                       : (b > a ? -1
+                                : 0);
+    }
+
+    public static int compareLong(long a, long b) {
+
+        return (a > b) ? 1
+                       : (b > a ? -1
+                                : 0);
+    }
+
+    public static int compareDoubleSimple(double a, double b) {
+
+        return (a > b) ? 1
+                       : (b > a ? -1
+                                : 0);
+    }
+
+    public static int compareDouble(double a, double b) {
+
+        if (Double.isNaN(a)) {
+            return Double.isNaN(b) ? 0
+                                   : -1;
+        }
+
+        if (Double.isNaN(b)) {
+            return 1;
+        }
+
+        return Double.compare(a, b);
+    }
+
+    public static int result(int compare, int isNull, int opType) {
+
+        if (isNull != 0) {
+            return UNKNOWN;
+        }
+
+        boolean result;
+
+        switch (opType) {
+
+            case OpTypes.EQUAL :
+                result = compare == 0;
+                break;
+
+            case OpTypes.NOT_EQUAL :
+                result = compare != 0;
+                break;
+
+            case OpTypes.GREATER :
+                result = compare > 0;
+                break;
+
+            case OpTypes.GREATER_EQUAL :
+            case OpTypes.GREATER_EQUAL_PRE :
+                result = compare >= 0;
+                break;
+
+            case OpTypes.SMALLER_EQUAL :
+                result = compare <= 0;
+                break;
+
+            case OpTypes.SMALLER :
+                result = compare < 0;
+                break;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500,
+                                         "ExpressionCompiler");
+        }
+
+        return result ? TRUE
+                      : FALSE;
+    }
+
+    public static int divideInt(int a, int b, int isNull) {
+
+        if (b == 0) {
+            if (isNull == 0) {
+                throw Error.error(ErrorCode.X_22012);
+            }
+
+            return 0;
+        }
+
+        return a / b;
+    }
+
+    public static long divideLong(long a, long b, int isNull) {
+
+        if (b == 0) {
+            if (isNull == 0) {
+                throw Error.error(ErrorCode.X_22012);
+            }
+
+            return 0;
+        }
+
+        return a / b;
+    }
+
+    public static double divideDouble(double a, double b, int isNull,
+                                      Session session) {
+
+        if (b == 0 && isNull == 0
+                && (session == null || session.database.sqlDoubleNaN)) {
+            throw Error.error(ErrorCode.X_22012);
+        }
+
+        return a / b;
+    }
+
+    /**
+     * Superclass of generated classes. The nodes array holds the nodes that
+     * are evaluated by the interpreter.
+     */
+    public abstract static class Evaluator {
+
+        protected Expression[] nodes;
+
+        public abstract Object getValue(Session session);
+    }
+
+    static final class EvaluatorLoader extends ClassLoader {
+
+        EvaluatorLoader() {
+            super(ExpressionCompiler.class.getClassLoader());
+        }
+
+        Class define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
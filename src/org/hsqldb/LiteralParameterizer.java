@@ -0,0 +1,314 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb;
+
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.types.Type;
+
+/**
+ * Replaces literals in the text of a directly executed SQL statement with
+ * dynamic parameters.<p>
+ *
+ * Statements that differ only in the values of such literals share the same
+ * normalized text and can reuse the same compiled statement. Only number and
+ * character string literals are replaced, and only where the type of the
+ * parameter is derived from the other side of the operation: the right side
+ * of a comparison operator that is followed by the end of the condition, and
+ * the elements of IN and VALUES lists. Other literals, including those in
+ * arithmetic expressions, in the select list and after a minus sign, are kept
+ * as part of the text.<p>
+ *
+ * Before execution, each literal is converted to the type of its parameter.
+ * If the conversion is not exact, the values cannot be used with the compiled
+ * statement and the original text must be compiled instead.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+final class LiteralParameterizer {
+
+    static final int maxBracketDepth = 32;
+    static final int NO_LIST         = 0;
+    static final int IN_LIST         = 1;
+    static final int VALUES_LIST     = 2;
+
+    //
+    private final Session  session;
+    private final Scanner  scanner;
+    private StringBuffer   sb          = new StringBuffer();
+    private HsqlArrayList  values      = new HsqlArrayList();
+    private HsqlArrayList  types       = new HsqlArrayList();
+    private int[]          listBracket = new int[maxBracketDepth];
+    private String         sql;
+
+    LiteralParameterizer(Session session) {
+        this.session = session;
+        this.scanner = new Scanner(session);
+    }
+
+    /**
+     * Scans the SQL text and replaces the literals. Returns false if no
+     * literal was replaced or if the statement is not suitable.
+     */
+    boolean parameterize(String sqlString) {
+
+        sb.setLength(0);
+        values.clear();
+        types.clear();
+
+        sql = null;
+
+        scanner.reset(sqlString);
+
+        int     copied          = 0;
+        int     previous        = Tokens.X_STARTPARSE;
+        int     depth           = 0;
+        boolean afterValuesRow  = false;
+        int     literalStart    = -1;
+        int     literalEnd      = -1;
+        boolean literalInList   = false;
+        Object  literalValue    = null;
+        Type    literalType     = null;
+
+        while (true) {
+            scanner.scanNext();
+
+            Token token = scanner.getToken();
+            int   type  = token.tokenType;
+
+            if (token.isMalformed || token.isHostParameter) {
+                return false;
+            }
+
+            switch (type) {
+
+                case Tokens.X_REMARK :
+                    continue;
+                case Tokens.QUESTION :
+                case Tokens.SEMICOLON :
+                    return false;
+            }
+
+            if (literalStart >= 0) {
+                boolean replace = literalInList
+                                  ? type == Tokens.COMMA
+                                    || type == Tokens.CLOSEBRACKET
+                                  : isConditionEnd(type);
+
+                if (replace) {
+                    sb.append(sqlString, copied, literalStart);
+                    sb.append(Tokens.T_QUESTION);
+
+                    copied = literalEnd;
+
+                    values.add(literalValue);
+                    types.add(literalType);
+                }
+
+                literalStart = -1;
+            }
+
+            if (type == Tokens.X_ENDPARSE) {
+                break;
+            }
+
+            if (type == Tokens.X_VALUE && token.dataType != null
+                    && (token.dataType.isNumberType()
+                        || token.dataType.isCharacterType())) {
+                boolean inList = (previous == Tokens.COMMA
+                                  || previous == Tokens.OPENBRACKET)
+                                 && depth > 0
+                                 && listBracket[depth - 1] != NO_LIST;
+
+                if (inList || isComparison(previous)) {
+                    literalStart  = scanner.getTokenPosition();
+                    literalEnd    = scanner.currentPosition;
+                    literalInList = inList;
+                    literalValue  = token.tokenValue;
+                    literalType   = token.dataType;
+                }
+            }
+
+            switch (type) {
+
+                case Tokens.OPENBRACKET :
+                    if (depth == maxBracketDepth) {
+                        return false;
+                    }
+
+                    if (previous == Tokens.IN) {
+                        listBracket[depth] = IN_LIST;
+                    } else if (previous == Tokens.VALUES
+                               || (previous == Tokens.COMMA
+                                   && afterValuesRow)) {
+                        listBracket[depth] = VALUES_LIST;
+                    } else {
+                        listBracket[depth] = NO_LIST;
+                    }
+
+                    depth++;
+
+                    afterValuesRow = false;
+                    break;
+
+                case Tokens.CLOSEBRACKET :
+                    if (depth == 0) {
+                        return false;
+                    }
+
+                    depth--;
+
+                    afterValuesRow = listBracket[depth] == VALUES_LIST;
+                    break;
+
+                case Tokens.COMMA :
+                    break;
+
+                default :
+                    afterValuesRow = false;
+            }
+
+            previous = type;
+        }
+
+        if (values.isEmpty()) {
+            return false;
+        }
+
+        sb.append(sqlString, copied, sqlString.length());
+
+        sql = sb.toString();
+
+        return true;
+    }
+
+    /**
+     * Returns the normalized text.
+     */
+    String getSQL() {
+        return sql;
+    }
+
+    /**
+     * Returns the literal values converted to the given parameter types, or
+     * null if a value cannot be represented exactly in its parameter type.
+     */
+    Object[] getValues(Type[] parameterTypes) {
+
+        if (parameterTypes.length != values.size()) {
+            return null;
+        }
+
+        Object[] data = new Object[parameterTypes.length];
+
+        for (int i = 0; i < data.length; i++) {
+            Type   literalType   = (Type) types.get(i);
+            Type   parameterType = parameterTypes[i];
+            Object value         = values.get(i);
+
+            if (parameterType == null || parameterType.isLobType()) {
+                return null;
+            }
+
+            if (parameterType.equals(literalType)) {
+                data[i] = value;
+
+                continue;
+            }
+
+            try {
+                Object converted = parameterType.convertToType(session, value,
+                    literalType);
+                Object restored = literalType.convertToType(session,
+                    converted, parameterType);
+
+                if (literalType.compare(session, value, restored) != 0) {
+                    return null;
+                }
+
+                data[i] = converted;
+            } catch (HsqlException e) {
+                return null;
+            }
+        }
+
+        return data;
+    }
+
+    private static boolean isComparison(int type) {
+
+        switch (type) {
+
+            case Tokens.EQUALS :
+            case Tokens.NOT_EQUALS :
+            case Tokens.LESS :
+            case Tokens.LESS_EQUALS :
+            case Tokens.GREATER :
+            case Tokens.GREATER_EQUALS :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+    private static boolean isConditionEnd(int type) {
+
+        switch (type) {
+
+            case Tokens.X_ENDPARSE :
+            case Tokens.AND :
+            case Tokens.OR :
+            case Tokens.CLOSEBRACKET :
+            case Tokens.COMMA :
+            case Tokens.WHERE :
+            case Tokens.GROUP :
+            case Tokens.HAVING :
+            case Tokens.ORDER :
+            case Tokens.LIMIT :
+            case Tokens.OFFSET :
+            case Tokens.FETCH :
+            case Tokens.UNION :
+            case Tokens.EXCEPT :
+            case Tokens.INTERSECT :
+            case Tokens.THEN :
+            case Tokens.WHEN :
+            case Tokens.ELSE :
+            case Tokens.END :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+}
@@ -0,0 +1,888 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb;
+
+import org.hsqldb.HsqlNameManager.HsqlName;
+import org.hsqldb.RangeVariable.RangeIteratorBase;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.HashMap;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.lib.OrderedIntHashSet;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.navigator.RowSetNavigator;
+import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.result.Result;
+import org.hsqldb.types.Type;
+
+/**
+ * Represents an SQL MATERIALIZED VIEW. The rows of the view are stored in a
+ * MEMORY or CACHED table.<p>
+ *
+ * A view over a single base table, with a select list of expressions, or
+ * with COUNT and SUM aggregates grouped by the other columns of the view, is
+ * maintained when a transaction that changes the base table commits. Other
+ * views are brought up to date with REFRESH MATERIALIZED VIEW.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class MaterializedView extends Table {
+
+    static final int MAINTAIN_NONE      = 0;
+    static final int MAINTAIN_SELECT    = 1;
+    static final int MAINTAIN_AGGREGATE = 2;
+
+    //
+    static final int ROLE_KEY       = 0;
+    static final int ROLE_COUNT_ALL = 1;
+    static final int ROLE_COUNT     = 2;
+    static final int ROLE_SUM       = 3;
+
+    //
+    static final OrderedIntHashSet maintenanceExcludedSet =
+        new OrderedIntHashSet();
+
+    static {
+        maintenanceExcludedSet.add(OpTypes.ROW_SUBQUERY);
+        maintenanceExcludedSet.add(OpTypes.TABLE_SUBQUERY);
+        maintenanceExcludedSet.add(OpTypes.ROWNUM);
+        maintenanceExcludedSet.add(OpTypes.SEQUENCE);
+    }
+
+    static final OrderedIntHashSet simpleColumnSet = new OrderedIntHashSet();
+
+    static {
+        simpleColumnSet.add(OpTypes.SIMPLE_COLUMN);
+    }
+
+    private String statement;
+
+    /**
+     * Names of SCHEMA objects referenced in the view
+     */
+    private OrderedHashSet schemaObjectNames;
+
+    /**
+     * Index used to find the rows of the view that correspond to a base row
+     */
+    private HsqlName keyIndexName;
+
+    //
+    private int           maintenanceType;
+    private Table         baseTable;
+    private RangeVariable baseRange;
+    private Expression    condition;
+    private Expression[]  columnExpressions;
+    private int[]         columnRoles;
+    private int[]         countColumns;
+    private int[]         keyColumns;
+    private int           countAllColumn;
+    private boolean       isGrouped;
+
+    MaterializedView(Database database, HsqlName name, int type,
+                     String statement) {
+
+        super(database, name, type);
+
+        this.statement = statement;
+    }
+
+    /**
+     * Used by moveDefinition() when the table structure changes
+     */
+    MaterializedView(MaterializedView view, HsqlName name, int type) {
+
+        super(view.database, name, type);
+
+        statement         = view.statement;
+        schemaObjectNames = view.schemaObjectNames;
+        keyIndexName      = view.keyIndexName;
+        maintenanceType   = view.maintenanceType;
+        baseTable         = view.baseTable;
+        baseRange         = view.baseRange;
+        condition         = view.condition;
+        columnExpressions = view.columnExpressions;
+        columnRoles       = view.columnRoles;
+        countColumns      = view.countColumns;
+        keyColumns        = view.keyColumns;
+        countAllColumn    = view.countAllColumn;
+        isGrouped         = view.isGrouped;
+    }
+
+    public boolean isMaterializedView() {
+        return true;
+    }
+
+    public OrderedHashSet getReferences() {
+        return schemaObjectNames;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public boolean isMaintained() {
+        return maintenanceType != MAINTAIN_NONE;
+    }
+
+    Table getMaintenanceBaseTable() {
+        return baseTable;
+    }
+
+    /**
+     * Compiles the query of the view and determines how the view can be
+     * maintained. The index used for maintenance is created the first time
+     * the view is compiled.
+     */
+    public void compile(Session session, SchemaObject parentObject) {
+
+        super.compile(session, parentObject);
+
+        ParserDQL p = new ParserDQL(session, new Scanner(statement), null);
+
+        p.read();
+
+        QueryExpression queryExpression = p.XreadQueryExpression();
+
+        queryExpression.setReturningResult();
+        queryExpression.resolve(session);
+
+        if (queryExpression.getColumnCount() != getColumnCount()) {
+            throw Error.error(ErrorCode.X_42593, getName().statementName);
+        }
+
+        Type[] types = queryExpression.getColumnTypes();
+
+        for (int i = 0; i < colTypes.length; i++) {
+            if (!colTypes[i].equals(types[i])) {
+                throw Error.error(ErrorCode.X_42561, getName().statementName);
+            }
+        }
+
+        schemaObjectNames = p.compileContext.getSchemaObjectNames();
+
+        setMaintenancePlan(session, queryExpression);
+
+        if (maintenanceType == MAINTAIN_NONE || keyColumns.length == 0) {
+            return;
+        }
+
+        if (keyIndexName == null) {
+            if (indexList.length > 1 || !isEmpty(session)) {
+                maintenanceType = MAINTAIN_NONE;
+
+                return;
+            }
+
+            keyIndexName = database.nameManager.newAutoName("IDX",
+                    getSchemaName(), getName(), SchemaObject.INDEX);
+
+            createIndex(session, keyIndexName, keyColumns, null, null, false,
+                        false, false);
+        } else {
+            Index index = getIndex(keyIndexName.name);
+
+            if (index == null
+                    || !ArrayUtil.areEqual(index.getColumns(), keyColumns,
+                                           keyColumns.length, true)) {
+                maintenanceType = MAINTAIN_NONE;
+            }
+        }
+    }
+
+    StatementQuery compileQuery(Session session) {
+
+        ParserDQL p = new ParserDQL(session, new Scanner(statement), null);
+
+        p.read();
+
+        QueryExpression queryExpression = p.XreadQueryExpression();
+
+        queryExpression.setReturningResult();
+        queryExpression.resolve(session);
+
+        return new StatementQuery(session, queryExpression, p.compileContext);
+    }
+
+    private void setMaintenancePlan(Session session,
+                                    QueryExpression queryExpression) {
+
+        maintenanceType   = MAINTAIN_NONE;
+        baseTable         = null;
+        baseRange         = null;
+        condition         = null;
+        columnExpressions = null;
+        columnRoles       = null;
+        countColumns      = null;
+        keyColumns        = null;
+        countAllColumn    = -1;
+        isGrouped         = false;
+
+        if (!(queryExpression instanceof QuerySpecification)) {
+            return;
+        }
+
+        QuerySpecification select = (QuerySpecification) queryExpression;
+
+        if (select.rangeVariables.length != 1 || select.isDistinctSelect
+                || select.hasHavingCondition()
+                || select.sortAndSlice.hasLimit()) {
+            return;
+        }
+
+        RangeVariable range = select.rangeVariables[0];
+        Table         table = range.getTable();
+
+        switch (table.getTableType()) {
+
+            case TableBase.MEMORY_TABLE :
+            case TableBase.CACHED_TABLE :
+                break;
+
+            default :
+                return;
+        }
+
+        if (table.isView() || table.isMaterializedView()) {
+            return;
+        }
+
+        for (int i = 0; i < colTypes.length; i++) {
+            if (colTypes[i].isLobType()) {
+                return;
+            }
+        }
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        select.collectAllExpressions(set, maintenanceExcludedSet,
+                                     Expression.emptyExpressionSet);
+
+        if (!set.isEmpty()) {
+            return;
+        }
+
+        select.collectAllExpressions(set, Expression.functionExpressionSet,
+                                     Expression.emptyExpressionSet);
+
+        for (int i = 0; i < set.size(); i++) {
+            Expression e = (Expression) set.get(i);
+
+            if (e.opType == OpTypes.FUNCTION) {
+                return;
+            }
+
+            if (!((FunctionSQL) e).isDeterministic()) {
+                return;
+            }
+        }
+
+        if (!isBaseRowExpression(select.queryCondition)) {
+            return;
+        }
+
+        int          columnCount = getColumnCount();
+        Expression[] expressions = new Expression[columnCount];
+        int[]        roles       = new int[columnCount];
+        int[]        counts      = new int[columnCount];
+        int          countAll    = -1;
+        int[]        keys        = new int[columnCount];
+        int          keyCount    = 0;
+
+        for (int i = 0; i < columnCount; i++) {
+            Expression e = select.exprColumns[i];
+
+            counts[i] = -1;
+
+            if (!e.isAggregate()) {
+                if (!isBaseRowExpression(e)) {
+                    return;
+                }
+
+                expressions[i]   = e;
+                roles[i]         = ROLE_KEY;
+                keys[keyCount++] = i;
+
+                continue;
+            }
+
+            // aggregates in the select list refer to the aggregate columns
+            if (e.opType != OpTypes.SIMPLE_COLUMN) {
+                return;
+            }
+
+            e = select.exprColumns[e.columnIndex];
+
+            if (!(e instanceof ExpressionAggregate)) {
+                return;
+            }
+
+            ExpressionAggregate aggregate = (ExpressionAggregate) e;
+
+            if (aggregate.isDistinctAggregate
+                    || aggregate.nodes[Expression.RIGHT]
+                       != Expression.EXPR_TRUE) {
+                return;
+            }
+
+            Expression argument = aggregate.nodes[Expression.LEFT];
+
+            switch (aggregate.opType) {
+
+                case OpTypes.COUNT :
+                    if (argument.opType == OpTypes.ASTERISK) {
+                        roles[i] = ROLE_COUNT_ALL;
+
+                        if (countAll == -1) {
+                            countAll = i;
+                        }
+
+                        continue;
+                    }
+
+                    roles[i] = ROLE_COUNT;
+                    break;
+
+                case OpTypes.SUM :
+                    if (!argument.getDataType().isExactNumberType()) {
+                        return;
+                    }
+
+                    roles[i] = ROLE_SUM;
+                    break;
+
+                default :
+                    return;
+            }
+
+            if (!isBaseRowExpression(argument)) {
+                return;
+            }
+
+            set.clear();
+            argument.collectAllExpressions(set, Expression.aggregateFunctionSet,
+                                           Expression.emptyExpressionSet);
+
+            if (!set.isEmpty()) {
+                return;
+            }
+
+            expressions[i] = argument;
+        }
+
+        if (select.isAggregated) {
+            if (countAll == -1) {
+                return;
+            }
+
+            // SUM is null when no row with a non-null argument is counted
+            for (int i = 0; i < columnCount; i++) {
+                if (roles[i] != ROLE_SUM) {
+                    continue;
+                }
+
+                if (expressions[i].getNullability()
+                        == SchemaObject.Nullability.NO_NULLS) {
+                    counts[i] = countAll;
+
+                    continue;
+                }
+
+                for (int j = 0; j < columnCount; j++) {
+                    if (roles[j] == ROLE_COUNT
+                            && expressions[j].equals(expressions[i])) {
+                        counts[i] = j;
+
+                        break;
+                    }
+                }
+
+                if (counts[i] == -1) {
+                    return;
+                }
+            }
+
+            // each group must correspond to one row of the view
+            Expression[] groups = select.getGroupExpressions();
+
+            for (int i = 0; i < groups.length; i++) {
+                boolean found = false;
+
+                for (int j = 0; j < keyCount; j++) {
+                    if (groups[i].equals(expressions[keys[j]])) {
+                        found = true;
+
+                        break;
+                    }
+                }
+
+                if (!found) {
+                    return;
+                }
+            }
+
+            isGrouped       = select.isGrouped;
+            maintenanceType = MAINTAIN_AGGREGATE;
+        } else {
+            maintenanceType = MAINTAIN_SELECT;
+        }
+
+        baseTable         = table;
+        baseRange         = range;
+        condition         = select.queryCondition;
+        columnExpressions = expressions;
+        columnRoles       = roles;
+        countColumns      = counts;
+        countAllColumn    = countAll;
+        keyColumns        = (int[]) ArrayUtil.resizeArray(keys, keyCount);
+    }
+
+    /**
+     * Returns false if the expression refers to the columns of the query
+     * result rather than the row of the base table.
+     */
+    private static boolean isBaseRowExpression(Expression e) {
+
+        if (e == null) {
+            return true;
+        }
+
+        OrderedHashSet set = new OrderedHashSet();
+
+        e.collectAllExpressions(set, simpleColumnSet,
+                                Expression.emptyExpressionSet);
+
+        return set.isEmpty();
+    }
+
+    /**
+     * Applies the change to one row of the base table.
+     */
+    void applyChange(Session session, Object[] rowData, boolean isInsert) {
+
+        PersistentStore   store = getRowStore(session);
+        Object[]          data  = getEmptyRowData();
+        RangeIteratorBase it    = baseRange.getIterator(session);
+
+        try {
+            it.setCurrent(rowData);
+
+            if (condition != null && !condition.testCondition(session)) {
+                return;
+            }
+
+            for (int i = 0; i < columnExpressions.length; i++) {
+                if (columnExpressions[i] != null) {
+                    data[i] = columnExpressions[i].getValue(session);
+                }
+            }
+        } finally {
+            session.sessionContext.unsetRangeIterator(it);
+        }
+
+        if (maintenanceType == MAINTAIN_SELECT) {
+            if (isInsert) {
+                insertSingleRow(session, store, data, null);
+            } else {
+                Row row = findKeyRow(session, store, data);
+
+                if (row != null) {
+                    session.addDeleteAction(this, store, row, null);
+                }
+            }
+
+            return;
+        }
+
+        Row      row = findKeyRow(session, store, data);
+        Object[] newData;
+
+        if (row == null) {
+            if (!isInsert) {
+                return;
+            }
+
+            newData = getEmptyRowData();
+
+            for (int i = 0; i < keyColumns.length; i++) {
+                newData[keyColumns[i]] = data[keyColumns[i]];
+            }
+
+            for (int i = 0; i < columnRoles.length; i++) {
+                if (columnRoles[i] == ROLE_COUNT_ALL
+                        || columnRoles[i] == ROLE_COUNT) {
+                    newData[i] = ValuePool.getLong(0);
+                }
+            }
+        } else {
+            newData = (Object[]) ArrayUtil.duplicateArray(row.getData());
+
+            session.addDeleteAction(this, store, row, null);
+        }
+
+        int delta = isInsert ? 1
+                             : -1;
+
+        for (int i = 0; i < columnRoles.length; i++) {
+            switch (columnRoles[i]) {
+
+                case ROLE_COUNT :
+                    if (data[i] != null) {
+                        newData[i] = ValuePool.getLong(
+                            ((Number) newData[i]).longValue() + delta);
+                    }
+                    break;
+
+                case ROLE_COUNT_ALL :
+                    newData[i] = ValuePool.getLong(
+                        ((Number) newData[i]).longValue() + delta);
+                    break;
+            }
+        }
+
+        for (int i = 0; i < columnRoles.length; i++) {
+            if (columnRoles[i] != ROLE_SUM || data[i] == null) {
+                continue;
+            }
+
+            Type   type  = colTypes[i];
+            Object value = type.convertToType(session, data[i],
+                                              columnExpressions[i]
+                                                  .getDataType());
+
+            if (((Number) newData[countColumns[i]]).longValue() == 0) {
+                newData[i] = null;
+            } else if (newData[i] == null) {
+                newData[i] = isInsert ? value
+                                      : type.negate(value);
+            } else if (isInsert) {
+                newData[i] = type.add(session, newData[i], value, type);
+            } else {
+                newData[i] = type.subtract(session, newData[i], value, type);
+            }
+        }
+
+        if (isGrouped
+                && ((Number) newData[countAllColumn]).longValue() == 0) {
+            return;
+        }
+
+        insertSingleRow(session, store, newData, null);
+    }
+
+    private Row findKeyRow(Session session, PersistentStore store,
+                           Object[] data) {
+
+        RowIterator it;
+
+        if (keyColumns.length == 0) {
+            it = rowIterator(session);
+        } else {
+            it = getIndex(keyIndexName.name).findFirstRow(session, store,
+                          data);
+        }
+
+        try {
+            while (it.hasNext()) {
+                Row      row     = it.getNextRow();
+                Object[] rowData = row.getData();
+
+                for (int i = 0; i < keyColumns.length; i++) {
+                    int col = keyColumns[i];
+
+                    if (colTypes[col].compare(session, data[col], rowData[col])
+                            != 0) {
+                        return null;
+                    }
+                }
+
+                return row;
+            }
+        } finally {
+            it.release();
+        }
+
+        return null;
+    }
+
+    /**
+     * Replaces the rows of the view with the result of its query. The rows
+     * are changed in the current transaction, which is then committed.
+     */
+    void refresh(Session session, StatementQuery query) {
+
+        synchronized (database.schemaManager.maintenanceLock) {
+            Result result = query.execute(session);
+
+            if (result.isError()) {
+                throw result.getException();
+            }
+
+            PersistentStore store = getRowStore(session);
+            HsqlArrayList   list  = new HsqlArrayList();
+            RowIterator     it    = rowIterator(session);
+
+            while (it.hasNext()) {
+                list.add(it.getNextRow());
+            }
+
+            it.release();
+
+            for (int i = 0; i < list.size(); i++) {
+                Row row = (Row) list.get(i);
+
+                session.addDeleteAction(this, store, row, null);
+            }
+
+            RowSetNavigator nav = result.initialiseNavigator();
+
+            while (nav.hasNext()) {
+                Object[] data = (Object[]) nav.getNext();
+                Object[] newData =
+                    (Object[]) ArrayUtil.resizeArrayIfDifferent(data,
+                        columnCount);
+
+                insertSingleRow(session, store, newData, null);
+            }
+
+            session.commit(false);
+        }
+    }
+
+    /**
+     * Replaces the rows of the view without transaction control. Used after
+     * TRUNCATE ... AND COMMIT on the base table.
+     */
+    void repopulate(Session session) {
+
+        Result result = compileQuery(session).execute(session);
+
+        if (result.isError()) {
+            throw result.getException();
+        }
+
+        getRowStore(session).removeAll();
+        insertIntoTable(session, result);
+
+        dataChangeTimestamp =
+            database.txManager.getNextGlobalChangeTimestamp();
+    }
+
+    /**
+     * Returns true if the uncommitted changes of the session include a base
+     * table of a maintained view. Only these transactions are committed with
+     * the maintenance lock held.
+     */
+    static boolean hasMaintainedViewChanges(Session session) {
+
+        SchemaManager  schemaManager = session.database.schemaManager;
+        OrderedHashSet tableSet      = new OrderedHashSet();
+
+        for (int i = 0, limit = session.rowActionList.size(); i < limit;
+                i++) {
+            RowAction action = (RowAction) session.rowActionList.get(i);
+
+            if (action.type == RowActionBase.ACTION_NONE) {
+                continue;
+            }
+
+            switch (action.table.getTableType()) {
+
+                case TableBase.MEMORY_TABLE :
+                case TableBase.CACHED_TABLE :
+                    break;
+
+                default :
+                    continue;
+            }
+
+            if (!tableSet.add(action.table)) {
+                continue;
+            }
+
+            if (schemaManager.getMaintainedViews((Table) action.table).length
+                    > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Applies the uncommitted changes of the session to the base tables of
+     * maintained views. Called with the maintenance lock held, before the
+     * transaction is committed. The rows of the views are read as committed
+     * at the time of the call.
+     */
+    static void applyTransactionChanges(Session session) {
+
+        int limit = session.rowActionList.size();
+
+        if (limit == 0) {
+            return;
+        }
+
+        SchemaManager  schemaManager  = session.database.schemaManager;
+        HashMap        viewMap        = new HashMap();
+        OrderedHashSet actionSet      = new OrderedHashSet();
+        int            isolationLevel = session.isolationLevel;
+
+        session.isolationLevel = SessionInterface.TX_READ_COMMITTED;
+        session.actionTimestamp =
+            session.database.txManager.getNextGlobalChangeTimestamp();
+        session.actionIndex = limit;
+
+        try {
+            for (int i = 0; i < limit; i++) {
+                RowAction action = (RowAction) session.rowActionList.get(i);
+
+                if (action.type == RowActionBase.ACTION_NONE) {
+                    continue;
+                }
+
+                if (!actionSet.add(action)) {
+                    continue;
+                }
+
+                switch (action.table.getTableType()) {
+
+                    case TableBase.MEMORY_TABLE :
+                    case TableBase.CACHED_TABLE :
+                        break;
+
+                    default :
+                        continue;
+                }
+
+                MaterializedView[] views =
+                    (MaterializedView[]) viewMap.get(action.table);
+
+                if (views == null) {
+                    views = schemaManager.getMaintainedViews(
+                        (Table) action.table);
+
+                    viewMap.put(action.table, views);
+                }
+
+                if (views.length == 0) {
+                    continue;
+                }
+
+                boolean isInsert;
+
+                switch (action.getUncommittedType(session)) {
+
+                    case RowActionBase.ACTION_INSERT :
+                        isInsert = true;
+                        break;
+
+                    case RowActionBase.ACTION_DELETE :
+                        isInsert = false;
+                        break;
+
+                    default :
+                        continue;
+                }
+
+                Row row = action.memoryRow;
+
+                if (row == null) {
+                    row = (Row) action.store.get(action.getPos(), false);
+                }
+
+                for (int j = 0; j < views.length; j++) {
+                    views[j].applyChange(session, row.getData(), isInsert);
+                }
+            }
+        } finally {
+            session.isolationLevel = isolationLevel;
+        }
+    }
+
+    public String getSQL() {
+
+        StringBuffer sb = new StringBuffer(128);
+
+        sb.append(Tokens.T_CREATE).append(' ');
+
+        if (isCached()) {
+            sb.append(Tokens.T_CACHED).append(' ');
+        } else {
+            sb.append(Tokens.T_MEMORY).append(' ');
+        }
+
+        sb.append(Tokens.T_MATERIALIZED).append(' ');
+        sb.append(Tokens.T_VIEW).append(' ');
+        sb.append(getName().getSchemaQualifiedStatementName()).append('(');
+
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append(getColumn(i).getName().statementName);
+        }
+
+        sb.append(')').append(' ').append(Tokens.T_AS).append(' ');
+        sb.append(statement);
+
+        return sb.toString();
+    }
+
+    String[] getSQL(OrderedHashSet resolved, OrderedHashSet unresolved) {
+
+        HsqlArrayList list = new HsqlArrayList();
+
+        list.add(getSQL());
+
+        for (int i = 0; i < indexList.length; i++) {
+            if (!indexList[i].isConstraint()
+                    && indexList[i].getColumnCount() > 0
+                    && indexList[i].getName() != keyIndexName) {
+                list.add(indexList[i].getSQL());
+            }
+        }
+
+        String[] array = new String[list.size()];
+
+        list.toArray(array);
+
+        return array;
+    }
+}
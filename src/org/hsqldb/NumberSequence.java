@@ -32,6 +32,7 @@
 package org.hsqldb;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.error.Error;
@@ -56,8 +57,11 @@ public final class NumberSequence implements SchemaObject {
     //
     private HsqlName name;
 
+    private static final AtomicLongFieldUpdater currValueUpdater =
+        AtomicLongFieldUpdater.newUpdater(NumberSequence.class, "currValue");
+
     // present value
-    private long currValue;
+    private volatile long currValue;
 
     // last value
     private long lastValue;
@@ -75,6 +79,16 @@ public final class NumberSequence implements SchemaObject {
     private boolean isAlways;
     private boolean restartValueDefault;
 
+    // number of values reserved in each block, 0 when not cached
+    private volatile long cacheSize;
+
+    // end (exclusive) of the block of reserved values, logged in place of
+    // currValue when the sequence is cached
+    private volatile long cacheLimit;
+
+    // last cacheLimit that was logged
+    private long loggedLimit;
+
     public NumberSequence() {
 
         try {
@@ -210,6 +224,11 @@ public final class NumberSequence implements SchemaObject {
             sb.append(' ').append(Tokens.T_CYCLE);
         }
 
+        if (cacheSize != 0) {
+            sb.append(' ').append(Tokens.T_CACHE).append(' ');
+            sb.append(cacheSize);
+        }
+
         if (name == null) {
             sb.append(Tokens.T_CLOSEBRACKET);
         }
@@ -255,6 +274,11 @@ public final class NumberSequence implements SchemaObject {
                 sb.append(' ').append(Tokens.T_CYCLE);
             }
 
+            if (cacheSize != 0) {
+                sb.append(' ').append(Tokens.T_CACHE).append(' ');
+                sb.append(cacheSize);
+            }
+
             if (name == null) {
                 sb.append(Tokens.T_CLOSEBRACKET);
             }
@@ -276,6 +300,9 @@ public final class NumberSequence implements SchemaObject {
 
         StringBuffer sb = new StringBuffer(128);
 
+        // the exact value is scripted, the block limit is logged again
+        resetLoggedLimit();
+
         sb.append(Tokens.T_ALTER).append(' ');
         sb.append(Tokens.T_SEQUENCE);
         sb.append(' ').append(name.getSchemaQualifiedStatementName());
@@ -298,6 +325,7 @@ public final class NumberSequence implements SchemaObject {
         sb.append(' ').append(colname);
         sb.append(' ').append(Tokens.T_RESTART);
         sb.append(' ').append(Tokens.T_WITH).append(' ').append(seq.peek());
+        seq.resetLoggedLimit();
 
         return sb.toString();
     }
@@ -330,6 +358,10 @@ public final class NumberSequence implements SchemaObject {
         return isAlways;
     }
 
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
     public synchronized boolean hasDefaultMinMax() {
 
         long min;
@@ -378,6 +410,8 @@ public final class NumberSequence implements SchemaObject {
 
         startValue = value;
         currValue  = lastValue = startValue;
+
+        resetCache();
     }
 
     synchronized void setMinValue(long value) {
@@ -424,6 +458,8 @@ public final class NumberSequence implements SchemaObject {
         checkInTypeRange(value);
 
         currValue = lastValue = value;
+
+        resetCache();
     }
 
     synchronized void setStartValueNoCheck(long value) {
@@ -432,6 +468,8 @@ public final class NumberSequence implements SchemaObject {
 
         startValue = value;
         currValue  = lastValue = startValue;
+
+        resetCache();
     }
 
     synchronized void setStartValueDefault() {
@@ -460,6 +498,17 @@ public final class NumberSequence implements SchemaObject {
         isAlways = value;
     }
 
+    synchronized void setCacheSize(long value) {
+
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw Error.error(ErrorCode.X_42597);
+        }
+
+        cacheSize = value;
+
+        resetCache();
+    }
+
     private long getDefaultMinOrMax(boolean isMax) {
 
         long min;
@@ -548,6 +597,8 @@ public final class NumberSequence implements SchemaObject {
         if (restartValueDefault) {
             currValue           = lastValue = startValue;
             restartValueDefault = false;
+
+            resetCache();
         }
 
         if (minValue >= maxValue || startValue < minValue
@@ -571,6 +622,9 @@ public final class NumberSequence implements SchemaObject {
         copy.maxValue   = maxValue;
         copy.isCycle    = isCycle;
         copy.isAlways   = isAlways;
+        copy.cacheSize  = cacheSize;
+
+        copy.resetCache();
 
         return copy;
     }
@@ -587,6 +641,11 @@ public final class NumberSequence implements SchemaObject {
         maxValue   = other.maxValue;
         isCycle    = other.isCycle;
         isAlways   = other.isAlways;
+        cacheSize  = other.cacheSize;
+
+        resetCache();
+
+        loggedLimit = cacheLimit;
     }
 
     /**
@@ -594,25 +653,31 @@ public final class NumberSequence implements SchemaObject {
      */
     synchronized long userUpdate(long value) {
 
-        if (value == currValue) {
-            currValue += increment;
+        while (true) {
+            long current = currValue;
+            long next    = current;
 
-            return value;
-        }
-
-        if (increment > 0) {
-            if (value > currValue) {
-                currValue += ((value - currValue + increment) / increment)
+            if (value == current) {
+                next = current + increment;
+            } else if (increment > 0) {
+                if (value > current) {
+                    next = current
+                           + ((value - current + increment) / increment)
                              * increment;
-            }
-        } else {
-            if (value < currValue) {
-                currValue += ((value - currValue + increment) / increment)
+                }
+            } else {
+                if (value < current) {
+                    next = current
+                           + ((value - current + increment) / increment)
                              * increment;
+                }
             }
-        }
 
-        return value;
+            if (next == current
+                    || currValueUpdater.compareAndSet(this, current, next)) {
+                return value;
+            }
+        }
     }
 
     /**
@@ -623,26 +688,30 @@ public final class NumberSequence implements SchemaObject {
      */
     synchronized long systemUpdate(long value) {
 
-        if (value == currValue) {
-            currValue += increment;
+        while (true) {
+            long current = currValue;
+            long next    = current;
 
-            return value;
-        }
-
-        if (increment > 0) {
-            if (value > currValue) {
-                currValue = value + increment;
+            if (value == current) {
+                next = current + increment;
+            } else if (increment > 0) {
+                if (value > current) {
+                    next = value + increment;
+                }
+            } else {
+                if (value < current) {
+                    next = value + increment;
+                }
             }
-        } else {
-            if (value < currValue) {
-                currValue = value + increment;
+
+            if (next == current
+                    || currValueUpdater.compareAndSet(this, current, next)) {
+                return value;
             }
         }
-
-        return value;
     }
 
-    synchronized Object getValueObject() {
+    Object getValueObject() {
 
         long   value = getValue();
         Object result;
@@ -669,9 +738,148 @@ public final class NumberSequence implements SchemaObject {
     }
 
     /**
-     * principal getter for the next sequence value
+     * principal getter for the next sequence value<p>
+     *
+     * When the sequence is cached, values from the reserved block are
+     * returned without locking. The synchronized path reserves the next
+     * block, or is used for all values when the sequence is not cached.
+     */
+    public long getValue() {
+
+        while (cacheSize != 0) {
+            long value = currValue;
+
+            if (!isInCache(value)) {
+                break;
+            }
+
+            if (currValueUpdater.compareAndSet(this, value,
+                                               value + increment)) {
+                return value;
+            }
+        }
+
+        return getValueSync();
+    }
+
+    private boolean isInCache(long value) {
+
+        return increment > 0 ? value < cacheLimit
+                             : value > cacheLimit;
+    }
+
+    /**
+     * Reserves a new block of values if the present value is not in the
+     * block. The block never extends beyond the value for which the next
+     * value would pass the limit of the sequence, therefore values in the
+     * block can be returned without checking the limits.
+     */
+    private void reserveCache() {
+
+        long value = currValue;
+
+        if (isInCache(value)) {
+            return;
+        }
+
+        long span = increment * cacheSize;
+        long limit;
+
+        if (increment > 0) {
+            long end = maxValue - increment + 1;
+
+            if (value >= end) {
+                return;
+            }
+
+            long distance = end - value;
+
+            limit = distance > 0 && distance <= span ? end
+                                                     : value + span;
+        } else {
+            long end = minValue - increment - 1;
+
+            if (value <= end) {
+                return;
+            }
+
+            long distance = value - end;
+
+            limit = distance > 0 && distance <= -span ? end
+                                                      : value + span;
+        }
+
+        cacheLimit = limit;
+    }
+
+    /**
+     * Sets the block of reserved values to empty.
+     */
+    private void resetCache() {
+        cacheLimit = currValue;
+    }
+
+    synchronized void resetLoggedLimit() {
+        loggedLimit = currValue;
+    }
+
+    /**
+     * Returns true if the sequence must be logged at commit. When the
+     * sequence is cached, only the limit of a newly reserved block is
+     * logged.
      */
-    synchronized public long getValue() {
+    public synchronized boolean isLogRequired() {
+
+        if (cacheSize == 0) {
+            return true;
+        }
+
+        long limit = cacheLimit;
+
+        if (limit == loggedLimit) {
+            return false;
+        }
+
+        loggedLimit = limit;
+
+        return true;
+    }
+
+    /**
+     * Returns the value logged at commit. When the sequence is cached, this
+     * is the end of the block of reserved values, so that no value that
+     * may have been used is returned again after recovery.
+     */
+    public long getLogValue() {
+
+        if (cacheSize == 0) {
+            return currValue;
+        }
+
+        long limit = cacheLimit;
+
+        return isInCache(currValue) ? limit
+                                    : currValue;
+    }
+
+    synchronized long getValueSync() {
+
+        if (cacheSize != 0) {
+            reserveCache();
+
+            while (true) {
+                long value = currValue;
+
+                if (!isInCache(value)) {
+                    break;
+                }
+
+                if (currValueUpdater.compareAndSet(this, value,
+                                                   value + increment)) {
+                    return value;
+                }
+            }
+        }
 
         if (limitReached) {
             throw Error.error(ErrorCode.X_2200H);
@@ -707,6 +915,8 @@ public final class NumberSequence implements SchemaObject {
 
         currValue = nextValue;
 
+        resetCache();
+
         return result;
     }
 
@@ -717,6 +927,8 @@ public final class NumberSequence implements SchemaObject {
 
         // no change if called before getValue() or called twice
         lastValue = currValue = startValue;
+
+        resetCache();
     }
 
     /**
@@ -748,5 +960,7 @@ public final class NumberSequence implements SchemaObject {
         }
 
         startValue = currValue = lastValue = value;
+
+        resetCache();
     }
 }
@@ -42,6 +42,7 @@ import org.hsqldb.persist.HsqlDatabaseProperties;
 import org.hsqldb.result.Result;
 import org.hsqldb.result.ResultProperties;
 import org.hsqldb.rights.User;
+import org.hsqldb.types.BinaryData;
 import org.hsqldb.types.Charset;
 import org.hsqldb.types.Type;
 import org.hsqldb.types.Types;
@@ -283,6 +284,14 @@ public class ParserCommand extends ParserDDL {
                 cs = compileCheckpoint();
                 break;
 
+            case Tokens.ANALYZE :
+                cs = compileAnalyze();
+                break;
+
+            case Tokens.REFRESH :
+                cs = compileRefresh();
+                break;
+
             case Tokens.EXPLAIN : {
                 int position = getPosition();
 
@@ -925,6 +934,55 @@ public class ParserCommand extends ParserDDL {
                                             args, null,
                                             new HsqlName[]{ table.getName() });
             }
+            case Tokens.COLUMN : {
+                read();
+                checkIsSimpleName();
+
+                int colIndex = table.getColumnIndex(token.tokenString);
+
+                read();
+                readThis(Tokens.STATISTICS);
+
+                long     rowCount      = readBigint();
+                long     nullCount     = readBigint();
+                long     distinctCount = readBigint();
+                String[] values        = null;
+
+                if (token.tokenType == Tokens.OPENBRACKET) {
+                    HsqlArrayList list = new HsqlArrayList();
+
+                    read();
+
+                    while (true) {
+                        list.add(readQuotedString());
+
+                        if (token.tokenType == Tokens.COMMA) {
+                            read();
+
+                            continue;
+                        }
+
+                        break;
+                    }
+
+                    readThis(Tokens.CLOSEBRACKET);
+
+                    values = new String[list.size()];
+
+                    list.toArray(values);
+                }
+
+                args = new Object[] {
+                    table.getName(), Integer.valueOf(colIndex),
+                    new long[] {
+                        rowCount, nullCount, distinctCount
+                    }, values
+                };
+
+                return new StatementCommand(
+                    StatementTypes.SET_TABLE_STATISTICS, args, null,
+                    new HsqlName[]{ table.getName() });
+            }
             case Tokens.TYPE : {
                 read();
 
@@ -1011,6 +1069,84 @@ public class ParserCommand extends ParserDDL {
                     StatementTypes.SET_TABLE_SET_TABLESPACE, args, null,
                     writeLockNames);
             }
+            case Tokens.PARTITION : {
+                read();
+                checkIsSimpleName();
+
+                String name = token.tokenString;
+
+                read();
+                readThis(Tokens.SPACE);
+
+                Integer id = super.readIntegerObject();
+
+                args = new Object[] {
+                    table.getName(), name, id
+                };
+
+                HsqlName[] writeLockNames =
+                    database.schemaManager.getCatalogAndBaseTableNames(
+                        table.getName());
+
+                return new StatementCommand(
+                    StatementTypes.SET_TABLE_PARTITION_SPACE, args, null,
+                    writeLockNames);
+            }
+            case Tokens.COLUMNAR : {
+                switch (table.getTableType()) {
+
+                    case TableBase.MEMORY_TABLE :
+                    case TableBase.CACHED_TABLE :
+                        break;
+
+                    default :
+                        throw unexpectedToken();
+                }
+
+                read();
+
+                args[1] = processTrueOrFalseObject();
+
+                return new StatementCommand(StatementTypes.SET_TABLE_COLUMNAR,
+                                            args, null,
+                                            new HsqlName[]{ table.getName() });
+            }
+            case Tokens.COMPRESSED : {
+                if (table.getTableType() != TableBase.CACHED_TABLE) {
+                    throw unexpectedToken();
+                }
+
+                read();
+
+                Boolean mode       = processTrueOrFalseObject();
+                byte[]  dictionary = null;
+
+                if (mode.booleanValue()
+                        && token.tokenType == Tokens.DICTIONARY) {
+                    read();
+
+                    if (token.tokenType != Tokens.X_VALUE
+                            || !token.dataType.isBinaryType()) {
+                        throw unexpectedToken();
+                    }
+
+                    dictionary = ((BinaryData) token.tokenValue).getBytes();
+
+                    read();
+                }
+
+                args = new Object[] {
+                    table.getName(), mode, dictionary
+                };
+
+                HsqlName[] writeLockNames =
+                    database.schemaManager.getCatalogAndBaseTableNames(
+                        table.getName());
+
+                return new StatementCommand(
+                    StatementTypes.SET_TABLE_COMPRESSED, args, null,
+                    writeLockNames);
+            }
         }
     }
 
@@ -1132,6 +1268,18 @@ public class ParserCommand extends ParserDDL {
                         throw unexpectedToken();
                 }
             }
+            case Tokens.RESULT : {
+                read();
+                readThis(Tokens.CACHE);
+                readThis(Tokens.ROWS);
+
+                Integer  size = readIntegerObject();
+                Object[] args = new Object[]{ size };
+
+                return new StatementCommand(
+                    StatementTypes.SET_DATABASE_RESULT_CACHE_ROWS, args, null,
+                    null);
+            }
             case Tokens.REFERENTIAL : {
                 read();
                 readThis(Tokens.INTEGRITY);
@@ -1283,6 +1431,13 @@ public class ParserCommand extends ParserDDL {
                         property = HsqlDatabaseProperties.sql_ignore_case;
                         break;
 
+                    case Tokens.PARAMETERIZE :
+                        read();
+
+                        flag     = processTrueOrFalseObject();
+                        property = HsqlDatabaseProperties.sql_parameterize;
+                        break;
+
                     case Tokens.SYNTAX :
                         read();
 
@@ -1352,6 +1507,17 @@ public class ParserCommand extends ParserDDL {
                     return cs;
                 }
 
+                if (readIfThis(Tokens.ROW)) {
+                    readThis(Tokens.LOCKS);
+
+                    Integer limit = readIntegerObject();
+                    StatementCommand cs = new StatementCommand(
+                        StatementTypes.SET_DATABASE_TRANSACTION_ROW_LOCKS,
+                        new Object[]{ limit }, null, null);
+
+                    return cs;
+                }
+
                 readThis(Tokens.CONTROL);
 
                 int mode = TransactionManager.LOCKS;
@@ -1554,6 +1720,18 @@ public class ParserCommand extends ParserDDL {
                 if (readIfThis(Tokens.SIZE)) {
                     type  = StatementTypes.SET_DATABASE_FILES_LOG_SIZE;
                     value = readIntegerObject();
+                } else if (readIfThis(Tokens.FORMAT)) {
+                    type = StatementTypes.SET_DATABASE_FILES_LOG_FORMAT;
+
+                    if (token.tokenType == Tokens.TEXT) {
+                        read();
+
+                        value = new Integer(0);
+                    } else {
+                        readThis(Tokens.BINARY);
+
+                        value = new Integer(1);
+                    }
                 } else {
                     type = StatementTypes.SET_DATABASE_FILES_LOG;
                     flag = processTrueOrFalseObject();
@@ -1984,6 +2162,15 @@ public class ParserCommand extends ParserDDL {
             }
             case Tokens.RESULT : {
                 read();
+
+                if (readIfThis(Tokens.CACHE)) {
+                    Boolean  mode = processTrueOrFalseObject();
+                    Object[] args = new Object[]{ mode };
+
+                    return new StatementSession(
+                        StatementTypes.SET_SESSION_RESULT_CACHE, args);
+                }
+
                 readThis(Tokens.MEMORY);
                 readThis(Tokens.ROWS);
 
@@ -2310,6 +2497,58 @@ public class ParserCommand extends ParserDDL {
         return cs;
     }
 
+    private Statement compileAnalyze() {
+
+        read();
+        readThis(Tokens.TABLE);
+
+        Table table = readTableName();
+
+        switch (table.getTableType()) {
+
+            case TableBase.MEMORY_TABLE :
+            case TableBase.CACHED_TABLE :
+            case TableBase.TEXT_TABLE :
+                break;
+
+            default :
+                throw unsupportedFeature(table.getName().name);
+        }
+
+        Object[]  args = new Object[]{ table.getName() };
+        Statement cs = new StatementCommand(StatementTypes.ANALYZE_TABLE,
+                                            args,
+                                            new HsqlName[]{ table.getName() },
+                                            null);
+
+        return cs;
+    }
+
+    private Statement compileRefresh() {
+
+        read();
+        readThis(Tokens.MATERIALIZED);
+        readThis(Tokens.VIEW);
+
+        Table table = readTableName();
+
+        if (!table.isMaterializedView()) {
+            throw Error.error(ErrorCode.X_42501, table.getName().name);
+        }
+
+        StatementQuery query =
+            ((MaterializedView) table).compileQuery(session);
+        Object[] args = new Object[] {
+            table.getName(), query
+        };
+        Statement cs =
+            new StatementCommand(StatementTypes.REFRESH_MATERIALIZED_VIEW,
+                                 args, query.getTableNamesForRead(),
+                                 new HsqlName[]{ table.getName() });
+
+        return cs;
+    }
+
     public static Statement getAutoCheckpointStatement(Database database) {
 
         HsqlName[] names =
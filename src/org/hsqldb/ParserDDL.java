@@ -85,6 +85,7 @@ public class ParserDDL extends ParserRoutine {
 
         int     tableType;
         boolean isTable     = false;
+        boolean isColumnar  = false;
         boolean isOrReplace = false;
 
         read();
@@ -119,6 +120,13 @@ public class ParserDDL extends ParserRoutine {
 
             case Tokens.MEMORY :
                 read();
+
+                if (token.tokenType == Tokens.MATERIALIZED) {
+                    return compileCreateMaterializedView(TableBase.MEMORY_TABLE);
+                }
+
+                isColumnar = readIfThis(Tokens.COLUMNAR);
+
                 readThis(Tokens.TABLE);
 
                 isTable   = true;
@@ -127,6 +135,13 @@ public class ParserDDL extends ParserRoutine {
 
             case Tokens.CACHED :
                 read();
+
+                if (token.tokenType == Tokens.MATERIALIZED) {
+                    return compileCreateMaterializedView(TableBase.CACHED_TABLE);
+                }
+
+                isColumnar = readIfThis(Tokens.COLUMNAR);
+
                 readThis(Tokens.TABLE);
 
                 isTable   = true;
@@ -148,12 +163,21 @@ public class ParserDDL extends ParserRoutine {
                 tableType = database.schemaManager.getDefaultTableType();
                 break;
 
+            case Tokens.COLUMNAR :
+                read();
+                readThis(Tokens.TABLE);
+
+                isTable    = true;
+                isColumnar = true;
+                tableType  = database.schemaManager.getDefaultTableType();
+                break;
+
             default :
                 tableType = TableBase.MEMORY_TABLE;
         }
 
         if (isTable) {
-            return compileCreateTable(tableType);
+            return compileCreateTable(tableType, isColumnar);
         }
 
         if (database.sqlSyntaxOra) {
@@ -184,6 +208,10 @@ public class ParserDDL extends ParserRoutine {
             case Tokens.ALIAS :
                 return compileCreateAlias();
 
+            case Tokens.MATERIALIZED :
+                return compileCreateMaterializedView(
+                    database.schemaManager.getDefaultTableType());
+
             case Tokens.SEQUENCE :
                 return compileCreateSequence();
 
@@ -541,6 +569,16 @@ public class ParserDDL extends ParserRoutine {
                 useIfExists   = true;
                 break;
 
+            case Tokens.MATERIALIZED :
+                read();
+                readThis(Tokens.VIEW);
+
+                statementType = StatementTypes.DROP_TABLE;
+                objectType    = SchemaObject.TABLE;
+                canCascade    = true;
+                useIfExists   = true;
+                break;
+
             default :
                 throw unexpectedToken();
         }
@@ -681,6 +719,10 @@ public class ParserDDL extends ParserRoutine {
 
         read();
 
+        if (t.isMaterializedView() && token.tokenType != Tokens.RENAME) {
+            throw unsupportedFeature();
+        }
+
         switch (token.tokenType) {
 
             case Tokens.RENAME : {
@@ -748,6 +790,15 @@ public class ParserDDL extends ParserRoutine {
 
                         return compileAlterTableAddPrimaryKey(t, cname);
 
+                    case Tokens.PARTITION :
+                        if (cname != null) {
+                            throw unexpectedToken();
+                        }
+
+                        read();
+
+                        return compileAlterTableAddPartition(t);
+
                     case Tokens.COLUMN :
                         if (cname != null) {
                             throw unexpectedToken();
@@ -784,6 +835,11 @@ public class ParserDDL extends ParserRoutine {
 
                         return compileAlterTableDropConstraint(t);
                     }
+                    case Tokens.PARTITION : {
+                        read();
+
+                        return compileAlterTableDropPartition(t);
+                    }
                     case Tokens.COLUMN :
                         read();
 
@@ -1030,6 +1086,64 @@ public class ParserDDL extends ParserRoutine {
                                    writeLockNames);
     }
 
+    StatementSchema compileCreateMaterializedView(int tableType) {
+
+        read();
+        readThis(Tokens.VIEW);
+
+        HsqlName name = readNewSchemaObjectName(SchemaObject.TABLE, false);
+
+        name.setSchemaIfNull(session.getCurrentSchemaHsqlName());
+        checkSchemaUpdateAuthorisation(name.schema);
+
+        HsqlName[] colList = null;
+
+        if (token.tokenType == Tokens.OPENBRACKET) {
+            colList = readColumnNames(name);
+        }
+
+        readThis(Tokens.AS);
+        startRecording();
+
+        QueryExpression queryExpression    = XreadQueryExpression();
+        Token[]         tokenisedStatement = getRecordedStatement();
+
+        queryExpression.setReturningResult();
+        queryExpression.resolve(session);
+
+        if (colList == null) {
+            colList = queryExpression.getResultColumnNames();
+        } else if (colList.length != queryExpression.getColumnCount()) {
+            throw Error.error(ErrorCode.X_42593);
+        }
+
+        MaterializedView view = new MaterializedView(database, name,
+            tableType, Token.getSQL(tokenisedStatement));
+
+        TableUtil.setColumnsInSchemaTable(view, colList,
+                                          queryExpression.getColumnTypes());
+        view.createPrimaryKey();
+
+        // when the script is loaded, the rows are already in the database
+        StatementQuery statement = null;
+        HsqlName[]     readName  = null;
+
+        if (!session.isProcessingScript()) {
+            statement = new StatementQuery(session, queryExpression,
+                                           compileContext);
+            readName = statement.getTableNamesForRead();
+        }
+
+        Object[] args = new Object[] {
+            view, new HsqlArrayList(), null, statement, Boolean.FALSE
+        };
+        String     sql            = getLastPart();
+        HsqlName[] writeLockNames = database.schemaManager.catalogNameArray;
+
+        return new StatementSchema(sql, StatementTypes.CREATE_TABLE, args,
+                                   readName, writeLockNames);
+    }
+
     StatementSchema compileCreateSequence() {
 
         read();
@@ -1852,6 +1966,57 @@ public class ParserDDL extends ParserRoutine {
                                    null, writeLockNames);
     }
 
+    Statement compileAlterTableAddPartition(Table table) {
+
+        TablePartitions partitions = table.getPartitions();
+
+        if (partitions == null) {
+            throw unexpectedToken();
+        }
+
+        checkIsSimpleName();
+
+        String name = token.tokenString;
+
+        read();
+
+        Object   bound = readPartitionBound(partitions.type);
+        String   sql   = getLastPart();
+        Object[] args  = new Object[] {
+            StatementTypes.ADD_PARTITION, table, name, bound
+        };
+        HsqlName[] writeLockNames =
+            database.schemaManager.getCatalogAndBaseTableNames(
+                table.getName());
+
+        return new StatementSchema(sql, StatementTypes.ALTER_TABLE, args,
+                                   null, writeLockNames);
+    }
+
+    Statement compileAlterTableDropPartition(Table table) {
+
+        if (table.getPartitions() == null) {
+            throw unexpectedToken();
+        }
+
+        checkIsSimpleName();
+
+        String name = token.tokenString;
+
+        read();
+
+        String   sql  = getLastPart();
+        Object[] args = new Object[] {
+            StatementTypes.DROP_PARTITION, table, name
+        };
+        HsqlName[] writeLockNames =
+            database.schemaManager.getCatalogAndBaseTableNames(
+                table.getName());
+
+        return new StatementSchema(sql, StatementTypes.ALTER_TABLE, args,
+                                   null, writeLockNames);
+    }
+
     Statement compileAlterTableAddPrimaryKey(Table table, HsqlName name) {
 
         if (name == null) {
@@ -1997,7 +2162,6 @@ public class ParserDDL extends ParserRoutine {
                     }
                     default :
                         rewind(position);
-                        read();
                         break;
                 }
 
@@ -2283,6 +2447,8 @@ public class ParserDDL extends ParserRoutine {
                                 sequence.setDefaultMinValue();
                             } else if (token.tokenType == Tokens.CYCLE) {
                                 sequence.setCycle(false);
+                            } else if (token.tokenType == Tokens.CACHE) {
+                                sequence.setCacheSize(0);
                             } else {
                                 throw unexpectedToken();
                             }
@@ -2329,6 +2495,20 @@ public class ParserDDL extends ParserRoutine {
                             sequence.setCycle(true);
                             break;
 
+                        case Tokens.CACHE : {
+                            if (!set.add(token.tokenType)) {
+                                throw unexpectedToken();
+                            }
+
+                            read();
+
+                            long value = readBigint();
+
+                            sequence.setCacheSize(value);
+
+                            break;
+                        }
+
                         default :
                             throw unexpectedToken();
                     }
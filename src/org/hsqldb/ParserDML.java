@@ -488,7 +488,14 @@ public class ParserDML extends ParserDQL {
         }
 
         if (isTable) {
-            writeTableNames = new HsqlName[]{ table.getName() };
+            OrderedHashSet set = new OrderedHashSet();
+
+            set.add(table.getName());
+            database.schemaManager.addMaintainedViewNames(set);
+
+            writeTableNames = new HsqlName[set.size()];
+
+            set.toArray(writeTableNames);
         } else {
             writeTableNames =
                 session.database.schemaManager.getCatalogAndBaseTableNames();
@@ -1818,6 +1818,11 @@ public class ParserDQL extends ParserBase {
             }
         }
 
+        // materialized views are changed only by maintenance and REFRESH
+        if (table.isMaterializedView()) {
+            throw Error.error(ErrorCode.X_42545);
+        }
+
         if (table.isView) {
             switch (operation) {
 
@@ -1118,7 +1118,9 @@ public class ParserRoutine extends ParserTable {
         return sqlState;
     }
 
-    static String[] featureStrings = new String[]{ "H901_03" };
+    static String[] featureStrings = new String[] {
+        "H901_03", "H901_04", "H901_05"
+    };
 
     String parseSQLFeatureValue() {
 
@@ -55,7 +55,7 @@ public class ParserTable extends ParserDML {
         super(session, scanner);
     }
 
-    StatementSchema compileCreateTable(int type) {
+    StatementSchema compileCreateTable(int type, boolean isColumnar) {
 
         boolean ifNot = false;
 
@@ -93,6 +93,8 @@ public class ParserTable extends ParserDML {
             }
         }
 
+        table.isColumnar = isColumnar;
+
         if (token.tokenType == Tokens.AS) {
             return compileCreateTableAsSubqueryDefinition(table);
         }
@@ -111,6 +113,10 @@ public class ParserTable extends ParserDML {
             return this.compileCreateTableAsSubqueryDefinition(table);
         }
 
+        if (token.tokenType == Tokens.PARTITION) {
+            readTablePartitionClause(table);
+        }
+
         readTableOnCommitClause(table);
 
         if (database.sqlSyntaxMys) {
@@ -268,6 +274,94 @@ public class ParserTable extends ParserDML {
         return true;
     }
 
+    void readTablePartitionClause(Table table) {
+
+        switch (table.getTableType()) {
+
+            case TableBase.MEMORY_TABLE :
+            case TableBase.CACHED_TABLE :
+                break;
+
+            default :
+                throw unexpectedToken();
+        }
+
+        read();
+        readThis(Tokens.BY);
+        readThis(Tokens.RANGE);
+        readThis(Tokens.OPENBRACKET);
+        checkIsSimpleName();
+
+        int  colIndex = table.getColumnIndex(token.tokenString);
+        Type type     = table.getColumn(colIndex).getDataType();
+
+        read();
+        readThis(Tokens.CLOSEBRACKET);
+        TablePartitions.checkColumnType(type);
+
+        TablePartitions partitions = new TablePartitions(colIndex, type);
+
+        readThis(Tokens.OPENBRACKET);
+
+        while (true) {
+            readThis(Tokens.PARTITION);
+            checkIsSimpleName();
+
+            String name = token.tokenString;
+
+            read();
+
+            Object bound = readPartitionBound(type);
+
+            partitions.addPartition(name, bound);
+
+            if (token.tokenType == Tokens.COMMA) {
+                read();
+
+                continue;
+            }
+
+            break;
+        }
+
+        readThis(Tokens.CLOSEBRACKET);
+
+        table.partitions = partitions;
+    }
+
+    /**
+     * Reads VALUES LESS THAN ( literal | MAXVALUE ). Returns null for MAXVALUE.
+     */
+    Object readPartitionBound(Type type) {
+
+        readThis(Tokens.VALUES);
+        readThis(Tokens.LESS_PARTITION);
+        readThis(Tokens.THAN);
+        readThis(Tokens.OPENBRACKET);
+
+        Object bound = null;
+
+        if (token.tokenType == Tokens.MAXVALUE) {
+            read();
+        } else {
+            Expression e = readDefaultClause(type);
+
+            if (e.getType() != OpTypes.VALUE) {
+                throw Error.error(ErrorCode.X_42563);
+            }
+
+            bound = e.getValue(session, type);
+
+            if (bound == null) {
+                throw Error.error(ErrorCode.X_42563);
+            }
+        }
+
+        readThis(Tokens.CLOSEBRACKET);
+
+        return bound;
+    }
+
     void readTableOnCommitClause(Table table) {
 
         if (token.tokenType == Tokens.ON) {
@@ -1828,6 +1922,8 @@ public class ParserTable extends ParserDML {
                         sequence.setDefaultMinValue();
                     } else if (token.tokenType == Tokens.CYCLE) {
                         sequence.setCycle(false);
+                    } else if (token.tokenType == Tokens.CACHE) {
+                        sequence.setCacheSize(0);
                     } else {
                         throw unexpectedToken();
                     }
@@ -1864,23 +1960,39 @@ public class ParserTable extends ParserDML {
 
                     break;
                 }
+                case Tokens.CACHE : {
+                    if (!set.add(token.tokenType)) {
+                        throw unexpectedToken();
+                    }
+
+                    read();
+
+                    long value = readBigint();
+
+                    sequence.setCacheSize(value);
+
+                    break;
+                }
                 default :
                     if ((database.sqlSyntaxOra || database.sqlSyntaxDb2)
                             && isSimpleName()) {
-                        if (token.tokenString.equals("NOCACHE")
-                                || token.tokenString.equals("NOCYCLE")
-                                || token.tokenString.equals("NOMAXVALUE")
-                                || token.tokenString.equals("NOMINVALUE")
-                                || token.tokenString.equals("NOORDER")
-                                || token.tokenString.equals("ORDER")) {
+                        if (token.tokenString.equals("NOCACHE")) {
+                            if (!set.add(Tokens.CACHE)) {
+                                throw unexpectedToken();
+                            }
+
                             read();
+                            sequence.setCacheSize(0);
 
                             break;
                         }
 
-                        if (token.tokenString.equals("CACHE")) {
+                        if (token.tokenString.equals("NOCYCLE")
+                                || token.tokenString.equals("NOMAXVALUE")
+                                || token.tokenString.equals("NOMINVALUE")
+                                || token.tokenString.equals("NOORDER")
+                                || token.tokenString.equals("ORDER")) {
                             read();
-                            readBigint();
 
                             break;
                         }
@@ -1119,6 +1119,11 @@ public class QueryExpression implements RangeGroup {
         rightQueryExpression.getBaseTableNames(set);
     }
 
+    void getRangeTables(OrderedHashSet set) {
+        leftQueryExpression.getRangeTables(set);
+        rightQueryExpression.getRangeTables(set);
+    }
+
     boolean isEquivalent(QueryExpression other) {
 
         return leftQueryExpression.isEquivalent(other.leftQueryExpression)
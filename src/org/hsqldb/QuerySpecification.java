@@ -52,6 +52,7 @@ import org.hsqldb.lib.Set;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.navigator.RangeIterator;
 import org.hsqldb.navigator.RowSetNavigatorData;
+import org.hsqldb.navigator.RowSetNavigatorDataFile;
 import org.hsqldb.navigator.RowSetNavigatorDataTable;
 import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.result.Result;
@@ -86,6 +87,7 @@ public class QuerySpecification extends QueryExpression {
     private Expression    havingCondition;
     Expression            rowExpression;
     Expression[]          exprColumns;
+    private Expression[]  compiledColumns;
     HsqlArrayList         exprColumnList;
     public int            indexLimitVisible;
     private int           indexLimitRowId;
@@ -94,11 +96,12 @@ public class QuerySpecification extends QueryExpression {
     private int           indexStartHaving;
     public int            indexStartOrderBy;
     public int            indexStartAggregates;
-    private int           indexLimitExpressions;
+    int                   indexLimitExpressions;
     public int            indexLimitData;
     private boolean       hasRowID;
-    private boolean       isSimpleCount;
+    boolean               isSimpleCount;
     private boolean       isSingleMemoryTable;
+    private BatchAggregate batchAggregate;
 
     //
     public boolean isUniqueResultRows;
@@ -112,7 +115,7 @@ public class QuerySpecification extends QueryExpression {
 
     //
     //
-    private boolean[] aggregateCheck;
+    boolean[]         aggregateCheck;
 
     //
     private OrderedHashSet tempSet = new OrderedHashSet();
@@ -429,8 +432,14 @@ public class QuerySpecification extends QueryExpression {
             rangeVariables[i].resolveRangeTableTypes(session, rangeVariables);
         }
 
+        batchAggregate = BatchAggregate.newBatchAggregate(this);
+
         setResultNullability();
 
+        if (ExpressionCompiler.isEnabled(session)) {
+            compileExpressions(session);
+        }
+
         rangeVariableList = null;
         tempSet           = null;
         compileContext    = null;
@@ -1021,6 +1030,40 @@ public class QuerySpecification extends QueryExpression {
         }
     }
 
+    /**
+     * Compiles the conditions and, for non-aggregate queries, the
+     * expressions evaluated for each row
+     */
+    private void compileExpressions(Session session) {
+
+        for (int i = 0; i < rangeVariables.length; i++) {
+            rangeVariables[i].compileConditions(session);
+        }
+
+        if (isAggregated || isGrouped) {
+            return;
+        }
+
+        Expression[] columns = null;
+
+        for (int i = 0; i < indexStartAggregates; i++) {
+            Expression e = ExpressionCompiler.compile(session, exprColumns[i]);
+
+            if (e != exprColumns[i]) {
+                if (columns == null) {
+                    columns = new Expression[indexStartAggregates];
+
+                    ArrayUtil.copyArray(exprColumns, columns,
+                                        indexStartAggregates);
+                }
+
+                columns[i] = e;
+            }
+        }
+
+        compiledColumns = columns;
+    }
+
     private void setRangeVariableConditions(Session session) {
 
         RangeVariableResolver rangeResolver =
@@ -1489,6 +1532,18 @@ public class QuerySpecification extends QueryExpression {
         return r;
     }
 
+    /**
+     * Returns true if a large result that is only sorted can be sorted in
+     * temporary files instead of a disk based index.
+     */
+    private boolean isExternalSort() {
+
+        return isTopLevel && sortAndSlice.hasOrder() && !sortAndSlice.skipSort
+               && !isDistinctSelect && !isAggregated && !isGrouped
+               && orderIndex != null && idIndex == null
+               && indexLimitRowId == indexLimitVisible;
+    }
+
     private Result buildResult(Session session, int[] limits) {
 
         RowSetNavigatorData navigator = new RowSetNavigatorData(session,
@@ -1504,12 +1559,27 @@ public class QuerySpecification extends QueryExpression {
 
         int skipCount  = 0;
         int limitCount = limits[2];
+        int topCount   = 0;
 
         if (sortAndSlice.skipFullResult) {
             skipCount  = limits[0];
             limitCount = limits[1];
         }
 
+        // only the first rows in the ORDER BY order are kept
+        if (limits != SortAndSlice.defaultLimits && sortAndSlice.hasOrder()
+                && !sortAndSlice.skipSort && !sortAndSlice.skipFullResult
+                && !isDistinctSelect && !isAggregated && !resultGrouped
+                && orderIndex != null && idIndex == null
+                && limits[1] < Integer.MAX_VALUE - limits[0]) {
+            topCount = limits[0] + limits[1];
+
+            if (session.resultMaxMemoryRows != 0
+                    && topCount >= session.resultMaxMemoryRows) {
+                topCount = 0;
+            }
+        }
+
         if (this.isSimpleCount) {
             Object[] data  = new Object[indexLimitData];
             Table    table = rangeVariables[0].getTable();
@@ -1548,7 +1618,13 @@ public class QuerySpecification extends QueryExpression {
 
         session.sessionContext.rownum = 1;
 
-        for (int currentIndex = 0; ; ) {
+        // the rows have already been aggregated in batches
+        boolean isBatch = batchAggregate != null && skipCount == 0
+                          && limitCount != 0
+                          && batchAggregate.addGroups(session, navigator);
+
+        for (int currentIndex = isBatch ? -1
+                                        : 0; ; ) {
             if (currentIndex < fullJoinIndex) {
 
                 // finished current span
@@ -1596,13 +1672,15 @@ public class QuerySpecification extends QueryExpression {
 
             session.sessionData.startRowProcessing();
 
-            Object[] data = new Object[indexLimitData];
+            Object[]     data    = new Object[indexLimitData];
+            Expression[] columns = compiledColumns == null ? exprColumns
+                                                           : compiledColumns;
 
             for (int i = 0; i < indexStartAggregates; i++) {
                 if (isAggregated && aggregateCheck[i]) {
                     continue;
                 } else {
-                    data[i] = exprColumns[i].getValue(session);
+                    data[i] = columns[i].getValue(session);
                 }
             }
 
@@ -1638,6 +1716,12 @@ public class QuerySpecification extends QueryExpression {
                         data[i]);
             }
 
+            if (topCount != 0) {
+                navigator.addTopRow(data, topCount);
+
+                continue;
+            }
+
             if (groupData == null) {
                 navigator.add(data);
 
@@ -1656,8 +1740,17 @@ public class QuerySpecification extends QueryExpression {
 
             if (rowCount == session.resultMaxMemoryRows && !isAggregated
                     && !isSingleMemoryTable) {
-                navigator = new RowSetNavigatorDataTable(session, this,
-                        navigator);
+                String path = isExternalSort()
+                              ? session.database.logger.getTempDirectoryPath()
+                              : null;
+
+                if (path == null) {
+                    navigator = new RowSetNavigatorDataTable(session, this,
+                            navigator);
+                } else {
+                    navigator = new RowSetNavigatorDataFile(session, this,
+                            navigator, path);
+                }
 
                 result.setNavigator(navigator);
             }
@@ -2509,6 +2602,8 @@ public class QuerySpecification extends QueryExpression {
     public void replaceColumnReferences(RangeVariable range,
                                         Expression[] list) {
 
+        compiledColumns = null;
+
         for (int i = 0; i < indexStartAggregates; i++) {
             exprColumns[i] = exprColumns[i].replaceColumnReferences(range,
                     list);
@@ -2604,6 +2699,20 @@ public class QuerySpecification extends QueryExpression {
         return queryCondition;
     }
 
+    Expression[] getGroupExpressions() {
+
+        Expression[] array = new Expression[groupByColumnCount];
+
+        System.arraycopy(exprColumns, indexLimitRowId, array, 0,
+                         groupByColumnCount);
+
+        return array;
+    }
+
+    boolean hasHavingCondition() {
+        return havingCondition != null;
+    }
+
     void getBaseTableNames(OrderedHashSet set) {
 
         for (int i = 0; i < rangeVariables.length; i++) {
@@ -2626,6 +2735,13 @@ public class QuerySpecification extends QueryExpression {
         }
     }
 
+    void getRangeTables(OrderedHashSet set) {
+
+        for (int i = 0; i < rangeVariables.length; i++) {
+            set.add(rangeVariables[i].rangeTable);
+        }
+    }
+
     /**
      * returns true if almost equivalent
      */
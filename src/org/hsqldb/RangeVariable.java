@@ -96,6 +96,7 @@ public class RangeVariable {
     boolean isLeftJoin;     // table joined with LEFT / FULL OUTER JOIN
     boolean isRightJoin;    // table joined with RIGHT / FULL OUTER JOIN
     boolean isJoin;
+    boolean isMergeJoin;    // index probes continue from the last match
 
     //
     boolean hasLateral;
@@ -667,6 +668,22 @@ public class RangeVariable {
         whereConditions[0].rangeIndex = index;
     }
 
+    /**
+     * Replaces the non-index conditions with compiled expressions
+     */
+    void compileConditions(Session session) {
+
+        for (int i = 0; i < joinConditions.length; i++) {
+            joinConditions[i].nonIndexCondition = ExpressionCompiler.compile(
+                session, joinConditions[i].nonIndexCondition);
+        }
+
+        for (int i = 0; i < whereConditions.length; i++) {
+            whereConditions[i].nonIndexCondition = ExpressionCompiler.compile(
+                session, whereConditions[i].nonIndexCondition);
+        }
+    }
+
     public OrderedHashSet getSubqueries() {
 
         OrderedHashSet set = null;
@@ -976,6 +993,10 @@ public class RangeVariable {
         }
 
         sb.append(b).append("join type=").append(temp).append("\n");
+
+        if (isMergeJoin) {
+            sb.append(b).append("join method=MERGE").append("\n");
+        }
         sb.append(b).append("table=").append(rangeTable.getName().name).append(
             "\n");
 
@@ -1188,6 +1209,9 @@ public class RangeVariable {
 
     public static class RangeIteratorMain extends RangeIteratorBase {
 
+        static final int   mergeJoinMaxSteps = 64;
+        static final int[] mergeColMap       = new int[]{ 0 };
+
         boolean                   hasLeftOuterRow;
         boolean                   isFullIterator;
         RangeVariableConditions[] conditions;
@@ -1201,6 +1225,15 @@ public class RangeVariable {
         //
         Object[] currentJoinData = null;
 
+        // merge join state
+        RowIterator mergeIterator;
+        Row         mergeRow;
+        Object      mergeValue;
+        RowIterator mergeRowIterator;
+
+        // COLUMNAR table scan
+        ColumnStore.Scan columnScan;
+
         RangeIteratorMain() {
             super();
         }
@@ -1269,6 +1302,7 @@ public class RangeVariable {
             }
 
             it            = null;
+            columnScan    = null;
             currentData   = rangeVar.emptyData;
             currentRow    = null;
             isBeforeFirst = true;
@@ -1298,12 +1332,18 @@ public class RangeVariable {
                 if (conditions[condIndex].reversed) {
                     it = conditions[condIndex].rangeIndex.lastRow(session,
                             store, rangeVar.indexDistinctCount, null);
+                } else if (isColumnScan()) {
+                    it = conditions[condIndex].rangeIndex.emptyIterator();
                 } else {
                     it = conditions[condIndex].rangeIndex.firstRow(session,
                             store, rangeVar.indexDistinctCount, null);
                 }
             } else {
-                getFirstRow();
+                if (rangeVar.isMergeJoin && conditions == joinConditions) {
+                    getMergeRows();
+                } else {
+                    getFirstRow();
+                }
 
                 if (!conditions[condIndex].isJoin) {
                     hasLeftOuterRow = false;
@@ -1311,6 +1351,26 @@ public class RangeVariable {
             }
         }
 
+        /**
+         * Starts a scan of the column segments instead of the rows for a
+         * full scan of a COLUMNAR table in the order of the primary index.
+         * The values are the same but the row objects are not available.
+         */
+        private boolean isColumnScan() {
+
+            if (!rangeVar.rangeTable.isColumnar() || rangeVar.isLeftJoin
+                    || rangeVar.isRightJoin
+                    || rangeVar.indexDistinctCount > 0
+                    || conditions[condIndex].rangeIndex
+                       != rangeVar.rangeTable.getPrimaryIndex()) {
+                return false;
+            }
+
+            columnScan = ColumnStore.getScan(session, rangeVar, condIndex);
+
+            return columnScan != null;
+        }
+
         private void getFirstRow() {
 
             if (currentJoinData == null
@@ -1415,6 +1475,137 @@ public class RangeVariable {
                     conditions[condIndex].reversed, null);
         }
 
+        /**
+         * Used instead of getFirstRow() for a single column equality join
+         * when the rows of the outer range are expected in the order of the
+         * join column. The index iterator is kept between calls. When the
+         * new join value is larger than the last one, the iterator moves
+         * forward from the last position instead of searching the index
+         * again. Otherwise, or when the move takes too many steps, the index
+         * is searched for the first row not smaller than the value.
+         */
+        private void getMergeRows() {
+
+            RangeVariableConditions condition = conditions[condIndex];
+            Expression              e         = condition.indexCond[0];
+            Type   valueType  = e.getRightNode().getDataType();
+            Object value      = e.getRightNode().getValue(session);
+            Type   targetType = e.getLeftNode().getDataType();
+
+            if (value == null) {
+                it = condition.rangeIndex.emptyIterator();
+
+                return;
+            }
+
+            if (targetType != valueType) {
+                if (targetType.compareToTypeRange(value) != 0) {
+                    it = condition.rangeIndex.emptyIterator();
+
+                    return;
+                }
+
+                if (targetType.typeComparisonGroup
+                        != valueType.typeComparisonGroup) {
+                    value = targetType.convertToType(session, value,
+                                                     valueType);
+                }
+            }
+
+            if (currentJoinData == null) {
+                currentJoinData = new Object[1];
+            }
+
+            currentJoinData[0] = value;
+
+            if (mergeIterator == null
+                    || targetType.compare(session, value, mergeValue) <= 0) {
+                seekMergeRow();
+            } else {
+                for (int steps = 0; ; steps++) {
+                    if (mergeRow == null || compareMergeRow() >= 0) {
+                        break;
+                    }
+
+                    if (steps == mergeJoinMaxSteps) {
+                        seekMergeRow();
+
+                        break;
+                    }
+
+                    mergeRow = mergeIterator.getNextRow();
+                }
+            }
+
+            mergeValue = value;
+
+            if (mergeRowIterator == null) {
+                mergeRowIterator = new MergeRowIterator();
+            }
+
+            it = mergeRowIterator;
+        }
+
+        private void seekMergeRow() {
+
+            mergeIterator =
+                conditions[condIndex].rangeIndex.findFirstRow(session, store,
+                    currentJoinData, 1, 0, OpTypes.GREATER_EQUAL, false, null);
+            mergeRow = mergeIterator.getNextRow();
+        }
+
+        /**
+         * Compares the join column of mergeRow with the join value
+         */
+        private int compareMergeRow() {
+            return conditions[condIndex].rangeIndex.compareRowNonUnique(
+                session, mergeRow.getData(), currentJoinData, mergeColMap, 1);
+        }
+
+        /**
+         * Returns the rows equal to the join value from the shared index
+         * iterator. The iterator is left on the first larger row.
+         */
+        private class MergeRowIterator implements RowIterator {
+
+            public Row getNextRow() {
+
+                if (mergeRow == null || compareMergeRow() != 0) {
+                    return null;
+                }
+
+                Row row = mergeRow;
+
+                mergeRow = mergeIterator.getNextRow();
+
+                return row;
+            }
+
+            public Object[] getNext() {
+
+                Row row = getNextRow();
+
+                return row == null ? null
+                                   : row.getData();
+            }
+
+            public boolean hasNext() {
+                return mergeRow != null && compareMergeRow() == 0;
+            }
+
+            public void removeCurrent() {}
+
+            public boolean setRowColumns(boolean[] columns) {
+                return false;
+            }
+
+            public void release() {}
+
+            public long getRowId() {
+                return 0L;
+            }
+        }
+
         /**
          * Advances to the next available value. <p>
          *
@@ -1425,13 +1616,21 @@ public class RangeVariable {
             boolean result = false;
 
             while (true) {
-                currentRow = it.getNextRow();
+                if (columnScan == null) {
+                    currentRow = it.getNextRow();
 
-                if (currentRow == null) {
-                    break;
-                }
+                    if (currentRow == null) {
+                        break;
+                    }
 
-                currentData = currentRow.getData();
+                    currentData = currentRow.getData();
+                } else {
+                    currentData = columnScan.getNext(session);
+
+                    if (currentData == null) {
+                        break;
+                    }
+                }
 
                 if (conditions[condIndex].terminalCondition != null) {
                     if (!conditions[condIndex].terminalCondition.testCondition(
@@ -1484,6 +1683,7 @@ public class RangeVariable {
 
             it.release();
 
+            columnScan  = null;
             currentRow  = null;
             currentData = rangeVar.emptyData;
 
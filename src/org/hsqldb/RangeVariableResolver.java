@@ -47,6 +47,7 @@ import org.hsqldb.lib.MultiValueHashMap;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.OrderedIntHashSet;
 import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.types.Type;
 
 /**
  * Determines how JOIN and WHERE expressions are used in query
@@ -67,6 +68,9 @@ public class RangeVariableResolver {
     SortAndSlice       sortAndSlice = SortAndSlice.noSort;
     boolean            reorder;
 
+    //
+    static final int mergeJoinMinRowCount = 1 << 12;
+
     //
     HsqlArrayList[] tempJoinExpressions;
     HsqlArrayList[] joinExpressions;
@@ -152,7 +156,7 @@ public class RangeVariableResolver {
 
     void processConditions() {
 
-        if (session.sessionOptimization < 8) {
+        if ((session.sessionOptimization & 8) == 0) {
             reorder = false;
         }
 
@@ -268,6 +272,79 @@ public class RangeVariableResolver {
         if (expandInExpression && inExpressionCount != 0) {
             setInConditionsAsTables();
         }
+
+        if (select != null) {
+            setMergeJoins();
+        }
+    }
+
+    /**
+     * Marks the ranges that are joined to the previous range with a single
+     * column equality condition on an index, when the previous range is
+     * read in the order of the join column. The index probes for such a
+     * range continue from the last position. Used only when both tables
+     * are large.
+     */
+    void setMergeJoins() {
+
+        for (int i = 1; i < rangeVariables.length; i++) {
+            RangeVariable range = rangeVariables[i];
+            RangeVariable outer = rangeVariables[i - 1];
+
+            range.isMergeJoin = false;
+
+            if (range.isRightJoin || range.indexDistinctCount != 0
+                    || range.joinConditions.length != 1
+                    || range.whereConditions[0].hasIndexCondition()
+                    || outer.joinConditions.length != 1) {
+                continue;
+            }
+
+            RangeVariableConditions conditions = range.joinConditions[0];
+
+            if (conditions.indexedColumnCount != 1
+                    || conditions.opType != OpTypes.EQUAL
+                    || conditions.reversed) {
+                continue;
+            }
+
+            Expression e = conditions.indexCond[0].getRightNode();
+
+            if (e.getType() != OpTypes.COLUMN
+                    || e.getRangeVariable() != outer) {
+                continue;
+            }
+
+            RangeVariableConditions outerConditions =
+                outer.whereConditions[0].hasIndexCondition()
+                ? outer.whereConditions[0]
+                : outer.joinConditions[0];
+
+            if (outerConditions.reversed
+                    || outerConditions.rangeIndex == null
+                    || outerConditions.rangeIndex.getColumnCount() == 0
+                    || outerConditions.rangeIndex.getColumns()[0]
+                       != e.getColumnIndex()) {
+                continue;
+            }
+
+            if (!isMergeJoinTable(range.rangeTable)
+                    || !isMergeJoinTable(outer.rangeTable)) {
+                continue;
+            }
+
+            range.isMergeJoin = true;
+        }
+    }
+
+    private boolean isMergeJoinTable(Table table) {
+
+        if (table instanceof TableDerived) {
+            return false;
+        }
+
+        return table.getRowStore(session).elementCount()
+               >= mergeJoinMinRowCount;
     }
 
     /**
@@ -634,11 +711,12 @@ public class RangeVariableResolver {
             return;
         }
 
-        int           position = -1;
-        RangeVariable range    = null;
-        double        cost     = 1024;
+        int           position      = getStartPosition(starts);
+        boolean       useStatistics = position >= 0;
+        RangeVariable range         = null;
+        double        cost          = 1024;
 
-        for (int i = 0; i < firstLeftJoinIndex; i++) {
+        for (int i = 0; i < firstLeftJoinIndex && !useStatistics; i++) {
             Table table = rangeVariables[i].rangeTable;
 
             if (table instanceof TableDerived) {
@@ -713,7 +791,10 @@ public class RangeVariableResolver {
         position            = 1;
 
         for (; position < firstLeftJoinIndex; position++) {
-            boolean found = false;
+            boolean found        = false;
+            int     joinIndex    = -1;
+            int     joinPosition = -1;
+            double  joinCost     = Double.MAX_VALUE;
 
             for (int i = 0; i < joins.size(); i++) {
                 Expression e = (Expression) joins.get(i);
@@ -726,19 +807,32 @@ public class RangeVariableResolver {
                     newRanges);
 
                 if (newPosition >= position) {
-                    range                  = newRanges[position];
-                    newRanges[position]    = newRanges[newPosition];
-                    newRanges[newPosition] = range;
+                    if (!useStatistics) {
+                        joinIndex    = i;
+                        joinPosition = newPosition;
 
-                    joins.set(i, null);
+                        break;
+                    }
 
-                    found = true;
+                    // join the range with the most selective conditions first
+                    double currentCost =
+                        estimateSelectivity(newRanges[newPosition], starts);
 
-                    break;
+                    if (currentCost < joinCost) {
+                        joinCost     = currentCost;
+                        joinIndex    = i;
+                        joinPosition = newPosition;
+                    }
                 }
             }
 
-            if (found) {
+            if (joinIndex >= 0) {
+                range                   = newRanges[position];
+                newRanges[position]     = newRanges[joinPosition];
+                newRanges[joinPosition] = range;
+
+                joins.set(joinIndex, null);
+
                 continue;
             }
 
@@ -784,6 +878,154 @@ public class RangeVariableResolver {
         }
     }
 
+    /**
+     * Returns the position of the range with the smallest estimated number
+     * of rows after applying the single column conditions, or -1 if the
+     * tables have not been analyzed.
+     */
+    int getStartPosition(HsqlArrayList starts) {
+
+        int    position = -1;
+        double cost     = Double.MAX_VALUE;
+
+        for (int i = 0; i < firstLeftJoinIndex; i++) {
+            Table table = rangeVariables[i].rangeTable;
+
+            if (table instanceof TableDerived) {
+                continue;
+            }
+
+            if (!table.hasStatistics()) {
+                return -1;
+            }
+
+            double selectivity = estimateSelectivity(rangeVariables[i],
+                starts);
+
+            if (selectivity == 1) {
+                continue;
+            }
+
+            double currentCost =
+                table.getRowStore(session).elementCount() * selectivity;
+
+            if (currentCost < cost) {
+                cost     = currentCost;
+                position = i;
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Estimates the fraction of rows of the range that satisfy the single
+     * column conditions in the list, using the column statistics.
+     */
+    double estimateSelectivity(RangeVariable range, HsqlList exprList) {
+
+        Table  table       = range.rangeTable;
+        double selectivity = 1;
+
+        if (table instanceof TableDerived || !table.hasStatistics()) {
+            return selectivity;
+        }
+
+        for (int i = 0, size = exprList.size(); i < size; i++) {
+            Expression e = (Expression) exprList.get(i);
+
+            if (e == null || !e.isSingleColumnCondition) {
+                continue;
+            }
+
+            Expression column = e.getLeftNode();
+            Expression other  = e.getRightNode();
+            int        opType = e.getType();
+
+            if (column.getRangeVariable() != range) {
+                if (other == null || other.getRangeVariable() != range) {
+                    continue;
+                }
+
+                column = e.getRightNode();
+                other  = e.getLeftNode();
+
+                switch (opType) {
+
+                    case OpTypes.GREATER :
+                        opType = OpTypes.SMALLER;
+                        break;
+
+                    case OpTypes.GREATER_EQUAL :
+                        opType = OpTypes.SMALLER_EQUAL;
+                        break;
+
+                    case OpTypes.SMALLER :
+                        opType = OpTypes.GREATER;
+                        break;
+
+                    case OpTypes.SMALLER_EQUAL :
+                        opType = OpTypes.GREATER_EQUAL;
+                        break;
+                }
+            }
+
+            ColumnStatistics stats =
+                table.getColumnStatistics(column.getColumnIndex());
+            double fraction = -1;
+
+            if (stats != null) {
+                switch (opType) {
+
+                    case OpTypes.EQUAL :
+                        fraction = stats.getEqualSelectivity();
+                        break;
+
+                    case OpTypes.IS_NULL :
+                        fraction = stats.getNullFraction();
+                        break;
+
+                    case OpTypes.GREATER :
+                    case OpTypes.GREATER_EQUAL :
+                    case OpTypes.GREATER_EQUAL_PRE :
+                    case OpTypes.SMALLER :
+                    case OpTypes.SMALLER_EQUAL :
+                        if (other.getType() == OpTypes.VALUE) {
+                            fraction = getRangeSelectivity(stats,
+                                                           column, other,
+                                                           opType);
+                        }
+                        break;
+                }
+            }
+
+            if (fraction < 0) {
+                fraction = opType == OpTypes.EQUAL ? 0.1
+                                                   : 0.33;
+            }
+
+            selectivity *= fraction;
+        }
+
+        return selectivity;
+    }
+
+    private double getRangeSelectivity(ColumnStatistics stats,
+                                       Expression column, Expression other,
+                                       int opType) {
+
+        try {
+            Type   type  = column.getDataType();
+            Object value = other.getValue(session);
+
+            value = type.convertToType(session, value, other.getDataType());
+
+            return stats.getRangeSelectivity(session, opType, value);
+        } catch (HsqlException e) {
+            return -1;
+        }
+    }
+
     int getJoinedRangePosition(Expression e, int position,
                                RangeVariable[] currentRanges) {
 
@@ -1305,12 +1547,9 @@ public class RangeVariableResolver {
 
             if (indexes.length > 1) {
                 for (int i = 0; i < indexes.length; i++) {
-                    PersistentStore store =
-                        conditions.rangeVar.rangeTable.getRowStore(session);
-                    double currentCost =
-                        store.searchCost(session, indexes[i].index,
-                                         indexes[i].columnCount,
-                                         OpTypes.EQUAL);
+                    double currentCost = indexSearchCost(session,
+                        conditions.rangeVar.rangeTable, indexes[i].index,
+                        indexes[i].columnCount, OpTypes.EQUAL);
 
                     if (currentCost < cost) {
                         cost  = currentCost;
@@ -1559,9 +1798,42 @@ public class RangeVariableResolver {
 
         if (table instanceof TableDerived) {
             return 1000;
-        } else {
-            return table.getRowStore(session).searchCost(session, index,
-                                     count, opType);
         }
+
+        return indexSearchCost(session, table, index, count, opType);
+    }
+
+    /**
+     * Uses the distinct counts of the columns when the table has been
+     * analyzed, otherwise the sampled cost maintained by the row store.
+     */
+    private double indexSearchCost(Session session, Table table, Index index,
+                                   int count, int opType) {
+
+        PersistentStore store = table.getRowStore(session);
+
+        if (opType == OpTypes.EQUAL && count > 0 && table.hasStatistics()) {
+            if (index.isUnique() && count == index.getColumnCount()) {
+                return 1;
+            }
+
+            int[]  cols = index.getColumns();
+            double cost = store.elementCount();
+
+            for (int i = 0; i < count; i++) {
+                ColumnStatistics stats = table.getColumnStatistics(cols[i]);
+
+                if (stats == null) {
+                    return store.searchCost(session, index, count, opType);
+                }
+
+                cost *= stats.getEqualSelectivity();
+            }
+
+            return cost < 1 ? 1
+                            : cost;
+        }
+
+        return store.searchCost(session, index, count, opType);
     }
 }
@@ -0,0 +1,516 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.hsqldb.HsqlNameManager.HsqlName;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.lib.OrderedIntHashSet;
+import org.hsqldb.navigator.RowSetNavigator;
+import org.hsqldb.navigator.RowSetNavigatorClient;
+import org.hsqldb.result.Result;
+import org.hsqldb.result.ResultConstants;
+import org.hsqldb.result.ResultMetaData;
+import org.hsqldb.result.ResultProperties;
+import org.hsqldb.types.Type;
+
+/**
+ * Database-wide cache of the results of read-only queries.<p>
+ *
+ * An entry is keyed on the SQL text of the statement, the schema in which it
+ * was compiled, the types and values of the dynamic parameters, the maximum
+ * row count and the session time zone. Sessions compile their own statements,
+ * so the key does not depend on the statement id and the same entry is used by
+ * all the sessions that execute the same query.<p>
+ *
+ * An entry records the action timestamp of the session that executed the
+ * query and the schema change timestamp of the database. The entry is valid
+ * while there is no schema change and none of the tables read by the query
+ * has a committed change with a later timestamp. The timestamp of the last
+ * committed change is kept in each table and is updated when a transaction
+ * commits or when the data of the table is replaced by other means.<p>
+ *
+ * The size of the cache is the total number of rows in all the entries and is
+ * set with SET DATABASE RESULT CACHE ROWS. The default is zero, which disables
+ * the cache. Entries are removed in least-recently-used order. Individual
+ * sessions can turn off the use of the cache with SET SESSION RESULT CACHE
+ * FALSE.<p>
+ *
+ * Only SELECT statements with no side effects and no dependency on the state
+ * of the session are cached.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ResultCache {
+
+    static final OrderedIntHashSet excludedExpressionSet =
+        new OrderedIntHashSet();
+
+    static {
+        excludedExpressionSet.add(OpTypes.VARIABLE);
+        excludedExpressionSet.add(OpTypes.PARAMETER);
+        excludedExpressionSet.add(OpTypes.TRANSITION_VARIABLE);
+        excludedExpressionSet.add(OpTypes.DIAGNOSTICS_VARIABLE);
+        excludedExpressionSet.add(OpTypes.SEQUENCE);
+        excludedExpressionSet.add(OpTypes.SEQUENCE_CURRENT);
+        excludedExpressionSet.add(OpTypes.SQL_FUNCTION);
+        excludedExpressionSet.add(OpTypes.FUNCTION);
+    }
+
+    private final Database      database;
+    private final LinkedHashMap map;
+    private final Key           lookupKey = new Key();
+    private int                 maxRows;
+    private int                 rowCount;
+    private long                hitCount;
+    private long                missCount;
+
+    ResultCache(Database database) {
+
+        this.database = database;
+        this.map      = new LinkedHashMap(16, 0.75f, true);
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Sets the maximum total number of rows in the cache. Zero disables
+     * the cache and removes all entries.
+     */
+    public synchronized void setMaxRows(int rows) {
+
+        maxRows = rows;
+
+        removeEldest();
+    }
+
+    public synchronized int getRowCount() {
+        return rowCount;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized void clear() {
+
+        map.clear();
+
+        rowCount = 0;
+    }
+
+    /**
+     * Returns true if the result of executing the statement in the current
+     * state of the session can be taken from or added to the cache.
+     */
+    boolean isCacheable(Session session, StatementQuery cs) {
+
+        if (maxRows == 0 || cs.resultCacheTables == null || cs.isExplain
+                || cs.getSQL() == null) {
+            return false;
+        }
+
+        if (!session.isResultCache()
+                || session.sessionContext.depth > 0
+                || !session.rowActionList.isEmpty()) {
+            return false;
+        }
+
+        // a snapshot older than the statement cannot use newer results
+        return session.isolationLevel == SessionInterface.TX_READ_COMMITTED
+               || database.txManager.getTransactionControl()
+                  == TransactionManager.LOCKS;
+    }
+
+    /**
+     * Returns a new Result with the cached rows, or null if there is no valid
+     * entry for the statement and the current dynamic arguments.
+     */
+    synchronized Result getResult(Session session, StatementQuery cs) {
+
+        lookupKey.set(session, cs);
+
+        Entry entry = (Entry) map.get(lookupKey);
+
+        lookupKey.args = null;
+
+        if (entry != null) {
+            if (entry.schemaTimestamp
+                    != database.schemaManager.getSchemaChangeTimestamp()
+                    || !isValid(entry.tables, entry.timestamp)) {
+                map.remove(entry.key);
+
+                rowCount -= entry.rows.length;
+                entry     = null;
+            }
+        }
+
+        if (entry == null) {
+            missCount++;
+
+            return null;
+        }
+
+        hitCount++;
+
+        RowSetNavigatorClient navigator = new RowSetNavigatorClient();
+
+        navigator.setData(entry.rows);
+
+        Result result = Result.newResult(navigator);
+
+        result.metaData     = entry.metaData;
+        result.rsProperties = entry.rsProperties;
+
+        result.setStatement(cs);
+
+        return result;
+    }
+
+    /**
+     * Adds the result of a statement that was executed with the given action
+     * and schema change timestamps. The result is not added if it has too
+     * many rows, if it is not held in memory, or if the schema or one of the
+     * tables has been changed since the timestamps.
+     */
+    void addResult(Session session, StatementQuery cs, long timestamp,
+                   long schemaTimestamp, Result result) {
+
+        if (result.mode != ResultConstants.DATA
+                || ResultProperties.isUpdatable(result.rsProperties)) {
+            return;
+        }
+
+        RowSetNavigator navigator = result.getNavigator();
+
+        if (!navigator.isMemory() || navigator.getSize() > maxRows) {
+            return;
+        }
+
+        Object[][] rows = new Object[navigator.getSize()][];
+
+        navigator.beforeFirst();
+
+        for (int i = 0; navigator.next(); i++) {
+            rows[i] = navigator.getCurrent();
+        }
+
+        navigator.beforeFirst();
+
+        Key key = new Key();
+
+        key.set(session, cs);
+
+        Entry entry = new Entry();
+
+        entry.key             = key;
+        entry.tables          = cs.resultCacheTables;
+        entry.timestamp       = timestamp;
+        entry.schemaTimestamp = schemaTimestamp;
+        entry.rows            = rows;
+        entry.metaData        = result.metaData;
+        entry.rsProperties    = result.rsProperties;
+
+        synchronized (this) {
+            if (rows.length > maxRows
+                    || schemaTimestamp
+                       != database.schemaManager.getSchemaChangeTimestamp()
+                    || !isValid(cs.resultCacheTables, timestamp)) {
+                return;
+            }
+
+            Entry old = (Entry) map.put(key, entry);
+
+            if (old != null) {
+                rowCount -= old.rows.length;
+            }
+
+            rowCount += rows.length;
+
+            removeEldest();
+        }
+    }
+
+    private void removeEldest() {
+
+        if (rowCount <= maxRows) {
+            return;
+        }
+
+        Iterator it = map.values().iterator();
+
+        while (rowCount > maxRows && it.hasNext()) {
+            Entry entry = (Entry) it.next();
+
+            it.remove();
+
+            rowCount -= entry.rows.length;
+        }
+    }
+
+    private static boolean isValid(Table[] tables, long timestamp) {
+
+        for (int i = 0; i < tables.length; i++) {
+            if (tables[i].dataChangeTimestamp > timestamp) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the base tables read by the statement, or null if the result
+     * of the statement cannot be cached.
+     */
+    static Table[] getCacheTables(StatementQuery cs) {
+
+        if (cs.type != StatementTypes.SELECT_CURSOR
+                || cs.queryExpression.isUpdatable
+                || cs.routines.length > 0 || cs.sequences.length > 0) {
+            return null;
+        }
+
+        ResultMetaData meta = cs.queryExpression.getMetaData();
+
+        for (int i = 0; i < meta.getColumnCount(); i++) {
+            Type type = meta.columnTypes[i];
+
+            if (type.isLobType()) {
+                return null;
+            }
+        }
+
+        // all the tables read by the query, including those read by views
+        // and subqueries at any depth
+        OrderedHashSet rangeTables = new OrderedHashSet();
+
+        for (int i = 0; i < cs.rangeVariables.length; i++) {
+            RangeVariable range = cs.rangeVariables[i];
+
+            addRangeTables(range.rangeTable, rangeTables);
+            addRangeTables(range.getSubqueries(), rangeTables);
+        }
+
+        for (int i = 0; i < cs.subqueries.length; i++) {
+            addRangeTables(cs.subqueries[i], rangeTables);
+        }
+
+        OrderedHashSet set = null;
+
+        set = cs.queryExpression.collectAllExpressions(set,
+                excludedExpressionSet, Expression.emptyExpressionSet);
+
+        OrderedHashSet tables = new OrderedHashSet();
+
+        for (int i = 0; i < rangeTables.size(); i++) {
+            Table table = (Table) rangeTables.get(i);
+
+            switch (table.tableType) {
+
+                case TableBase.MEMORY_TABLE :
+                case TableBase.CACHED_TABLE :
+                case TableBase.TEXT_TABLE :
+                    tables.add(table);
+                    break;
+
+                case TableBase.SYSTEM_SUBQUERY :
+                case TableBase.VIEW_TABLE :
+                case TableBase.FUNCTION_TABLE : {
+                    TableDerived td = (TableDerived) table;
+
+                    if (td.queryExpression != null) {
+                        set = td.queryExpression.collectAllExpressions(set,
+                                excludedExpressionSet,
+                                Expression.emptyExpressionSet);
+                    }
+
+                    if (td.dataExpression != null) {
+                        set = td.dataExpression.collectAllExpressions(set,
+                                excludedExpressionSet,
+                                Expression.emptyExpressionSet);
+                    }
+
+                    break;
+                }
+                default :
+                    return null;
+            }
+        }
+
+        if (set != null) {
+            for (int i = 0; i < set.size(); i++) {
+                Expression e = (Expression) set.get(i);
+
+                if (e.opType != OpTypes.SQL_FUNCTION
+                        || !((FunctionSQL) e).isDeterministic()) {
+                    return null;
+                }
+            }
+        }
+
+        Table[] array = new Table[tables.size()];
+
+        tables.toArray(array);
+
+        return array;
+    }
+
+    private static void addRangeTables(OrderedHashSet tableSet,
+                                       OrderedHashSet set) {
+
+        if (tableSet == null) {
+            return;
+        }
+
+        for (int i = 0; i < tableSet.size(); i++) {
+            addRangeTables((Table) tableSet.get(i), set);
+        }
+    }
+
+    private static void addRangeTables(Table table, OrderedHashSet set) {
+
+        if (!set.add(table)) {
+            return;
+        }
+
+        QueryExpression queryExpression = table.getQueryExpression();
+
+        if (queryExpression != null) {
+            OrderedHashSet tableSet = new OrderedHashSet();
+
+            queryExpression.getRangeTables(tableSet);
+            addRangeTables(tableSet, set);
+            addRangeTables(queryExpression.getSubqueries(), set);
+        }
+
+        Expression dataExpression = table.getDataExpression();
+
+        if (dataExpression != null) {
+            addRangeTables(dataExpression.collectAllSubqueries(null), set);
+        }
+    }
+
+    private static class Key {
+
+        String   sql;
+        HsqlName schemaName;
+        Type[]   parameterTypes;
+        int      maxRows;
+        int      zoneSeconds;
+        Object[] args;
+        int      hashCode;
+
+        void set(Session session, StatementQuery cs) {
+
+            sql            = cs.getSQL();
+            schemaName     = cs.getSchemaName();
+            parameterTypes = cs.getParametersMetaData().getParameterTypes();
+            maxRows        = session.getMaxRows();
+            zoneSeconds    = session.getZoneSeconds();
+            args           = session.sessionContext.dynamicArguments;
+
+            int hash = sql.hashCode();
+
+            hash = hash * 31 + schemaName.hashCode();
+            hash = hash * 31 + maxRows;
+            hash = hash * 31 + zoneSeconds;
+
+            for (int i = 0; i < args.length; i++) {
+                hash = hash * 31 + (args[i] == null ? 0
+                                                    : args[i].hashCode());
+            }
+
+            hashCode = hash;
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object other) {
+
+            if (!(other instanceof Key)) {
+                return false;
+            }
+
+            Key key = (Key) other;
+
+            if (maxRows != key.maxRows || zoneSeconds != key.zoneSeconds
+                    || schemaName != key.schemaName
+                    || args.length != key.args.length
+                    || parameterTypes.length != key.parameterTypes.length
+                    || !sql.equals(key.sql)
+                    || !ArrayUtil.haveEqualArrays(parameterTypes,
+                                                  key.parameterTypes,
+                                                  parameterTypes.length)) {
+                return false;
+            }
+
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null) {
+                    if (key.args[i] != null) {
+                        return false;
+                    }
+                } else if (!args[i].equals(key.args[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static class Entry {
+
+        Key            key;
+        Table[]        tables;
+        long           timestamp;
+        long           schemaTimestamp;
+        Object[][]     rows;
+        ResultMetaData metaData;
+        int            rsProperties;
+    }
+}
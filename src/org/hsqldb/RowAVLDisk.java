@@ -78,6 +78,7 @@ import org.hsqldb.index.NodeAVL;
 import org.hsqldb.index.NodeAVLDisk;
 import org.hsqldb.lib.LongLookup;
 import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.rowio.RowInputBinary;
 import org.hsqldb.rowio.RowInputInterface;
 import org.hsqldb.rowio.RowOutputInterface;
 
@@ -160,7 +161,12 @@ public class RowAVLDisk extends RowAVL {
             n       = n.nNext;
         }
 
-        rowData = in.readData(table.getColumnTypes());
+        if (t.isCompressed()) {
+            rowData = ((RowInputBinary) in).readCompressedData(
+                table.getColumnTypes(), t.getCompressionDictionary());
+        } else {
+            rowData = in.readData(table.getColumnTypes());
+        }
     }
 
     RowAVLDisk(TableBase t) {
@@ -36,12 +36,13 @@ import java.io.IOException;
 import org.hsqldb.index.NodeAVL;
 import org.hsqldb.index.NodeAVLDiskLarge;
 import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.rowio.RowInputBinary;
 import org.hsqldb.rowio.RowInputInterface;
 
 /**
  * Subclass of Row huge databases. <p>
  * @author Fred Toussi (fredt@users dot sourceforge dot net)
- * @version 2.2.9
+ * @version 2.3.3
  * @since 2.2.9
  */
 public class RowAVLDiskLarge extends RowAVLDisk {
@@ -83,7 +84,12 @@ public class RowAVLDiskLarge extends RowAVLDisk {
             n       = n.nNext;
         }
 
-        rowData = in.readData(table.getColumnTypes());
+        if (t.isCompressed()) {
+            rowData = ((RowInputBinary) in).readCompressedData(
+                table.getColumnTypes(), t.getCompressionDictionary());
+        } else {
+            rowData = in.readData(table.getColumnTypes());
+        }
     }
 
     public void setNewNodes(PersistentStore store) {
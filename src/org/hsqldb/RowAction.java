@@ -417,6 +417,35 @@ public class RowAction extends RowActionBase {
         return actionType;
     }
 
+    /**
+     * returns net type of the actions of the session that are not yet
+     * committed. ACTION_NONE if none.
+     */
+    synchronized int getUncommittedType(Session session) {
+
+        RowActionBase action     = this;
+        int           actionType = ACTION_NONE;
+
+        do {
+            if (action.session == session && action.commitTimestamp == 0
+                    && !action.rolledback) {
+                if (action.type == ACTION_INSERT) {
+                    actionType = action.type;
+                } else if (action.type == ACTION_DELETE) {
+                    if (actionType == ACTION_INSERT) {
+                        actionType = ACTION_INSERT_DELETE;
+                    } else {
+                        actionType = action.type;
+                    }
+                }
+            }
+
+            action = action.next;
+        } while (action != null);
+
+        return actionType;
+    }
+
     /**
      * returns false if another committed session has altered the same row
      */
@@ -854,6 +883,27 @@ public class RowAction extends RowActionBase {
         return false;
     }
 
+    /**
+     * Returns the uncommitted delete action of a session other than the given
+     * session, or null if there is none.
+     */
+    public synchronized RowActionBase getOtherUncommittedDelete(
+            Session session) {
+
+        RowActionBase action = this;
+
+        do {
+            if (action.type == ACTION_DELETE && action.session != session
+                    && action.commitTimestamp == 0 && !action.rolledback) {
+                return action;
+            }
+
+            action = action.next;
+        } while (action != null);
+
+        return null;
+    }
+
     public boolean hasCurrentRefAction() {
 
         RowActionBase action = this;
@@ -77,6 +77,11 @@ public class SchemaManager {
     Table        dualTable;
     public Table dataChangeTable;
 
+    // materialized views maintained at commit
+    Object  maintenanceLock = new Object();
+    boolean hasMaintainedViews;
+    boolean maintainedViewsValid;
+
     public SchemaManager(Database database) {
 
         this.database         = database;
@@ -105,7 +110,9 @@ public class SchemaManager {
     }
 
     public void setSchemaChangeTimestamp() {
+
         schemaChangeTimestamp = database.txManager.getGlobalChangeTimestamp();
+        maintainedViewsValid  = false;
     }
 
     public long getSchemaChangeTimestamp() {
@@ -990,6 +997,111 @@ public class SchemaManager {
         }
     }
 
+    /**
+     * Returns true if any materialized view is maintained at commit.
+     */
+    boolean hasMaintainedViews() {
+
+        if (maintainedViewsValid) {
+            return hasMaintainedViews;
+        }
+
+        readLock.lock();
+
+        try {
+            boolean  found = false;
+            Iterator it    = schemaMap.values().iterator();
+
+            while (it.hasNext() && !found) {
+                Schema   schema = (Schema) it.next();
+                Iterator tables = schema.tableList.values().iterator();
+
+                while (tables.hasNext()) {
+                    Table table = (Table) tables.next();
+
+                    if (table.isMaterializedView()
+                            && ((MaterializedView) table).isMaintained()) {
+                        found = true;
+
+                        break;
+                    }
+                }
+            }
+
+            hasMaintainedViews   = found;
+            maintainedViewsValid = true;
+
+            return found;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the materialized views that are maintained from changes to the
+     * table.
+     */
+    MaterializedView[] getMaintainedViews(Table table) {
+
+        readLock.lock();
+
+        try {
+            HsqlArrayList list = new HsqlArrayList();
+            Iterator      it   = referenceMap.get(table.getName());
+
+            while (it.hasNext()) {
+                HsqlName name = (HsqlName) it.next();
+
+                if (name.type != SchemaObject.TABLE) {
+                    continue;
+                }
+
+                SchemaObject object = getSchemaObject(name);
+
+                if (object instanceof MaterializedView
+                        && ((MaterializedView) object)
+                            .getMaintenanceBaseTable() == table) {
+                    list.add(object);
+                }
+            }
+
+            MaterializedView[] array = new MaterializedView[list.size()];
+
+            list.toArray(array);
+
+            return array;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the names of the materialized views maintained from changes to the
+     * tables in the set.
+     */
+    void addMaintainedViewNames(OrderedHashSet set) {
+
+        for (int i = 0, size = set.size(); i < size; i++) {
+            HsqlName name = (HsqlName) set.get(i);
+
+            if (name.type != SchemaObject.TABLE) {
+                continue;
+            }
+
+            SchemaObject object = getSchemaObject(name);
+
+            if (object == null) {
+                continue;
+            }
+
+            MaterializedView[] views = getMaintainedViews((Table) object);
+
+            for (int j = 0; j < views.length; j++) {
+                set.add(views[j].getName());
+            }
+        }
+    }
+
     public void recompileDependentObjects(OrderedHashSet tableSet) {
 
         writeLock.lock();
@@ -1010,6 +1122,7 @@ public class SchemaManager {
 
                 switch (name.type) {
 
+                    case SchemaObject.TABLE :
                     case SchemaObject.VIEW :
                     case SchemaObject.CONSTRAINT :
                     case SchemaObject.ASSERTION :
@@ -1059,6 +1172,7 @@ public class SchemaManager {
 
                 switch (name.type) {
 
+                    case SchemaObject.TABLE :
                     case SchemaObject.VIEW :
                     case SchemaObject.CONSTRAINT :
                     case SchemaObject.ASSERTION :
@@ -2197,6 +2311,15 @@ public class SchemaManager {
                     set    = schema.tableLookup;
                     object = set.getObject(name.name);
 
+                    // materialized view dropped with the objects it references
+                    if (object instanceof MaterializedView) {
+                        schema.indexLookup.removeParent(name);
+                        schema.constraintLookup.removeParent(name);
+                        schema.triggerLookup.removeParent(name);
+                        removeTable(database.sessionManager.getSysSession(),
+                                    (Table) object);
+                    }
+
                     break;
                 }
                 case SchemaObject.COLUMN : {
@@ -2547,6 +2670,12 @@ public class SchemaManager {
                         list.add(ddl);
                     }
                 }
+
+                String[] stats = t.getSQLForStatistics();
+
+                if (stats != null) {
+                    list.addAll(stats);
+                }
             }
 
             String[] array = new String[list.size()];
@@ -2576,6 +2705,18 @@ public class SchemaManager {
                     if (ddl != null) {
                         list.add(ddl);
                     }
+
+                    ddl = t.getSQLForCompressed();
+
+                    if (ddl != null) {
+                        list.add(ddl);
+                    }
+
+                    String[] partitionDDL = t.getSQLForPartitionSpaces();
+
+                    for (int j = 0; j < partitionDDL.length; j++) {
+                        list.add(partitionDDL[j]);
+                    }
                 }
             }
 
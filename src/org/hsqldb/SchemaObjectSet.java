@@ -449,7 +449,8 @@ public class SchemaObjectSet {
                         break;
 
                     case SchemaObject.COLUMN : {
-                        if (object.getType() == SchemaObject.TABLE) {
+                        if (object.getType() == SchemaObject.TABLE
+                                && name.parent == object.getName()) {
                             int index = ((Table) object).findColumn(name.name);
                             ColumnSchema column =
                                 ((Table) object).getColumn(index);
@@ -49,6 +49,7 @@ import org.hsqldb.lib.CountUpDownLatch;
 import org.hsqldb.lib.HashMap;
 import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.HsqlDeque;
+import org.hsqldb.lib.IntValueHashMap;
 import org.hsqldb.lib.Iterator;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.SimpleLog;
@@ -113,6 +114,8 @@ public class Session implements SessionInterface {
     OrderedHashSet          tempSet;
     public CountUpDownLatch latch = new CountUpDownLatch();
     Statement               lockStatement;
+    boolean                 isRowLocking;
+    IntValueHashMap         rowLockCounts = new IntValueHashMap();
     TimeoutManager          timeoutManager;
 
     // current settings
@@ -121,11 +124,13 @@ public class Session implements SessionInterface {
     int                timeZoneSeconds;
     boolean            isNetwork;
     private int        sessionMaxRows;
-    int                sessionOptimization = 8;
+    int                sessionOptimization = 8
+                                             | BatchAggregate.sessionFeature;
     private final long sessionId;
     int                sessionTxId = -1;
     private boolean    ignoreCase;
     private long       sessionStartTimestamp;
+    private boolean    keepStatements;    // statements cached by client
 
     // internal connection
     private JDBCConnection intConnection;
@@ -136,6 +141,7 @@ public class Session implements SessionInterface {
     // schema
     public HsqlName currentSchema;
     public HsqlName loggedSchema;
+    private HsqlName requestSchema;
 
     // query processing
     ParserCommand         parser;
@@ -143,12 +149,14 @@ public class Session implements SessionInterface {
     boolean               isProcessingLog;
     public SessionContext sessionContext;
     int                   resultMaxMemoryRows;
+    boolean               isResultCache = true;
 
     //
     public SessionData sessionData;
 
     //
     public StatementManager statementManager;
+    LiteralParameterizer    literalParameterizer;
 
     //
     public Object special;
@@ -387,7 +395,8 @@ public class Session implements SessionInterface {
 
     void setFeature(String feature, boolean value) {
 
-        int number = 8;
+        int number = 8 << ArrayUtil.find(ParserRoutine.featureStrings,
+                                         feature);
 
         if (value) {
             sessionOptimization |= number;
@@ -519,7 +528,7 @@ public class Session implements SessionInterface {
 
     public boolean hasLocks(Statement statement) {
 
-        if (lockStatement == statement) {
+        if (lockStatement == statement && !isRowLocking) {
             if (isolationLevel == SessionInterface.TX_REPEATABLE_READ
                     || isolationLevel == SessionInterface.TX_SERIALIZABLE) {
                 return true;
@@ -575,12 +584,24 @@ public class Session implements SessionInterface {
         }
 
         if (isTransaction) {
-            if (!database.txManager.commitTransaction(this)) {
+            if (isProcessingScript || isProcessingLog
+                    || !database.schemaManager.hasMaintainedViews()
+                    || !MaterializedView.hasMaintainedViewChanges(this)) {
+                commitTransaction(chain);
+            } else {
+
+                // views are changed and committed before other sessions commit
+                synchronized (database.schemaManager.maintenanceLock) {
+                    try {
+                        MaterializedView.applyTransactionChanges(this);
+                    } catch (HsqlException e) {
+                        rollbackNoCheck(chain);
 
-                // tempActionHistory.add("commit aborts " + actionTimestamp);
-                rollbackNoCheck(chain);
+                        throw e;
+                    }
 
-                throw Error.error(ErrorCode.X_40001);
+                    commitTransaction(chain);
+                }
             }
         }
 
@@ -592,6 +613,17 @@ public class Session implements SessionInterface {
         }
     }
 
+    private void commitTransaction(boolean chain) {
+
+        if (!database.txManager.commitTransaction(this)) {
+
+            // tempActionHistory.add("commit aborts " + actionTimestamp);
+            rollbackNoCheck(chain);
+
+            throw Error.error(ErrorCode.X_40001);
+        }
+    }
+
     /**
      * Rolls back any uncommited transaction this Session may have open.
      *
@@ -631,6 +663,11 @@ public class Session implements SessionInterface {
         sessionData.clearLobOps();
 
         lockStatement = null;
+        isRowLocking  = false;
+
+        if (!rowLockCounts.isEmpty()) {
+            rowLockCounts.clear();
+        }
 
         if (!chain) {
             sessionContext.isReadOnly = isReadOnlyDefault ? Boolean.TRUE
@@ -667,7 +704,10 @@ public class Session implements SessionInterface {
         sessionData.closeAllNavigators();
         sessionData.persistentStoreCollection.clearAllTables();
         sessionData.clearLobOps();
-        statementManager.reset();
+
+        if (!keepStatements) {
+            statementManager.reset();
+        }
 
         sessionContext.lastIdentity = ValuePool.INTEGER_0;
         sessionContext.isAutoCommit = Boolean.TRUE;
@@ -962,6 +1002,7 @@ public class Session implements SessionInterface {
 
         sessionContext.currentMaxRows = 0;
         isBatch                       = false;
+        requestSchema                 = currentSchema;
 
         JavaSystem.gc();
 
@@ -1197,6 +1238,21 @@ public class Session implements SessionInterface {
             result.addWarnings(warnings);
         }
 
+        // the client keeps the current schema to look up cached statements
+        if (currentSchema != requestSchema) {
+            if (result == Result.updateZeroResult
+                    || result == Result.updateOneResult) {
+                result = new Result(ResultConstants.UPDATECOUNT,
+                                    result.getUpdateCount());
+            }
+
+            Result schemaResult =
+                getAttributesResult(SessionInterface.INFO_SCHEMA);
+
+            schemaResult.setResultType(ResultConstants.SETSESSIONATTR);
+            result.addChainedResult(schemaResult);
+        }
+
         return result;
     }
 
@@ -1224,6 +1280,14 @@ public class Session implements SessionInterface {
             sessionMaxRows                = 0;
         }
 
+        if (database.sqlParameterize) {
+            Result result = executeParameterizedStatement(cmd);
+
+            if (result != null) {
+                return result;
+            }
+        }
+
         try {
             list = parser.compileStatements(sql, cmd);
         } catch (Throwable e) {
@@ -1267,6 +1331,52 @@ public class Session implements SessionInterface {
         return result;
     }
 
+    /**
+     * Executes a direct statement with its literals replaced by parameters,
+     * using the compiled statement that is shared with other statements that
+     * differ only in the literal values. Returns null if the statement cannot
+     * be executed in this way.
+     */
+    private Result executeParameterizedStatement(Result cmd) {
+
+        if (cmd.getGeneratedResultType()
+                != ResultConstants.RETURN_NO_GENERATED_KEYS) {
+            return null;
+        }
+
+        if (literalParameterizer == null) {
+            literalParameterizer = new LiteralParameterizer(this);
+        }
+
+        if (!literalParameterizer.parameterize(cmd.getMainString())) {
+            return null;
+        }
+
+        Statement cs = statementManager.compileParameterized(this,
+            literalParameterizer.getSQL(), cmd.getExecuteProperties());
+
+        if (cs == null) {
+            return null;
+        }
+
+        if (cmd.getStatementType() == StatementTypes.RETURN_COUNT
+                && cs.getGroup() == StatementTypes.X_SQL_DATA) {
+            return null;
+        }
+
+        Object[] values = literalParameterizer.getValues(
+            cs.getParametersMetaData().getParameterTypes());
+
+        if (values == null) {
+            return null;
+        }
+
+        cs.setGeneratedColumnInfo(cmd.getGeneratedResultType(),
+                                  cmd.getGeneratedResultMetaData());
+
+        return executeCompiledStatement(cs, values, cmd.queryTimeout);
+    }
+
     public Result executeDirectStatement(String sql) {
 
         try {
@@ -1770,6 +1880,11 @@ public class Session implements SessionInterface {
                 data[SessionInterface.INFO_VARCHAR] =
                     database.getCatalogName().name;
                 break;
+
+            case SessionInterface.INFO_SCHEMA :
+                data[SessionInterface.INFO_VARCHAR] =
+                    getCurrentSchemaHsqlName().name;
+                break;
         }
 
         return r;
@@ -1815,6 +1930,15 @@ public class Session implements SessionInterface {
                         ((String) row[SessionInterface.INFO_VARCHAR]);
 
                     this.setCatalog(value);
+
+                    break;
+                }
+                case SessionInterface.INFO_KEEP_STATEMENTS : {
+                    boolean value =
+                        ((Boolean) row[SessionInterface.INFO_BOOLEAN])
+                            .booleanValue();
+
+                    this.keepStatements = value;
                 }
             }
         } catch (HsqlException e) {
@@ -1840,6 +1964,9 @@ public class Session implements SessionInterface {
 
             case SessionInterface.INFO_CATALOG :
                 return database.getCatalogName().name;
+
+            case SessionInterface.INFO_SCHEMA :
+                return getCurrentSchemaHsqlName().name;
         }
 
         return null;
@@ -1874,6 +2001,13 @@ public class Session implements SessionInterface {
                 String value = ((String) object);
 
                 this.setCatalog(value);
+
+                break;
+            }
+            case SessionInterface.INFO_KEEP_STATEMENTS : {
+                boolean value = ((Boolean) object).booleanValue();
+
+                this.keepStatements = value;
             }
         }
     }
@@ -2032,6 +2166,14 @@ public class Session implements SessionInterface {
         }
     }
 
+    public boolean isResultCache() {
+        return isResultCache;
+    }
+
+    public void setResultCache(boolean mode) {
+        isResultCache = mode;
+    }
+
     // warnings
     HsqlDeque sqlWarnings;
 
@@ -2198,7 +2340,9 @@ public class Session implements SessionInterface {
         for (int i = 0, size = map.size(); i < size; i++) {
             NumberSequence sequence = (NumberSequence) it.next();
 
-            database.logger.writeSequenceStatement(this, sequence);
+            if (sequence.isLogRequired()) {
+                database.logger.writeSequenceStatement(this, sequence);
+            }
         }
 
         sessionData.sequenceUpdateMap.clear();
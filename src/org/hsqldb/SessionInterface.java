@@ -66,6 +66,8 @@ public interface SessionInterface {
     int INFO_AUTOCOMMIT          = 1;    // used
     int INFO_CONNECTION_READONLY = 2;    // used
     int INFO_CATALOG             = 3;    // used
+    int INFO_KEEP_STATEMENTS     = 4;    // used
+    int INFO_SCHEMA              = 5;    // used
 
     //
     int TX_READ_UNCOMMITTED = 1;
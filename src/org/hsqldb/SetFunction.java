@@ -281,6 +281,149 @@ public class SetFunction implements Serializable {
         }
     }
 
+    /**
+     * Adds a non-null value of an integral type without boxing. Used by
+     * batch execution for COUNT, SUM, AVG, MIN and MAX.
+     */
+    void addLongValue(long value) {
+
+        count++;
+
+        switch (setType) {
+
+            case OpTypes.COUNT :
+                return;
+
+            case OpTypes.AVG :
+            case OpTypes.SUM :
+                if (typeCode == Types.SQL_BIGINT) {
+                    addLong(value);
+                } else {
+                    currentLong += value;
+                }
+
+                return;
+
+            case OpTypes.MIN :
+            case OpTypes.MAX :
+                setLongBound(value);
+
+                return;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500, "SetFunction");
+        }
+    }
+
+    void addNullValue() {
+        hasNull = true;
+    }
+
+    /**
+     * Adds the values at the selected positions of a vector of integral
+     * values. If values is null, the rows are counted as for COUNT(*).
+     */
+    void addLongValues(long[] values, boolean[] nulls, int[] selection,
+                       int size) {
+
+        if (values == null) {
+            count += size;
+
+            return;
+        }
+
+        int  added = 0;
+        long sum   = 0;
+        long min   = Long.MAX_VALUE;
+        long max   = Long.MIN_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            int row = selection[i];
+
+            if (nulls[row]) {
+                hasNull = true;
+
+                continue;
+            }
+
+            long value = values[row];
+
+            added++;
+
+            switch (setType) {
+
+                case OpTypes.AVG :
+                case OpTypes.SUM :
+                    if (typeCode == Types.SQL_BIGINT) {
+                        addLong(value);
+                    } else {
+                        sum += value;
+                    }
+                    break;
+
+                case OpTypes.MIN :
+                    if (value < min) {
+                        min = value;
+                    }
+                    break;
+
+                case OpTypes.MAX :
+                    if (value > max) {
+                        max = value;
+                    }
+                    break;
+            }
+        }
+
+        if (added == 0) {
+            return;
+        }
+
+        switch (setType) {
+
+            case OpTypes.COUNT :
+            case OpTypes.AVG :
+            case OpTypes.SUM :
+                count       += added;
+                currentLong += sum;
+                break;
+
+            case OpTypes.MIN :
+                count += added;
+
+                setLongBound(min);
+                break;
+
+            case OpTypes.MAX :
+                count += added;
+
+                setLongBound(max);
+                break;
+
+            default :
+                throw Error.runtimeError(ErrorCode.U_S0500, "SetFunction");
+        }
+    }
+
+    /**
+     * Replaces the current MIN or MAX value if value is smaller or larger.
+     */
+    private void setLongBound(long value) {
+
+        if (currentValue != null) {
+            long current = ((Number) currentValue).longValue();
+
+            if (setType == OpTypes.MIN ? current <= value
+                                       : current >= value) {
+                return;
+            }
+        }
+
+        currentValue = typeCode == Types.SQL_BIGINT
+                       ? (Object) ValuePool.getLong(value)
+                       : (Object) ValuePool.getInt((int) value);
+    }
+
     Object getValue(Session session) {
 
         if (hasNull) {
@@ -141,6 +141,7 @@ public class StatementCommand extends Statement {
             case StatementTypes.SET_DATABASE_FILES_LOBS_COMPRESSED :
             case StatementTypes.SET_DATABASE_FILES_LOG :
             case StatementTypes.SET_DATABASE_FILES_LOG_SIZE :
+            case StatementTypes.SET_DATABASE_FILES_LOG_FORMAT :
             case StatementTypes.SET_DATABASE_FILES_NIO :
             case StatementTypes.SET_DATABASE_FILES_SCRIPT_FORMAT :
             case StatementTypes.SET_DATABASE_AUTHENTICATION :
@@ -148,11 +149,13 @@ public class StatementCommand extends Statement {
             case StatementTypes.SET_DATABASE_PASSWORD_DIGEST :
             case StatementTypes.SET_DATABASE_PROPERTY :
             case StatementTypes.SET_DATABASE_RESULT_MEMORY_ROWS :
+            case StatementTypes.SET_DATABASE_RESULT_CACHE_ROWS :
             case StatementTypes.SET_DATABASE_SQL_REFERENTIAL_INTEGRITY :
             case StatementTypes.SET_DATABASE_SQL :
             case StatementTypes.SET_DATABASE_TRANSACTION_CONTROL :
             case StatementTypes.SET_DATABASE_DEFAULT_ISOLATION_LEVEL :
             case StatementTypes.SET_DATABASE_TRANSACTION_CONFLICT :
+            case StatementTypes.SET_DATABASE_TRANSACTION_ROW_LOCKS :
             case StatementTypes.SET_DATABASE_GC :
 
 //
@@ -170,6 +173,7 @@ public class StatementCommand extends Statement {
             case StatementTypes.SET_TABLE_CLUSTERED :
             case StatementTypes.SET_TABLE_NEW_TABLESPACE :
             case StatementTypes.SET_TABLE_SET_TABLESPACE :
+            case StatementTypes.SET_TABLE_PARTITION_SPACE :
                 group = StatementTypes.X_HSQLDB_SCHEMA_MANIPULATION;
                 break;
 
@@ -183,6 +187,8 @@ public class StatementCommand extends Statement {
                 break;
 
             case StatementTypes.SET_TABLE_READONLY :
+            case StatementTypes.SET_TABLE_COLUMNAR :
+            case StatementTypes.SET_TABLE_COMPRESSED :
                 group = StatementTypes.X_HSQLDB_SCHEMA_MANIPULATION;
                 break;
 
@@ -202,6 +208,20 @@ public class StatementCommand extends Statement {
                 isLogged               = false;
                 break;
 
+            case StatementTypes.SET_TABLE_STATISTICS :
+                group = StatementTypes.X_HSQLDB_SETTING;
+                break;
+
+            case StatementTypes.ANALYZE_TABLE :
+                group    = StatementTypes.X_HSQLDB_DATABASE_OPERATION;
+                isLogged = false;
+                break;
+
+            case StatementTypes.REFRESH_MATERIALIZED_VIEW :
+                group    = StatementTypes.X_HSQLDB_DATABASE_OPERATION;
+                isLogged = false;
+                break;
+
             case StatementTypes.SET_USER_LOCAL :
             case StatementTypes.SET_USER_INITIAL_SCHEMA :
             case StatementTypes.SET_USER_PASSWORD :
@@ -553,6 +573,19 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_DATABASE_FILES_LOG_FORMAT : {
+                try {
+                    int value = ((Integer) parameters[0]).intValue();
+
+                    session.checkAdmin();
+                    session.checkDDLWrite();
+                    session.database.logger.setLogFormat(value);
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_DATABASE_FILES_TEMP_PATH : {
                 try {
                     String value = (String) parameters[0];
@@ -722,6 +755,9 @@ public class StatementCommand extends Statement {
                            == HsqlDatabaseProperties.sql_ignore_case) {
                     session.database.setIgnoreCase(mode);
                     session.setIgnoreCase(mode);
+                } else if (property
+                           == HsqlDatabaseProperties.sql_parameterize) {
+                    session.database.setParameterize(mode);
                 } else if (property == HsqlDatabaseProperties.sql_syntax_db2) {
                     session.database.setSyntaxDb2(mode);
                 } else if (property == HsqlDatabaseProperties.sql_syntax_mss) {
@@ -802,6 +838,23 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_DATABASE_TRANSACTION_ROW_LOCKS : {
+                try {
+                    int limit = ((Integer) parameters[0]).intValue();
+
+                    session.checkAdmin();
+
+                    if (limit < 0) {
+                        throw Error.error(ErrorCode.X_42556);
+                    }
+
+                    session.database.txRowLockLimit = limit;
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_DATABASE_GC : {
                 try {
                     int count = ((Integer) parameters[0]).intValue();
@@ -837,6 +890,14 @@ public class StatementCommand extends Statement {
 
                 return Result.updateZeroResult;
             }
+            case StatementTypes.SET_DATABASE_RESULT_CACHE_ROWS : {
+                int size = ((Integer) parameters[0]).intValue();
+
+                session.checkAdmin();
+                session.database.resultCache.setMaxRows(size);
+
+                return Result.updateZeroResult;
+            }
             case StatementTypes.SET_DATABASE_TEXT_SOURCE : {
                 try {
                     String         source = (String) parameters[0];
@@ -943,6 +1004,11 @@ public class StatementCommand extends Statement {
                         return Result.updateZeroResult;
                     }
 
+                    // partitions have their own spaces
+                    if (table.getPartitions() != null) {
+                        return Result.updateZeroResult;
+                    }
+
                     DataFileCache cache = session.database.logger.getCache();
 
                     // memory database
@@ -1016,6 +1082,44 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_TABLE_PARTITION_SPACE : {
+                try {
+                    HsqlName name    = (HsqlName) parameters[0];
+                    String   part    = (String) parameters[1];
+                    int      spaceid = ((Integer) parameters[2]).intValue();
+                    Table table =
+                        session.database.schemaManager.getUserTable(session,
+                            name.name, name.schema.name);
+
+                    if (!session.isProcessingScript()) {
+                        return Result.updateZeroResult;
+                    }
+
+                    if (table.getTableType() != TableBase.CACHED_TABLE
+                            || table.getPartitions() == null) {
+                        return Result.updateZeroResult;
+                    }
+
+                    int index = table.getPartitions().findPartition(part);
+
+                    if (index < 0) {
+                        return Result.updateZeroResult;
+                    }
+
+                    table.getPartitions().setSpaceID(index, spaceid);
+
+                    DataFileCache cache = session.database.logger.getCache();
+
+                    // register the space id with the space manager
+                    if (cache != null) {
+                        cache.spaceManager.getTableSpace(spaceid);
+                    }
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_TABLE_CLUSTERED : {
                 try {
                     HsqlName name     = (HsqlName) parameters[0];
@@ -1065,6 +1169,74 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_TABLE_STATISTICS : {
+                try {
+                    HsqlName name     = (HsqlName) parameters[0];
+                    int      colIndex = ((Integer) parameters[1]).intValue();
+                    long[]   counts   = (long[]) parameters[2];
+                    String[] values   = (String[]) parameters[3];
+                    Table table =
+                        session.database.schemaManager.getUserTable(session,
+                            name.name, name.schema.name);
+
+                    StatementSchema.checkSchemaUpdateAuthorisation(session,
+                            table.getSchemaName());
+
+                    ColumnStatistics stats =
+                        ColumnStatistics.newColumnStatistics(session,
+                            table.getColumnTypes()[colIndex], counts[0],
+                            counts[1], counts[2], values);
+
+                    table.setColumnStatistics(colIndex, stats);
+                    session.database.schemaManager.setSchemaChangeTimestamp();
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
+            case StatementTypes.ANALYZE_TABLE : {
+                try {
+                    HsqlName name = (HsqlName) parameters[0];
+                    Table table =
+                        session.database.schemaManager.getUserTable(session,
+                            name.name, name.schema.name);
+
+                    StatementSchema.checkSchemaUpdateAuthorisation(session,
+                            table.getSchemaName());
+                    table.analyze(session);
+
+                    String[] list = table.getSQLForStatistics();
+
+                    for (int i = 0; i < list.length; i++) {
+                        session.database.logger.writeOtherStatement(session,
+                                list[i]);
+                    }
+
+                    session.database.schemaManager.setSchemaChangeTimestamp();
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
+            case StatementTypes.REFRESH_MATERIALIZED_VIEW : {
+                try {
+                    HsqlName       name  = (HsqlName) parameters[0];
+                    StatementQuery query = (StatementQuery) parameters[1];
+                    Table table =
+                        session.database.schemaManager.getUserTable(session,
+                            name.name, name.schema.name);
+
+                    StatementSchema.checkSchemaUpdateAuthorisation(session,
+                            table.getSchemaName());
+                    ((MaterializedView) table).refresh(session, query);
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_TABLE_READONLY : {
                 try {
                     HsqlName name = (HsqlName) parameters[0];
@@ -1083,6 +1255,67 @@ public class StatementCommand extends Statement {
                     return Result.newErrorResult(e, sql);
                 }
             }
+            case StatementTypes.SET_TABLE_COLUMNAR : {
+                try {
+                    HsqlName name = (HsqlName) parameters[0];
+                    Table table =
+                        session.database.schemaManager.getUserTable(session,
+                            name.name, name.schema.name);
+                    boolean mode = ((Boolean) parameters[1]).booleanValue();
+
+                    StatementSchema.checkSchemaUpdateAuthorisation(session,
+                            table.getSchemaName());
+
+                    table.setColumnar(mode);
+                    session.database.schemaManager.setSchemaChangeTimestamp();
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
+            case StatementTypes.SET_TABLE_COMPRESSED : {
+                try {
+                    HsqlName name = (HsqlName) parameters[0];
+                    boolean  mode = ((Boolean) parameters[1]).booleanValue();
+                    byte[]   dictionary = (byte[]) parameters[2];
+                    Table table =
+                        session.database.schemaManager.getUserTable(session,
+                            name.name, name.schema.name);
+
+                    if (table.getTableType() != TableBase.CACHED_TABLE) {
+                        return Result.updateZeroResult;
+                    }
+
+                    // the rows in the data file are already in this format
+                    if (session.isProcessingScript()) {
+                        table.setCompressed(mode, dictionary);
+
+                        return Result.updateZeroResult;
+                    }
+
+                    if (!mode && !table.isCompressed()) {
+                        return Result.updateZeroResult;
+                    }
+
+                    StatementSchema.checkSchemaUpdateAuthorisation(session,
+                            table.getSchemaName());
+
+                    TableWorks tw = new TableWorks(session, table);
+                    boolean result = tw.setTableCompressed(session, mode,
+                                                           dictionary);
+
+                    if (!result) {
+                        throw Error.error(ErrorCode.GENERAL_IO_ERROR);
+                    }
+
+                    session.database.schemaManager.setSchemaChangeTimestamp();
+
+                    return Result.updateZeroResult;
+                } catch (HsqlException e) {
+                    return Result.newErrorResult(e, sql);
+                }
+            }
             case StatementTypes.SET_TABLE_SOURCE :
             case StatementTypes.SET_TABLE_SOURCE_HEADER : {
                 try {
@@ -1381,15 +1614,34 @@ public class StatementCommand extends Statement {
                 }
             }
 
+            OrderedHashSet views = new OrderedHashSet();
+
             for (int i = 0; i < tables.length; i++) {
                 Table           table = tables[i];
                 PersistentStore store = table.getRowStore(session);
 
                 store.removeAll();
 
+                table.dataChangeTimestamp =
+                    session.database.txManager.getNextGlobalChangeTimestamp();
+
                 if (restartIdentity && table.identitySequence != null) {
                     table.identitySequence.reset();
                 }
+
+                if (table.isMaterializedView()
+                        && ((MaterializedView) table).isMaintained()) {
+                    views.add(table);
+                }
+
+                views.addAll(
+                    session.database.schemaManager.getMaintainedViews(table));
+            }
+
+            for (int i = 0; i < views.size(); i++) {
+                MaterializedView view = (MaterializedView) views.get(i);
+
+                view.repopulate(session);
             }
 
             return Result.updateZeroResult;
@@ -351,6 +351,8 @@ public class StatementDML extends StatementDMQL {
 
             getTriggerTableNames(set, true);
         }
+
+        baseTable.database.schemaManager.addMaintainedViewNames(set);
     }
 
     /**
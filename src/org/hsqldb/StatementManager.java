@@ -32,7 +32,9 @@
 package org.hsqldb;
 
 import org.hsqldb.HsqlNameManager.HsqlName;
+import org.hsqldb.lib.HashSet;
 import org.hsqldb.lib.IntKeyHashMap;
+import org.hsqldb.lib.LongDeque;
 import org.hsqldb.lib.LongKeyHashMap;
 import org.hsqldb.lib.LongKeyIntValueHashMap;
 import org.hsqldb.lib.LongValueHashMap;
@@ -96,6 +98,18 @@ public final class StatementManager {
      */
     private long next_cs_id;
 
+    /** Ids of statements compiled from parameterized direct SQL */
+    private LongDeque parameterizedQueue;
+
+    /** Parameterized SQL that cannot be compiled */
+    private HashSet unparameterizedSet;
+
+    /** Schema change timestamp when unparameterizedSet was cleared */
+    private long unparameterizedTimestamp;
+
+    /** Maximum number of parameterized statements kept */
+    static final int maxParameterizedStatements = 256;
+
     /**
      * Constructs a new instance of <code>CompiledStatementManager</code>.
      *
@@ -109,6 +123,8 @@ public final class StatementManager {
         csidMap       = new LongKeyHashMap();
         useMap        = new LongKeyIntValueHashMap();
         next_cs_id    = 0;
+        parameterizedQueue = new LongDeque();
+        unparameterizedSet = new HashSet();
     }
 
     /**
@@ -119,6 +135,8 @@ public final class StatementManager {
         schemaMap.clear();
         csidMap.clear();
         useMap.clear();
+        parameterizedQueue.clear();
+        unparameterizedSet.clear();
 
         next_cs_id = 0;
     }
@@ -135,6 +153,14 @@ public final class StatementManager {
         return next_cs_id;
     }
 
+    /**
+     * Returns the number of statements compiled from parameterized direct SQL
+     * that are kept for reuse.
+     */
+    public synchronized int getParameterizedCount() {
+        return parameterizedQueue.size();
+    }
+
     /**
      * Retrieves the registered compiled statement identifier associated with
      * the specified SQL String, or a value less than zero, if no such
@@ -387,4 +413,93 @@ public final class StatementManager {
 
         return cs;
     }
+
+    /**
+     * Returns the compiled statement for SQL text in which literals have been
+     * replaced with parameters, or null if the text cannot be used for a
+     * direct execution with the given properties. Statements compiled here
+     * are linked to the session until they are displaced by newer ones.
+     *
+     * @param session the session
+     * @param sql the parameterized SQL
+     * @param props the result properties
+     * @return the compiled statement or null
+     */
+    synchronized Statement compileParameterized(Session session, String sql,
+            int props) {
+
+        long schemaChange = database.schemaManager.getSchemaChangeTimestamp();
+
+        if (unparameterizedTimestamp != schemaChange) {
+            unparameterizedSet.clear();
+
+            unparameterizedTimestamp = schemaChange;
+        }
+
+        String key = session.currentSchema.name + ' ' + sql;
+
+        if (unparameterizedSet.contains(key)) {
+            return null;
+        }
+
+        Statement cs   = null;
+        long      csid = getStatementID(session.currentSchema, sql);
+
+        if (csid >= 0) {
+            cs = (Statement) csidMap.get(csid);
+
+            if (cs != null && cs.getCursorPropertiesRequest() != props) {
+                return null;
+            }
+        }
+
+        if (cs == null || !cs.isValid()
+                || cs.getCompileTimestamp() < schemaChange) {
+            try {
+                cs = session.compileStatement(sql, props);
+            } catch (Throwable t) {
+                unparameterizedSet.add(key);
+
+                return null;
+            }
+
+            if (cs.isExplain) {
+                unparameterizedSet.add(key);
+
+                return null;
+            }
+
+            switch (cs.getType()) {
+
+                case StatementTypes.SELECT_CURSOR :
+                case StatementTypes.INSERT :
+                case StatementTypes.UPDATE_WHERE :
+                case StatementTypes.DELETE_WHERE :
+                case StatementTypes.MERGE :
+                    break;
+
+                default :
+                    unparameterizedSet.add(key);
+
+                    return null;
+            }
+
+            cs.setCursorPropertiesRequest(props);
+
+            boolean isNew = csid < 0;
+
+            csid = registerStatement(csid, cs);
+
+            if (isNew) {
+                useMap.put(csid, useMap.get(csid, 0) + 1);
+                parameterizedQueue.addLast(csid);
+
+                if (parameterizedQueue.size() > maxParameterizedStatements) {
+                    freeStatement(parameterizedQueue.removeFirst());
+                }
+            }
+        }
+
+        return cs;
+    }
 }
@@ -51,6 +51,9 @@ public class StatementQuery extends StatementDMQL {
 
     public static final StatementQuery[] emptyArray = new StatementQuery[]{};
 
+    // base tables read, or null if the result cannot be cached
+    Table[] resultCacheTables;
+
     StatementQuery(Session session, QueryExpression queryExpression,
                    CompileContext compileContext) {
 
@@ -62,6 +65,32 @@ public class StatementQuery extends StatementDMQL {
 
         setDatabseObjects(session, compileContext);
         checkAccessRights(session);
+
+        resultCacheTables = ResultCache.getCacheTables(this);
+    }
+
+    public Result execute(Session session) {
+
+        ResultCache cache = session.database.resultCache;
+
+        if (!cache.isCacheable(session, this)) {
+            return super.execute(session);
+        }
+
+        Result result = cache.getResult(session, this);
+
+        if (result == null) {
+            long timestamp = session.actionTimestamp;
+            long schemaTimestamp =
+                session.database.schemaManager.getSchemaChangeTimestamp();
+
+            result = super.execute(session);
+
+            cache.addResult(session, this, timestamp, schemaTimestamp,
+                            result);
+        }
+
+        return result;
     }
 
     Result getResult(Session session) {
@@ -613,6 +613,23 @@ public class StatementSchema extends Statement {
                             column.setIdentity(null);
                             table.setColumnTypeVars(columnIndex);
 
+                            break;
+                        }
+                        case StatementTypes.ADD_PARTITION : {
+                            String     name  = (String) arguments[2];
+                            Object     bound = arguments[3];
+                            TableWorks tw    = new TableWorks(session, table);
+
+                            tw.addPartition(name, bound);
+
+                            break;
+                        }
+                        case StatementTypes.DROP_PARTITION : {
+                            String     name = (String) arguments[2];
+                            TableWorks tw   = new TableWorks(session, table);
+
+                            tw.dropPartition(name);
+
                             break;
                         }
                     }
@@ -1177,6 +1194,12 @@ public class StatementSchema extends Statement {
                     }
 
                     table.compile(session, null);
+
+                    if (table.getPartitions() != null
+                            && !session.isProcessingScript()) {
+                        table.setNewPartitionSpaces();
+                    }
+
                     schemaManager.addSchemaObject(table);
 
                     if (tempIndexes != null) {
@@ -180,6 +180,7 @@ public class StatementSession extends Statement {
             case StatementTypes.SET_SESSION_FEATURE :
             case StatementTypes.SET_SESSION_RESULT_MAX_ROWS :
             case StatementTypes.SET_SESSION_RESULT_MEMORY_ROWS :
+            case StatementTypes.SET_SESSION_RESULT_CACHE :
             case StatementTypes.SET_TRANSFORM_GROUP :
                 group = StatementTypes.X_HSQLDB_SESSION;
                 break;
@@ -663,6 +664,13 @@ public class StatementSession extends Statement {
 
                 return Result.updateZeroResult;
             }
+            case StatementTypes.SET_SESSION_RESULT_CACHE : {
+                boolean mode = ((Boolean) parameters[0]).booleanValue();
+
+                session.setResultCache(mode);
+
+                return Result.updateZeroResult;
+            }
             case StatementTypes.SET_SESSION_SQL_IGNORECASE : {
                 try {
                     boolean mode = ((Boolean) parameters[0]).booleanValue();
@@ -193,6 +193,7 @@ public interface StatementTypes {
     int SET_DATABASE_FILES_READ_ONLY_FILES     = 1024;
     int SET_DATABASE_FILES_SCALE               = 1025;
     int SET_DATABASE_FILES_SCRIPT_FORMAT       = 1026;
+    int SET_DATABASE_FILES_LOG_FORMAT          = 1027;
     int SET_DATABASE_FILES_SPACE               = 1031;
     int SET_DATABASE_FILES_TEMP_PATH           = 1032;
     int SET_DATABASE_FILES_WRITE_DELAY         = 1033;
@@ -204,6 +205,7 @@ public interface StatementTypes {
     int SET_DATABASE_PASSWORD_CHECK            = 1040;
     int SET_DATABASE_READ_ONLY                 = 1041;
     int SET_DATABASE_READ_ONLY_FILES           = 1042;
+    int SET_DATABASE_RESULT_CACHE_ROWS         = 1043;
     int SET_DATABASE_RESULT_MEMORY_ROWS        = 1046;
     int SET_DATABASE_SQL_COLLATION             = 1047;
     int SET_SESSION_SQL_IGNORECASE             = 1048;
@@ -215,6 +217,7 @@ public interface StatementTypes {
     int SET_DATABASE_TRANSACTION_CONFLICT      = 1054;
     int SET_DATABASE_UNIQUE_NAME               = 1055;
     int SET_DATABASE_PASSWORD_DIGEST           = 1056;
+    int SET_DATABASE_TRANSACTION_ROW_LOCKS     = 1057;
 
     // hsqldb user settings
     int SET_USER_LOCAL          = 1091;
@@ -231,6 +234,7 @@ public interface StatementTypes {
     int SET_SESSION_RESULT_MEMORY_ROWS = 1117;
     int ROLLBACK_SAVEPOINT             = 1118;
     int DECLARE_SESSION_TABLE          = 1119;
+    int SET_SESSION_RESULT_CACHE       = 1120;
 
     // hsqldb schema
     int ALTER_INDEX                 = 1121;
@@ -255,6 +259,8 @@ public interface StatementTypes {
     int ALTER_COLUMN_DROP_DEFAULT   = 1141;
     int ALTER_COLUMN_DROP_GENERATED = 1142;
     int ALTER_COLUMN_TYPE_IDENTITY  = 1143;
+    int ADD_PARTITION               = 1144;
+    int DROP_PARTITION              = 1145;
 
     //
     int EXPLAIN_PLAN             = 1151;
@@ -268,6 +274,12 @@ public interface StatementTypes {
     int SET_TABLE_NEW_TABLESPACE = 1159;
     int SET_TABLE_SET_TABLESPACE = 1160;
     int LOG_SCHEMA_STATEMENT     = 1161;
+    int ANALYZE_TABLE            = 1162;
+    int SET_TABLE_STATISTICS     = 1163;
+    int REFRESH_MATERIALIZED_VIEW = 1164;
+    int SET_TABLE_PARTITION_SPACE = 1165;
+    int SET_TABLE_COLUMNAR        = 1166;
+    int SET_TABLE_COMPRESSED      = 1167;
 
     // hsqldb sql implementation
     int CONDITION = 1211;                         // element of IF
@@ -43,12 +43,14 @@ import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.OrderedIntHashSet;
 import org.hsqldb.lib.Set;
+import org.hsqldb.lib.StringConverter;
 import org.hsqldb.lib.StringUtil;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.navigator.RowSetNavigator;
 import org.hsqldb.navigator.RowSetNavigatorDataChange;
 import org.hsqldb.persist.CachedObject;
+import org.hsqldb.persist.DataFileCache;
 import org.hsqldb.persist.DataSpaceManager;
 import org.hsqldb.persist.PersistentStore;
 import org.hsqldb.result.Result;
@@ -99,6 +101,17 @@ public class Table extends TableBase implements SchemaObject {
     protected int[] defaultColumnMap;          // holding 0,1,2,3,...
     RangeVariable[] defaultRanges;
 
+    // gathered by ANALYZE TABLE
+    ColumnStatistics[] columnStatistics;
+
+    // PARTITION BY RANGE
+    TablePartitions partitions;
+
+    // COLUMNAR tables keep a column segment snapshot of the committed rows
+    boolean              isColumnar;
+    volatile ColumnStore columnStore;
+    volatile long        columnAppendTimestamp;
+
     //
     public Table(Database database, HsqlName name, int type) {
 
@@ -358,6 +371,10 @@ public class Table extends TableBase implements SchemaObject {
             sb.append(Tokens.T_MEMORY).append(' ');
         }
 
+        if (isColumnar) {
+            sb.append(Tokens.T_COLUMNAR).append(' ');
+        }
+
         sb.append(Tokens.T_TABLE).append(' ');
         sb.append(getName().getSchemaQualifiedStatementName());
         sb.append('(');
@@ -445,6 +462,10 @@ public class Table extends TableBase implements SchemaObject {
 
         sb.append(')');
 
+        if (partitions != null) {
+            sb.append(' ').append(partitions.getSQL(this));
+        }
+
         if (onCommitPreserve()) {
             sb.append(' ').append(Tokens.T_ON).append(' ');
             sb.append(Tokens.T_COMMIT).append(' ').append(Tokens.T_PRESERVE);
@@ -516,6 +537,65 @@ public class Table extends TableBase implements SchemaObject {
         }
     }
 
+    public String[] getSQLForStatistics() {
+
+        ColumnStatistics[] stats = columnStatistics;
+
+        if (stats == null) {
+            return null;
+        }
+
+        HsqlArrayList list = new HsqlArrayList();
+
+        for (int i = 0; i < stats.length; i++) {
+            if (stats[i] != null) {
+                list.add(stats[i].getSQL(this, i));
+            }
+        }
+
+        String[] array = new String[list.size()];
+
+        list.toArray(array);
+
+        return array;
+    }
+
+    public ColumnStatistics getColumnStatistics(int colIndex) {
+
+        ColumnStatistics[] stats = columnStatistics;
+
+        if (stats == null || colIndex >= stats.length) {
+            return null;
+        }
+
+        return stats[colIndex];
+    }
+
+    public boolean hasStatistics() {
+        return columnStatistics != null;
+    }
+
+    /**
+     * Gathers the statistics for all the columns.
+     */
+    public void analyze(Session session) {
+        columnStatistics = ColumnStatistics.collect(session, this);
+    }
+
+    void setColumnStatistics(int colIndex, ColumnStatistics stats) {
+
+        ColumnStatistics[] newStats = new ColumnStatistics[getColumnCount()];
+
+        if (columnStatistics != null) {
+            ArrayUtil.copyArray(columnStatistics, newStats,
+                                Math.min(columnStatistics.length,
+                                         newStats.length));
+        }
+
+        newStats[colIndex] = stats;
+        columnStatistics   = newStats;
+    }
+
     public String[] getSQLForTextSource(boolean withHeader) {
 
         // readonly for TEXT tables only
@@ -589,6 +669,97 @@ public class Table extends TableBase implements SchemaObject {
         return sb.toString();
     }
 
+    public String getSQLForCompressed() {
+
+        if (!isCached() || !isCompressed) {
+            return null;
+        }
+
+        StringBuffer sb = new StringBuffer(64);
+
+        sb.append(Tokens.T_SET).append(' ').append(Tokens.T_TABLE).append(' ');
+        sb.append(getName().getSchemaQualifiedStatementName());
+        sb.append(' ').append(Tokens.T_COMPRESSED).append(' ');
+        sb.append(Tokens.T_TRUE);
+
+        if (compressionDictionary != null) {
+            sb.append(' ').append(Tokens.T_DICTIONARY).append(' ');
+            sb.append('X').append('\'');
+            sb.append(StringConverter.byteArrayToHexString(
+                compressionDictionary));
+            sb.append('\'');
+        }
+
+        return sb.toString();
+    }
+
+    public TablePartitions getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the SET TABLE ... PARTITION ... SPACE statements for the
+     * partitions that have their own table space.
+     */
+    public String[] getSQLForPartitionSpaces() {
+
+        if (!isCached() || partitions == null) {
+            return ValuePool.emptyStringArray;
+        }
+
+        HsqlArrayList list = new HsqlArrayList();
+
+        for (int i = 0; i < partitions.getPartitionCount(); i++) {
+            int spaceId = partitions.getSpaceID(i);
+
+            if (spaceId == DataSpaceManager.tableIdDefault) {
+                continue;
+            }
+
+            StringBuffer sb = new StringBuffer(64);
+
+            sb.append(Tokens.T_SET).append(' ').append(Tokens.T_TABLE);
+            sb.append(' ').append(getName().getSchemaQualifiedStatementName());
+            sb.append(' ').append(Tokens.T_PARTITION).append(' ');
+            sb.append(StringConverter.toQuotedString(partitions.getName(i),
+                    '"', true));
+            sb.append(' ').append(Tokens.T_SPACE).append(' ').append(spaceId);
+            list.add(sb.toString());
+        }
+
+        String[] array = new String[list.size()];
+
+        list.toArray(array);
+
+        return array;
+    }
+
+    /**
+     * Allocates a table space for each partition of a CACHED table when the
+     * data file is divided into spaces.
+     */
+    void setNewPartitionSpaces() {
+
+        for (int i = 0; i < partitions.getPartitionCount(); i++) {
+            setNewPartitionSpace(i);
+        }
+    }
+
+    void setNewPartitionSpace(int index) {
+
+        int spaceId = DataSpaceManager.tableIdDefault;
+
+        if (isCached() && database.logger.getDataFileSpaces() > 0) {
+            DataFileCache cache = database.logger.getCache();
+
+            if (cache != null) {
+                spaceId = cache.spaceManager.getNewTableSpaceID();
+            }
+        }
+
+        partitions.setSpaceID(index, spaceId);
+    }
+
     public String[] getTriggerSQL() {
 
         HsqlArrayList list = new HsqlArrayList();
@@ -741,10 +912,31 @@ public class Table extends TableBase implements SchemaObject {
         return false;
     }
 
+    public boolean isMaterializedView() {
+        return false;
+    }
+
     public boolean isCached() {
         return isCached;
     }
 
+    public boolean isColumnar() {
+        return isColumnar;
+    }
+
+    public void setColumnar(boolean value) {
+
+        isColumnar  = value;
+        columnStore = null;
+    }
+
+    public void setCompressed(boolean value, byte[] dictionary) {
+
+        isCompressed          = value;
+        compressionDictionary = value ? dictionary
+                                      : null;
+    }
+
     public boolean isDataReadOnly() {
         return isReadOnly;
     }
@@ -1196,6 +1388,9 @@ public class Table extends TableBase implements SchemaObject {
             ((TextTable) tn).dataSource  = ((TextTable) this).dataSource;
             ((TextTable) tn).isReversed  = ((TextTable) this).isReversed;
             ((TextTable) tn).isConnected = ((TextTable) this).isConnected;
+        } else if (isMaterializedView()) {
+            tn = new MaterializedView((MaterializedView) this, tableName,
+                                      newType);
         } else {
             tn = new Table(database, tableName, newType);
         }
@@ -1206,6 +1401,16 @@ public class Table extends TableBase implements SchemaObject {
 
         tn.tableSpace = tableSpace;
 
+        if (partitions != null) {
+            tn.partitions = partitions.duplicate(colIndex, adjust);
+        }
+
+        tn.isColumnar = isColumnar
+                        && (newType == MEMORY_TABLE
+                            || newType == CACHED_TABLE);
+        tn.setCompressed(isCompressed && newType == CACHED_TABLE,
+                         compressionDictionary);
+
         for (int i = 0; i < columnCount; i++) {
             ColumnSchema col = (ColumnSchema) columnList.get(i);
 
@@ -1229,6 +1434,19 @@ public class Table extends TableBase implements SchemaObject {
             tn.addColumn(column);
         }
 
+        if (columnStatistics != null) {
+            ColumnStatistics[] stats = new ColumnStatistics[columnCount];
+
+            ArrayUtil.copyArray(columnStatistics, stats,
+                                Math.min(columnStatistics.length,
+                                         columnCount));
+
+            // a retyped column loses its statistics
+            tn.columnStatistics =
+                (ColumnStatistics[]) ArrayUtil.toAdjustedArray(stats, null,
+                    colIndex, adjust);
+        }
+
         int[] pkCols = null;
 
         if (hasPrimaryKey()
@@ -1332,6 +1550,18 @@ public class Table extends TableBase implements SchemaObject {
         }
     }
 
+    /**
+     * Used for retype and drop column. Checks whether column is the
+     * partition column
+     * @param colIndex index
+     */
+    void checkColumnInPartitions(int colIndex) {
+
+        if (partitions != null && partitions.getColumnIndex() == colIndex) {
+            throw Error.error(ErrorCode.X_42502, Tokens.T_PARTITION);
+        }
+    }
+
     /**
      * Used for retype column. Checks whether column is in an FK or is
      * referenced by a FK
@@ -2655,6 +2885,10 @@ public class Table extends TableBase implements SchemaObject {
             enforceRowConstraints(session, data);
         }
 
+        if (partitions != null) {
+            partitions.checkRow(this, data);
+        }
+
         if (isView) {
 
             // may have domain column
@@ -2786,6 +3020,10 @@ public class Table extends TableBase implements SchemaObject {
     public void insertData(Session session, PersistentStore store,
                            Object[] data) {
 
+        if (partitions != null) {
+            partitions.checkRow(this, data);
+        }
+
         Row row = (Row) store.getNewCachedObject(session, data, false);
 
         store.indexRow(session, row);
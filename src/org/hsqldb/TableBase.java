@@ -97,6 +97,8 @@ public class TableBase implements Cloneable {
     protected boolean isTemp;
     protected boolean isCached;
     protected boolean isText;
+    protected boolean isCompressed;
+    protected byte[]  compressionDictionary;
     boolean           isView;
     protected boolean isWithDataSource;
     public boolean    isSessionBased;
@@ -105,6 +107,9 @@ public class TableBase implements Cloneable {
     private boolean   isTransactional = true;
     boolean           hasLobColumn;
 
+    // timestamp of the last committed change to the data
+    volatile long dataChangeTimestamp;
+
     //
     TableBase() {}
 
@@ -246,6 +251,20 @@ public class TableBase implements Cloneable {
         isTransactional = value;
     }
 
+    /**
+     * Returns true if the row data is stored compressed in the data file.
+     */
+    public final boolean isCompressed() {
+        return isCompressed;
+    }
+
+    /**
+     * Returns the preset dictionary for the compressed rows, or null.
+     */
+    public final byte[] getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
     /**
      * This method is called whenever there is a change to table structure and
      * serves two porposes: (a) to reset the best set of columns that identify
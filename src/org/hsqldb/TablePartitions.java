@@ -0,0 +1,279 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb;
+
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArrayUtil;
+import org.hsqldb.lib.StringConverter;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.persist.DataSpaceManager;
+import org.hsqldb.types.Type;
+
+/**
+ * Range partitioning of a MEMORY or CACHED table on a single column.<p>
+ *
+ * Each partition holds the rows with a partition column value less than its
+ * bound and not less than the bound of the previous partition. The last
+ * partition may have MAXVALUE as its bound. Rows with a NULL value belong to
+ * the first partition.<p>
+ *
+ * When the data file is divided into table spaces, each partition of a CACHED
+ * table has its own space, so the rows of a dropped partition are released
+ * in bulk.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TablePartitions {
+
+    int      column;
+    Type     type;
+    String[] names;
+    Object[] bounds;
+    int[]    spaceIds;
+
+    TablePartitions(int column, Type type) {
+
+        this.column = column;
+        this.type   = type;
+        names       = ValuePool.emptyStringArray;
+        bounds      = ValuePool.emptyObjectArray;
+        spaceIds    = ValuePool.emptyIntArray;
+    }
+
+    static void checkColumnType(Type type) {
+
+        if (type.isNumberType() || type.isDateTimeType()
+                || (type.isCharacterType() && !type.isLobType())) {
+            return;
+        }
+
+        throw Error.error(ErrorCode.X_42563);
+    }
+
+    public int getColumnIndex() {
+        return column;
+    }
+
+    public int getPartitionCount() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public int getSpaceID(int index) {
+        return spaceIds[index];
+    }
+
+    void setSpaceID(int index, int spaceId) {
+        spaceIds[index] = spaceId;
+    }
+
+    public boolean hasSpaces() {
+
+        for (int i = 0; i < spaceIds.length; i++) {
+            if (spaceIds[i] != DataSpaceManager.tableIdDefault) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int findPartition(String name) {
+        return ArrayUtil.find(names, name);
+    }
+
+    /**
+     * Adds a partition after the existing ones. A null bound stands for
+     * MAXVALUE.
+     */
+    void addPartition(String name, Object bound) {
+
+        if (findPartition(name) >= 0) {
+            throw Error.error(ErrorCode.X_42504, name);
+        }
+
+        int count = names.length;
+
+        if (count > 0) {
+            Object last = bounds[count - 1];
+
+            if (last == null
+                    || (bound != null && type.compare(null, bound, last)
+                        <= 0)) {
+                throw Error.error(ErrorCode.X_22023, name);
+            }
+        }
+
+        names = (String[]) ArrayUtil.resizeArray(names, count + 1);
+        bounds = (Object[]) ArrayUtil.resizeArray(bounds, count + 1);
+        spaceIds = (int[]) ArrayUtil.resizeArray(spaceIds, count + 1);
+        names[count]    = name;
+        bounds[count]   = bound;
+        spaceIds[count] = DataSpaceManager.tableIdDefault;
+    }
+
+    void removePartition(int index) {
+
+        names = (String[]) ArrayUtil.toAdjustedArray(names, null, index, -1);
+        bounds = (Object[]) ArrayUtil.toAdjustedArray(bounds, null, index,
+                -1);
+        spaceIds = (int[]) ArrayUtil.toAdjustedArray(spaceIds, null, index,
+                -1);
+    }
+
+    /**
+     * Returns the index of the partition for the row, or -1 if the value of
+     * the partition column is not less than the last bound.
+     */
+    public int getPartitionIndex(Object[] data) {
+
+        Object value = data[column];
+
+        if (value == null) {
+            return names.length == 0 ? -1
+                                     : 0;
+        }
+
+        int low  = 0;
+        int high = bounds.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (bounds[mid] == null
+                    || type.compare(null, value, bounds[mid]) < 0) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+
+        return low == bounds.length ? -1
+                                    : low;
+    }
+
+    void checkRow(Table table, Object[] data) {
+
+        if (getPartitionIndex(data) < 0) {
+            String[] info = new String[] {
+                Tokens.T_PARTITION, table.getName().statementName
+            };
+
+            throw Error.error(null, ErrorCode.X_23513, ErrorCode.CONSTRAINT,
+                              info);
+        }
+    }
+
+    /**
+     * Returns true if the row with the given value of the partition column
+     * belongs to the partition.
+     */
+    boolean isInPartition(int index, Object value) {
+
+        if (value == null) {
+            return index == 0;
+        }
+
+        if (index > 0
+                && type.compare(null, value, bounds[index - 1]) < 0) {
+            return false;
+        }
+
+        return bounds[index] == null
+               || type.compare(null, value, bounds[index]) < 0;
+    }
+
+    /**
+     * Used by Table.moveDefinition(). The partition column cannot be dropped.
+     */
+    TablePartitions duplicate(int colIndex, int adjust) {
+
+        int[] cols = ArrayUtil.toAdjustedColumnArray(new int[]{ column },
+            colIndex, adjust);
+        TablePartitions copy = new TablePartitions(cols[0], type);
+
+        copy.names    = (String[]) ArrayUtil.duplicateArray(names);
+        copy.bounds   = (Object[]) ArrayUtil.duplicateArray(bounds);
+        copy.spaceIds = (int[]) ArrayUtil.duplicateArray(spaceIds);
+
+        return copy;
+    }
+
+    String getSQL(Table table) {
+
+        StringBuffer sb = new StringBuffer();
+
+        sb.append(Tokens.T_PARTITION).append(' ').append(Tokens.T_BY);
+        sb.append(' ').append(Tokens.T_RANGE).append('(');
+        sb.append(table.getColumn(column).getName().statementName);
+        sb.append(')').append('(');
+
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append(getPartitionSQL(i));
+        }
+
+        sb.append(')');
+
+        return sb.toString();
+    }
+
+    String getPartitionSQL(int index) {
+
+        StringBuffer sb = new StringBuffer();
+
+        sb.append(Tokens.T_PARTITION).append(' ');
+        sb.append(StringConverter.toQuotedString(names[index], '"', true));
+        sb.append(' ').append(Tokens.T_VALUES).append(' ');
+        sb.append(Tokens.T_LESS_PARTITION).append(' ');
+        sb.append(Tokens.T_THAN).append(' ').append('(');
+
+        if (bounds[index] == null) {
+            sb.append(Tokens.T_MAXVALUE);
+        } else {
+            sb.append(type.convertToSQLString(bounds[index]));
+        }
+
+        sb.append(')');
+
+        return sb.toString();
+    }
+}
@@ -41,7 +41,9 @@ import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.navigator.RowIterator;
 import org.hsqldb.persist.DataSpaceManager;
 import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.persist.RowStoreAVLDisk;
 import org.hsqldb.rights.Grantee;
+import org.hsqldb.rowio.RowOutputBinary;
 import org.hsqldb.types.Type;
 import org.hsqldb.types.Types;
 
@@ -55,6 +57,11 @@ import org.hsqldb.types.Types;
  */
 public class TableWorks {
 
+    // size of the dictionary and number of rows sampled for compression
+    static final int compressionSampleSize = 4096;
+    static final int compressionSampleRows = 64;
+
+    //
     OrderedHashSet   emptySet = new OrderedHashSet();
     private Database database;
     private Table    table;
@@ -783,6 +790,7 @@ public class TableWorks {
                 columnName);
 
         checkModifyTable(true);
+        table.checkColumnInPartitions(colIndex);
 
         TriggerDef[] triggers = table.getTriggers();
 
@@ -1068,6 +1076,8 @@ public class TableWorks {
         }
 
         checkModifyTable(true);
+        table.checkColumnInPartitions(
+            table.getColumnIndex(oldCol.getName().name));
 
         if (!table.isEmpty(session) && oldType.typeCode != newType.typeCode) {
             boolean allowed =
@@ -1283,6 +1293,87 @@ public class TableWorks {
         return true;
     }
 
+    /**
+     * Rewrites the rows of a CACHED table with or without compression. When
+     * no dictionary is given, a new one is sampled from the current rows.
+     */
+    public boolean setTableCompressed(Session session, boolean mode,
+                                      byte[] dictionary) {
+
+        if (mode && dictionary == null) {
+            dictionary = getCompressionSample(session);
+        }
+
+        Table tn;
+
+        try {
+            tn = table.moveDefinition(session, table.getTableType(), null,
+                                      null, null, -1, 0, emptySet, emptySet);
+
+            tn.setCompressed(mode, dictionary);
+            moveData(table, tn, -1, 0);
+        } catch (HsqlException e) {
+            return false;
+        }
+
+        setNewTableInSchema(tn);
+        updateConstraints(tn, emptySet);
+
+        table = tn;
+
+        database.schemaManager.recompileDependentObjects(table);
+
+        return true;
+    }
+
+    /**
+     * Returns up to compressionSampleSize bytes of serialized data from rows
+     * spread evenly over the table, or null if the table is empty. The
+     * sample is used as the preset dictionary for Deflater, so that the
+     * values that are repeated in different rows are compressed.
+     */
+    private byte[] getCompressionSample(Session session) {
+
+        PersistentStore store    = table.getRowStore(session);
+        long            rowCount = store.elementCount();
+
+        if (rowCount == 0) {
+            return null;
+        }
+
+        RowOutputBinary out  = new RowOutputBinary(256, 1);
+        long            step = 1 + rowCount / compressionSampleRows;
+        RowIterator it = table.getPrimaryIndex().firstRow(session, store, 0,
+            null);
+
+        try {
+            for (long i = 0; out.size() < compressionSampleSize; i++) {
+                Row row = it.getNextRow();
+
+                if (row == null) {
+                    break;
+                }
+
+                if (i % step == 0) {
+                    out.writeData(table.getDataColumnCount(),
+                                  table.getColumnTypes(), row.getData(),
+                                  null, null);
+                }
+            }
+        } finally {
+            it.release();
+        }
+
+        byte[] sample = out.toByteArray();
+
+        if (sample.length > compressionSampleSize) {
+            sample = (byte[]) ArrayUtil.resizeArray(sample,
+                    compressionSampleSize);
+        }
+
+        return sample;
+    }
+
     void setNewTablesInSchema(OrderedHashSet tableSet) {
 
         for (int i = 0; i < tableSet.size(); i++) {
@@ -1319,6 +1410,170 @@ public class TableWorks {
         table.setColumnTypeVars(colIndex);
     }
 
+    /**
+     * Adds a partition after the existing partitions of the table.
+     *
+     * @param name partition name
+     * @param bound the upper bound, or null for MAXVALUE
+     */
+    void addPartition(String name, Object bound) {
+
+        checkModifyTable(false);
+
+        TablePartitions partitions = table.getPartitions();
+
+        partitions.addPartition(name, bound);
+
+        if (!session.isProcessingScript()) {
+            table.setNewPartitionSpace(partitions.getPartitionCount() - 1);
+        }
+    }
+
+    /**
+     * Checks that no row outside the partition references one of the rows of
+     * the partition via a self-referencing FOREIGN KEY constraint.
+     */
+    private void checkPartitionSelfReference(int partitionIndex, Row[] rows) {
+
+        TablePartitions partitions = table.getPartitions();
+        int             col        = partitions.getColumnIndex();
+
+        for (int i = 0; i < table.fkMainConstraints.length; i++) {
+            Constraint c = table.fkMainConstraints[i];
+
+            if (c.getRef() != table) {
+                continue;
+            }
+
+            for (int j = 0; j < rows.length; j++) {
+                Object[]    data = rows[j].getData();
+                RowIterator it   = c.findFkRef(session, data);
+
+                while (it.hasNext()) {
+                    Object[] refData = it.getNextRow().getData();
+
+                    if (c.core.refIndex.compareRowNonUnique(
+                            session, refData, data, c.core.mainCols) != 0) {
+                        break;
+                    }
+
+                    if (!partitions.isInPartition(partitionIndex,
+                                                  refData[col])) {
+                        it.release();
+
+                        throw Error.error(ErrorCode.X_23504,
+                                          c.getName().name);
+                    }
+                }
+
+                it.release();
+            }
+        }
+    }
+
+    /**
+     * Drops a partition together with its rows. The rows are removed from the
+     * indexes without logging each row. When the partition has its own table
+     * space, the space is released in bulk.
+     *
+     * @param name partition name
+     */
+    void dropPartition(String name) {
+
+        checkModifyTable(true);
+
+        TablePartitions partitions     = table.getPartitions();
+        int             partitionIndex = partitions.findPartition(name);
+
+        if (partitionIndex < 0) {
+            throw Error.error(ErrorCode.X_42501, name);
+        }
+
+        // a partitioned table has at least one partition
+        if (partitions.getPartitionCount() == 1) {
+            throw Error.error(ErrorCode.X_22023, name);
+        }
+
+        for (int i = 0; i < table.fkMainConstraints.length; i++) {
+            Table refTable = table.fkMainConstraints[i].getRef();
+
+            if (refTable != table && !refTable.isEmpty(session)) {
+                throw Error.error(ErrorCode.X_23504,
+                                  refTable.getName().name);
+            }
+        }
+
+        PersistentStore store = table.getRowStore(session);
+        HsqlArrayList   list  = new HsqlArrayList();
+        int             col   = partitions.getColumnIndex();
+        Index           index = table.getIndexForColumn(session, col);
+        RowIterator     it;
+
+        if (index == null) {
+            it = table.rowIterator(store);
+        } else if (partitionIndex == 0) {
+            it = index.firstRow(session, store, 0, null);
+        } else {
+            Object[] rowdata =
+                new Object[]{ partitions.bounds[partitionIndex - 1] };
+
+            it = index.findFirstRow(session, store, rowdata, 1, 0,
+                                    OpTypes.GREATER_EQUAL, false, null);
+        }
+
+        while (it.hasNext()) {
+            Row    row   = it.getNextRow();
+            Object value = row.getData()[col];
+
+            if (partitions.isInPartition(partitionIndex, value)) {
+                list.add(row);
+            } else if (index != null) {
+                break;
+            }
+        }
+
+        it.release();
+
+        Row[] rows = new Row[list.size()];
+
+        list.toArray(rows);
+        checkPartitionSelfReference(partitionIndex, rows);
+
+        int spaceId = partitions.getSpaceID(partitionIndex);
+
+        for (int i = 0; i < rows.length; i++) {
+            Row row = rows[i];
+
+            if (table.hasLobColumn) {
+                session.sessionData.adjustLobUsageCount(table, row.getData(),
+                        -1);
+            }
+
+            store.delete(session, row);
+            database.txManager.removeTransactionInfo(row);
+
+            if (spaceId == DataSpaceManager.tableIdDefault) {
+                store.remove(row);
+            }
+        }
+
+        if (spaceId != DataSpaceManager.tableIdDefault) {
+            ((RowStoreAVLDisk) store).removePartition(rows, spaceId);
+        }
+
+        partitions.removePartition(partitionIndex);
+
+        table.dataChangeTimestamp =
+            database.txManager.getNextGlobalChangeTimestamp();
+
+        MaterializedView[] views =
+            database.schemaManager.getMaintainedViews(table);
+
+        for (int i = 0; i < views.length; i++) {
+            views[i].repopulate(session);
+        }
+    }
+
     private void checkModifyTable(boolean withContents) {
 
         if (session.getUser().isSystem()) {
@@ -1367,6 +1622,11 @@ public class TableWorks {
                 }
             }
 
+            if (newTable.getPartitions() != null
+                    && !session.isProcessingScript()) {
+                newTable.setNewPartitionSpaces();
+            }
+
             PersistentStore newStore =
                 database.persistentStoreCollection.getStore(newTable);
 
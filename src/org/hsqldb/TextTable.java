@@ -31,13 +31,22 @@
 
 package org.hsqldb;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.StringConverter;
 import org.hsqldb.persist.PersistentStore;
+import org.hsqldb.persist.RowStoreAVLDiskData;
 import org.hsqldb.persist.TextCache;
 import org.hsqldb.persist.TextFileReader;
 import org.hsqldb.rowio.RowInputInterface;
+import org.hsqldb.rowio.RowInputText;
+import org.hsqldb.types.Type;
 
 /**
  * Subclass of Table to handle TEXT data source. <p>
@@ -55,6 +64,13 @@ public class TextTable extends Table {
     boolean isReversed  = false;
     boolean isConnected = false;
 
+    //
+    static final int parallelReadBatchSize  = 1 << 13;
+    static final int parallelReadMaxThreads = 4;
+
+    // line number of the row being indexed by readRowsParallel()
+    private int errorLineNumber;
+
 //    TextCache cache;
 
     /**
@@ -97,7 +113,8 @@ public class TextTable extends Table {
         PersistentStore store =
             database.persistentStoreCollection.getStore(this);
 
-        this.store = store;
+        this.store          = store;
+        dataChangeTimestamp = database.txManager.getNextGlobalChangeTimestamp();
 
         TextCache      cache    = null;
         TextFileReader reader   = null;
@@ -127,31 +144,40 @@ public class TextTable extends Table {
                 cache.setHeaderInitialise(reader.getHeaderLine());
             }
 
-            while (true) {
-                RowInputInterface rowIn = reader.readObject(nextpos);
+            if (isParallelRead(cache)) {
+                readRowsParallel(session, cache, reader, nextpos);
+            } else {
+                while (true) {
+                    RowInputInterface rowIn = reader.readObject(nextpos);
 
-                if (rowIn == null) {
-                    break;
-                }
+                    if (rowIn == null) {
+                        break;
+                    }
 
-                row = (Row) store.get(rowIn);
+                    row = (Row) store.get(rowIn);
 
-                if (row == null) {
-                    break;
-                }
+                    if (row == null) {
+                        break;
+                    }
 
-                Object[] data = row.getData();
+                    Object[] data = row.getData();
 
-                nextpos = (int) row.getPos() + row.getStorageSize();
+                    nextpos = (int) row.getPos() + row.getStorageSize();
 
-                systemUpdateIdentityValue(data);
-                enforceRowConstraints(session, data);
-                store.indexRow(session, row);
+                    systemUpdateIdentityValue(data);
+                    enforceRowConstraints(session, data);
+                    store.indexRow(session, row);
+                }
             }
         } catch (Throwable t) {
             int linenumber = reader == null ? 0
                                             : reader.getLineNumber();
 
+            if (errorLineNumber > 0) {
+                linenumber      = errorLineNumber;
+                errorLineNumber = 0;
+            }
+
             clearAllData(session);
 
             if (cache != null) {
@@ -171,6 +197,144 @@ public class TextTable extends Table {
         isReadOnly  = withReadOnlyData;
     }
 
+    /**
+     * Files of at least the textdb.parallel_read_size are read in batches
+     * and parsed in several threads when more than one processor is
+     * available.
+     */
+    private static boolean isParallelRead(TextCache cache) {
+
+        return cache.getFileFreePos()
+               >= cache.getTextFileSettings().getParallelReadSize();
+    }
+
+    /**
+     * Reads the source strings of rows in batches. The strings in each batch
+     * are converted to row data in separate threads when more than one
+     * processor is available, then the rows are indexed in file order in
+     * this thread. Errors are reported for the
+     * first row in file order that fails.
+     */
+    private void readRowsParallel(Session session, final TextCache cache,
+                                  TextFileReader reader, long nextpos) {
+
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        if (threads > parallelReadMaxThreads) {
+            threads = parallelReadMaxThreads;
+        }
+
+        final String[]    rowStrings = new String[parallelReadBatchSize];
+        final long[]      positions  = new long[parallelReadBatchSize];
+        final int[]       sizes      = new int[parallelReadBatchSize];
+        final int[]       lines      = new int[parallelReadBatchSize];
+        final Object[][]  rowData    = new Object[parallelReadBatchSize][];
+        final Throwable[] errors     = new Throwable[parallelReadBatchSize];
+        final Type[]      types      = getColumnTypes();
+        ExecutorService executor = null;
+
+        // with one processor the strings are converted in this thread
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "HSQLDB Text Reader");
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+        }
+
+        try {
+            while (true) {
+                final int count = reader.readRowStrings(nextpos, rowStrings,
+                    positions, sizes, lines);
+
+                if (count == 0) {
+                    break;
+                }
+
+                int      chunk   = (count + threads - 1) / threads;
+                Future[] futures = new Future[threads];
+
+                for (int i = 0; i < threads; i++) {
+                    final int start = i * chunk;
+                    final int end   = Math.min(start + chunk, count);
+
+                    Runnable task = new Runnable() {
+
+                        public void run() {
+
+                            RowInputText rowIn =
+                                (RowInputText) cache.newRowInput();
+
+                            for (int j = start; j < end; j++) {
+                                try {
+                                    rowIn.setSource(rowStrings[j],
+                                                    positions[j], sizes[j]);
+
+                                    rowData[j] = rowIn.readData(types);
+                                    errors[j]  = null;
+                                } catch (Throwable t) {
+                                    rowData[j] = null;
+                                    errors[j]  = t;
+                                }
+                            }
+                        }
+                    };
+
+                    if (executor == null) {
+                        task.run();
+                    } else {
+                        futures[i] = executor.submit(task);
+                    }
+                }
+
+                for (int i = 0; executor != null && i < threads; i++) {
+                    futures[i].get();
+                }
+
+                for (int i = 0; i < count; i++) {
+                    errorLineNumber = lines[i];
+
+                    if (errors[i] instanceof RuntimeException) {
+                        throw (RuntimeException) errors[i];
+                    } else if (errors[i] instanceof java.lang.Error) {
+                        throw (java.lang.Error) errors[i];
+                    } else if (errors[i] != null) {
+                        throw Error.error(ErrorCode.TEXT_FILE_IO, errors[i]);
+                    }
+
+                    Object[] data = rowData[i];
+                    Row row = (Row) ((RowStoreAVLDiskData) store).get(data,
+                        positions[i], sizes[i]);
+
+                    rowStrings[i] = null;
+                    rowData[i]    = null;
+
+                    systemUpdateIdentityValue(data);
+                    enforceRowConstraints(session, data);
+                    store.indexRow(session, row);
+                }
+
+                errorLineNumber = 0;
+                nextpos         = positions[count - 1] + sizes[count - 1];
+            }
+        } catch (InterruptedException e) {
+            throw Error.error(ErrorCode.TEXT_FILE_IO, e);
+        } catch (ExecutionException e) {
+            throw Error.error(ErrorCode.TEXT_FILE_IO, e);
+        } finally {
+            if (executor != null) {
+                executor.shutdown();
+            }
+        }
+    }
+
     /**
      * disconnects from the data source
      */
@@ -183,7 +347,8 @@ public class TextTable extends Table {
 
         store.release();
 
-        isConnected = false;
+        isConnected         = false;
+        dataChangeTimestamp = database.txManager.getNextGlobalChangeTimestamp();
     }
 
     /**
@@ -630,6 +630,7 @@ public class Tokens {
     // other tokens
     static final String        T_ALIAS                = "ALIAS";
     static final String        T_AGGREGATE            = "AGGREGATE";
+    static final String        T_ANALYZE              = "ANALYZE";
     public static final String T_AUTHENTICATION       = "AUTHENTICATION";
     static final String        T_AUTO_INCREMENT       = "AUTO_INCREMENT";
     static final String        T_AUTOCOMMIT           = "AUTOCOMMIT";
@@ -646,6 +647,7 @@ public class Tokens {
     static final String        T_CITEXT               = "CITEXT";
     static final String        T_CLASS                = "CLASS";
     static final String        T_CLUSTERED            = "CLUSTERED";
+    static final String        T_COLUMNAR             = "COLUMNAR";
     static final String        T_COMMENT              = "COMMENT";
     static final String        T_COMPACT              = "COMPACT";
     public static final String T_COMPRESSED           = "COMPRESSED";
@@ -660,6 +662,7 @@ public class Tokens {
     public static final String T_DEADLOCK             = "DEADLOCK";
     public static final String T_DEFRAG               = "DEFRAG";
     public static final String T_DELAY                = "DELAY";
+    static final String        T_DICTIONARY           = "DICTIONARY";
     public static final String T_DIGEST               = "DIGEST";
     static final String        T_DUAL                 = "DUAL";
     static final String        T_DUPLICATE            = "DUPLICATE";
@@ -670,7 +673,7 @@ public class Tokens {
     static final String        T_FILE                 = "FILE";
     public static final String T_FILES                = "FILES";
     static final String        T_FOLD                 = "FOLD";
-    static final String        T_FORMAT               = "FORMAT";
+    public static final String T_FORMAT               = "FORMAT";
     static final String        T_GROUP_CONCAT         = "GROUP_CONCAT";
     static final String        T_HEADER               = "HEADER";
     static final String        T_IFNULL               = "IFNULL";
@@ -697,6 +700,8 @@ public class Tokens {
     public static final String T_LONGVAR              = "LONGVAR";
     public static final String T_LONGVARBINARY        = "LONGVARBINARY";
     public static final String T_LONGVARCHAR          = "LONGVARCHAR";
+    static final String        T_LESS_PARTITION       = "LESS";
+    static final String        T_MATERIALIZED         = "MATERIALIZED";
     static final String        T_MAXROWS              = "MAXROWS";
     static final String        T_MEDIAN               = "MEDIAN";
     static final String        T_MEDIUMBLOB           = "MEDIUMBLOB";
@@ -720,6 +725,7 @@ public class Tokens {
     static final String        T_OFF                  = "OFF";
     public static final String T_OTHER                = "OTHER";
     public static final String T_ORA                  = "ORA";
+    public static final String T_PARAMETERIZE         = "PARAMETERIZE";
     public static final String T_PASSWORD             = "PASSWORD";
     public static final String T_PERFORM              = "PERFORM";
     static final String        T_PLAN                 = "PLAN";
@@ -729,6 +735,7 @@ public class Tokens {
     static final String        T_QUEUE                = "QUEUE";
     static final String        T_RAW                  = "RAW";
     static final String        T_READONLY             = "READONLY";
+    static final String        T_REFRESH              = "REFRESH";
     static final String        T_REFERENTIAL          = "REFERENTIAL";
     public static final String T_REGULAR              = "REGULAR";
     static final String        T_RENAME               = "RENAME";
@@ -748,6 +755,7 @@ public class Tokens {
     static final String        T_SQL_TSI_SECOND       = "SQL_TSI_SECOND";
     static final String        T_SQL_TSI_WEEK         = "SQL_TSI_WEEK";
     static final String        T_SQL_TSI_YEAR         = "SQL_TSI_YEAR";
+    static final String        T_STATISTICS           = "STATISTICS";
     static final String        T_SQL_BIGINT           = "SQL_BIGINT";
     static final String        T_SQL_BINARY           = "SQL_BINARY";
     static final String        T_SQL_BIT              = "SQL_BIT";
@@ -781,6 +789,7 @@ public class Tokens {
     public static final String T_TDC                  = "TDC";
     public static final String T_TEMP                 = "TEMP";
     public static final String T_TEXT                 = "TEXT";
+    static final String        T_THAN                 = "THAN";
     static final String        T_TIMESTAMP_WITH_ZONE  = "TIMESTAMP_WITH_ZONE";
     static final String        T_TIMESTAMPADD         = "TIMESTAMPADD";
     static final String        T_TIMESTAMPDIFF        = "TIMESTAMPDIFF";
@@ -1765,10 +1774,19 @@ public class Tokens {
     static final int SQL_TSI_YEAR         = 861;
 
     //
-    static final int X_KEYSET      = 863;
-    static final int X_OPTION      = 864;
-    static final int X_REPEAT      = 865;
-    static final int X_POS_INTEGER = 866;
+    static final int X_KEYSET       = 863;
+    static final int X_OPTION       = 864;
+    static final int X_REPEAT       = 865;
+    static final int X_POS_INTEGER  = 866;
+    static final int ANALYZE        = 867;
+    static final int STATISTICS     = 868;
+    static final int MATERIALIZED   = 885;
+    static final int REFRESH        = 886;
+    static final int PARAMETERIZE   = 887;
+    static final int LESS_PARTITION = 888;
+    static final int THAN           = 889;
+    static final int COLUMNAR       = 890;
+    static final int DICTIONARY     = 891;
 
     //
     public static final int X_VALUE                    = 869;
@@ -2132,6 +2150,7 @@ public class Tokens {
         commandSet.put(T_AFTER, AFTER);
         commandSet.put(T_ALIAS, ALIAS);
         commandSet.put(T_ALWAYS, ALWAYS);
+        commandSet.put(T_ANALYZE, ANALYZE);
         commandSet.put(T_ASC, ASC);
         commandSet.put(T_AUTHENTICATION, AUTHENTICATION);
         commandSet.put(T_AUTOCOMMIT, AUTOCOMMIT);
@@ -2155,6 +2174,7 @@ public class Tokens {
         commandSet.put(T_CLASS, CLASS);
         commandSet.put(T_CLUSTERED, CLUSTERED);
         commandSet.put(T_COLLATE, COLLATE);
+        commandSet.put(T_COLUMNAR, COLUMNAR);
         commandSet.put(T_COLLATION, COLLATION);
         commandSet.put(T_COMMENT, COMMENT);
         commandSet.put(T_COMMITTED, COMMITTED);
@@ -2178,6 +2198,7 @@ public class Tokens {
         commandSet.put(T_DELAY, DELAY);
         commandSet.put(T_DESC, DESC);
         commandSet.put(T_DIAGNOSTICS, DIAGNOSTICS);
+        commandSet.put(T_DICTIONARY, DICTIONARY);
         commandSet.put(T_DIGEST, DIGEST);
         commandSet.put(T_DOMAIN, DOMAIN);
         commandSet.put(T_EVENT, EVENT);
@@ -2231,6 +2252,8 @@ public class Tokens {
         commandSet.put(T_LONGVAR, LONGVAR);
         commandSet.put(T_M_FACTOR, M);
         commandSet.put(T_MATCHED, MATCHED);
+        commandSet.put(T_LESS_PARTITION, LESS_PARTITION);
+        commandSet.put(T_MATERIALIZED, MATERIALIZED);
         commandSet.put(T_MAXROWS, MAXROWS);
         commandSet.put(T_MAXVALUE, MAXVALUE);
         commandSet.put(T_MEDIAN, MEDIAN);
@@ -2263,6 +2286,7 @@ public class Tokens {
         commandSet.put(T_P_FACTOR, P);
         commandSet.put(T_PAD, PAD);
         commandSet.put(T_PARTIAL, PARTIAL);
+        commandSet.put(T_PARAMETERIZE, PARAMETERIZE);
         commandSet.put(T_PASSWORD, PASSWORD);
         commandSet.put(T_PERFORM, PERFORM);
         commandSet.put(T_PLACING, PLACING);
@@ -2274,6 +2298,7 @@ public class Tokens {
         commandSet.put(T_RAW, RAW);
         commandSet.put(T_READ, READ);
         commandSet.put(T_READONLY, READONLY);
+        commandSet.put(T_REFRESH, REFRESH);
         commandSet.put(T_REFERENTIAL, REFERENTIAL);
         commandSet.put(T_REGULAR, REGULAR);
         commandSet.put(T_RENAME, RENAME);
@@ -2338,6 +2363,7 @@ public class Tokens {
         commandSet.put(T_SQL_TSI_SECOND, SQL_TSI_SECOND);
         commandSet.put(T_SQL_TSI_WEEK, SQL_TSI_WEEK);
         commandSet.put(T_SQL_TSI_YEAR, SQL_TSI_YEAR);
+        commandSet.put(T_STATISTICS, STATISTICS);
         commandSet.put(T_STATEMENT, STATEMENT);
         commandSet.put(T_STYLE, STYLE);
         commandSet.put(T_SYNTAX, SYNTAX);
@@ -2345,6 +2371,7 @@ public class Tokens {
         commandSet.put(T_TDC, TDC);
         commandSet.put(T_TEMP, TEMP);
         commandSet.put(T_TEMPORARY, TEMPORARY);
+        commandSet.put(T_THAN, THAN);
         commandSet.put(T_TEXT, TEXT);
         commandSet.put(T_TYPES, TYPES);
         commandSet.put(T_TIMESTAMP_WITH_ZONE, TIMESTAMP_WITH_ZONE);
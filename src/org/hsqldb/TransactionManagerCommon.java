@@ -42,9 +42,9 @@ import org.hsqldb.lib.HashMap;
 import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.Iterator;
 import org.hsqldb.lib.LongDeque;
-import org.hsqldb.lib.LongKeyHashMap;
 import org.hsqldb.lib.MultiValueHashMap;
 import org.hsqldb.lib.OrderedHashSet;
+import org.hsqldb.lib.StripedLongKeyHashMap;
 
 /**
  * Shared code for TransactionManager classes
@@ -63,6 +63,7 @@ class TransactionManagerCommon {
     //
     ReentrantReadWriteLock           lock      = new ReentrantReadWriteLock();
     ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+    ReentrantReadWriteLock.ReadLock  readLock  = lock.readLock();
 
     // functional unit - sessions involved in live transactions
 
@@ -79,10 +80,13 @@ class TransactionManagerCommon {
     HashMap           tableWriteLocks = new HashMap();
     MultiValueHashMap tableReadLocks  = new MultiValueHashMap();
 
+    /** intention write locks of sessions that lock rows, not tables */
+    MultiValueHashMap tableRowLocks = new MultiValueHashMap();
+
     // functional unit - cached table transactions
 
     /** Map : rowID -> RowAction */
-    public LongKeyHashMap rowActionMap;
+    public StripedLongKeyHashMap rowActionMap;
 
     void setTransactionControl(Session session, int mode) {
 
@@ -195,8 +199,10 @@ class TransactionManagerCommon {
 
     void persistCommit(Session session) {
 
-        int     limit       = session.rowActionList.size();
-        boolean writeCommit = false;
+        int           limit       = session.rowActionList.size();
+        boolean       writeCommit = false;
+        boolean       capture     = database.changeManager.isEnabled();
+        HsqlArrayList changes     = null;
 
         for (int i = 0; i < limit; i++) {
             RowAction action = (RowAction) session.rowActionList.get(i);
@@ -216,6 +222,22 @@ class TransactionManagerCommon {
                 writeCommit = true;
             }
 
+            ColumnStore.setRowCommitted(session, action.table, row, type);
+
+            action.table.dataChangeTimestamp = session.actionTimestamp;
+
+            if (capture) {
+                ChangeRecord change = getChangeRecord(action, row, type);
+
+                if (change != null) {
+                    if (changes == null) {
+                        changes = new HsqlArrayList();
+                    }
+
+                    changes.add(change);
+                }
+            }
+
             try {
                 action.store.commitRow(session, row, type, txModel);
 
@@ -236,11 +258,54 @@ class TransactionManagerCommon {
             if (limit > 0 && writeCommit) {
                 database.logger.writeCommitStatement(session);
             }
+
+            if (changes != null) {
+                database.changeManager.addCommit(session, changes);
+            }
         } catch (HsqlException e) {
             database.logger.logWarningEvent("data commit logging failed", e);
         }
     }
 
+    /**
+     * Returns the committed change of a row for change capture, or null if
+     * the table is not captured.
+     */
+    private ChangeRecord getChangeRecord(RowAction action, Row row,
+                                         int type) {
+
+        switch (action.table.tableType) {
+
+            case TableBase.MEMORY_TABLE :
+            case TableBase.CACHED_TABLE :
+            case TableBase.TEXT_TABLE :
+                break;
+
+            default :
+                return null;
+        }
+
+        Table table = (Table) action.table;
+
+        if (table.getName().schema == SqlInvariants.LOBS_SCHEMA_HSQLNAME) {
+            return null;
+        }
+
+        switch (type) {
+
+            case RowActionBase.ACTION_INSERT :
+                return new ChangeRecord(ChangeRecord.INSERT, table,
+                                        row.getData());
+
+            case RowActionBase.ACTION_DELETE :
+                return new ChangeRecord(ChangeRecord.DELETE, table,
+                                        row.getData());
+
+            default :
+                return null;
+        }
+    }
+
     void finaliseRows(Session session, Object[] list, int start, int limit) {
 
         for (int i = start; i < limit; i++) {
@@ -523,6 +588,7 @@ class TransactionManagerCommon {
             return false;
         }
 
+        boolean    rowLocks = isRowLockStatement(session, cs);
         HsqlName[] nameList = cs.getTableNamesForWrite();
 
         for (int i = 0; i < nameList.length; i++) {
@@ -547,6 +613,20 @@ class TransactionManagerCommon {
                     session.tempSet.add(holder);
                 }
             }
+
+            if (rowLocks) {
+                continue;
+            }
+
+            it = tableRowLocks.get(name);
+
+            while (it.hasNext()) {
+                holder = (Session) it.next();
+
+                if (holder != session) {
+                    session.tempSet.add(holder);
+                }
+            }
         }
 
         nameList = cs.getTableNamesForRead();
@@ -555,6 +635,10 @@ class TransactionManagerCommon {
             nameList = catalogNameList;
         }
 
+        // committed row versions are read while other sessions hold row locks
+        boolean readRowLocks = session.isolationLevel
+                               > SessionInterface.TX_READ_COMMITTED;
+
         for (int i = 0; i < nameList.length; i++) {
             HsqlName name = nameList[i];
 
@@ -567,6 +651,20 @@ class TransactionManagerCommon {
             if (holder != null && holder != session) {
                 session.tempSet.add(holder);
             }
+
+            if (!readRowLocks) {
+                continue;
+            }
+
+            Iterator it = tableRowLocks.get(name);
+
+            while (it.hasNext()) {
+                holder = (Session) it.next();
+
+                if (holder != session) {
+                    session.tempSet.add(holder);
+                }
+            }
         }
 
         if (session.tempSet.isEmpty()) {
@@ -606,6 +704,7 @@ class TransactionManagerCommon {
             return;
         }
 
+        boolean    rowLocks = isRowLockStatement(session, cs);
         HsqlName[] nameList = cs.getTableNamesForWrite();
 
         for (int i = 0; i < nameList.length; i++) {
@@ -615,7 +714,15 @@ class TransactionManagerCommon {
                 continue;
             }
 
-            tableWriteLocks.put(name, session);
+            if (rowLocks) {
+                tableRowLocks.put(name, session);
+            } else {
+                tableWriteLocks.put(name, session);
+            }
+        }
+
+        if (rowLocks) {
+            session.isRowLocking = true;
         }
 
         nameList = cs.getTableNamesForRead();
@@ -652,6 +759,20 @@ class TransactionManagerCommon {
                 it.remove();
             }
         }
+
+        if (!session.isRowLocking) {
+            return;
+        }
+
+        it = tableRowLocks.values().iterator();
+
+        while (it.hasNext()) {
+            Session s = (Session) it.next();
+
+            if (s == session) {
+                it.remove();
+            }
+        }
     }
 
     void unlockReadTablesTPL(Session session, HsqlName[] locks) {
@@ -667,6 +788,7 @@ class TransactionManagerCommon {
             return true;
         }
 
+        boolean    rowLocks = isRowLockStatement(session, cs);
         HsqlName[] nameList = cs.getTableNamesForWrite();
 
         for (int i = 0; i < nameList.length; i++) {
@@ -691,6 +813,20 @@ class TransactionManagerCommon {
                     return false;
                 }
             }
+
+            if (rowLocks) {
+                continue;
+            }
+
+            it = tableRowLocks.get(name);
+
+            while (it.hasNext()) {
+                holder = (Session) it.next();
+
+                if (holder != session) {
+                    return false;
+                }
+            }
         }
 
         nameList = cs.getTableNamesForRead();
@@ -712,6 +848,80 @@ class TransactionManagerCommon {
         return true;
     }
 
+    /**
+     * Returns true if the statement locks the rows it changes instead of
+     * its write tables. Row locks are used in MVLOCKS mode for DML
+     * statements at READ COMMITTED or lower isolation, on MEMORY and CACHED
+     * tables that do not participate in foreign keys. Once the number of
+     * rows changed in a table by the transaction reaches the
+     * hsqldb.tx_row_locks limit, the next statement locks the whole table.
+     */
+    boolean isRowLockStatement(Session session, Statement cs) {
+
+        int limit = database.txRowLockLimit;
+
+        if (limit == 0 || txModel != TransactionManager.MVLOCKS) {
+            return false;
+        }
+
+        if (session.isolationLevel > SessionInterface.TX_READ_COMMITTED) {
+            return false;
+        }
+
+        switch (cs.getType()) {
+
+            case StatementTypes.INSERT :
+            case StatementTypes.UPDATE_WHERE :
+            case StatementTypes.UPDATE_CURSOR :
+            case StatementTypes.DELETE_WHERE :
+            case StatementTypes.DELETE_CURSOR :
+            case StatementTypes.MERGE :
+                break;
+
+            default :
+                return false;
+        }
+
+        HsqlName[] nameList = cs.getTableNamesForWrite();
+
+        for (int i = 0; i < nameList.length; i++) {
+            HsqlName name = nameList[i];
+
+            if (tableWriteLocks.get(name) == session) {
+                return false;
+            }
+
+            if (session.rowLockCounts.get(name, 0) >= limit) {
+                return false;
+            }
+
+            Table table =
+                (Table) database.schemaManager.findSchemaObject(name.name,
+                    name.schema.name, SchemaObject.TABLE);
+
+            if (table == null) {
+                return false;
+            }
+
+            switch (table.getTableType()) {
+
+                case TableBase.MEMORY_TABLE :
+                case TableBase.CACHED_TABLE :
+                    break;
+
+                default :
+                    return false;
+            }
+
+            if (table.fkConstraints.length > 0
+                    || table.fkMainConstraints.length > 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     long getFirstLiveTransactionTimestamp() {
 
         if (liveTransactionTimestamps.isEmpty()) {
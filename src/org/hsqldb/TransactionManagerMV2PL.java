@@ -31,12 +31,14 @@
 
 package org.hsqldb;
 
+import java.util.concurrent.locks.Lock;
+
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.HsqlDeque;
 import org.hsqldb.lib.LongDeque;
-import org.hsqldb.lib.LongKeyHashMap;
+import org.hsqldb.lib.StripedLongKeyHashMap;
 import org.hsqldb.persist.CachedObject;
 import org.hsqldb.persist.PersistentStore;
 
@@ -58,7 +60,7 @@ implements TransactionManager {
 
         database        = db;
         lobSession      = database.sessionManager.getSysLobSession();
-        rowActionMap    = new LongKeyHashMap(10000);
+        rowActionMap    = new StripedLongKeyHashMap(10000);
         txModel         = MVLOCKS;
         catalogNameList = new HsqlName[]{ database.getCatalogName() };
     }
@@ -275,7 +277,9 @@ implements TransactionManager {
                     action = RowAction.addDeleteAction(session, table, row,
                                                        colMap);
 
-                    addTransactionInfo(row);
+                    if (action != null) {
+                        addTransactionInfo(row);
+                    }
                     break;
 
                 case TableBase.TEMP_TABLE :
@@ -294,7 +298,14 @@ implements TransactionManager {
             }
         }
 
+        if (action == null) {
+            setRowConflict(session);
+
+            throw Error.error(ErrorCode.X_40501);
+        }
+
         session.rowActionList.add(action);
+        countRowLock(session, table);
 
         return action;
     }
@@ -314,7 +325,17 @@ implements TransactionManager {
                                      "null insert action ");
         }
 
-        store.indexRow(session, row);
+        try {
+            store.indexRow(session, row);
+        } catch (HsqlException e) {
+            if (session.tempSet.isEmpty()) {
+                throw e;
+            }
+
+            setRowConflict(session);
+
+            throw Error.error(e, ErrorCode.X_40501, null);
+        }
 
         if (table.persistenceScope == Table.SCOPE_ROUTINE) {
             row.rowAction = null;
@@ -323,6 +344,67 @@ implements TransactionManager {
         }
 
         session.rowActionList.add(action);
+        countRowLock(session, table);
+    }
+
+    /**
+     * A row changed by a statement that uses row locks is locked by the
+     * uncommitted change of another session. The partial action is rolled
+     * back and the statement is redone after the other session ends its
+     * transaction, unless the wait would cause a deadlock.
+     */
+    private void setRowConflict(Session session) {
+
+        writeLock.lock();
+
+        try {
+            rollbackPartial(session, session.actionIndex,
+                            session.actionStartTimestamp);
+
+            // the conflicting change has been committed
+            if (session.tempSet.isEmpty()) {
+                session.redoAction = true;
+
+                return;
+            }
+
+            RowActionBase otherAction =
+                (RowActionBase) session.tempSet.get(0);
+
+            session.tempSet.clear();
+
+            if (otherAction.commitTimestamp != 0 || otherAction.rolledback) {
+                session.redoAction = true;
+
+                return;
+            }
+
+            Session actionSession = otherAction.session;
+
+            if (checkDeadlock(session, actionSession)) {
+                session.tempSet.add(actionSession);
+                setWaitingSessionTPL(session);
+
+                session.redoAction = true;
+            } else {
+                session.redoAction       = false;
+                session.abortTransaction = session.txConflictRollback;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void countRowLock(Session session, Table table) {
+
+        if (database.txRowLockLimit == 0) {
+            return;
+        }
+
+        HsqlName name  = table.getName();
+        int      count = session.rowLockCounts.get(name, 0);
+
+        session.rowLockCounts.put(name, count + 1);
     }
 
 // functional unit - accessibility of rows
@@ -339,7 +421,7 @@ implements TransactionManager {
             return true;
         }
 
-        return action.canRead(session, TransactionManager.ACTION_READ);
+        return canRead(session, action, mode);
     }
 
     public boolean canRead(Session session, PersistentStore store, long id,
@@ -355,7 +437,35 @@ implements TransactionManager {
             return true;
         }
 
-        return action.canRead(session, mode);
+        return canRead(session, action, mode);
+    }
+
+    /**
+     * Only a transaction that uses row locks can find uncommitted changes of
+     * other sessions in its write tables. Other transactions read the rows
+     * as before. A duplicate key against a row deleted by another
+     * uncommitted transaction is recorded so that the insert waits for that
+     * transaction instead of failing.
+     */
+    private boolean canRead(Session session, RowAction action, int mode) {
+
+        if (session == null || !session.isRowLocking) {
+            return action.canRead(session, TransactionManager.ACTION_READ);
+        }
+
+        boolean result = action.canRead(session, mode);
+
+        if (result && mode == TransactionManager.ACTION_DUP) {
+            RowActionBase otherAction =
+                action.getOtherUncommittedDelete(session);
+
+            if (otherAction != null) {
+                session.tempSet.clear();
+                session.tempSet.add(otherAction);
+            }
+        }
+
+        return result;
     }
 
     public void addTransactionInfo(CachedObject object) {
@@ -405,7 +515,9 @@ implements TransactionManager {
 
     public void removeTransactionInfo(long id) {
 
-        rowActionMap.getWriteLock().lock();
+        Lock mapLock = rowActionMap.getWriteLock(id);
+
+        mapLock.lock();
 
         try {
             RowAction action = (RowAction) rowActionMap.get(id);
@@ -418,7 +530,7 @@ implements TransactionManager {
                 }
             }
         } finally {
-            rowActionMap.getWriteLock().unlock();
+            mapLock.unlock();
         }
     }
 
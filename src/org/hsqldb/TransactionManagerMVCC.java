@@ -31,12 +31,14 @@
 
 package org.hsqldb;
 
+import java.util.concurrent.locks.Lock;
+
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.HashSet;
 import org.hsqldb.lib.HsqlDeque;
 import org.hsqldb.lib.LongDeque;
-import org.hsqldb.lib.LongKeyHashMap;
+import org.hsqldb.lib.StripedLongKeyHashMap;
 import org.hsqldb.persist.CachedObject;
 import org.hsqldb.persist.PersistentStore;
 
@@ -72,7 +74,7 @@ implements TransactionManager {
 
         database     = db;
         lobSession   = database.sessionManager.getSysLobSession();
-        rowActionMap = new LongKeyHashMap(10000);
+        rowActionMap = new StripedLongKeyHashMap(10000);
         txModel      = MVCC;
     }
 
@@ -508,8 +510,8 @@ implements TransactionManager {
                     if (row.isMemory()) {
                         result = RowAction.addRefAction(session, row, colMap);
                     } else {
-                        ReentrantReadWriteLock.WriteLock mapLock =
-                            rowActionMap.getWriteLock();
+                        Lock mapLock =
+                            rowActionMap.getWriteLock(row.getPos());
 
                         mapLock.lock();
 
@@ -639,7 +641,9 @@ implements TransactionManager {
 
     public void removeTransactionInfo(long id) {
 
-        rowActionMap.getWriteLock().lock();
+        Lock mapLock = rowActionMap.getWriteLock(id);
+
+        mapLock.lock();
 
         try {
             RowAction action = (RowAction) rowActionMap.get(id);
@@ -652,7 +656,7 @@ implements TransactionManager {
                 }
             }
         } finally {
-            rowActionMap.getWriteLock().unlock();
+            mapLock.unlock();
         }
     }
 
@@ -775,6 +779,22 @@ implements TransactionManager {
      */
     public void beginActionResume(Session session) {
 
+        if (session.isTransaction) {
+
+            // the read lock excludes only commits and rollbacks, which
+            // must not be seen half-way by the statement
+            readLock.lock();
+
+            try {
+                session.actionTimestamp = getNextGlobalChangeTimestamp();
+                session.actionStartTimestamp = session.actionTimestamp;
+            } finally {
+                readLock.unlock();
+            }
+
+            return;
+        }
+
         writeLock.lock();
 
         try {
@@ -808,7 +828,9 @@ implements TransactionManager {
             switch (table.tableType) {
 
                 case TableBase.CACHED_TABLE : {
-                    rowActionMap.getWriteLock().lock();
+                    Lock mapLock = rowActionMap.getWriteLock(row.getPos());
+
+                    mapLock.lock();
 
                     try {
 
@@ -828,7 +850,7 @@ implements TransactionManager {
                                                                row, colMap);
                         }
                     } finally {
-                        rowActionMap.getWriteLock().unlock();
+                        mapLock.unlock();
                     }
 
                     break;
@@ -34,6 +34,7 @@ package org.hsqldb;
 import org.hsqldb.HsqlNameManager.HsqlName;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.HsqlDeque;
 import org.hsqldb.lib.OrderedHashSet;
 import org.hsqldb.lib.StringConverter;
@@ -98,13 +99,13 @@ public class TriggerDef implements Runnable, SchemaObject {
     Trigger          trigger;
     String           triggerClassName;
     int              triggerType;
-    Thread           thread;
 
     //protected boolean busy;               // firing trigger in progress
     protected HsqlDeque        pendingQueue;                   // row triggers pending
     protected int              rowsQueued;                     // rows in pendingQueue
     protected boolean          valid     = true;               // parsing valid
     protected volatile boolean keepGoing = true;
+    protected boolean          isScheduled;                    // run pending in pool
 
     TriggerDef() {}
 
@@ -115,7 +116,7 @@ public class TriggerDef implements Runnable, SchemaObject {
      *  Changes in 1.7.2 allow the queue size to be specified as 0. A zero
      *  queue size causes the Trigger.fire() code to run in the main thread of
      *  execution (fully inside the enclosing transaction). Otherwise, the code
-     *  is run in the Trigger's own thread.
+     *  is run by one of the trigger threads shared by the database.
      *  (fredt@users)
      *
      * @param  name The trigger object's HsqlName
@@ -532,88 +533,149 @@ public class TriggerDef implements Runnable, SchemaObject {
     /**
      *  run method declaration <P>
      *
-     *  the trigger JSP is run in its own thread here. Its job is simply to
-     *  wait until it is told by the main thread that it should fire the
-     *  trigger.
+     *  The trigger is run by a thread of the pool shared by all the
+     *  triggers of the database. All the rows queued so far are fired as a
+     *  batch, then the trigger is resubmitted to the pool if more rows have
+     *  been queued in the meantime. Only one run of each trigger is submitted
+     *  at a time, therefore the rows are fired in the order they are queued.
      */
     public void run() {
 
-        while (keepGoing) {
-            TriggerData triggerData = popPair();
+        TriggerData[] batch = popBatch();
 
-            if (triggerData != null) {
-                if (triggerData.username != null) {
-                    trigger.fire(this.triggerType, name.name,
-                                 table.getName().name, triggerData.oldRow,
-                                 triggerData.newRow);
+        try {
+            if (batch.length > 0) {
+                fireBatch(batch);
+            }
+        } finally {
+            synchronized (this) {
+                isScheduled = false;
+
+                if (rowsQueued > 0) {
+                    schedule();
                 }
             }
         }
+    }
 
-        try {
-            thread.setContextClassLoader(null);
-        } catch (Throwable t) {}
+    /**
+     * Fires the queued rows that have a username. An exception thrown by
+     * the trigger code is logged. With a BatchTrigger, the rows of the batch
+     * are then fired one by one, so that a failing row does not lose the
+     * rest of the batch.
+     */
+    void fireBatch(TriggerData[] batch) {
+
+        HsqlArrayList list = new HsqlArrayList(batch.length);
+
+        for (int i = 0; i < batch.length; i++) {
+            if (batch[i].username != null) {
+                list.add(batch[i]);
+            }
+        }
+
+        if (list.isEmpty()) {
+            return;
+        }
+
+        if (trigger instanceof BatchTrigger) {
+            Object[][] oldRows = new Object[list.size()][];
+            Object[][] newRows = new Object[list.size()][];
+
+            for (int i = 0; i < list.size(); i++) {
+                TriggerData triggerData = (TriggerData) list.get(i);
+
+                oldRows[i] = triggerData.oldRow;
+                newRows[i] = triggerData.newRow;
+            }
+
+            try {
+                ((BatchTrigger) trigger).fireBatch(triggerType, name.name,
+                                                   table.getName().name,
+                                                   oldRows, newRows);
+
+                return;
+            } catch (Throwable t) {
+                table.database.logger.logWarningEvent("trigger batch failed "
+                                                      + name.name, t);
+            }
+        }
+
+        for (int i = 0; i < list.size(); i++) {
+            TriggerData triggerData = (TriggerData) list.get(i);
+
+            try {
+                trigger.fire(triggerType, name.name, table.getName().name,
+                             triggerData.oldRow, triggerData.newRow);
+            } catch (Throwable t) {
+                table.database.logger.logWarningEvent("trigger failed "
+                                                      + name.name, t);
+            }
+        }
     }
 
     /**
-     * start the thread if this is threaded
+     * prepare the trigger for firing queued rows
      */
     public synchronized void start() {
+        keepGoing = true;
+    }
 
-        if (maxRowsQueued != 0) {
-            thread = new Thread(this);
+    /**
+     * signal the trigger to stop and discard the rows still queued
+     */
+    public synchronized void terminate() {
 
-            thread.start();
+        keepGoing  = false;
+        rowsQueued = 0;
+
+        if (pendingQueue != null) {
+            pendingQueue.clear();
         }
+
+        notifyAll();
     }
 
     /**
-     * signal the thread to stop
+     * Submits a run of this trigger to the shared pool unless one is
+     * already pending. Called while holding the monitor of this object.
      */
-    public synchronized void terminate() {
+    private void schedule() {
 
-        keepGoing = false;
+        if (isScheduled || !keepGoing) {
+            return;
+        }
 
-        notify();
+        isScheduled = table.database.triggerRunner.execute(this);
     }
 
     /**
-     *  pop2 method declaration <P>
-     *
-     *  The consumer (trigger) thread waits for an event to be queued <P>
+     *  Removes all the queued rows and wakes any session that is waiting for
+     *  space in the queue.
      *
-     *  <B>Note: </B> This push/pop pairing assumes a single producer thread
-     *  and a single consumer thread _only_.
-     *
-     * @return  Description of the Return Value
+     * @return  the queued rows in order, possibly an empty array
      */
-    synchronized TriggerData popPair() {
+    synchronized TriggerData[] popBatch() {
 
-        if (rowsQueued == 0) {
-            try {
-                wait();    // this releases the lock monitor
-            } catch (InterruptedException e) {
+        TriggerData[] batch = new TriggerData[pendingQueue.size()];
 
-                /* ignore and resume */
-            }
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = (TriggerData) pendingQueue.removeFirst();
         }
 
-        rowsQueued--;
+        rowsQueued = 0;
 
-        notify();    // notify push's wait
+        notifyAll();    // notify push's wait
 
-        if (pendingQueue.size() == 0) {
-            return null;
-        } else {
-            return (TriggerData) pendingQueue.removeFirst();
-        }
+        return batch;
     }
 
     /**
      *  The main thread tells the trigger thread to fire by this call.
      *  If this Trigger is not threaded then the fire method is caled
      *  immediately and executed by the main thread. Otherwise, the row
-     *  data objects are added to the queue to be used by the Trigger thread.
+     *  data objects are added to the queue to be used by the shared trigger
+     *  threads.
      *
      * @param  row1
      * @param  row2
@@ -633,25 +695,35 @@ public class TriggerDef implements Runnable, SchemaObject {
             return;
         }
 
-        if (rowsQueued >= maxRowsQueued) {
+        while (rowsQueued >= maxRowsQueued) {
             if (nowait) {
                 pendingQueue.removeLast();    // overwrite last
-            } else {
-                try {
-                    wait();
-                } catch (InterruptedException e) {
 
-                    /* ignore and resume */
-                }
+                rowsQueued--;
 
-                rowsQueued++;
+                break;
+            }
+
+            if (!keepGoing) {
+                return;
+            }
+
+            try {
+                wait();
+            } catch (InterruptedException e) {
+
+                /* ignore and resume */
             }
-        } else {
-            rowsQueued++;
         }
 
+        if (!keepGoing) {
+            return;
+        }
+
+        rowsQueued++;
+
         pendingQueue.add(new TriggerData(session, row1, row2));
-        notify();    // notify pop's wait
+        schedule();
     }
 
     public boolean isBusy() {
@@ -37,7 +37,9 @@ import java.io.LineNumberReader;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 
+import org.hsqldb.ChangeRecord;
 import org.hsqldb.ColumnSchema;
+import org.hsqldb.ColumnStatistics;
 import org.hsqldb.Constraint;
 import org.hsqldb.Database;
 import org.hsqldb.Expression;
@@ -63,6 +65,7 @@ import org.hsqldb.View;
 import org.hsqldb.index.Index;
 import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.lib.FileUtil;
+import org.hsqldb.lib.HashMap;
 import org.hsqldb.lib.HashMappedList;
 import org.hsqldb.lib.HashSet;
 import org.hsqldb.lib.Iterator;
@@ -176,6 +179,12 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
             case SYSTEM_CACHEINFO :
                 return SYSTEM_CACHEINFO(session, store);
 
+            case SYSTEM_CHANGES :
+                return SYSTEM_CHANGES(session, store);
+
+            case SYSTEM_COLUMNSTATS :
+                return SYSTEM_COLUMNSTATS(session, store);
+
             case SYSTEM_COLUMN_SEQUENCE_USAGE :
                 return SYSTEM_COLUMN_SEQUENCE_USAGE(session, store);
 
@@ -550,6 +559,248 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
         return t;
     }
 
+    /**
+     * Retrieves a <code>Table</code> object describing the committed row
+     * changes retained by the ChangeManager of the database. The size of
+     * the retained list is set with the hsqldb.change_capture_size property.
+     * A reader can resume from the last position it has read with a
+     * CHANGE_POSITION &gt; ? condition.<p>
+     *
+     * <pre class="SqlCodeExample">
+     * CHANGE_POSITION  BIGINT    position of the change in commit order
+     * COMMIT_TIMESTAMP BIGINT    system change number of the commit
+     * SESSION_ID       BIGINT    id of the committing session
+     * CHANGE_TYPE      VARCHAR   INSERT, DELETE or UPDATE
+     * TABLE_CATALOG    VARCHAR   table's catalog
+     * TABLE_SCHEMA     VARCHAR   simple name of table's schema
+     * TABLE_NAME       VARCHAR   simple name of the table
+     * BEFORE_IMAGE     VARCHAR   row before the change as SQL literals
+     * AFTER_IMAGE      VARCHAR   row after the change as SQL literals
+     * </pre> <p>
+     *
+     * @return a <code>Table</code> object describing the changes to the
+     * tables with SELECT privilege on all columns
+     */
+    Table SYSTEM_CHANGES(Session session, PersistentStore store) {
+
+        Table t = sysTables[SYSTEM_CHANGES];
+
+        if (t == null) {
+            t = createBlankTable(sysTableHsqlNames[SYSTEM_CHANGES]);
+
+            addColumn(t, "CHANGE_POSITION", CARDINAL_NUMBER);     // not null
+            addColumn(t, "COMMIT_TIMESTAMP", CARDINAL_NUMBER);    // not null
+            addColumn(t, "SESSION_ID", CARDINAL_NUMBER);          // not null
+            addColumn(t, "CHANGE_TYPE", CHARACTER_DATA);          // not null
+            addColumn(t, "TABLE_CATALOG", SQL_IDENTIFIER);
+            addColumn(t, "TABLE_SCHEMA", SQL_IDENTIFIER);
+            addColumn(t, "TABLE_NAME", SQL_IDENTIFIER);           // not null
+            addColumn(t, "BEFORE_IMAGE", CHARACTER_DATA);
+            addColumn(t, "AFTER_IMAGE", CHARACTER_DATA);
+
+            HsqlName name = HsqlNameManager.newInfoSchemaObjectName(
+                sysTableHsqlNames[SYSTEM_CHANGES].name, false,
+                SchemaObject.INDEX);
+
+            t.createPrimaryKeyConstraint(name, new int[]{ 0 }, true);
+
+            return t;
+        }
+
+        // column number mappings
+        final int iposition      = 0;
+        final int icommit        = 1;
+        final int isession_id    = 2;
+        final int ichange_type   = 3;
+        final int itable_catalog = 4;
+        final int itable_schema  = 5;
+        final int itable_name    = 6;
+        final int ibefore        = 7;
+        final int iafter         = 8;
+
+        //
+        ChangeRecord[] changes = database.changeManager.getChanges(-1);
+        HashMap        selectableTables = new HashMap();
+
+        for (int i = 0; i < changes.length; i++) {
+            ChangeRecord change     = changes[i];
+            Boolean      selectable =
+                (Boolean) selectableTables.get(change.getTable());
+
+            if (selectable == null) {
+                selectable = Boolean.valueOf(isSelectableTable(session,
+                        change.getTable()));
+
+                selectableTables.put(change.getTable(), selectable);
+            }
+
+            if (!selectable.booleanValue()) {
+                continue;
+            }
+
+            Object[] row = t.getEmptyRowData();
+
+            row[iposition]      = ValuePool.getLong(change.getPosition());
+            row[icommit] = ValuePool.getLong(change.getCommitTimestamp());
+            row[isession_id]    = ValuePool.getLong(change.getSessionId());
+            row[ichange_type]   = change.getChangeTypeName();
+            row[itable_catalog] = database.getCatalogName().name;
+            row[itable_schema]  = change.getSchemaName();
+            row[itable_name]    = change.getTableName();
+            row[ibefore] = change.getImageSQL(change.getBeforeImage());
+            row[iafter]  = change.getImageSQL(change.getAfterImage());
+
+            t.insertSys(session, store, row);
+        }
+
+        return t;
+    }
+
+    /**
+     * Returns true if the user has the SELECT privilege on all the columns
+     * of the table. The row images of SYSTEM_CHANGES contain all the
+     * columns.
+     */
+    private boolean isSelectableTable(Session session, Table table) {
+
+        boolean[] columnCheckList = table.getNewColumnCheckList();
+
+        ArrayUtil.fillArray(columnCheckList, true);
+
+        try {
+            session.getGrantee().checkSelect(table, columnCheckList);
+
+            return true;
+        } catch (HsqlException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves a <code>Table</code> object describing the statistics
+     * gathered by ANALYZE TABLE for the columns of each accessible table.<p>
+     *
+     * <pre class="SqlCodeExample">
+     * TABLE_CATALOG    VARCHAR   table's catalog
+     * TABLE_SCHEMA     VARCHAR   simple name of table's schema
+     * TABLE_NAME       VARCHAR   simple name of the table
+     * COLUMN_NAME      VARCHAR   simple name of the column
+     * ORDINAL_POSITION BIGINT    position of the column in the table
+     * CARDINALITY      BIGINT    row count of the table when analyzed
+     * NULL_COUNT       BIGINT    number of null values
+     * DISTINCT_COUNT   BIGINT    estimated number of distinct values
+     * MIN_VALUE        VARCHAR   smallest value
+     * MAX_VALUE        VARCHAR   largest value
+     * HISTOGRAM        VARCHAR   bounds of the equi-depth histogram
+     * </pre> <p>
+     *
+     * @return a <code>Table</code> object describing the column statistics
+     */
+    Table SYSTEM_COLUMNSTATS(Session session, PersistentStore store) {
+
+        Table t = sysTables[SYSTEM_COLUMNSTATS];
+
+        if (t == null) {
+            t = createBlankTable(sysTableHsqlNames[SYSTEM_COLUMNSTATS]);
+
+            addColumn(t, "TABLE_CATALOG", SQL_IDENTIFIER);
+            addColumn(t, "TABLE_SCHEMA", SQL_IDENTIFIER);
+            addColumn(t, "TABLE_NAME", SQL_IDENTIFIER);
+            addColumn(t, "COLUMN_NAME", SQL_IDENTIFIER);
+            addColumn(t, "ORDINAL_POSITION", CARDINAL_NUMBER);
+            addColumn(t, "CARDINALITY", CARDINAL_NUMBER);
+            addColumn(t, "NULL_COUNT", CARDINAL_NUMBER);
+            addColumn(t, "DISTINCT_COUNT", CARDINAL_NUMBER);
+            addColumn(t, "MIN_VALUE", CHARACTER_DATA);
+            addColumn(t, "MAX_VALUE", CHARACTER_DATA);
+            addColumn(t, "HISTOGRAM", CHARACTER_DATA);
+
+            HsqlName name = HsqlNameManager.newInfoSchemaObjectName(
+                sysTableHsqlNames[SYSTEM_COLUMNSTATS].name, false,
+                SchemaObject.INDEX);
+
+            t.createPrimaryKeyConstraint(name, new int[] {
+                0, 1, 2, 4
+            }, false);
+
+            return t;
+        }
+
+        // column number mappings
+        final int table_catalog    = 0;
+        final int table_schema     = 1;
+        final int table_name       = 2;
+        final int column_name      = 3;
+        final int ordinal_position = 4;
+        final int cardinality      = 5;
+        final int null_count       = 6;
+        final int distinct_count   = 7;
+        final int min_value        = 8;
+        final int max_value        = 9;
+        final int histogram        = 10;
+
+        //
+        Iterator tables;
+        Table    table;
+        Object[] row;
+
+        tables =
+            database.schemaManager.databaseObjectIterator(SchemaObject.TABLE);
+
+        while (tables.hasNext()) {
+            table = (Table) tables.next();
+
+            if (!table.hasStatistics() || !isAccessibleTable(session, table)) {
+                continue;
+            }
+
+            Type[] types = table.getColumnTypes();
+
+            for (int i = 0; i < table.getColumnCount(); i++) {
+                ColumnStatistics stats = table.getColumnStatistics(i);
+
+                if (stats == null) {
+                    continue;
+                }
+
+                row                   = t.getEmptyRowData();
+                row[table_catalog]    = database.getCatalogName().name;
+                row[table_schema]     = table.getSchemaName().name;
+                row[table_name]       = table.getName().name;
+                row[column_name]      = table.getColumn(i).getName().name;
+                row[ordinal_position] = ValuePool.getLong(i + 1);
+                row[cardinality]      = ValuePool.getLong(stats.getRowCount());
+                row[null_count] = ValuePool.getLong(stats.getNullCount());
+                row[distinct_count] =
+                    ValuePool.getLong(stats.getDistinctCount());
+
+                Object[] bounds = stats.getHistogram();
+
+                if (bounds != null) {
+                    StringBuffer sb = new StringBuffer();
+
+                    for (int j = 0; j < bounds.length; j++) {
+                        if (j > 0) {
+                            sb.append(',');
+                        }
+
+                        sb.append(types[i].convertToString(bounds[j]));
+                    }
+
+                    row[min_value] =
+                        types[i].convertToString(stats.getMinValue());
+                    row[max_value] =
+                        types[i].convertToString(stats.getMaxValue());
+                    row[histogram] = sb.toString();
+                }
+
+                t.insertSys(session, store, row);
+            }
+        }
+
+        return t;
+    }
+
     Table SYSTEM_COLUMN_SEQUENCE_USAGE(Session session,
                                        PersistentStore store) {
 
@@ -906,6 +1157,10 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
      * IDENTITY            the last identity value used by calling session
      * IGNORECASE          IGNORECASE property for new VARCHAR columns
      * ISOLATION_LEVEL     transaction isolation level of session
+     * RESULT CACHE        TRUE / FALSE (session uses the result cache or not)
+     * RESULT CACHE ROWS   rows currently in the database result cache
+     * RESULT CACHE HITS   results returned from the cache
+     * RESULT CACHE MISSES cacheable results that were not in the cache
      * SESSION_ID          the id of the calling session
      * SESSION READONLY    TRUE / FALSE (session is in read-only mode or not)
      * USER                the name of user connected in the calling session
@@ -1005,6 +1260,31 @@ extends org.hsqldb.dbinfo.DatabaseInformationMain {
 
         t.insertSys(session, store, row);
 
+        row    = t.getEmptyRowData();
+        row[0] = "RESULT CACHE";
+        row[1] = session.isResultCache() ? Tokens.T_TRUE
+                                         : Tokens.T_FALSE;
+
+        t.insertSys(session, store, row);
+
+        row    = t.getEmptyRowData();
+        row[0] = "RESULT CACHE ROWS";
+        row[1] = String.valueOf(database.resultCache.getRowCount());
+
+        t.insertSys(session, store, row);
+
+        row    = t.getEmptyRowData();
+        row[0] = "RESULT CACHE HITS";
+        row[1] = String.valueOf(database.resultCache.getHitCount());
+
+        t.insertSys(session, store, row);
+
+        row    = t.getEmptyRowData();
+        row[0] = "RESULT CACHE MISSES";
+        row[1] = String.valueOf(database.resultCache.getMissCount());
+
+        t.insertSys(session, store, row);
+
         row    = t.getEmptyRowData();
         row[0] = "CURRENT STATEMENT";
         row[1] = "";
@@ -185,6 +185,8 @@ class DatabaseInformationMain extends DatabaseInformation {
 
             // build the set of non-cached tables
             nonCachedTablesSet.add("SYSTEM_CACHEINFO");
+            nonCachedTablesSet.add("SYSTEM_CHANGES");
+            nonCachedTablesSet.add("SYSTEM_COLUMNSTATS");
             nonCachedTablesSet.add("SYSTEM_SESSIONINFO");
             nonCachedTablesSet.add("SYSTEM_SESSIONS");
             nonCachedTablesSet.add("SYSTEM_PROPERTIES");
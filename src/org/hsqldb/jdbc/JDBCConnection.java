@@ -1127,6 +1127,10 @@ public class JDBCConnection implements Connection {
                 poolEventListener = null;
             }
         } else if (sessionProxy != null) {
+            if (statementCache != null) {
+                statementCache.clear();
+            }
+
             sessionProxy.close();
 
             sessionProxy = null;
@@ -3525,6 +3529,12 @@ public class JDBCConnection implements Connection {
     /** used by a JDBCPool or other custom ConnectionPool instance */
     JDBCConnectionEventListener poolEventListener;
 
+    /** prepared statements shared with pooled connections, or null */
+    JDBCStatementCache statementCache;
+
+    /** current schema of the session, or null if not yet known */
+    String currentSchema;
+
     /** connection URL indicates to close old result when Statement is reused */
     boolean isCloseResultSet;
 
@@ -3614,6 +3624,17 @@ public class JDBCConnection implements Connection {
                 HsqlDatabaseProperties.url_close_result, false);
             isUseColumnName = connProperties.isPropertyTrue(
                 HsqlDatabaseProperties.url_get_column_name, true);
+
+            int cacheSize = connProperties.getIntegerProperty(
+                HsqlDatabaseProperties.url_statement_cache_size, 0);
+
+            if (cacheSize > 0) {
+                sessionProxy.setAttribute(
+                    SessionInterface.INFO_KEEP_STATEMENTS, Boolean.TRUE);
+
+                statementCache = new JDBCStatementCache(sessionProxy,
+                        cacheSize);
+            }
         } catch (HsqlException e) {
             throw JDBCUtil.sqlException(e);
         }
@@ -3677,6 +3698,7 @@ public class JDBCConnection implements Connection {
         sessionProxy      = c.sessionProxy;
         connProperties    = c.connProperties;
         clientProperties  = c.clientProperties;
+        statementCache    = c.statementCache;
         isPooled          = true;
         poolEventListener = eventListener;
 
@@ -3759,6 +3781,21 @@ public class JDBCConnection implements Connection {
         }
     }
 
+    /**
+     * Returns the current schema of the session. The schema is retrieved
+     * from the session only when it is not known. After that, it is updated
+     * from the results of statements that change it.
+     */
+    String getCurrentSchema() {
+
+        if (currentSchema == null) {
+            currentSchema =
+                (String) sessionProxy.getAttribute(SessionInterface.INFO_SCHEMA);
+        }
+
+        return currentSchema;
+    }
+
     /**
      * Resets this connection so it can be used again. Used when connections are
      * returned to a connection pool.
@@ -3770,6 +3807,8 @@ public class JDBCConnection implements Connection {
         try {
             incarnation++;
 
+            currentSchema = null;
+
             this.sessionProxy.resetSession();
         } catch (HsqlException e) {
             throw JDBCUtil.sqlException(ErrorCode.X_08006, e.getMessage(), e);
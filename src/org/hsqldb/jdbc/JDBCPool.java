@@ -37,6 +37,7 @@ import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Wrapper;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.Properties;
 
@@ -71,10 +72,16 @@ import org.hsqldb.persist.HsqlDatabaseProperties;
  * {@link JDBCCommonDataSource} are used to specify the database URL, user,
  * password, and / or connection properties.<p>
  *
+ * When the connection property <code>statement_cache_size</code> is set to a
+ * positive value, each pooled connection keeps a cache of up to that number of
+ * prepared statements. A PreparedStatement that is prepared again with the
+ * same SQL and ResultSet properties, by the same or a later user of the pooled
+ * connection, is then created without a round trip to the database.<p>
+ *
  * </div>
  * <!-- end Release-specific documentation -->
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.1
+ * @version 2.3.3
  * @since 2.2.9
  */
 @SuppressWarnings("serial")
@@ -102,14 +109,26 @@ public class JDBCPool extends JDBCCommonDataSource implements DataSource,
         }
 
         for (int count = 0; count < retries; count++) {
-            for (int i = 0; i < states.length(); i++) {
+            Integer slot = (Integer) availableSlots.poll();
+
+            if (slot != null) {
+                int i = slot.intValue();
+
                 if (states.compareAndSet(i, RefState.available,
-                                        RefState.allocated)) {
+                                         RefState.allocated)) {
                     return connections[i].getConnection();
                 }
 
+                continue;
+            }
+
+            slot = (Integer) emptySlots.poll();
+
+            if (slot != null) {
+                int i = slot.intValue();
+
                 if (states.compareAndSet(i, RefState.empty,
-                                        RefState.allocated)) {
+                                         RefState.allocated)) {
                     try {
                         JDBCPooledConnection connection =
                             (JDBCPooledConnection) source.getPooledConnection();
@@ -121,6 +140,7 @@ public class JDBCPool extends JDBCCommonDataSource implements DataSource,
                         return connections[i].getConnection();
                     } catch (SQLException e) {
                         states.set(i, RefState.empty);
+                        emptySlots.offer(slot);
                     }
                 }
             }
@@ -227,6 +247,7 @@ public class JDBCPool extends JDBCCommonDataSource implements DataSource,
         for (int i = 0; i < connections.length; i++) {
             if (connections[i] == connection) {
                 states.set(i, RefState.available);
+                availableSlots.offer(Integer.valueOf(i));
 
                 break;
             }
@@ -241,6 +262,7 @@ public class JDBCPool extends JDBCCommonDataSource implements DataSource,
                 states.set(i, RefState.allocated);
                 connections[i] = null;
                 states.set(i, RefState.empty);
+                emptySlots.offer(Integer.valueOf(i));
                 break;
             }
         }
@@ -486,8 +508,15 @@ public class JDBCPool extends JDBCCommonDataSource implements DataSource,
      */
     public JDBCPool(int size) {
         source = new JDBCPooledDataSource();
-        connections = new JDBCPooledConnection[size];
-        states = new AtomicIntegerArray(size);    }
+        connections    = new JDBCPooledConnection[size];
+        states         = new AtomicIntegerArray(size);
+        availableSlots = new ConcurrentLinkedQueue();
+        emptySlots     = new ConcurrentLinkedQueue();
+
+        for (int i = 0; i < size; i++) {
+            emptySlots.offer(Integer.valueOf(i));
+        }
+    }
 
     /**
      * Closes the pool immediately. Waits the given number of seconds before
@@ -531,6 +560,8 @@ public class JDBCPool extends JDBCCommonDataSource implements DataSource,
 
 
     AtomicIntegerArray       states;
+    ConcurrentLinkedQueue    availableSlots;
+    ConcurrentLinkedQueue    emptySlots;
     JDBCPooledConnection[]   connections;
     JDBCPooledDataSource     source;
     volatile boolean         closed;
@@ -1920,6 +1920,10 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
 
         try {
             resultIn = session.execute(resultOut);
+
+            if (isInvalidCacheEntry(resultIn)) {
+                resultIn = reprepareAndExecute(resultIn);
+            }
         } catch (HsqlException e) {
             throw JDBCUtil.sqlException(e);
         } finally {
@@ -2046,7 +2050,9 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
             // fredt - if this is called by Connection.close() then there's no
             // need to free the prepared statements on the server - it is done
             // by Connection.close()
-            if (!connection.isClosed) {
+            if (cacheEntry != null) {
+                connection.statementCache.release(cacheEntry, poolable);
+            } else if (!connection.isClosed) {
                 session.execute(Result.newFreeStmtRequest(statementID));
             }
         } catch (HsqlException e) {
@@ -2062,6 +2068,7 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
         pmd               = null;
         connection        = null;
         session           = null;
+        cacheEntry        = null;
         resultIn          = null;
         resultOut         = null;
         isClosed          = true;
@@ -3877,7 +3884,6 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
         connection            = c;
         connectionIncarnation = connection.incarnation;
         session               = c.sessionProxy;
-        sql                   = c.nativeSQL(sql);
 
         int[] keyIndexes = null;
 
@@ -3888,35 +3894,62 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
                 keyIndexes[i] = generatedIndexes[i] - 1;
             }
         }
-        resultOut = Result.newPrepareStatementRequest();
 
         int props = ResultProperties.getValueForJDBC(resultSetType,
             resultSetConcurrency, resultSetHoldability);
+        boolean useCache = c.statementCache != null
+                           && generatedKeys
+                              == ResultConstants.RETURN_NO_GENERATED_KEYS;
+        String schema = null;
+        Result in;
+
+        if (useCache) {
+            schema     = connection.getCurrentSchema();
+            cacheEntry = c.statementCache.get(sql, props, schema);
+        }
 
-        resultOut.setPrepareOrExecuteProperties(sql, 0, 0, 0, queryTimeout,
-                props, generatedKeys, generatedIndexes, generatedNames);
+        rootWarning = null;
 
-        Result in = session.execute(resultOut);
+        if (cacheEntry == null) {
+            String nativeSQL = c.nativeSQL(sql);
 
-        if (in.mode == ResultConstants.ERROR) {
-            throw JDBCUtil.sqlException(in);
-        }
-        rootWarning = null;
+            resultOut = Result.newPrepareStatementRequest();
 
-        Result current = in;
+            resultOut.setPrepareOrExecuteProperties(nativeSQL, 0, 0, 0,
+                    queryTimeout, props, generatedKeys, generatedIndexes,
+                    generatedNames);
 
-        while (current.getChainedResult() != null) {
-            current = current.getUnlinkChainedResult();
+            in = session.execute(resultOut);
 
-            if (current.isWarning()) {
-                SQLWarning w = JDBCUtil.sqlWarning(current);
+            if (in.mode == ResultConstants.ERROR) {
+                throw JDBCUtil.sqlException(in);
+            }
 
-                if (rootWarning == null) {
-                    rootWarning = w;
-                } else {
-                    rootWarning.setNextWarning(w);
+            Result current = in;
+
+            while (current.getChainedResult() != null) {
+                current = current.getUnlinkChainedResult();
+
+                if (current.isWarning()) {
+                    SQLWarning w = JDBCUtil.sqlWarning(current);
+
+                    if (rootWarning == null) {
+                        rootWarning = w;
+                    } else {
+                        rootWarning.setNextWarning(w);
+                    }
                 }
             }
+
+            if (useCache) {
+                cacheEntry = c.statementCache.put(sql, props, schema,
+                                                  nativeSQL, in);
+            }
+
+            sql = nativeSQL;
+        } else {
+            in  = cacheEntry.prepared;
+            sql = cacheEntry.nativeSQL;
         }
         connection.setWarnings(rootWarning);
 
@@ -4659,6 +4692,10 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
             performPreExecute();
 
             resultIn = session.execute(resultOut);
+
+            if (isInvalidCacheEntry(resultIn)) {
+                resultIn = reprepareAndExecute(resultIn);
+            }
         } catch (HsqlException e) {
             throw JDBCUtil.sqlException(e);
         } finally {
@@ -4677,6 +4714,74 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
         }
     }
 
+    /**
+     * Returns true if the statement was taken from the statement cache and
+     * the server reports it is no longer valid after a schema change.
+     */
+    private boolean isInvalidCacheEntry(Result result) {
+        return cacheEntry != null && result.mode == ResultConstants.ERROR
+               && result.getErrorCode() == -ErrorCode.X_07502;
+    }
+
+    /**
+     * Removes the invalid cache entry and prepares the SQL again in the same
+     * schema. If the new statement has the same parameters, it replaces the
+     * old one and is executed. Otherwise returns the error result of the
+     * prepare request, or the original error result.
+     */
+    private Result reprepareAndExecute(Result error) throws HsqlException {
+
+        JDBCStatementCache       cache = connection.statementCache;
+        JDBCStatementCache.Entry entry = cacheEntry;
+
+        cache.invalidate(entry);
+        cache.release(entry, true);
+
+        cacheEntry = null;
+
+        String schema = connection.getCurrentSchema();
+
+        if (hasLOBs || !schema.equals(entry.schema)) {
+            return error;
+        }
+
+        Result request = Result.newPrepareStatementRequest();
+
+        request.setPrepareOrExecuteProperties(sql, 0, 0, 0, queryTimeout,
+                                              entry.props,
+                                              ResultConstants
+                                                  .RETURN_NO_GENERATED_KEYS,
+                                              null, null);
+
+        Result in = session.execute(request);
+
+        if (in.mode == ResultConstants.ERROR) {
+            return in;
+        }
+
+        Type[] types = in.parameterMetaData.getParameterTypes();
+
+        if (types.length != parameterTypes.length
+                || !ArrayUtil.haveEqualArrays(types, parameterTypes,
+                                              types.length)) {
+            session.execute(Result.newFreeStmtRequest(in.getStatementID()));
+
+            return error;
+        }
+
+        cacheEntry        = cache.put(entry.sql, entry.props, schema, sql, in);
+        statementID       = in.getStatementID();
+        statementRetType  = in.getStatementType();
+        resultMetaData    = in.metaData;
+        rsProperties      = in.rsProperties;
+        resultSetMetaData = null;
+
+        resultOut.setStatementID(statementID);
+        resultOut.setStatement(in.getStatement());
+
+        return session.execute(resultOut);
+    }
+
     boolean isAnyParameterSet() {
 
         for (int i = 0; i < parameterValues.length; i++) {
@@ -4747,4 +4852,7 @@ public class JDBCPreparedStatement extends JDBCStatementBase implements Prepared
 
     /** The session attribute of the connection */
     protected SessionInterface session;
+
+    /** The statement cache entry used by this statement, if any. */
+    JDBCStatementCache.Entry cacheEntry;
 }
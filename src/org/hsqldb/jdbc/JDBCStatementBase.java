@@ -35,6 +35,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 
+import org.hsqldb.SessionInterface;
 import org.hsqldb.StatementTypes;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.result.Result;
@@ -192,6 +193,11 @@ class JDBCStatementBase {
                 generatedResult = current;
             } else if (current.getType() == ResultConstants.DATA) {
                 resultIn.addChainedResult(current);
+            } else if (current.getType() == ResultConstants.SETSESSIONATTR) {
+                Object[] data = current.getSessionAttributes();
+
+                connection.currentSchema =
+                    (String) data[SessionInterface.INFO_VARCHAR];
             }
         }
 
@@ -0,0 +1,247 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.jdbc;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.hsqldb.HsqlException;
+import org.hsqldb.SessionInterface;
+import org.hsqldb.result.Result;
+
+/**
+ * Least-recently-used cache of prepared statement handles for a single
+ * database session.<p>
+ *
+ * Each entry holds the result of preparing an SQL statement with a given set
+ * of ResultSet properties in a given current schema. A JDBCPreparedStatement
+ * created with the same SQL and properties while the same schema is current
+ * reuses the entry and does not send a prepare request to the database.
+ * An entry whose statement has become invalid after a schema change is
+ * removed from the cache with {@link #invalidate}. The entry owns the registration of the compiled statement in the
+ * session and the statement is freed on the server only when the entry is
+ * removed from the cache and no open JDBCPreparedStatement uses it.<p>
+ *
+ * The cache is created by a physical JDBCConnection when the connection
+ * property <code>statement_cache_size</code> is greater than zero and is
+ * shared by all the logical connections of a pooled connection.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+final class JDBCStatementCache {
+
+    private final SessionInterface session;
+    private final int              maxSize;
+    private final LinkedHashMap    map;
+    private final Entry            lookupKey = new Entry(null, 0, null);
+
+    JDBCStatementCache(SessionInterface session, int maxSize) {
+
+        this.session = session;
+        this.maxSize = maxSize;
+        this.map     = new LinkedHashMap(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the entry for the SQL, properties and current schema, or null
+     * if not cached. The returned entry must be released when the statement
+     * is closed.
+     */
+    synchronized Entry get(String sql, int props, String schema) {
+
+        lookupKey.setKey(sql, props, schema);
+
+        Entry entry = (Entry) map.get(lookupKey);
+
+        lookupKey.setKey(null, 0, null);
+
+        if (entry != null) {
+            entry.users++;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Adds a newly prepared statement. Removes the least recently used
+     * entries when the cache is full.
+     */
+    synchronized Entry put(String sql, int props, String schema,
+                           String nativeSQL, Result prepared) {
+
+        Entry entry = new Entry(sql, props, schema);
+
+        entry.nativeSQL = nativeSQL;
+        entry.prepared  = prepared;
+        entry.users     = 1;
+
+        Entry old = (Entry) map.put(entry, entry);
+
+        if (old != null) {
+            remove(old);
+        }
+
+        if (map.size() > maxSize) {
+            Iterator it = map.values().iterator();
+
+            while (map.size() > maxSize) {
+                Entry eldest = (Entry) it.next();
+
+                it.remove();
+                remove(eldest);
+            }
+        }
+
+        return entry;
+    }
+
+    /**
+     * Called when a statement that uses the entry is closed. When poolable
+     * is false, the entry is removed from the cache.
+     */
+    synchronized void release(Entry entry, boolean poolable) {
+
+        entry.users--;
+
+        if (!poolable && !entry.isRemoved && map.get(entry) == entry) {
+            map.remove(entry);
+            remove(entry);
+
+            return;
+        }
+
+        if (entry.isRemoved && entry.users == 0) {
+            freeStatement(entry);
+        }
+    }
+
+    /**
+     * Removes an entry whose statement is no longer valid on the server. The
+     * server has already freed the statement. Statements that still use the
+     * entry must not execute it again.
+     */
+    synchronized void invalidate(Entry entry) {
+
+        entry.isInvalid = true;
+
+        if (!entry.isRemoved && map.get(entry) == entry) {
+            map.remove(entry);
+        }
+
+        entry.isRemoved = true;
+    }
+
+    /**
+     * Discards all entries without freeing the statements on the server.
+     * Used when the session is closed.
+     */
+    synchronized void clear() {
+
+        Iterator it = map.values().iterator();
+
+        while (it.hasNext()) {
+            Entry entry = (Entry) it.next();
+
+            entry.isRemoved = true;
+        }
+
+        map.clear();
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+
+    private void remove(Entry entry) {
+
+        entry.isRemoved = true;
+
+        if (entry.users == 0) {
+            freeStatement(entry);
+        }
+    }
+
+    private void freeStatement(Entry entry) {
+
+        if (entry.isInvalid || session.isClosed()) {
+            return;
+        }
+
+        try {
+            session.execute(
+                Result.newFreeStmtRequest(entry.prepared.getStatementID()));
+        } catch (HsqlException e) {
+
+            // session problems are reported on next use
+        }
+    }
+
+    static final class Entry {
+
+        String  sql;
+        int     props;
+        String  schema;
+        String  nativeSQL;
+        Result  prepared;
+        int     users;
+        boolean isRemoved;
+        boolean isInvalid;
+
+        Entry(String sql, int props, String schema) {
+            setKey(sql, props, schema);
+        }
+
+        void setKey(String sql, int props, String schema) {
+            this.sql    = sql;
+            this.props  = props;
+            this.schema = schema;
+        }
+
+        public int hashCode() {
+            return sql.hashCode() + schema.hashCode() + props;
+        }
+
+        public boolean equals(Object other) {
+
+            if (other instanceof Entry) {
+                Entry entry = (Entry) other;
+
+                return props == entry.props && sql.equals(entry.sql)
+                       && schema.equals(entry.schema);
+            }
+
+            return false;
+        }
+    }
+}
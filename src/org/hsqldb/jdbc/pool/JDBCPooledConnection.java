@@ -61,8 +61,12 @@ import org.hsqldb.lib.OrderedHashSet;
  * PooledConnection are notified when each lease expires, or an unrecoverable
  * error occurs on the connection to the database.<p>
  *
+ * If the lifetime connection was opened with the connection property
+ * <code>statement_cache_size</code>, its prepared statement cache is shared
+ * by all the leases and is retained when the connection is reset.<p>
+ *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.0.1
+ * @version 2.3.3
  * @since JDK 1.2, HSQLDB 2.0
  */
 public class JDBCPooledConnection
@@ -0,0 +1,763 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.lib;
+
+import java.io.IOException;
+
+/**
+ * Minimal writer for JVM class files, used for generating small classes at
+ * runtime without an external bytecode library.<p>
+ *
+ * Supports a single class with a default constructor and methods built from
+ * a limited set of instructions. The class file version is 49 (Java 5), which
+ * allows the JVM to verify the code by type inference without a StackMapTable
+ * attribute. The maximum stack depth is tracked as instructions are emitted.
+ * Local variable indexes are limited to 255 and the code of each method to
+ * 32K bytes; an IllegalStateException is thrown when these limits are
+ * exceeded.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ClassFileWriter {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL  = 0x0010;
+    public static final int ACC_SUPER  = 0x0020;
+
+    //
+    public static final int ACONST_NULL   = 0x01;
+    public static final int ICONST_0      = 0x03;
+    public static final int ICONST_1      = 0x04;
+    public static final int ICONST_2      = 0x05;
+    public static final int LCONST_0      = 0x09;
+    public static final int DCONST_0      = 0x0e;
+    public static final int BIPUSH        = 0x10;
+    public static final int SIPUSH        = 0x11;
+    public static final int LDC           = 0x12;
+    public static final int LDC_W         = 0x13;
+    public static final int LDC2_W        = 0x14;
+    public static final int ILOAD         = 0x15;
+    public static final int LLOAD         = 0x16;
+    public static final int DLOAD         = 0x18;
+    public static final int ALOAD         = 0x19;
+    public static final int AALOAD        = 0x32;
+    public static final int ISTORE        = 0x36;
+    public static final int LSTORE        = 0x37;
+    public static final int DSTORE        = 0x39;
+    public static final int ASTORE        = 0x3a;
+    public static final int POP           = 0x57;
+    public static final int POP2          = 0x58;
+    public static final int DUP           = 0x59;
+    public static final int IADD          = 0x60;
+    public static final int LADD          = 0x61;
+    public static final int DADD          = 0x63;
+    public static final int ISUB          = 0x64;
+    public static final int LSUB          = 0x65;
+    public static final int DSUB          = 0x67;
+    public static final int IMUL          = 0x68;
+    public static final int LMUL          = 0x69;
+    public static final int DMUL          = 0x6b;
+    public static final int IOR           = 0x80;
+    public static final int I2L           = 0x85;
+    public static final int I2D           = 0x87;
+    public static final int L2I           = 0x88;
+    public static final int L2D           = 0x8a;
+    public static final int D2I           = 0x8e;
+    public static final int D2L           = 0x8f;
+    public static final int IFEQ          = 0x99;
+    public static final int IFNE          = 0x9a;
+    public static final int IF_ICMPNE     = 0xa0;
+    public static final int GOTO          = 0xa7;
+    public static final int IRETURN       = 0xac;
+    public static final int ARETURN       = 0xb0;
+    public static final int RETURN        = 0xb1;
+    public static final int GETFIELD      = 0xb4;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+    public static final int INVOKESTATIC  = 0xb8;
+    public static final int CHECKCAST     = 0xc0;
+    public static final int IFNULL        = 0xc6;
+    public static final int IFNONNULL     = 0xc7;
+
+    //
+    static final int CONSTANT_Utf8        = 1;
+    static final int CONSTANT_Integer     = 3;
+    static final int CONSTANT_Long        = 5;
+    static final int CONSTANT_Double      = 6;
+    static final int CONSTANT_Class       = 7;
+    static final int CONSTANT_Fieldref    = 9;
+    static final int CONSTANT_Methodref   = 10;
+    static final int CONSTANT_NameAndType = 12;
+
+    //
+    static final int   maxCodeLength = 32767;
+    static final int   maxLocalIndex = 255;
+    static final int   noEffect      = Integer.MIN_VALUE;
+    static final int[] stackEffect   = new int[256];
+
+    static {
+        ArrayUtil.fillArray(stackEffect, noEffect);
+
+        stackEffect[ACONST_NULL] = 1;
+
+        for (int i = 0x02; i <= 0x08; i++) {
+            stackEffect[i] = 1;    // ICONST_M1 to ICONST_5
+        }
+
+        stackEffect[LCONST_0] = 2;
+        stackEffect[DCONST_0] = 2;
+        stackEffect[AALOAD]   = -1;
+        stackEffect[POP]      = -1;
+        stackEffect[POP2]     = -2;
+        stackEffect[DUP]      = 1;
+        stackEffect[IADD]     = -1;
+        stackEffect[LADD]     = -2;
+        stackEffect[DADD]     = -2;
+        stackEffect[ISUB]     = -1;
+        stackEffect[LSUB]     = -2;
+        stackEffect[DSUB]     = -2;
+        stackEffect[IMUL]     = -1;
+        stackEffect[LMUL]     = -2;
+        stackEffect[DMUL]     = -2;
+        stackEffect[IOR]      = -1;
+        stackEffect[I2L]      = 1;
+        stackEffect[I2D]      = 1;
+        stackEffect[L2I]      = -1;
+        stackEffect[L2D]      = 0;
+        stackEffect[D2I]      = -1;
+        stackEffect[D2L]      = 0;
+        stackEffect[IRETURN]  = -1;
+        stackEffect[ARETURN]  = -1;
+        stackEffect[RETURN]   = 0;
+    }
+
+    //
+    private final HashMap                   constants = new HashMap();
+    private final HsqlByteArrayOutputStream pool =
+        new HsqlByteArrayOutputStream(256);
+    private int                             poolCount = 1;
+    private final HsqlByteArrayOutputStream methods =
+        new HsqlByteArrayOutputStream(256);
+    private int                             methodCount;
+    private final int                       thisClass;
+    private final int                       superClass;
+    private final String                    superClassName;
+
+    // current method
+    private HsqlByteArrayOutputStream code;
+    private int                       methodAccess;
+    private int                       methodName;
+    private int                       methodDescriptor;
+    private int                       stackDepth;
+    private int                       maxStack;
+    private int                       maxLocals;
+    private HsqlArrayList             labels;
+
+    /**
+     * Class names are internal names, e.g. java/lang/Object
+     */
+    public ClassFileWriter(String className, String superClassName) {
+
+        this.superClassName = superClassName;
+        thisClass           = classConstant(className);
+        superClass          = classConstant(superClassName);
+    }
+
+    /**
+     * Adds a public no-argument constructor that calls the superclass
+     * constructor.
+     */
+    public void addDefaultConstructor() {
+
+        startMethod(ACC_PUBLIC, "<init>", "()V");
+        emitLocal(ALOAD, 0);
+        emitMethod(INVOKESPECIAL, superClassName, "<init>", "()V");
+        emit(RETURN);
+        endMethod();
+    }
+
+    public void startMethod(int access, String name, String descriptor) {
+
+        if (code != null) {
+            throw new IllegalStateException();
+        }
+
+        code             = new HsqlByteArrayOutputStream(256);
+        labels           = new HsqlArrayList();
+        methodAccess     = access;
+        methodName       = utf8Constant(name);
+        methodDescriptor = utf8Constant(descriptor);
+        stackDepth       = 0;
+        maxStack         = 0;
+        maxLocals        = getArgumentSlots(descriptor);
+
+        if ((access & ACC_STATIC) == 0) {
+            maxLocals++;
+        }
+    }
+
+    /**
+     * Returns the index of a new local variable of the given size in slots
+     */
+    public int newLocal(int size) {
+
+        int index = maxLocals;
+
+        maxLocals += size;
+
+        if (maxLocals > maxLocalIndex) {
+            throw new IllegalStateException("too many local variables");
+        }
+
+        return index;
+    }
+
+    /**
+     * Instructions without operands
+     */
+    public void emit(int opcode) {
+
+        int effect = stackEffect[opcode];
+
+        if (effect == noEffect) {
+            throw new IllegalArgumentException("opcode " + opcode);
+        }
+
+        code.writeByte(opcode);
+        adjustStack(effect);
+    }
+
+    /**
+     * Load and store instructions for local variables
+     */
+    public void emitLocal(int opcode, int index) {
+
+        int effect;
+
+        switch (opcode) {
+
+            case ILOAD :
+            case ALOAD :
+                effect = 1;
+                break;
+
+            case LLOAD :
+            case DLOAD :
+                effect = 2;
+                break;
+
+            case ISTORE :
+            case ASTORE :
+                effect = -1;
+                break;
+
+            case LSTORE :
+            case DSTORE :
+                effect = -2;
+                break;
+
+            default :
+                throw new IllegalArgumentException("opcode " + opcode);
+        }
+
+        code.writeByte(opcode);
+        code.writeByte(index);
+        adjustStack(effect);
+    }
+
+    public void emitInt(int value) {
+
+        if (value >= -1 && value <= 5) {
+            code.writeByte(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            code.writeByte(SIPUSH);
+            code.writeShort(value);
+        } else {
+            emitConstant(intConstant(value));
+        }
+
+        adjustStack(1);
+    }
+
+    public void emitLong(long value) {
+
+        if (value == 0 || value == 1) {
+            code.writeByte(LCONST_0 + (int) value);
+        } else {
+            code.writeByte(LDC2_W);
+            code.writeShort(longConstant(CONSTANT_Long, value));
+        }
+
+        adjustStack(2);
+    }
+
+    public void emitDouble(double value) {
+
+        long bits = Double.doubleToLongBits(value);
+
+        if (bits == 0) {
+            code.writeByte(DCONST_0);
+        } else {
+            code.writeByte(LDC2_W);
+            code.writeShort(longConstant(CONSTANT_Double, bits));
+        }
+
+        adjustStack(2);
+    }
+
+    /**
+     * CHECKCAST instruction
+     */
+    public void emitType(int opcode, String className) {
+
+        if (opcode != CHECKCAST) {
+            throw new IllegalArgumentException("opcode " + opcode);
+        }
+
+        code.writeByte(opcode);
+        code.writeShort(classConstant(className));
+    }
+
+    /**
+     * GETFIELD instruction
+     */
+    public void emitField(int opcode, String owner, String name,
+                          String descriptor) {
+
+        if (opcode != GETFIELD) {
+            throw new IllegalArgumentException("opcode " + opcode);
+        }
+
+        code.writeByte(opcode);
+        code.writeShort(memberConstant(CONSTANT_Fieldref, owner, name,
+                                       descriptor));
+        adjustStack(getTypeSlots(descriptor, 0) - 1);
+    }
+
+    /**
+     * INVOKEVIRTUAL, INVOKESPECIAL and INVOKESTATIC instructions
+     */
+    public void emitMethod(int opcode, String owner, String name,
+                           String descriptor) {
+
+        int effect = -getArgumentSlots(descriptor);
+
+        switch (opcode) {
+
+            case INVOKEVIRTUAL :
+            case INVOKESPECIAL :
+                effect--;
+                break;
+
+            case INVOKESTATIC :
+                break;
+
+            default :
+                throw new IllegalArgumentException("opcode " + opcode);
+        }
+
+        effect += getTypeSlots(descriptor, descriptor.indexOf(')') + 1);
+
+        code.writeByte(opcode);
+        code.writeShort(memberConstant(CONSTANT_Methodref, owner, name,
+                                       descriptor));
+        adjustStack(effect);
+    }
+
+    public Label newLabel() {
+        return new Label();
+    }
+
+    /**
+     * Conditional and unconditional jumps to a label in the current method
+     */
+    public void emitJump(int opcode, Label label) {
+
+        int effect;
+
+        switch (opcode) {
+
+            case IFEQ :
+            case IFNE :
+            case IFNULL :
+            case IFNONNULL :
+                effect = -1;
+                break;
+
+            case IF_ICMPNE :
+                effect = -2;
+                break;
+
+            case GOTO :
+                effect = 0;
+                break;
+
+            default :
+                throw new IllegalArgumentException("opcode " + opcode);
+        }
+
+        adjustStack(effect);
+
+        if (label.position >= 0) {
+            code.writeByte(opcode);
+            code.writeShort(label.position - (code.size() - 1));
+        } else {
+            label.addFixup(code.size());
+            code.writeByte(opcode);
+            code.writeShort(0);
+        }
+
+        label.setStackDepth(stackDepth);
+    }
+
+    /**
+     * Sets the position of the label to the current position. The stack
+     * depth is restored to the depth at the jumps to the label when the
+     * preceding instruction is an unconditional jump.
+     */
+    public void markLabel(Label label) {
+
+        if (label.position >= 0) {
+            throw new IllegalStateException();
+        }
+
+        label.position = code.size();
+
+        if (label.stackDepth >= 0) {
+            stackDepth = label.stackDepth;
+        } else {
+            label.stackDepth = stackDepth;
+        }
+
+        labels.add(label);
+    }
+
+    public void endMethod() {
+
+        if (code.size() > maxCodeLength) {
+            throw new IllegalStateException("code too large");
+        }
+
+        byte[] buffer = code.getBuffer();
+
+        for (int i = 0; i < labels.size(); i++) {
+            Label label = (Label) labels.get(i);
+
+            for (int j = 0; j < label.fixupCount; j++) {
+                int at     = label.fixups[j];
+                int offset = label.position - at;
+
+                buffer[at + 1] = (byte) (offset >>> 8);
+                buffer[at + 2] = (byte) offset;
+            }
+        }
+
+        int codeAttribute = utf8Constant("Code");
+
+        methods.writeShort(methodAccess);
+        methods.writeShort(methodName);
+        methods.writeShort(methodDescriptor);
+        methods.writeShort(1);
+        methods.writeShort(codeAttribute);
+        methods.writeInt(12 + code.size());
+        methods.writeShort(maxStack);
+        methods.writeShort(maxLocals);
+        methods.writeInt(code.size());
+        methods.write(buffer, 0, code.size());
+        methods.writeShort(0);    // exception table
+        methods.writeShort(0);    // attributes
+
+        methodCount++;
+
+        code   = null;
+        labels = null;
+    }
+
+    public byte[] toByteArray() {
+
+        if (code != null) {
+            throw new IllegalStateException();
+        }
+
+        HsqlByteArrayOutputStream out =
+            new HsqlByteArrayOutputStream(pool.size() + methods.size() + 32);
+
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);     // minor version
+        out.writeShort(49);    // major version
+        out.writeShort(poolCount);
+        out.write(pool.getBuffer(), 0, pool.size());
+        out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        out.writeShort(thisClass);
+        out.writeShort(superClass);
+        out.writeShort(0);     // interfaces
+        out.writeShort(0);     // fields
+        out.writeShort(methodCount);
+        out.write(methods.getBuffer(), 0, methods.size());
+        out.writeShort(0);     // attributes
+
+        return out.toByteArray();
+    }
+
+    private void adjustStack(int effect) {
+
+        stackDepth += effect;
+
+        if (stackDepth < 0) {
+            throw new IllegalStateException("stack underflow");
+        }
+
+        if (stackDepth > maxStack) {
+            maxStack = stackDepth;
+        }
+    }
+
+    private void emitConstant(int index) {
+
+        if (index <= 0xff) {
+            code.writeByte(LDC);
+            code.writeByte(index);
+        } else {
+            code.writeByte(LDC_W);
+            code.writeShort(index);
+        }
+    }
+
+    private int utf8Constant(String value) {
+
+        String  key   = "U" + value;
+        Integer index = (Integer) constants.get(key);
+
+        if (index == null) {
+            pool.writeByte(CONSTANT_Utf8);
+
+            try {
+                pool.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(value);
+            }
+
+            index = addConstant(key, 1);
+        }
+
+        return index.intValue();
+    }
+
+    private int classConstant(String className) {
+
+        String  key   = "C" + className;
+        Integer index = (Integer) constants.get(key);
+
+        if (index == null) {
+            int name = utf8Constant(className);
+
+            pool.writeByte(CONSTANT_Class);
+            pool.writeShort(name);
+
+            index = addConstant(key, 1);
+        }
+
+        return index.intValue();
+    }
+
+    private int intConstant(int value) {
+
+        String  key   = "I" + value;
+        Integer index = (Integer) constants.get(key);
+
+        if (index == null) {
+            pool.writeByte(CONSTANT_Integer);
+            pool.writeInt(value);
+
+            index = addConstant(key, 1);
+        }
+
+        return index.intValue();
+    }
+
+    private int longConstant(int tag, long value) {
+
+        String  key   = String.valueOf(tag) + value;
+        Integer index = (Integer) constants.get(key);
+
+        if (index == null) {
+            pool.writeByte(tag);
+            pool.writeLong(value);
+
+            index = addConstant(key, 2);
+        }
+
+        return index.intValue();
+    }
+
+    private int memberConstant(int tag, String owner, String name,
+                               String descriptor) {
+
+        String key = String.valueOf(tag) + owner + '.' + name + descriptor;
+        Integer index = (Integer) constants.get(key);
+
+        if (index == null) {
+            int ownerIndex = classConstant(owner);
+            int nameType   = nameAndTypeConstant(name, descriptor);
+
+            pool.writeByte(tag);
+            pool.writeShort(ownerIndex);
+            pool.writeShort(nameType);
+
+            index = addConstant(key, 1);
+        }
+
+        return index.intValue();
+    }
+
+    private int nameAndTypeConstant(String name, String descriptor) {
+
+        String  key   = "N" + name + ' ' + descriptor;
+        Integer index = (Integer) constants.get(key);
+
+        if (index == null) {
+            int nameIndex = utf8Constant(name);
+            int typeIndex = utf8Constant(descriptor);
+
+            pool.writeByte(CONSTANT_NameAndType);
+            pool.writeShort(nameIndex);
+            pool.writeShort(typeIndex);
+
+            index = addConstant(key, 1);
+        }
+
+        return index.intValue();
+    }
+
+    private Integer addConstant(String key, int slots) {
+
+        if (poolCount + slots > 0xffff) {
+            throw new IllegalStateException("too many constants");
+        }
+
+        Integer index = Integer.valueOf(poolCount);
+
+        constants.put(key, index);
+
+        poolCount += slots;
+
+        return index;
+    }
+
+    /**
+     * Returns the number of local variable slots used by the arguments of a
+     * method descriptor
+     */
+    static int getArgumentSlots(String descriptor) {
+
+        int slots = 0;
+        int i     = 1;
+
+        while (descriptor.charAt(i) != ')') {
+            slots += getTypeSlots(descriptor, i);
+            i     = skipType(descriptor, i);
+        }
+
+        return slots;
+    }
+
+    static int getTypeSlots(String descriptor, int i) {
+
+        switch (descriptor.charAt(i)) {
+
+            case 'V' :
+                return 0;
+
+            case 'J' :
+            case 'D' :
+                return 2;
+
+            default :
+                return 1;
+        }
+    }
+
+    static int skipType(String descriptor, int i) {
+
+        while (descriptor.charAt(i) == '[') {
+            i++;
+        }
+
+        if (descriptor.charAt(i) == 'L') {
+            i = descriptor.indexOf(';', i);
+        }
+
+        return i + 1;
+    }
+
+    /**
+     * Branch target in the code of the current method
+     */
+    public static final class Label {
+
+        int   position   = -1;
+        int   stackDepth = -1;
+        int[] fixups;
+        int   fixupCount;
+
+        Label() {}
+
+        void addFixup(int at) {
+
+            if (fixups == null) {
+                fixups = new int[4];
+            } else if (fixupCount == fixups.length) {
+                fixups = (int[]) ArrayUtil.resizeArray(fixups,
+                                                       fixupCount * 2);
+            }
+
+            fixups[fixupCount++] = at;
+        }
+
+        void setStackDepth(int depth) {
+
+            if (stackDepth < 0) {
+                stackDepth = depth;
+            } else if (stackDepth != depth) {
+                throw new IllegalStateException("stack depth mismatch");
+            }
+        }
+    }
+}
@@ -73,6 +73,7 @@ package org.hsqldb.lib;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
 
 import org.hsqldb.map.BitMap;
 
@@ -556,6 +557,90 @@ public class StringConverter {
         return new String(buf, 0, bcount);
     }
 
+    /**
+     * Reads UTF-8 bytes at the given offset of a ByteBuffer without copying
+     * them into an array. The position of the ByteBuffer is not changed.
+     */
+    public static String readUTF(ByteBuffer bytebuf, int offset, int length,
+                                 char[] buf) throws IOException {
+
+        int bcount = 0;
+        int c, char2, char3;
+        int count = 0;
+
+        while (count < length) {
+            c = (int) bytebuf.get(offset + count);
+
+            if (bcount == buf.length) {
+                buf = (char[]) ArrayUtil.resizeArray(buf, length);
+            }
+
+            if (c > 0) {
+
+                /* 0xxxxxxx*/
+                count++;
+
+                buf[bcount++] = (char) c;
+
+                continue;
+            }
+
+            c &= 0xff;
+
+            switch (c >> 4) {
+
+                case 12 :
+                case 13 :
+
+                    /* 110x xxxx   10xx xxxx*/
+                    count += 2;
+
+                    if (count > length) {
+                        throw new UTFDataFormatException();
+                    }
+
+                    char2 = (int) bytebuf.get(offset + count - 1);
+
+                    if ((char2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException();
+                    }
+
+                    buf[bcount++] = (char) (((c & 0x1F) << 6)
+                                            | (char2 & 0x3F));
+                    break;
+
+                case 14 :
+
+                    /* 1110 xxxx  10xx xxxx  10xx xxxx */
+                    count += 3;
+
+                    if (count > length) {
+                        throw new UTFDataFormatException();
+                    }
+
+                    char2 = (int) bytebuf.get(offset + count - 2);
+                    char3 = (int) bytebuf.get(offset + count - 1);
+
+                    if (((char2 & 0xC0) != 0x80) || ((char3 & 0xC0) != 0x80)) {
+                        throw new UTFDataFormatException();
+                    }
+
+                    buf[bcount++] = (char) (((c & 0x0F) << 12)
+                                            | ((char2 & 0x3F) << 6)
+                                            | ((char3 & 0x3F) << 0));
+                    break;
+
+                default :
+
+                    /* 10xx xxxx,  1111 xxxx */
+                    throw new UTFDataFormatException();
+            }
+        }
+
+        // The number of chars produced may be less than length
+        return new String(buf, 0, bcount);
+    }
+
     /**
      * Writes a string to the specified DataOutput using UTF-8 encoding in a
      * machine-independent manner.
@@ -0,0 +1,131 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package org.hsqldb.lib;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A map of long keys to Object values, split into a fixed number of
+ * LongKeyHashMap segments. Each segment has its own read / write lock, so
+ * threads that access different keys do not usually contend for the same
+ * lock.<p>
+ *
+ * The write lock returned for a key can be held by the caller around a
+ * sequence of operations on that key.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class StripedLongKeyHashMap {
+
+    private static final int segmentCount = 16;
+    private static final int segmentMask  = segmentCount - 1;
+
+    //
+    private final LongKeyHashMap[] segments;
+
+    public StripedLongKeyHashMap() {
+        this(16 * segmentCount);
+    }
+
+    public StripedLongKeyHashMap(int initialCapacity)
+    throws IllegalArgumentException {
+
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int segmentCapacity = initialCapacity / segmentCount;
+
+        if (segmentCapacity < 16) {
+            segmentCapacity = 16;
+        }
+
+        segments = new LongKeyHashMap[segmentCount];
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new LongKeyHashMap(segmentCapacity);
+        }
+    }
+
+    private LongKeyHashMap getSegment(long key) {
+
+        int hash = (int) (key ^ (key >>> 32));
+
+        hash ^= (hash >>> 16) ^ (hash >>> 8) ^ (hash >>> 4);
+
+        return segments[hash & segmentMask];
+    }
+
+    public Lock getWriteLock(long key) {
+        return getSegment(key).getWriteLock();
+    }
+
+    public Object get(long key) {
+        return getSegment(key).get(key);
+    }
+
+    public Object put(long key, Object value) {
+        return getSegment(key).put(key, value);
+    }
+
+    public Object remove(long key) {
+        return getSegment(key).remove(key);
+    }
+
+    public boolean containsKey(long key) {
+        return getSegment(key).containsKey(key);
+    }
+
+    public int size() {
+
+        int size = 0;
+
+        for (int i = 0; i < segmentCount; i++) {
+            size += segments[i].size();
+        }
+
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i].clear();
+        }
+    }
+}
@@ -182,6 +182,66 @@ implements Comparator {
         }
     }
 
+    /**
+     * Used instead of add() when only the first rows in the ORDER BY order
+     * are required. Up to count rows are kept in a heap with the row that
+     * sorts last at the top. A new row replaces the top row when it sorts
+     * before it. sortOrder() must be called after the last row is added.
+     */
+    public void addTopRow(Object[] data, int count) {
+
+        mainIndex = orderIndex;
+
+        if (size < count) {
+            add(data);
+
+            int i = size - 1;
+
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+
+                if (compare(table[parent], data) >= 0) {
+                    break;
+                }
+
+                table[i] = table[parent];
+                i        = parent;
+            }
+
+            table[i] = data;
+
+            return;
+        }
+
+        if (compare(data, table[0]) >= 0) {
+            return;
+        }
+
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size
+                    && compare(table[child + 1], table[child]) > 0) {
+                child++;
+            }
+
+            if (compare(table[child], data) <= 0) {
+                break;
+            }
+
+            table[i] = table[child];
+            i        = child;
+        }
+
+        table[i] = data;
+    }
+
     public boolean addRow(Row row) {
         throw Error.runtimeError(ErrorCode.U_S0500, "RowSetNavigatorClient");
     }
@@ -0,0 +1,527 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.navigator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.hsqldb.QuerySpecification;
+import org.hsqldb.Row;
+import org.hsqldb.Session;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.ArraySort;
+import org.hsqldb.lib.HsqlArrayList;
+import org.hsqldb.rowio.RowInputBinary;
+import org.hsqldb.rowio.RowOutputBinary;
+import org.hsqldb.types.Type;
+
+/**
+ * Implementation of RowSetNavigator for large ORDER BY results. Rows are
+ * collected in blocks of result_max_memory_rows. Each full block is sorted
+ * and written to a temporary file in a separate thread. The last block is
+ * kept in memory. After sortOrder() the rows are returned by merging the
+ * sorted blocks as the result is read.<p>
+ *
+ * Only forward navigation is fast. Moving back to an earlier row reads the
+ * files again from the start.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class RowSetNavigatorDataFile extends RowSetNavigatorData {
+
+    static final int maxSortThreads = 4;
+
+    //
+    Type[]          columnTypes;
+    File            directory;
+    int             blockSize;
+    Object[][]      block;
+    int             blockCount;
+    HsqlArrayList   files   = new HsqlArrayList();
+    HsqlArrayList   futures = new HsqlArrayList();
+    ExecutorService executor;
+    boolean         isSorted;
+
+    // rows before this position are removed by trim()
+    int rowOffset;
+
+    // merge of the sorted blocks
+    DataInputStream[] inputs;
+    Object[][]        heads;
+    int[]             heap;
+    int               heapSize;
+    int               blockPosition;
+    RowInputBinary    rowIn;
+    int               mergePos = -1;
+    Object[]          currentData;
+
+    public RowSetNavigatorDataFile(Session session, QuerySpecification select,
+                                   RowSetNavigatorData navigator,
+                                   String path) {
+
+        super(session);
+
+        this.rangePosition = select.resultRangePosition;
+        visibleColumnCount = select.indexLimitVisible;
+        columnTypes        = select.resultTable.getColumnTypes();
+        mainIndex          = select.orderIndex;
+        orderIndex         = select.orderIndex;
+        directory          = new File(path);
+        blockSize          = session.getResultMemoryRowCount();
+        block              = new Object[blockSize][];
+
+        navigator.reset();
+
+        while (navigator.hasNext()) {
+            add(navigator.getNext());
+        }
+
+        navigator.release();
+    }
+
+    public void sortOrder(Session session) {
+
+        if (isSorted) {
+            reset();
+
+            return;
+        }
+
+        ArraySort.sort(block, 0, blockCount, this);
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                ((Future) futures.get(i)).get();
+            }
+        } catch (Throwable t) {
+            release();
+
+            throw Error.error(ErrorCode.FILE_IO_ERROR, t);
+        } finally {
+            futures.clear();
+
+            if (executor != null) {
+                executor.shutdown();
+
+                executor = null;
+            }
+        }
+
+        isSorted = true;
+
+        reset();
+    }
+
+    public void add(Object[] data) {
+
+        if (blockCount == blockSize) {
+            writeBlock();
+        }
+
+        block[blockCount++] = data;
+
+        size++;
+    }
+
+    /**
+     * Sorts the current block and writes it to a new file in a separate
+     * thread. At most maxSortThreads blocks are waiting to be written.
+     */
+    private void writeBlock() {
+
+        final Object[][] rows  = block;
+        final int        count = blockCount;
+        final File       file;
+
+        try {
+            file = File.createTempFile("sort_", ".tmp", directory);
+        } catch (IOException e) {
+            throw Error.error(ErrorCode.FILE_IO_ERROR, e);
+        }
+
+        files.add(file);
+
+        if (executor == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+
+            if (threads > maxSortThreads) {
+                threads = maxSortThreads;
+            }
+
+            executor = Executors.newFixedThreadPool(threads,
+                    new ThreadFactory() {
+
+                public Thread newThread(Runnable r) {
+
+                    Thread thread = new Thread(r, "HSQLDB Sort");
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+        }
+
+        if (futures.size() == maxSortThreads) {
+            try {
+                ((Future) futures.remove(0)).get();
+            } catch (Throwable t) {
+                throw Error.error(ErrorCode.FILE_IO_ERROR, t);
+            }
+        }
+
+        Future future = executor.submit(new Runnable() {
+
+            public void run() {
+
+                ArraySort.sort(rows, 0, count, RowSetNavigatorDataFile.this);
+
+                try {
+                    writeRows(file, rows, count);
+                } catch (IOException e) {
+                    throw Error.error(ErrorCode.FILE_IO_ERROR, e);
+                }
+            }
+        });
+
+        futures.add(future);
+
+        block      = new Object[blockSize][];
+        blockCount = 0;
+    }
+
+    void writeRows(File file, Object[][] rows, int count) throws IOException {
+
+        RowOutputBinary  rowOut = new RowOutputBinary(256, 1);
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+
+        try {
+            for (int i = 0; i < count; i++) {
+                rowOut.reset();
+                rowOut.writeData(columnTypes.length, columnTypes, rows[i],
+                                 null, null);
+                out.writeInt(rowOut.size());
+                out.write(rowOut.getBuffer(), 0, rowOut.size());
+
+                rows[i] = null;
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    public Object[] getCurrent() {
+
+        if (currentPos < 0 || currentPos >= size) {
+            return null;
+        }
+
+        int position = currentPos + rowOffset;
+
+        if (mergePos > position) {
+            openMerge();
+        }
+
+        while (mergePos < position) {
+            currentData = nextMergeRow();
+        }
+
+        return currentData;
+    }
+
+    public Row getCurrentRow() {
+        throw Error.runtimeError(ErrorCode.U_S0500,
+                                 "RowSetNavigatorDataFile");
+    }
+
+    public void removeCurrent() {
+        throw Error.runtimeError(ErrorCode.U_S0500,
+                                 "RowSetNavigatorDataFile");
+    }
+
+    /**
+     * The rows are not removed but skipped when the result is read
+     */
+    public void trim(int limitstart, int limitcount) {
+
+        if (limitstart > size) {
+            limitstart = size;
+        }
+
+        rowOffset += limitstart;
+        size      -= limitstart;
+
+        if (limitcount < size) {
+            size = limitcount;
+        }
+
+        reset();
+    }
+
+    public boolean isMemory() {
+        return false;
+    }
+
+    public void release() {
+
+        if (isClosed) {
+            return;
+        }
+
+        closeMerge();
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                ((Future) futures.get(i)).get();
+            } catch (Throwable t) {}
+        }
+
+        futures.clear();
+
+        if (executor != null) {
+            executor.shutdown();
+
+            executor = null;
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            ((File) files.get(i)).delete();
+        }
+
+        files.clear();
+
+        block      = emptyTable;
+        blockCount = 0;
+        size       = 0;
+        isClosed   = true;
+
+        reset();
+    }
+
+    public void clear() {
+
+        release();
+
+        block    = new Object[blockSize][];
+        isClosed = false;
+        isSorted = false;
+    }
+
+    /**
+     * Opens the files and fills the heap with the first row of each block.
+     * The block in memory is the last source.
+     */
+    private void openMerge() {
+
+        closeMerge();
+
+        int sources = files.size() + 1;
+
+        inputs   = new DataInputStream[files.size()];
+        heads    = new Object[sources][];
+        heap     = new int[sources];
+        heapSize      = 0;
+        mergePos      = -1;
+        blockPosition = 0;
+
+        if (rowIn == null) {
+            rowIn = new RowInputBinary(new RowOutputBinary(256, 1));
+        }
+
+        try {
+            for (int i = 0; i < inputs.length; i++) {
+                inputs[i] = new DataInputStream(
+                    new BufferedInputStream(
+                        new FileInputStream((File) files.get(i)), 1 << 16));
+            }
+        } catch (IOException e) {
+            throw Error.error(ErrorCode.FILE_IO_ERROR, e);
+        }
+
+        for (int i = 0; i < sources; i++) {
+            readHead(i);
+
+            if (heads[i] != null) {
+                heap[heapSize] = i;
+
+                siftUp(heapSize);
+
+                heapSize++;
+            }
+        }
+    }
+
+    private void closeMerge() {
+
+        if (inputs != null) {
+            for (int i = 0; i < inputs.length; i++) {
+                try {
+                    if (inputs[i] != null) {
+                        inputs[i].close();
+                    }
+                } catch (IOException e) {}
+            }
+        }
+
+        inputs   = null;
+        heads    = null;
+        heapSize = 0;
+        mergePos = -1;
+    }
+
+    /**
+     * Reads the next row of a block
+     */
+    private void readHead(int source) {
+
+        if (source == inputs.length) {
+            heads[source] = blockPosition < blockCount
+                            ? block[blockPosition++]
+                            : null;
+
+            return;
+        }
+
+        try {
+            int rowSize;
+
+            try {
+                rowSize = inputs[source].readInt();
+            } catch (java.io.EOFException e) {
+                heads[source] = null;
+
+                return;
+            }
+
+            rowIn.resetRow(0, rowSize + 4);
+            inputs[source].readFully(rowIn.getBuffer(), 4, rowSize);
+
+            heads[source] = rowIn.readData(columnTypes);
+        } catch (IOException e) {
+            throw Error.error(ErrorCode.FILE_IO_ERROR, e);
+        }
+    }
+
+    private Object[] nextMergeRow() {
+
+        if (heads == null) {
+            openMerge();
+        }
+
+        if (heapSize == 0) {
+            return null;
+        }
+
+        int      source = heap[0];
+        Object[] data   = heads[source];
+
+        readHead(source);
+
+        if (heads[source] == null) {
+            heapSize--;
+
+            heap[0] = heap[heapSize];
+        }
+
+        siftDown(0);
+
+        mergePos++;
+
+        return data;
+    }
+
+    private void siftUp(int i) {
+
+        int source = heap[i];
+
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+
+            if (compare(heads[heap[parent]], heads[source]) <= 0) {
+                break;
+            }
+
+            heap[i] = heap[parent];
+            i       = parent;
+        }
+
+        heap[i] = source;
+    }
+
+    private void siftDown(int i) {
+
+        if (heapSize == 0) {
+            return;
+        }
+
+        int source = heap[i];
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= heapSize) {
+                break;
+            }
+
+            if (child + 1 < heapSize
+                    && compare(heads[heap[child + 1]],
+                               heads[heap[child]]) < 0) {
+                child++;
+            }
+
+            if (compare(heads[heap[child]], heads[source]) >= 0) {
+                break;
+            }
+
+            heap[i] = heap[child];
+            i       = child;
+        }
+
+        heap[i] = source;
+    }
+}
@@ -0,0 +1,442 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.persist;
+
+import org.hsqldb.Session;
+import org.hsqldb.lib.HashMap;
+import org.hsqldb.map.BitMap;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
+
+/**
+ * Holds the values of one column for a consecutive range of rows of a
+ * COLUMNAR table in compressed form.<p>
+ *
+ * Run-length encoding is used when most values repeat the previous value,
+ * frame-of-reference encoding for integral values, and dictionary encoding
+ * when there are few distinct values. Otherwise the values are kept as
+ * they are.<p>
+ *
+ * For number and datetime columns, the smallest and largest non-null values
+ * are kept to allow a scan to skip the segment.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public final class ColumnSegment {
+
+    public static final int ENCODING_PLAIN      = 0;
+    public static final int ENCODING_RLE        = 1;
+    public static final int ENCODING_FRAME      = 2;
+    public static final int ENCODING_DICTIONARY = 3;
+
+    //
+    private int    encoding;
+    private int    count;
+    private int    typeCode;
+    private Object min;
+    private Object max;
+
+    // PLAIN values, RLE run values or DICTIONARY entries
+    private Object[] values;
+
+    // RLE end of each run
+    private int[] runEnds;
+
+    // FRAME base value and null values
+    private long   base;
+    private BitMap nulls;
+
+    // FRAME offsets or DICTIONARY codes
+    private byte[]  byteCodes;
+    private short[] shortCodes;
+    private int[]   intCodes;
+
+    private ColumnSegment(Type type, int count) {
+        this.typeCode = type.typeCode;
+        this.count    = count;
+    }
+
+    /**
+     * Returns a new segment for the first count elements of data.
+     */
+    public static ColumnSegment newSegment(Session session, Type type,
+                                           Object[] data, int count) {
+
+        ColumnSegment segment = new ColumnSegment(type, count);
+
+        if (type.isNumberType() || type.isDateTimeType()) {
+            segment.setMinMax(session, type, data);
+        }
+
+        int runs = 1;
+
+        for (int i = 1; i < count; i++) {
+            if (!equals(data[i], data[i - 1])) {
+                runs++;
+            }
+        }
+
+        if (runs <= count / 4) {
+            segment.setRunLength(data, runs);
+        } else if (!segment.setFrame(data)) {
+            if (!segment.setDictionary(data)) {
+                segment.encoding = ENCODING_PLAIN;
+                segment.values   = new Object[count];
+
+                System.arraycopy(data, 0, segment.values, 0, count);
+            }
+        }
+
+        return segment;
+    }
+
+    public int getEncoding() {
+        return encoding;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest non-null value, or null if all values are null
+     * or the type has no range.
+     */
+    public Object getMin() {
+        return min;
+    }
+
+    public Object getMax() {
+        return max;
+    }
+
+    /**
+     * Copies the values of the segment to the start of the target array.
+     */
+    public void getValues(Object[] target) {
+
+        switch (encoding) {
+
+            case ENCODING_PLAIN :
+                System.arraycopy(values, 0, target, 0, count);
+                break;
+
+            case ENCODING_RLE : {
+                int start = 0;
+
+                for (int i = 0; i < runEnds.length; i++) {
+                    Object value = values[i];
+
+                    for (int j = start; j < runEnds[i]; j++) {
+                        target[j] = value;
+                    }
+
+                    start = runEnds[i];
+                }
+
+                break;
+            }
+            case ENCODING_FRAME :
+                if (typeCode == Types.SQL_BIGINT) {
+                    for (int i = 0; i < count; i++) {
+                        target[i] = Long.valueOf(base + getCode(i));
+                    }
+                } else {
+                    for (int i = 0; i < count; i++) {
+                        target[i] = Integer.valueOf((int) (base
+                                                           + getCode(i)));
+                    }
+                }
+
+                if (nulls != null) {
+                    for (int i = 0; i < count; i++) {
+                        if (nulls.isSet(i)) {
+                            target[i] = null;
+                        }
+                    }
+                }
+                break;
+
+            case ENCODING_DICTIONARY :
+                for (int i = 0; i < count; i++) {
+                    target[i] = values[(int) getCode(i)];
+                }
+                break;
+        }
+    }
+
+    /**
+     * Copies the values of a segment of an integral column to the start of
+     * the target arrays, without boxing for frame-of-reference encoding.
+     */
+    public void getLongValues(long[] target, boolean[] targetNulls) {
+
+        switch (encoding) {
+
+            case ENCODING_FRAME :
+                for (int i = 0; i < count; i++) {
+                    target[i] = base + getCode(i);
+                }
+
+                for (int i = 0; i < count; i++) {
+                    targetNulls[i] = nulls != null && nulls.isSet(i);
+                }
+                break;
+
+            case ENCODING_RLE : {
+                int start = 0;
+
+                for (int i = 0; i < runEnds.length; i++) {
+                    boolean isNull = values[i] == null;
+                    long    value  = isNull ? 0
+                                            : ((Number) values[i]).longValue();
+
+                    for (int j = start; j < runEnds[i]; j++) {
+                        target[j]      = value;
+                        targetNulls[j] = isNull;
+                    }
+
+                    start = runEnds[i];
+                }
+
+                break;
+            }
+            case ENCODING_DICTIONARY :
+            case ENCODING_PLAIN :
+                for (int i = 0; i < count; i++) {
+                    Object value = encoding == ENCODING_PLAIN
+                                   ? values[i]
+                                   : values[(int) getCode(i)];
+
+                    targetNulls[i] = value == null;
+                    target[i]      = value == null ? 0
+                                                   : ((Number) value)
+                                                       .longValue();
+                }
+                break;
+        }
+    }
+
+    private long getCode(int i) {
+
+        if (byteCodes != null) {
+            return byteCodes[i] & 0xff;
+        } else if (shortCodes != null) {
+            return shortCodes[i] & 0xffff;
+        } else {
+            return intCodes[i] & 0xffffffffL;
+        }
+    }
+
+    private void setCodes(long maxCode) {
+
+        if (maxCode <= 0xff) {
+            byteCodes = new byte[count];
+        } else if (maxCode <= 0xffff) {
+            shortCodes = new short[count];
+        } else {
+            intCodes = new int[count];
+        }
+    }
+
+    private void setCode(int i, long code) {
+
+        if (byteCodes != null) {
+            byteCodes[i] = (byte) code;
+        } else if (shortCodes != null) {
+            shortCodes[i] = (short) code;
+        } else {
+            intCodes[i] = (int) code;
+        }
+    }
+
+    private void setMinMax(Session session, Type type, Object[] data) {
+
+        for (int i = 0; i < count; i++) {
+            Object value = data[i];
+
+            if (value == null) {
+                continue;
+            }
+
+            if (min == null || type.compare(session, value, min) < 0) {
+                min = value;
+            }
+
+            if (max == null || type.compare(session, value, max) > 0) {
+                max = value;
+            }
+        }
+    }
+
+    private void setRunLength(Object[] data, int runs) {
+
+        encoding = ENCODING_RLE;
+        values   = new Object[runs];
+        runEnds  = new int[runs];
+
+        int run = 0;
+
+        for (int i = 1; i < count; i++) {
+            if (!equals(data[i], data[i - 1])) {
+                values[run]  = data[i - 1];
+                runEnds[run] = i;
+
+                run++;
+            }
+        }
+
+        values[run]  = data[count - 1];
+        runEnds[run] = count;
+    }
+
+    /**
+     * Uses frame-of-reference encoding for integral types when the range of
+     * the values fits in an unsigned int.
+     */
+    private boolean setFrame(Object[] data) {
+
+        switch (typeCode) {
+
+            case Types.TINYINT :
+            case Types.SQL_SMALLINT :
+            case Types.SQL_INTEGER :
+            case Types.SQL_BIGINT :
+                break;
+
+            default :
+                return false;
+        }
+
+        long    low     = 0;
+        long    high    = 0;
+        boolean hasNull = false;
+        boolean isEmpty = true;
+
+        for (int i = 0; i < count; i++) {
+            if (data[i] == null) {
+                hasNull = true;
+
+                continue;
+            }
+
+            long value = ((Number) data[i]).longValue();
+
+            if (isEmpty) {
+                low     = value;
+                high    = value;
+                isEmpty = false;
+            } else if (value < low) {
+                low = value;
+            } else if (value > high) {
+                high = value;
+            }
+        }
+
+        long range = high - low;
+
+        if (isEmpty || range < 0 || range > 0xffffffffL) {
+            return false;
+        }
+
+        encoding = ENCODING_FRAME;
+        base     = low;
+
+        if (hasNull) {
+            nulls = new BitMap(count, false);
+        }
+
+        setCodes(range);
+
+        for (int i = 0; i < count; i++) {
+            if (data[i] == null) {
+                nulls.set(i);
+
+                continue;
+            }
+
+            setCode(i, ((Number) data[i]).longValue() - low);
+        }
+
+        return true;
+    }
+
+    /**
+     * Uses dictionary encoding when the count of distinct values is not
+     * more than a quarter of the values. Code 0 is used for null.
+     */
+    private boolean setDictionary(Object[] data) {
+
+        int     limit      = Math.min(count / 4, 0xffff);
+        HashMap dictionary = new HashMap();
+
+        for (int i = 0; i < count; i++) {
+            if (data[i] != null && !dictionary.containsKey(data[i])) {
+                if (dictionary.size() == limit) {
+                    return false;
+                }
+
+                dictionary.put(data[i], ValuePool.getInt(dictionary.size()
+                        + 1));
+            }
+        }
+
+        encoding = ENCODING_DICTIONARY;
+        values   = new Object[dictionary.size() + 1];
+
+        setCodes(dictionary.size());
+
+        for (int i = 0; i < count; i++) {
+            if (data[i] == null) {
+                continue;
+            }
+
+            int code = ((Integer) dictionary.get(data[i])).intValue();
+
+            values[code] = data[i];
+
+            setCode(i, code);
+        }
+
+        return true;
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null
+                         : a.equals(b);
+    }
+}
@@ -32,6 +32,7 @@
 package org.hsqldb.persist;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -48,6 +49,7 @@ import org.hsqldb.lib.Iterator;
 import org.hsqldb.map.BitMap;
 import org.hsqldb.rowio.RowInputBinary180;
 import org.hsqldb.rowio.RowInputBinaryDecode;
+import org.hsqldb.rowio.RowInputBinaryMapped;
 import org.hsqldb.rowio.RowInputInterface;
 import org.hsqldb.rowio.RowOutputBinary180;
 import org.hsqldb.rowio.RowOutputBinaryEncode;
@@ -118,6 +120,9 @@ public class DataFileCache {
     protected RowInputInterface rowIn;
     public RowOutputInterface   rowOut;
 
+    // rowIn when rows can be read from the mapped buffers of an nio file
+    RowInputBinaryMapped rowInMapped;
+
     //
     public long maxDataFileSize;
 
@@ -831,6 +836,11 @@ public class DataFileCache {
         if (rowIn == null) {
             if (is180) {
                 rowIn = new RowInputBinary180(new byte[initIOBufferSize]);
+            } else if (database.logger.propNioDataFile
+                       && database.logger.getCrypto() == null) {
+                rowInMapped =
+                    new RowInputBinaryMapped(new byte[initIOBufferSize]);
+                rowIn = rowInMapped;
             } else {
                 rowIn = new RowInputBinaryDecode(database.logger.getCrypto(),
                                                  new byte[initIOBufferSize]);
@@ -1166,6 +1176,10 @@ public class DataFileCache {
     private void readObject(long pos) {
 
         try {
+            if (readMappedObject(pos)) {
+                return;
+            }
+
             dataFile.seek(pos * dataFileScale);
 
             int size = dataFile.readInt();
@@ -1187,6 +1201,44 @@ public class DataFileCache {
         }
     }
 
+    /**
+     * With an nio data file, sets up rowIn to decode the row directly from
+     * the mapped buffer. Returns false if the row is not wholly contained in
+     * one of the mapped buffers, or has an invalid size, in which case the
+     * row is read into the buffer of rowIn.
+     */
+    private boolean readMappedObject(long pos) {
+
+        if (rowInMapped == null || !(dataFile instanceof RAFileHybrid)) {
+            return false;
+        }
+
+        long filePos = pos * dataFileScale;
+        ByteBuffer buffer =
+            ((RAFileHybrid) dataFile).getMappedBuffer(filePos);
+
+        if (buffer == null) {
+            return false;
+        }
+
+        int offset = RAFileNIO.getMappedBufferOffset(filePos);
+        int limit  = buffer.limit() - offset;
+
+        if (limit < 4) {
+            return false;
+        }
+
+        int size = buffer.getInt(offset);
+
+        if (size <= 4 || size > limit) {
+            return false;
+        }
+
+        rowInMapped.resetMapped(pos, buffer, offset, size);
+
+        return true;
+    }
+
     protected void readObject(long pos, int size) {
 
         try {
@@ -189,6 +189,8 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String url_check_props     = "check_props";
     public static final String url_get_column_name = "get_column_name";
     public static final String url_close_result    = "close_result";
+    public static final String url_statement_cache_size =
+        "statement_cache_size";
 
     //
     public static final String url_storage_class_name = "storage_class_name";
@@ -210,6 +212,7 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String hsqldb_tx_level = "hsqldb.tx_level";
     public static final String hsqldb_tx_conflict_rollback =
         "hsqldb.tx_conflict_rollback";
+    public static final String hsqldb_tx_row_locks = "hsqldb.tx_row_locks";
     public static final String hsqldb_applog         = "hsqldb.applog";
     public static final String hsqldb_sqllog         = "hsqldb.sqllog";
     public static final String hsqldb_lob_file_scale = "hsqldb.lob_file_scale";
@@ -228,6 +231,7 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String hsqldb_lock_file      = "hsqldb.lock_file";
     public static final String hsqldb_log_data       = "hsqldb.log_data";
     public static final String hsqldb_log_size       = "hsqldb.log_size";
+    public static final String hsqldb_log_format     = "hsqldb.log_format";
     public static final String hsqldb_nio_data_file  = "hsqldb.nio_data_file";
     public static final String hsqldb_nio_max_size   = "hsqldb.nio_max_size";
     public static final String hsqldb_script_format  = "hsqldb.script_format";
@@ -240,6 +244,14 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String hsqldb_full_log_replay =
         "hsqldb.full_log_replay";
     public static final String hsqldb_large_data  = "hsqldb.large_data";
+    public static final String hsqldb_memory_pool_values =
+        "hsqldb.memory_pool_values";
+    public static final String hsqldb_trigger_threads =
+        "hsqldb.trigger_threads";
+    public static final String hsqldb_change_capture_size =
+        "hsqldb.change_capture_size";
+    public static final String hsqldb_columnar_max_rows =
+        "hsqldb.columnar_max_rows";
     public static final String hsqldb_files_space = "hsqldb.files_space";
     public static final String hsqldb_digest      = "hsqldb.digest";
 
@@ -274,6 +286,7 @@ public class HsqlDatabaseProperties extends HsqlProperties {
     public static final String sql_longvar_is_lob = "sql.longvar_is_lob";
     public static final String sql_pad_space      = "sql.pad_space";
     public static final String sql_ignore_case    = "sql.ignore_case";
+    public static final String sql_parameterize   = "sql.parameterize";
 
     //
     public static final String textdb_cache_scale = "textdb.cache_scale";
@@ -281,6 +294,8 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         "textdb.cache_size_scale";
     public static final String textdb_cache_rows   = "textdb.cache_rows";
     public static final String textdb_cache_size   = "textdb.cache_size";
+    public static final String textdb_parallel_read_size =
+        "textdb.parallel_read_size";
     public static final String textdb_all_quoted   = "textdb.all_quoted";
     public static final String textdb_encoding     = "textdb.encoding";
     public static final String textdb_ignore_first = "textdb.ignore_first";
@@ -328,6 +343,9 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         textMeta.put(textdb_cache_size,
                      HsqlProperties.getMeta(textdb_cache_size, SQL_PROPERTY,
                                             100, 10, 1000000));
+        textMeta.put(textdb_parallel_read_size,
+                     HsqlProperties.getMeta(textdb_parallel_read_size,
+                                            SQL_PROPERTY, 4096, 0, 1000000));
         dbMeta.putAll(textMeta);
 
         // string defaults for protected props
@@ -462,12 +480,18 @@ public class HsqlDatabaseProperties extends HsqlProperties {
         dbMeta.put(sql_ignore_case,
                    HsqlProperties.getMeta(sql_ignore_case, SQL_PROPERTY,
                                           false));
+        dbMeta.put(sql_parameterize,
+                   HsqlProperties.getMeta(sql_parameterize, SQL_PROPERTY,
+                                          false));
         dbMeta.put(hsqldb_write_delay,
                    HsqlProperties.getMeta(hsqldb_write_delay, SQL_PROPERTY,
                                           true));
         dbMeta.put(hsqldb_large_data,
                    HsqlProperties.getMeta(hsqldb_large_data, SQL_PROPERTY,
                                           false));
+        dbMeta.put(hsqldb_memory_pool_values,
+                   HsqlProperties.getMeta(hsqldb_memory_pool_values,
+                                          SQL_PROPERTY, false));
         dbMeta.put(hsqldb_files_space,
                    HsqlProperties.getMeta(hsqldb_files_space, SQL_PROPERTY, 0,
                                           new int[] {
@@ -489,6 +513,11 @@ public class HsqlDatabaseProperties extends HsqlProperties {
                                           0, new int[] {
             0, 1, 3
         }));
+        dbMeta.put(hsqldb_log_format,
+                   HsqlProperties.getMeta(hsqldb_log_format, SQL_PROPERTY, 0,
+                                          new int[] {
+            0, 1
+        }));
         dbMeta.put(hsqldb_lob_file_scale,
                    HsqlProperties.getMeta(hsqldb_lob_file_scale, SQL_PROPERTY,
                                           32, new int[] {
@@ -528,9 +557,23 @@ public class HsqlDatabaseProperties extends HsqlProperties {
                    HsqlProperties.getMeta(hsqldb_result_max_memory_rows,
                                           SQL_PROPERTY, 0, 0,
                                           4 * 1024 * 1024));
+        dbMeta.put(hsqldb_tx_row_locks,
+                   HsqlProperties.getMeta(hsqldb_tx_row_locks, SQL_PROPERTY,
+                                          0, 0, Integer.MAX_VALUE));
         dbMeta.put(hsqldb_nio_max_size,
                    HsqlProperties.getMeta(hsqldb_nio_max_size, SQL_PROPERTY,
                                           256, 64, 262144));
+        dbMeta.put(hsqldb_trigger_threads,
+                   HsqlProperties.getMeta(hsqldb_trigger_threads,
+                                          SQL_PROPERTY, 4, 1, 256));
+        dbMeta.put(hsqldb_change_capture_size,
+                   HsqlProperties.getMeta(hsqldb_change_capture_size,
+                                          SQL_PROPERTY, 0, 0,
+                                          1024 * 1024));
+        dbMeta.put(hsqldb_columnar_max_rows,
+                   HsqlProperties.getMeta(hsqldb_columnar_max_rows,
+                                          SQL_PROPERTY, 1000000, 0,
+                                          Integer.MAX_VALUE));
         dbMeta.put(hsqldb_min_reuse,
                    HsqlProperties.getMeta(hsqldb_min_reuse, SQL_PROPERTY, 0,
                                           0, 1024 * 1024));
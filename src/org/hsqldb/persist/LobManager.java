@@ -57,6 +57,7 @@ import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.lib.HashMappedList;
+import org.hsqldb.lib.HsqlArrayList;
 import org.hsqldb.lib.HsqlByteArrayInputStream;
 import org.hsqldb.lib.LineGroupReader;
 import org.hsqldb.map.ValuePool;
@@ -128,6 +129,10 @@ public class LobManager {
     //
     ReadWriteLock lock      = new ReentrantReadWriteLock();
     Lock          writeLock = lock.writeLock();
+    Lock          readLock  = lock.readLock();
+
+    // inflaters and buffers for concurrent reads of compressed lobs
+    HsqlArrayList inflateContexts = new HsqlArrayList();
 
     // LOBS columns
     private interface LOBS {
@@ -1216,20 +1221,7 @@ public class LobManager {
 
     public Result getChars(long lobID, long offset, int length) {
 
-        Result result;
-
-        writeLock.lock();
-
-        try {
-            if (compressLobs || cryptLobs) {
-                result = getBytesCompressed(lobID, offset * 2, length * 2,
-                                            true);
-            } else {
-                result = getBytesNormal(lobID, offset * 2, length * 2);
-            }
-        } finally {
-            writeLock.unlock();
-        }
+        Result result = readBytes(lobID, offset * 2, length * 2, true);
 
         if (result.isError()) {
             return result;
@@ -1242,22 +1234,86 @@ public class LobManager {
     }
 
     public Result getBytes(long lobID, long offset, int length) {
+        return readBytes(lobID, offset, length, false);
+    }
+
+    /**
+     * The block addresses are found while holding the write lock, which is
+     * then downgraded to the read lock while the blocks are read from the
+     * lob store. Reads of different lobs can proceed concurrently.
+     */
+    private Result readBytes(long lobID, long offset, int length,
+                             boolean isClob) {
+
+        long[][]  parts = null;
+        int[][][] addresses;
 
         writeLock.lock();
 
         try {
             if (compressLobs || cryptLobs) {
-                return getBytesCompressed(lobID, offset, length, false);
+                parts     = getParts(lobID, offset, offset + length);
+                addresses = new int[parts.length][][];
+
+                for (int i = 0; i < parts.length; i++) {
+                    long blockByteOffset = parts[i][ALLOC_PART.BLOCK_OFFSET]
+                                           * lobBlockSize;
+
+                    addresses[i] = getByteBlockAddresses(lobID,
+                                                         blockByteOffset,
+                                                         (int) parts[i][ALLOC_PART.PART_BYTES]);
+                }
             } else {
-                return getBytesNormal(lobID, offset, length);
+                addresses = new int[][][]{
+                    getByteBlockAddresses(lobID, offset, length) };
             }
+
+            readLock.lock();
         } finally {
             writeLock.unlock();
         }
+
+        try {
+            if (parts == null) {
+                return getBytesNormal(lobID, offset, length, addresses[0]);
+            } else {
+                return getBytesCompressed(lobID, offset, length, parts,
+                                          addresses);
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int[][] getByteBlockAddresses(long lobID, long offset,
+                                          int length) {
+
+        int blockOffset = (int) (offset / lobBlockSize);
+        int blockLimit  = (int) ((offset + length) / lobBlockSize);
+
+        if ((offset + length) % lobBlockSize != 0) {
+            blockLimit++;
+        }
+
+        return getBlockAddresses(lobID, blockOffset, blockLimit);
     }
 
     private Result getBytesNormal(long lobID, long offset, int length) {
 
+        if (length == 0) {
+            return ResultLob.newLobGetBytesResponse(lobID, offset,
+                    BinaryData.zeroLengthBytes);
+        }
+
+        int[][] blockAddresses = getByteBlockAddresses(lobID, offset,
+            length);
+
+        return getBytesNormal(lobID, offset, length, blockAddresses);
+    }
+
+    private Result getBytesNormal(long lobID, long offset, int length,
+                                  int[][] blockAddresses) {
+
         int blockOffset     = (int) (offset / lobBlockSize);
         int byteBlockOffset = (int) (offset % lobBlockSize);
         int blockLimit      = (int) ((offset + length) / lobBlockSize);
@@ -1276,8 +1332,6 @@ public class LobManager {
 
         int    dataBytesPosition = 0;
         byte[] dataBytes         = new byte[length];
-        int[][] blockAddresses = getBlockAddresses(lobID, blockOffset,
-            blockLimit);
 
         if (blockAddresses.length == 0) {
             return Result.newErrorResult(Error.error(ErrorCode.X_0F502));
@@ -1947,6 +2001,26 @@ public class LobManager {
         }
     }
 
+    /**
+     * Forces the lob data written so far to disk without taking the lock.
+     * Called before each synch of the log, so that the data of a committed
+     * lob is on disk before the commit.
+     */
+    public void synchData() {
+
+        LobStore store = lobStore;
+
+        if (storeModified && store != null) {
+            storeModified = false;
+
+            try {
+                store.synch();
+            } catch (Throwable t) {
+                storeModified = true;
+            }
+        }
+    }
+
     private long[][] getParts(long lobID, long offset, long limit) {
 
         ResultMetaData meta     = getSpanningParts.getParametersMetaData();
@@ -1982,6 +2056,11 @@ public class LobManager {
     }
 
     private void inflate(byte[] data, int length, boolean isClob) {
+        inflate(inflater, dataBuffer, data, length);
+    }
+
+    private void inflate(Inflater inflater, byte[] dataBuffer, byte[] data,
+                         int length) {
 
         if (cryptLobs) {
             length = database.logger.getCrypto().decode(data, 0, length, data,
@@ -2225,30 +2304,75 @@ public class LobManager {
         return ResultLob.newLobSetResponse(lobID, dataLength);
     }
 
+    /**
+     * Called with the read lock. Uses an inflater and buffer that are not
+     * shared with other threads.
+     */
     private Result getBytesCompressed(long lobID, long offset, int length,
-                                      boolean isClob) {
+                                      long[][] parts, int[][][] addresses) {
 
-        byte[]   dataBytes = new byte[length];
-        long[][] parts     = getParts(lobID, offset, offset + length);
+        byte[]         dataBytes = new byte[length];
+        InflateContext context   = getInflateContext();
 
-        for (int i = 0; i < parts.length; i++) {
-            long[] part       = parts[i];
-            long   partOffset = part[ALLOC_PART.PART_OFFSET];
-            int    partLength = (int) part[ALLOC_PART.PART_LENGTH];
-            Result result = getPartBytesCompressedInBuffer(lobID, part,
-                isClob);
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                long[] part            = parts[i];
+                long   partOffset      = part[ALLOC_PART.PART_OFFSET];
+                int    partLength      = (int) part[ALLOC_PART.PART_LENGTH];
+                int    partBytesLength = (int) part[ALLOC_PART.PART_BYTES];
+                long blockByteOffset = part[ALLOC_PART.BLOCK_OFFSET]
+                                       * lobBlockSize;
+                Result result = getBytesNormal(lobID, blockByteOffset,
+                                               partBytesLength, addresses[i]);
 
-            if (result.isError()) {
-                return result;
-            }
+                if (result.isError()) {
+                    return result;
+                }
+
+                byte[] byteBlock = ((ResultLob) result).getByteArray();
 
-            ArrayUtil.copyBytes(partOffset, dataBuffer, 0, partLength, offset,
-                                dataBytes, length);
+                inflate(context.inflater, context.dataBuffer, byteBlock,
+                        partBytesLength);
+                ArrayUtil.copyBytes(partOffset, context.dataBuffer, 0,
+                                    partLength, offset, dataBytes, length);
+            }
+        } finally {
+            releaseInflateContext(context);
         }
 
         return ResultLob.newLobGetBytesResponse(lobID, offset, dataBytes);
     }
 
+    private InflateContext getInflateContext() {
+
+        synchronized (inflateContexts) {
+            if (!inflateContexts.isEmpty()) {
+                return (InflateContext) inflateContexts.remove(
+                    inflateContexts.size() - 1);
+            }
+        }
+
+        return new InflateContext(largeLobBlockSize + 4 * 1024);
+    }
+
+    private void releaseInflateContext(InflateContext context) {
+
+        synchronized (inflateContexts) {
+            inflateContexts.add(context);
+        }
+    }
+
+    static class InflateContext {
+
+        final Inflater inflater;
+        final byte[]   dataBuffer;
+
+        InflateContext(int bufferSize) {
+            inflater   = new Inflater();
+            dataBuffer = new byte[bufferSize];
+        }
+    }
+
     private Result getPartBytesCompressedInBuffer(long lobID, long[] part,
             boolean isClob) {
 
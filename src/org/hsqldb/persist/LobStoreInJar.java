@@ -67,7 +67,8 @@ public class LobStoreInJar implements LobStore {
         }
     }
 
-    public byte[] getBlockBytes(int blockAddress, int blockCount) {
+    public synchronized byte[] getBlockBytes(int blockAddress,
+            int blockCount) {
 
         try {
             long   address   = (long) blockAddress * lobBlockSize;
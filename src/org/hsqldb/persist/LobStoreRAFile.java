@@ -34,8 +34,16 @@ package org.hsqldb.persist;
 import org.hsqldb.Database;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.HsqlArrayList;
 
 /**
+ * The file is not opened in synchronous mode. The LobManager forces the
+ * writes to disk before the log is synched and at checkpoint.<p>
+ *
+ * Reads can be performed concurrently by several threads, as long as there
+ * are no concurrent writes. Each reading thread uses a separate read-only
+ * file object.
+ *
  * @author Fred Toussi (fredt@users dot sourceforge.net)
  * @version 2.3.3
  * @since 1.9.0
@@ -46,6 +54,7 @@ public class LobStoreRAFile implements LobStore {
     String                fileName;
     RandomAccessInterface file;
     Database              database;
+    HsqlArrayList         readers = new HsqlArrayList();
 
     public LobStoreRAFile(Database database, int lobBlockSize) {
 
@@ -76,7 +85,7 @@ public class LobStoreRAFile implements LobStore {
             } else {
                 file = new RAFileSimple(database.logger, fileName,
                                         readonly ? "r"
-                                                 : "rws");
+                                                 : "rw");
             }
         } catch (Throwable t) {
             throw Error.error(ErrorCode.DATA_FILE_ERROR, t);
@@ -94,8 +103,21 @@ public class LobStoreRAFile implements LobStore {
             int    count     = blockCount * lobBlockSize;
             byte[] dataBytes = new byte[count];
 
-            file.seek(address);
-            file.read(dataBytes, 0, count);
+            if (database.logger.isStoredFileAccess()) {
+                synchronized (this) {
+                    file.seek(address);
+                    file.read(dataBytes, 0, count);
+                }
+            } else {
+                RandomAccessInterface reader = getReader();
+
+                try {
+                    reader.seek(address);
+                    reader.read(dataBytes, 0, count);
+                } finally {
+                    releaseReader(reader);
+                }
+            }
 
             return dataBytes;
         } catch (Throwable t) {
@@ -103,6 +125,36 @@ public class LobStoreRAFile implements LobStore {
         }
     }
 
+    private RandomAccessInterface getReader() throws Exception {
+
+        synchronized (readers) {
+            if (!readers.isEmpty()) {
+                return (RandomAccessInterface) readers.remove(readers.size()
+                        - 1);
+            }
+        }
+
+        return new RAFileSimple(database.logger, fileName, "r");
+    }
+
+    private void releaseReader(RandomAccessInterface reader) {
+
+        synchronized (readers) {
+            readers.add(reader);
+        }
+    }
+
+    private void closeReaders() throws Exception {
+
+        synchronized (readers) {
+            for (int i = 0; i < readers.size(); i++) {
+                ((RandomAccessInterface) readers.get(i)).close();
+            }
+
+            readers.clear();
+        }
+    }
+
     public void setBlockBytes(byte[] dataBytes, int blockAddress,
                               int blockCount) {
 
@@ -172,6 +224,8 @@ public class LobStoreRAFile implements LobStore {
     public void close() {
 
         try {
+            closeReaders();
+
             if (file != null) {
                 file.synch();
                 file.close();
@@ -49,6 +49,7 @@ import org.hsqldb.scriptio.ScriptReaderBase;
 import org.hsqldb.scriptio.ScriptReaderDecode;
 import org.hsqldb.scriptio.ScriptReaderText;
 import org.hsqldb.scriptio.ScriptWriterBase;
+import org.hsqldb.scriptio.ScriptWriterBinary;
 import org.hsqldb.scriptio.ScriptWriterEncode;
 import org.hsqldb.scriptio.ScriptWriterText;
 
@@ -681,7 +682,10 @@ public class Log {
         Crypto crypto = database.logger.getCrypto();
 
         try {
-            if (crypto == null) {
+            if (database.logger.propLogFormat == 1) {
+                dbLogWriter = new ScriptWriterBinary(database, logFileName,
+                                                     crypto);
+            } else if (crypto == null) {
                 dbLogWriter = new ScriptWriterText(database, logFileName,
                                                    false, false, false);
             } else {
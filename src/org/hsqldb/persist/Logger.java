@@ -130,7 +130,9 @@ public class Logger implements EventLogInterface {
     int             propLobBlockSize = 32 * 1024;
     boolean         propCompressLobs;
     int             propScriptFormat = 0;
+    int             propLogFormat    = 0;
     boolean         propLargeData;
+    boolean         propMemoryPoolValues;
     int             propFileSpaceValue;
     long            propFileTimestamp;
 
@@ -460,6 +462,8 @@ public class Logger implements EventLogInterface {
 
         propScriptFormat = database.databaseProperties.getIntegerProperty(
             HsqlDatabaseProperties.hsqldb_script_format);
+        propLogFormat = database.databaseProperties.getIntegerProperty(
+            HsqlDatabaseProperties.hsqldb_log_format);
 
         boolean version18 = database.databaseProperties.isVersion18();
 
@@ -472,6 +476,11 @@ public class Logger implements EventLogInterface {
             propLargeData = true;
         }
 
+        if (database.urlProperties.isPropertyTrue(
+                HsqlDatabaseProperties.hsqldb_memory_pool_values, false)) {
+            propMemoryPoolValues = true;
+        }
+
         if (!database.databaseProperties.isPropertyTrue(
                 HsqlDatabaseProperties.sql_pad_space, true)) {
             database.collation.setPadding(false);
@@ -547,6 +556,9 @@ public class Logger implements EventLogInterface {
         database.txConflictRollback =
             database.databaseProperties.isPropertyTrue(
                 HsqlDatabaseProperties.hsqldb_tx_conflict_rollback);
+        database.txRowLockLimit =
+            database.databaseProperties.getIntegerProperty(
+                HsqlDatabaseProperties.hsqldb_tx_row_locks);
         database.sqlEnforceNames = database.databaseProperties.isPropertyTrue(
             HsqlDatabaseProperties.sql_enforce_names);
         database.sqlRegularNames = database.databaseProperties.isPropertyTrue(
@@ -582,6 +594,8 @@ public class Logger implements EventLogInterface {
             HsqlDatabaseProperties.sql_longvar_is_lob);
         database.sqlIgnoreCase = database.databaseProperties.isPropertyTrue(
             HsqlDatabaseProperties.sql_ignore_case);
+        database.sqlParameterize = database.databaseProperties.isPropertyTrue(
+            HsqlDatabaseProperties.sql_parameterize);
         database.sqlSyntaxDb2 = database.databaseProperties.isPropertyTrue(
             HsqlDatabaseProperties.sql_syntax_db2);
         database.sqlSyntaxMss = database.databaseProperties.isPropertyTrue(
@@ -1105,6 +1119,24 @@ public class Logger implements EventLogInterface {
                                       stateCheckpointRequired);
     }
 
+    /**
+     *  Sets the type of log file, 0 for text (default) or 1 for binary.
+     *  The new format is used from the next checkpoint.
+     *
+     * @param  format The type
+     */
+    public synchronized void setLogFormat(int format) {
+
+        if (format == propLogFormat) {
+            return;
+        }
+
+        propLogFormat = format;
+
+        checkpointState.compareAndSet(stateCheckpointNormal,
+                                      stateCheckpointRequired);
+    }
+
     /**
      *  Sets the log write delay mode to number of seconds. By default
      *  executed commands written to the log are committed fully at most
@@ -1611,6 +1643,10 @@ public class Logger implements EventLogInterface {
             return String.valueOf(propLargeData);
         }
 
+        if (HsqlDatabaseProperties.hsqldb_memory_pool_values.equals(name)) {
+            return String.valueOf(propMemoryPoolValues);
+        }
+
         if (HsqlDatabaseProperties.hsqldb_lock_file.equals(name)) {
             return database.databaseProperties.getPropertyString(
                 HsqlDatabaseProperties.hsqldb_lock_file);
@@ -1624,6 +1660,11 @@ public class Logger implements EventLogInterface {
             return String.valueOf(propLogSize);
         }
 
+        if (HsqlDatabaseProperties.hsqldb_log_format.equals(name)) {
+            return ScriptWriterBase.LIST_SCRIPT_FORMATS[propLogFormat]
+                .toLowerCase();
+        }
+
         if (HsqlDatabaseProperties.hsqldb_nio_data_file.equals(name)) {
             return String.valueOf(propNioDataFile);
         }
@@ -1645,6 +1686,10 @@ public class Logger implements EventLogInterface {
             return String.valueOf(database.txConflictRollback);
         }
 
+        if (HsqlDatabaseProperties.hsqldb_tx_row_locks.equals(name)) {
+            return String.valueOf(database.txRowLockLimit);
+        }
+
         if (HsqlDatabaseProperties.hsqldb_result_max_memory_rows.equals(
                 name)) {
             return String.valueOf(database.getResultMaxMemoryRows());
@@ -1710,6 +1755,10 @@ public class Logger implements EventLogInterface {
             return String.valueOf(database.sqlLongvarIsLob);
         }
 
+        if (HsqlDatabaseProperties.sql_parameterize.equals(name)) {
+            return String.valueOf(database.sqlParameterize);
+        }
+
         if (HsqlDatabaseProperties.sql_nulls_first.equals(name)) {
             return String.valueOf(database.sqlNullsFirst);
         }
@@ -1813,6 +1862,14 @@ public class Logger implements EventLogInterface {
         sb.append(database.getResultMaxMemoryRows());
         list.add(sb.toString());
         sb.setLength(0);
+
+        if (database.resultCache.getMaxRows() != 0) {
+            sb.append("SET DATABASE ").append(Tokens.T_RESULT).append(' ');
+            sb.append(Tokens.T_CACHE).append(' ').append(Tokens.T_ROWS);
+            sb.append(' ').append(database.resultCache.getMaxRows());
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
         sb.append("SET DATABASE ").append(Tokens.T_EVENT).append(' ');
         sb.append(Tokens.T_LOG).append(' ').append(Tokens.T_LEVEL);
         sb.append(' ').append(propEventLogLevel);
@@ -1874,6 +1931,15 @@ public class Logger implements EventLogInterface {
                                               : Tokens.T_FALSE);
         list.add(sb.toString());
         sb.setLength(0);
+
+        if (database.txRowLockLimit > 0) {
+            sb.append("SET DATABASE ").append(Tokens.T_TRANSACTION);
+            sb.append(' ').append(Tokens.T_ROW).append(' ');
+            sb.append(Tokens.T_LOCKS).append(' ');
+            sb.append(database.txRowLockLimit);
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
         sb.append("SET DATABASE ").append(Tokens.T_TEXT).append(' ');
         sb.append(Tokens.T_TABLE).append(' ').append(Tokens.T_DEFAULTS);
         sb.append(' ').append('\'');
@@ -2030,6 +2096,14 @@ public class Logger implements EventLogInterface {
             sb.setLength(0);
         }
 
+        if (database.sqlParameterize) {
+            sb.append("SET DATABASE ").append(Tokens.T_SQL).append(' ');
+            sb.append(Tokens.T_PARAMETERIZE).append(' ');
+            sb.append(Tokens.T_TRUE);
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
+
         if (database.sqlSyntaxDb2) {
             sb.append("SET DATABASE ").append(Tokens.T_SQL).append(' ');
             sb.append(Tokens.T_SYNTAX).append(' ');
@@ -2170,6 +2244,14 @@ public class Logger implements EventLogInterface {
         list.add(sb.toString());
         sb.setLength(0);
 
+        if (propLogFormat != 0) {
+            sb.append("SET FILES ").append(Tokens.T_LOG).append(' ');
+            sb.append(Tokens.T_FORMAT).append(' ');
+            sb.append(ScriptWriterBase.LIST_SCRIPT_FORMATS[propLogFormat]);
+            list.add(sb.toString());
+            sb.setLength(0);
+        }
+
         if (propFileTimestamp != 0) {
             sb.append("SET FILES ").append(Tokens.T_CHECK).append(' ');
             sb.append(propFileTimestamp);
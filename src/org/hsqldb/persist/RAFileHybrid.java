@@ -32,6 +32,7 @@
 package org.hsqldb.persist;
 
 import java.io.IOException;
+import java.nio.MappedByteBuffer;
 
 import org.hsqldb.Database;
 
@@ -154,6 +155,19 @@ public final class RAFileHybrid implements RandomAccessInterface {
         store.synch();
     }
 
+    /**
+     * Returns the mapped buffer that contains the given file position, or
+     * null if the file is not currently accessed with NIO.
+     */
+    MappedByteBuffer getMappedBuffer(long position) {
+
+        if (isNio) {
+            return ((RAFileNIO) store).getMappedBuffer(position);
+        }
+
+        return null;
+    }
+
     void newStore(long requiredPosition) throws IOException {
 
         long currentPosition = 0;
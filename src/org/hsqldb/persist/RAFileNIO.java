@@ -472,6 +472,26 @@ final class RAFileNIO implements RandomAccessInterface {
         }
     }
 
+    /**
+     * Returns the mapped buffer that contains the given file position, or
+     * null if the position is beyond the mapped buffers. Only the absolute
+     * get methods of the returned buffer should be used.
+     */
+    MappedByteBuffer getMappedBuffer(long position) {
+
+        int bufferIndex = (int) (position >> largeBufferScale);
+
+        if (bufferIndex >= buffers.length) {
+            return null;
+        }
+
+        return buffers[bufferIndex];
+    }
+
+    static int getMappedBufferOffset(long position) {
+        return (int) (position & ~largeBufferMask);
+    }
+
     private void positionBufferSeek(long offset) {
 
         if (offset < bufferPosition
@@ -43,6 +43,7 @@ import org.hsqldb.RowAVLDiskLarge;
 import org.hsqldb.RowAction;
 import org.hsqldb.Session;
 import org.hsqldb.Table;
+import org.hsqldb.TablePartitions;
 import org.hsqldb.TransactionManager;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
@@ -140,7 +141,7 @@ public class RowStoreAVLDisk extends RowStoreAVL implements PersistentStore {
 
         object.setStorageSize(size);
 
-        long pos = tableSpace.getFilePosition(size, false);
+        long pos = getSpaceManager(object).getFilePosition(size, false);
 
         object.setPos(pos);
 
@@ -216,17 +217,71 @@ public class RowStoreAVLDisk extends RowStoreAVL implements PersistentStore {
 
         elementCount.set(0);
         cache.spaceManager.freeTableSpace(tableSpace.getSpaceID());
+
+        TablePartitions partitions = ((Table) table).getPartitions();
+
+        if (partitions != null) {
+            for (int i = 0; i < partitions.getPartitionCount(); i++) {
+                cache.spaceManager.freeTableSpace(partitions.getSpaceID(i));
+            }
+        }
+
         ArrayUtil.fillArray(accessorList, null);
     }
 
     public void remove(CachedObject object) {
 
         cache.remove(object);
-        tableSpace.release(object.getPos(), object.getStorageSize());
+        getSpaceManager(object).release(object.getPos(),
+                                        object.getStorageSize());
 
         storageSize -= object.getStorageSize();
     }
 
+    /**
+     * Removes the rows of a partition that has its own table space. The rows
+     * must have been deleted from the indexes. The space is released in bulk.
+     */
+    public void removePartition(Row[] rows, int spaceId) {
+
+        for (int i = 0; i < rows.length; i++) {
+            cache.remove(rows[i]);
+
+            storageSize -= rows[i].getStorageSize();
+        }
+
+        if (spaceId != tableSpace.getSpaceID()) {
+            cache.spaceManager.freeTableSpace(spaceId);
+        }
+    }
+
+    /**
+     * Returns the space manager for the row. The rows of each partition of a
+     * partitioned table may be stored in a separate table space.
+     */
+    TableSpaceManager getSpaceManager(CachedObject object) {
+
+        TablePartitions partitions = ((Table) table).getPartitions();
+
+        if (partitions == null) {
+            return tableSpace;
+        }
+
+        int index = partitions.getPartitionIndex(((Row) object).getData());
+
+        if (index < 0) {
+            return tableSpace;
+        }
+
+        int spaceId = partitions.getSpaceID(index);
+
+        if (spaceId == DataSpaceManager.tableIdDefault) {
+            return tableSpace;
+        }
+
+        return cache.spaceManager.getTableSpace(spaceId);
+    }
+
     public void commitPersistence(CachedObject row) {}
 
     public void postCommitAction(Session session, RowAction action) {
@@ -445,22 +500,61 @@ public class RowStoreAVLDisk extends RowStoreAVL implements PersistentStore {
         int spaceId = table.getSpaceID();
         TableSpaceManager targetSpace =
             targetCache.spaceManager.getTableSpace(spaceId);
+        TablePartitions     partitions      = ((Table) table).getPartitions();
+        TableSpaceManager[] partitionSpaces = null;
+        DoubleIntIndex      partitionLookup = null;
+
+        if (partitions != null && partitions.hasSpaces()) {
+            partitionSpaces =
+                new TableSpaceManager[partitions.getPartitionCount()];
+
+            for (int i = 0; i < partitionSpaces.length; i++) {
+                partitionSpaces[i] = targetCache.spaceManager.getTableSpace(
+                    partitions.getSpaceID(i));
+            }
+
+            partitionLookup = new DoubleIntIndex(pointerLookup.capacity(),
+                                                 false);
+
+            partitionLookup.setKeysSearchTarget();
+        }
 
         pointerLookup.setKeysSearchTarget();
 
         RowIterator it = indexList[0].firstRow(this);
 
         while (it.hasNext()) {
-            CachedObject row = it.getNextRow();
+            Row row = it.getNextRow();
 
             pointerLookup.addUnsorted(row.getPos(), row.getStorageSize());
+
+            if (partitionLookup != null) {
+                partitionLookup.addUnsorted(
+                    (int) row.getPos(),
+                    partitions.getPartitionIndex(row.getData()));
+            }
         }
 
         pointerLookup.sort();
 
+        if (partitionLookup != null) {
+            partitionLookup.sort();
+        }
+
         for (int i = 0; i < pointerLookup.size(); i++) {
-            long newPos =
-                targetSpace.getFilePosition(pointerLookup.getValue(i), false);
+            TableSpaceManager space = targetSpace;
+
+            if (partitionLookup != null) {
+                int index = partitionLookup.lookup(pointerLookup.getKey(i),
+                                                   -1);
+
+                if (index >= 0) {
+                    space = partitionSpaces[index];
+                }
+            }
+
+            long newPos = space.getFilePosition(pointerLookup.getValue(i),
+                                                false);
 
             pointerLookup.setValue(i, (int) newPos);
         }
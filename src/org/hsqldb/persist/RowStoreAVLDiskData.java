@@ -121,6 +121,21 @@ public class RowStoreAVLDiskData extends RowStoreAVL {
         }
     }
 
+    /**
+     * Returns a row for data already parsed from the text source
+     */
+    public CachedObject get(Object[] data, long pos, int size) {
+
+        RowAVLDiskData row = new RowAVLDiskData(this, table, data);
+
+        row.setPos(pos);
+        row.setStorageSize(size);
+        row.setChanged(false);
+        ((TextCache) cache).addInit(row);
+
+        return row;
+    }
+
     public CachedObject get(CachedObject object, RowInputInterface in) {
 
         try {
@@ -31,6 +31,7 @@
 
 package org.hsqldb.persist;
 
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -45,8 +46,11 @@ import org.hsqldb.Table;
 import org.hsqldb.TransactionManager;
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
+import org.hsqldb.index.Index;
 import org.hsqldb.lib.ArrayUtil;
 import org.hsqldb.rowio.RowInputInterface;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
 
 /*
  * Implementation of PersistentStore for MEMORY tables.
@@ -63,6 +67,13 @@ public class RowStoreAVLMemory extends RowStoreAVL implements PersistentStore {
     Lock          readLock;
     Lock          writeLock;
 
+    // shared values of the columns with repeated values
+    static final int    poolSampleSize = 4096;
+    static final int    poolMaxSize    = 65536;
+    ConcurrentHashMap[] poolMaps;
+    int[]               poolLookups;
+    int[]               poolHits;
+
     public RowStoreAVLMemory(Table table) {
 
         this.database     = table.database;
@@ -72,6 +83,80 @@ public class RowStoreAVLMemory extends RowStoreAVL implements PersistentStore {
         lock              = new ReentrantReadWriteLock();
         readLock          = lock.readLock();
         writeLock         = lock.writeLock();
+
+        if (database.logger.propMemoryPoolValues) {
+            setPoolMaps();
+        }
+    }
+
+    /**
+     * Creates a map of shared values for each column that can have repeated
+     * values of a type that is stored as an object. Columns that are the
+     * only column of a UNIQUE or PRIMARY KEY index are not included.
+     */
+    private void setPoolMaps() {
+
+        Type[]              types = table.getColumnTypes();
+        ConcurrentHashMap[] maps  = null;
+
+        for (int i = 0; i < types.length; i++) {
+            if (!isPoolType(types[i]) || isUniqueColumn(i)) {
+                continue;
+            }
+
+            if (maps == null) {
+                maps = new ConcurrentHashMap[types.length];
+            }
+
+            maps[i] = new ConcurrentHashMap();
+        }
+
+        if (maps != null) {
+            poolLookups = new int[types.length];
+            poolHits    = new int[types.length];
+        }
+
+        poolMaps = maps;
+    }
+
+    private static boolean isPoolType(Type type) {
+
+        switch (type.typeCode) {
+
+            case Types.TINYINT :
+            case Types.SQL_SMALLINT :
+            case Types.SQL_INTEGER :
+            case Types.SQL_BIGINT :
+            case Types.SQL_REAL :
+            case Types.SQL_FLOAT :
+            case Types.SQL_DOUBLE :
+            case Types.SQL_NUMERIC :
+            case Types.SQL_DECIMAL :
+            case Types.SQL_CHAR :
+            case Types.SQL_VARCHAR :
+            case Types.VARCHAR_IGNORECASE :
+            case Types.SQL_DATE :
+            case Types.SQL_TIME :
+            case Types.SQL_TIMESTAMP :
+                return true;
+
+            default :
+                return false;
+        }
+    }
+
+    private boolean isUniqueColumn(int column) {
+
+        for (int i = 0; i < indexList.length; i++) {
+            Index index = indexList[i];
+
+            if (index.isUnique() && index.getColumnCount() == 1
+                    && index.getColumns()[0] == column) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     public boolean isMemory() {
@@ -105,6 +190,10 @@ public class RowStoreAVLMemory extends RowStoreAVL implements PersistentStore {
     public CachedObject getNewCachedObject(Session session, Object object,
                                            boolean tx) {
 
+        if (poolMaps != null) {
+            poolValues((Object[]) object);
+        }
+
         int id  = rowIdSequence.getAndIncrement();
         Row row = new RowAVL(table, (Object[]) object, id, this);
 
@@ -115,12 +204,115 @@ public class RowStoreAVLMemory extends RowStoreAVL implements PersistentStore {
         return row;
     }
 
+    /**
+     * Replaces the values of a new row with the equal values already held by
+     * other rows of the table, so that repeated values in large MEMORY
+     * tables do not each occupy a separate object on the heap. The maps are
+     * read and updated without locking the store. A column stops being
+     * pooled when few of its first values are repeated, or when the number
+     * of distinct values reaches a limit.
+     */
+    void poolValues(Object[] data) {
+
+        int count = Math.min(data.length, poolMaps.length);
+
+        for (int i = 0; i < count; i++) {
+            ConcurrentHashMap map   = poolMaps[i];
+            Object            value = data[i];
+
+            if (map == null || value == null) {
+                continue;
+            }
+
+            Object shared = map.get(value);
+
+            if (shared != null) {
+                data[i] = shared;
+
+                if (poolLookups[i] < poolSampleSize) {
+                    poolLookups[i]++;
+                    poolHits[i]++;
+                }
+
+                continue;
+            }
+
+            if (poolLookups[i] < poolSampleSize) {
+                poolLookups[i]++;
+
+                if (poolLookups[i] == poolSampleSize
+                        && poolHits[i] < poolSampleSize / 2) {
+                    poolMaps[i] = null;
+
+                    continue;
+                }
+            }
+
+            if (map.size() >= poolMaxSize) {
+                poolMaps[i] = null;
+
+                continue;
+            }
+
+            shared = map.putIfAbsent(value, value);
+
+            if (shared != null) {
+                data[i] = shared;
+            }
+        }
+    }
+
     public void removeAll() {
 
         destroy();
         setTimestamp(0);
         elementCount.set(0);
         ArrayUtil.fillArray(accessorList, null);
+
+        resetPoolMaps();
+    }
+
+    /**
+     * Releases the shared values of the removed rows and starts sampling
+     * again for the new rows. Called when the table becomes empty.
+     */
+    private void resetPoolMaps() {
+
+        if (poolMaps != null) {
+            setPoolMaps();
+        }
+    }
+
+    /**
+     * Returns the number of shared values held for the columns of the table.
+     */
+    public int getPoolSize() {
+
+        ConcurrentHashMap[] maps  = poolMaps;
+        int                 count = 0;
+
+        if (maps == null) {
+            return 0;
+        }
+
+        for (int i = 0; i < maps.length; i++) {
+            ConcurrentHashMap map = maps[i];
+
+            if (map != null) {
+                count += map.size();
+            }
+        }
+
+        return count;
+    }
+
+    public void delete(Session session, Row row) {
+
+        super.delete(session, row);
+
+        if (elementCount.get() == 0) {
+            resetPoolMaps();
+        }
     }
 
     public void remove(CachedObject object) {}
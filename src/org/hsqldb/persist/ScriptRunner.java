@@ -52,6 +52,7 @@ import org.hsqldb.lib.StopWatch;
 import org.hsqldb.map.ValuePool;
 import org.hsqldb.result.Result;
 import org.hsqldb.scriptio.ScriptReaderBase;
+import org.hsqldb.scriptio.ScriptReaderBinary;
 import org.hsqldb.scriptio.ScriptReaderDecode;
 import org.hsqldb.scriptio.ScriptReaderText;
 import org.hsqldb.types.Type;
@@ -78,7 +79,9 @@ public class ScriptRunner {
         ScriptReaderBase scr;
 
         try {
-            if (crypto == null) {
+            if (ScriptReaderBinary.isBinaryLog(database, logFilename)) {
+                scr = new ScriptReaderBinary(database, logFilename, crypto);
+            } else if (crypto == null) {
                 scr = new ScriptReaderText(database, logFilename, false);
             } else {
                 scr = new ScriptReaderDecode(database, logFilename, crypto,
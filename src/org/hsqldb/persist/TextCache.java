@@ -42,6 +42,7 @@ import org.hsqldb.error.ErrorCode;
 import org.hsqldb.lib.FileUtil;
 import org.hsqldb.lib.HsqlByteArrayOutputStream;
 import org.hsqldb.lib.LongKeyHashMap;
+import org.hsqldb.rowio.RowInputInterface;
 import org.hsqldb.rowio.RowInputText;
 import org.hsqldb.rowio.RowInputTextQuoted;
 import org.hsqldb.rowio.RowOutputText;
@@ -123,19 +124,15 @@ public class TextCache extends DataFileCache {
 
     protected void initBuffers() {
 
+        rowIn = newRowInput();
+
         if (textFileSettings.isQuoted || textFileSettings.isAllQuoted) {
-            rowIn = new RowInputTextQuoted(textFileSettings.fs,
-                                           textFileSettings.vs,
-                                           textFileSettings.lvs,
-                                           textFileSettings.isAllQuoted);
             rowOut = new RowOutputTextQuoted(textFileSettings.fs,
                                              textFileSettings.vs,
                                              textFileSettings.lvs,
                                              textFileSettings.isAllQuoted,
                                              textFileSettings.stringEncoding);
         } else {
-            rowIn = new RowInputText(textFileSettings.fs, textFileSettings.vs,
-                                     textFileSettings.lvs, false);
             rowOut = new RowOutputText(textFileSettings.fs,
                                        textFileSettings.vs,
                                        textFileSettings.lvs, false,
@@ -143,6 +140,23 @@ public class TextCache extends DataFileCache {
         }
     }
 
+    /**
+     * Returns a new row input object for the text format of the file. Used
+     * for parsing row strings in separate threads.
+     */
+    public RowInputInterface newRowInput() {
+
+        if (textFileSettings.isQuoted || textFileSettings.isAllQuoted) {
+            return new RowInputTextQuoted(textFileSettings.fs,
+                                          textFileSettings.vs,
+                                          textFileSettings.lvs,
+                                          textFileSettings.isAllQuoted);
+        } else {
+            return new RowInputText(textFileSettings.fs, textFileSettings.vs,
+                                    textFileSettings.lvs, false);
+        }
+    }
+
     /**
      *  Opens a data source file.
      */
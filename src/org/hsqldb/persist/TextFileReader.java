@@ -41,15 +41,22 @@ import org.hsqldb.rowio.RowInputInterface;
 import org.hsqldb.rowio.RowInputText;
 
 /**
- * Reader for text files.
+ * Reader for text files.<p>
+ *
+ * The file is read in large blocks into a buffer and scanned for line
+ * boundaries in the buffer. The readRowStrings method returns the source
+ * strings of a batch of rows, which can be parsed in separate threads.
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.3.0
+ * @version 2.3.3
  * @since 2.2.7
 */
 public class TextFileReader {
 
+    static final int readBufferSize = 1 << 16;
+
+    //
     private RandomAccessInterface     dataFile;
     private RowInputInterface         rowIn;
     private TextFileSettings          textFileSettings;
@@ -57,6 +64,19 @@ public class TextFileReader {
     private boolean                   isReadOnly;
     private HsqlByteArrayOutputStream buffer;
 
+    // block of the file read into memory
+    private byte[] readBuffer;
+    private long   readBufferOffset;
+    private int    readBufferLength;
+
+    // last row read
+    private String rowString;
+    private long   rowPos;
+
+    // line count for readRowStrings(), not affected by rows read again by
+    // the cache between calls
+    private int rowLineNumber;
+
     TextFileReader(RandomAccessInterface dataFile,
                    TextFileSettings textFileSettings, RowInputInterface rowIn,
                    boolean isReadOnly) {
@@ -66,10 +86,53 @@ public class TextFileReader {
         this.rowIn            = rowIn;
         this.isReadOnly       = isReadOnly;
         this.buffer           = new HsqlByteArrayOutputStream(128);
+        this.readBuffer       = new byte[readBufferSize];
     }
 
     public RowInputInterface readObject(long pos) {
 
+        if (!readRow(pos)) {
+            return null;
+        }
+
+        ((RowInputText) rowIn).setSource(rowString, rowPos, buffer.size());
+
+        return rowIn;
+    }
+
+    /**
+     * Reads the source strings of up to rows.length rows, starting from pos.
+     * The position, byte size and line number of each row are returned in
+     * the other arrays. Returns the number of rows read.
+     */
+    public int readRowStrings(long pos, String[] rows, long[] positions,
+                              int[] sizes, int[] lines) {
+
+        int count    = 0;
+        int lastLine = getLineNumber();
+
+        for (; count < rows.length; count++) {
+            if (!readRow(pos)) {
+                break;
+            }
+
+            // counts the line as setSource() would
+            ((RowInputText) rowIn).skippedLine();
+
+            rowLineNumber    += getLineNumber() - lastLine;
+            lastLine         = getLineNumber();
+            rows[count]      = rowString;
+            positions[count] = rowPos;
+            sizes[count]     = buffer.size();
+            lines[count]     = rowLineNumber;
+            pos              = rowPos + buffer.size();
+        }
+
+        return count;
+    }
+
+    private boolean readRow(long pos) {
+
         boolean hasQuote  = false;
         boolean complete  = false;
         boolean wasCR     = false;
@@ -80,20 +143,20 @@ public class TextFileReader {
         pos = findNextUsedLinePos(pos);
 
         if (pos == -1) {
-            return null;
+            return false;
         }
 
         try {
-            dataFile.seek(pos);
+            long currentPos = pos;
 
             while (!complete) {
-                int c = dataFile.read();
+                int c = readByte(currentPos++);
 
                 wasNormal = false;
 
                 if (c == -1) {
                     if (buffer.size() == 0) {
-                        return null;
+                        return false;
                     }
 
                     complete = true;
@@ -103,8 +166,7 @@ public class TextFileReader {
                     }
 
                     if (!isReadOnly) {
-                        dataFile.write(TextFileSettings.BYTES_LINE_SEP, 0,
-                                       TextFileSettings.BYTES_LINE_SEP.length);
+                        writeLineSeparator();
                         buffer.write(TextFileSettings.BYTES_LINE_SEP);
                     }
 
@@ -145,8 +207,6 @@ public class TextFileReader {
                     buffer.setPosition(buffer.size() - 1);
                 }
 
-                String rowString;
-
                 try {
                     rowString =
                         buffer.toString(textFileSettings.stringEncoding);
@@ -154,13 +214,12 @@ public class TextFileReader {
                     rowString = buffer.toString();
                 }
 
-                ((RowInputText) rowIn).setSource(rowString, pos,
-                                                 buffer.size());
+                rowPos = pos;
 
-                return rowIn;
+                return true;
             }
 
-            return null;
+            return false;
         } catch (IOException e) {
             throw Error.error(ErrorCode.TEXT_FILE_IO, e);
         }
@@ -171,22 +230,17 @@ public class TextFileReader {
         boolean complete  = false;
         boolean wasCR     = false;
         boolean wasNormal = false;
+        long    currentPos = 0;
 
         buffer.reset();
 
-        try {
-            dataFile.seek(0);
-        } catch (IOException e) {
-            throw Error.error(ErrorCode.TEXT_FILE_IO, e);
-        }
-
         while (!complete) {
             wasNormal = false;
 
             int c;
 
             try {
-                c = dataFile.read();
+                c = readByte(currentPos++);
 
                 if (c == -1) {
                     if (buffer.size() == 0) {
@@ -196,8 +250,7 @@ public class TextFileReader {
                     complete = true;
 
                     if (!isReadOnly) {
-                        dataFile.write(TextFileSettings.BYTES_LINE_SEP, 0,
-                                       TextFileSettings.BYTES_LINE_SEP.length);
+                        writeLineSeparator();
                         buffer.write(TextFileSettings.BYTES_LINE_SEP);
                     }
 
@@ -259,10 +312,8 @@ public class TextFileReader {
             long     currentPos = pos;
             boolean wasCR      = false;
 
-            dataFile.seek(pos);
-
             while (true) {
-                int c = dataFile.read();
+                int c = readByte(currentPos);
 
                 currentPos++;
 
@@ -306,6 +357,47 @@ public class TextFileReader {
         }
     }
 
+    /**
+     * Returns the byte at the given position, or -1 at the end of file
+     */
+    private int readByte(long pos) throws IOException {
+
+        long offset = pos - readBufferOffset;
+
+        if (offset < 0 || offset >= readBufferLength) {
+            long length = dataFile.length() - pos;
+
+            if (length <= 0) {
+                return -1;
+            }
+
+            if (length > readBuffer.length) {
+                length = readBuffer.length;
+            }
+
+            dataFile.seek(pos);
+            dataFile.read(readBuffer, 0, (int) length);
+
+            readBufferOffset = pos;
+            readBufferLength = (int) length;
+            offset           = 0;
+        }
+
+        return readBuffer[(int) offset] & 0xff;
+    }
+
+    /**
+     * Appends a line separator to a file that does not end with one
+     */
+    private void writeLineSeparator() throws IOException {
+
+        dataFile.seek(dataFile.length());
+        dataFile.write(TextFileSettings.BYTES_LINE_SEP, 0,
+                       TextFileSettings.BYTES_LINE_SEP.length);
+
+        readBufferLength = 0;
+    }
+
     public String getHeaderLine() {
         return header;
     }
@@ -60,6 +60,7 @@ public class TextFileSettings {
     String   dataFileName;
     int      maxCacheRows;
     int      maxCacheBytes;
+    int      parallelReadSize;
 
     //
     static final byte[] BYTES_LINE_SEP    = NL.getBytes();
@@ -177,6 +178,14 @@ public class TextFileSettings {
         maxCacheBytes = tableprops.getIntegerProperty(
             HsqlDatabaseProperties.textdb_cache_size, (int) maxCacheBytes);
         maxCacheBytes *= 1024;
+
+        //
+        parallelReadSize = dbProps.getIntegerProperty(
+            HsqlDatabaseProperties.textdb_parallel_read_size);
+        parallelReadSize = tableprops.getIntegerProperty(
+            HsqlDatabaseProperties.textdb_parallel_read_size,
+            parallelReadSize);
+        parallelReadSize *= 1024;
     }
 
     String getFileName() {
@@ -191,6 +200,14 @@ public class TextFileSettings {
         return maxCacheBytes;
     }
 
+    /**
+     * Returns the minimum size of a source file that is parsed in several
+     * threads when the table is connected.
+     */
+    public int getParallelReadSize() {
+        return parallelReadSize;
+    }
+
     private static String translateSep(String sep) {
         return translateSep(sep, false);
     }
@@ -35,6 +35,8 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import org.hsqldb.error.Error;
 import org.hsqldb.error.ErrorCode;
@@ -61,7 +63,7 @@ import org.hsqldb.types.Types;
  *
  * @author Bob Preston (sqlbob@users dot sourceforge.net)
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.2.9
+ * @version 2.3.3
  * @since 1.7.0
  */
 public class RowInputBinary extends RowInputBase implements RowInputInterface {
@@ -69,6 +71,10 @@ public class RowInputBinary extends RowInputBase implements RowInputInterface {
     public boolean          ignoreDataErrors;
     private RowOutputBinary out;
 
+    // for tables with compressed rows
+    private Inflater inflater;
+    private byte[]   inflateBuffer;
+
     public RowInputBinary(byte[] buf) {
         super(buf);
     }
@@ -201,7 +207,26 @@ public class RowInputBinary extends RowInputBase implements RowInputInterface {
 
     protected BigDecimal readDecimal(Type type) {
 
-        byte[]     bytes  = readByteArray();
+        int length = readInt();
+
+        // unscaled values of up to 8 bytes are read into a long
+        if (length > 0 && length <= 8) {
+            long unscaled = readByte();
+
+            for (int i = 1; i < length; i++) {
+                unscaled = (unscaled << 8) | (readByte() & 0xff);
+            }
+
+            int scale = readInt();
+
+            return ValuePool.getBigDecimal(BigDecimal.valueOf(unscaled,
+                    scale));
+        }
+
+        byte[] bytes = new byte[length];
+
+        readFully(bytes);
+
         int        scale  = readInt();
         BigInteger bigint = new BigInteger(bytes);
 
@@ -325,6 +350,68 @@ public class RowInputBinary extends RowInputBase implements RowInputInterface {
         return super.readData(colTypes);
     }
 
+    /**
+     * Reads the row data written by RowOutputBinary for a table with
+     * compressed rows.
+     */
+    public Object[] readCompressedData(Type[] colTypes, byte[] dictionary) {
+
+        if (ignoreDataErrors) {
+            return new Object[colTypes.length];
+        }
+
+        int length = readInt();
+
+        if (length < 0) {
+            return super.readData(colTypes);
+        }
+
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+
+        if (inflateBuffer == null || inflateBuffer.length < length) {
+            inflateBuffer = new byte[length];
+        }
+
+        try {
+            inflater.setInput(buffer, pos, count - pos);
+
+            int newLength = inflater.inflate(inflateBuffer, 0, length);
+
+            if (newLength == 0 && inflater.needsDictionary()
+                    && dictionary != null) {
+                inflater.setDictionary(dictionary);
+
+                newLength = inflater.inflate(inflateBuffer, 0, length);
+            }
+
+            if (newLength != length) {
+                throw Error.error(ErrorCode.DATA_FILE_ERROR,
+                                  "RowInputBinary");
+            }
+        } catch (DataFormatException e) {
+            throw Error.error(e, ErrorCode.DATA_FILE_ERROR, "RowInputBinary");
+        } finally {
+            inflater.reset();
+        }
+
+        byte[] savedBuffer = buffer;
+        int    savedCount  = count;
+
+        buffer = inflateBuffer;
+        pos    = 0;
+        count  = length;
+
+        try {
+            return super.readData(colTypes);
+        } finally {
+            buffer = savedBuffer;
+            pos    = savedCount;
+            count  = savedCount;
+        }
+    }
+
     // helper methods
     public byte[] readByteArray() {
 
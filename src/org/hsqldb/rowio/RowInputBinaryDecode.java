@@ -52,6 +52,20 @@ public class RowInputBinaryDecode extends RowInputBinary {
 
     public Object[] readData(Type[] colTypes) {
 
+        decode();
+
+        return super.readData(colTypes);
+    }
+
+    public Object[] readCompressedData(Type[] colTypes, byte[] dictionary) {
+
+        decode();
+
+        return super.readCompressedData(colTypes, dictionary);
+    }
+
+    private void decode() {
+
         if (crypto != null) {
             int start = pos;
             int size  = readInt();
@@ -60,7 +74,5 @@ public class RowInputBinaryDecode extends RowInputBinary {
 
             pos = start;
         }
-
-        return super.readData(colTypes);
     }
 }
@@ -0,0 +1,325 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.rowio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.StringConverter;
+import org.hsqldb.map.ValuePool;
+import org.hsqldb.types.Type;
+
+/**
+ * Reads the rows of a CACHED table .data file directly from the mapped
+ * buffer of an NIO data file, without copying each row into a byte[] buffer.
+ *
+ * After a call to resetMapped(), the row is decoded from the given region of
+ * the mapped buffer. The other reset methods return the object to reading
+ * from its byte[] buffer as a RowInputBinary. The methods that need the
+ * byte[] form of the row copy it from the mapped buffer when they are
+ * called.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class RowInputBinaryMapped extends RowInputBinary {
+
+    private ByteBuffer segment;
+    private ByteBuffer view;
+    private int        offset;
+    private boolean    isMapped;
+    private char[]     charBuffer = new char[64];
+
+    public RowInputBinaryMapped(byte[] buf) {
+        super(buf);
+    }
+
+    /**
+     *  Used to reset the row, ready for a row to be read from the rowsize
+     *  bytes of buffer, starting at offset.
+     */
+    public void resetMapped(long filepos, ByteBuffer buffer, int offset,
+                            int rowsize) {
+
+        if (buffer != segment) {
+            segment = buffer;
+
+            // the position of the shared buffer is not used by this object
+            view = buffer.duplicate();
+        }
+
+        this.offset = offset;
+        isMapped    = true;
+        mark        = 0;
+        filePos     = filepos;
+        size        = count = rowsize;
+        pos         = 4;
+    }
+
+    public void resetRow(int rowsize) {
+
+        isMapped = false;
+
+        super.resetRow(rowsize);
+    }
+
+    public void resetRow(long filepos, int rowsize) {
+
+        isMapped = false;
+
+        super.resetRow(filepos, rowsize);
+    }
+
+    public void resetBlock(long filepos, int rowsize) {
+
+        isMapped = false;
+
+        super.resetBlock(filepos, rowsize);
+    }
+
+    public byte[] getBuffer() {
+
+        if (isMapped) {
+            copyToBuffer();
+        }
+
+        return buffer;
+    }
+
+    public int read() {
+
+        if (!isMapped) {
+            return super.read();
+        }
+
+        return (pos < count) ? (view.get(offset + pos++) & 0xff)
+                             : -1;
+    }
+
+    public int read(byte[] b, int off, int len) {
+
+        if (!isMapped) {
+            return super.read(b, off, len);
+        }
+
+        if (pos >= count) {
+            return -1;
+        }
+
+        if (pos + len > count) {
+            len = count - pos;
+        }
+
+        if (len <= 0) {
+            return 0;
+        }
+
+        view.position(offset + pos);
+        view.get(b, off, len);
+
+        pos += len;
+
+        return len;
+    }
+
+    public byte readByte() {
+
+        if (!isMapped) {
+            return super.readByte();
+        }
+
+        checkAvailable(1);
+
+        return view.get(offset + pos++);
+    }
+
+    public boolean readBoolean() {
+
+        if (!isMapped) {
+            return super.readBoolean();
+        }
+
+        return readByte() != 0;
+    }
+
+    public short readShort() {
+
+        if (!isMapped) {
+            return super.readShort();
+        }
+
+        checkAvailable(2);
+
+        short value = view.getShort(offset + pos);
+
+        pos += 2;
+
+        return value;
+    }
+
+    public char readChar() {
+
+        if (!isMapped) {
+            return super.readChar();
+        }
+
+        checkAvailable(2);
+
+        char value = view.getChar(offset + pos);
+
+        pos += 2;
+
+        return value;
+    }
+
+    public int readInt() {
+
+        if (!isMapped) {
+            return super.readInt();
+        }
+
+        checkAvailable(4);
+
+        int value = view.getInt(offset + pos);
+
+        pos += 4;
+
+        return value;
+    }
+
+    public long readLong() {
+
+        if (!isMapped) {
+            return super.readLong();
+        }
+
+        checkAvailable(8);
+
+        long value = view.getLong(offset + pos);
+
+        pos += 8;
+
+        return value;
+    }
+
+    public String readString() {
+
+        if (!isMapped) {
+            return super.readString();
+        }
+
+        int length = readInt();
+
+        if (length < 0) {
+            throw Error.error(ErrorCode.GENERAL_IO_ERROR,
+                              "RowInputBinary - negative length");
+        }
+
+        checkAvailable(length);
+
+        if (charBuffer.length < length) {
+            charBuffer = new char[length];
+        }
+
+        try {
+            String s = StringConverter.readUTF(view, offset + pos, length,
+                                               charBuffer);
+
+            s   = ValuePool.getString(s);
+            pos += length;
+
+            return s;
+        } catch (IOException e) {
+            throw Error.error(e, ErrorCode.GENERAL_IO_ERROR, "RowInputBinary");
+        }
+    }
+
+    public Object[] readCompressedData(Type[] colTypes, byte[] dictionary) {
+
+        // the Inflater reads from a byte[]
+        if (isMapped) {
+            copyToBuffer();
+        }
+
+        return super.readCompressedData(colTypes, dictionary);
+    }
+
+    public char[] readCharArray() throws IOException {
+
+        if (isMapped) {
+            copyToBuffer();
+        }
+
+        return super.readCharArray();
+    }
+
+    public String readUTF() throws IOException {
+
+        if (isMapped) {
+            copyToBuffer();
+        }
+
+        return super.readUTF();
+    }
+
+    private void checkAvailable(int length) {
+
+        if (count - pos < length) {
+            pos = count;
+
+            throw Error.error(new EOFException(), ErrorCode.GENERAL_IO_ERROR,
+                              "RowInputBinary");
+        }
+    }
+
+    /**
+     * Copies the row to the byte[] buffer and continues reading from the
+     * buffer at the current position.
+     */
+    private void copyToBuffer() {
+
+        if (buffer.length < count) {
+            buffer = new byte[count];
+        }
+
+        view.position(offset);
+        view.get(buffer, 0, count);
+
+        isMapped = false;
+    }
+}
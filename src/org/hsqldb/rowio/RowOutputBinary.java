@@ -33,6 +33,7 @@ package org.hsqldb.rowio;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.zip.Deflater;
 
 import org.hsqldb.Row;
 import org.hsqldb.error.Error;
@@ -67,6 +68,10 @@ public class RowOutputBinary extends RowOutputBase {
     final int               scale;    // 2 to power n where n >= 0
     final int               mask;
 
+    // for tables with compressed rows
+    private Deflater deflater;
+    private byte[]   deflateBuffer;
+
     public RowOutputBinary(int initialSize, int scale) {
 
         super(initialSize);
@@ -105,7 +110,58 @@ public class RowOutputBinary extends RowOutputBase {
     }
 
     public void writeData(Row row, Type[] types) {
+
+        if (row.getTable().isCompressed()) {
+            writeCompressedData(row, types);
+        } else {
+            super.writeData(row, types);
+        }
+    }
+
+    /**
+     * Writes an int for the length of the row data, followed by the data
+     * compressed with Deflater and the preset dictionary of the table. If the
+     * compressed data is not smaller, -1 is written for the length, followed
+     * by the data.
+     */
+    private void writeCompressedData(Row row, Type[] types) {
+
+        int start = count;
+
+        writeInt(-1);
         super.writeData(row, types);
+
+        int length = count - start - INT_STORE_SIZE;
+
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+
+        if (deflateBuffer == null || deflateBuffer.length < length) {
+            deflateBuffer = new byte[length];
+        }
+
+        byte[] dictionary = row.getTable().getCompressionDictionary();
+
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+
+        deflater.setInput(buffer, start + INT_STORE_SIZE, length);
+        deflater.finish();
+
+        int     newLength  = deflater.deflate(deflateBuffer, 0, length);
+        boolean isFinished = deflater.finished();
+
+        deflater.reset();
+
+        if (isFinished && newLength < length) {
+            writeIntData(length, start);
+            System.arraycopy(deflateBuffer, 0, buffer, start + INT_STORE_SIZE,
+                             newLength);
+
+            count = start + INT_STORE_SIZE + newLength;
+        }
     }
 
     public void setStorageSize(int size) {
@@ -161,6 +217,20 @@ public class RowOutputBinary extends RowOutputBase {
      */
     public int getSize(Row row) {
 
+        if (row.getTable().isCompressed()) {
+
+            // compress into the unused part of the buffer to get the size
+            int start = count;
+
+            writeCompressedData(row, row.getTable().getColumnTypes());
+
+            int size = count - start;
+
+            count = start;
+
+            return INT_STORE_SIZE + size;
+        }
+
         Object[] data  = row.getData();
         Type[]   types = row.getTable().getColumnTypes();
         int      cols  = row.getTable().getDataColumnCount();
@@ -202,14 +272,33 @@ public class RowOutputBinary extends RowOutputBase {
 
     protected void writeDecimal(BigDecimal o, Type type) {
 
-        int        scale   = o.scale();
-        BigInteger bigint  = o.unscaledValue();
-        byte[]     bytearr = bigint.toByteArray();
+        int        scale  = o.scale();
+        BigInteger bigint = o.unscaledValue();
+        int        length = getDecimalByteLength(bigint);
+
+        // same format as BigInteger.toByteArray() without the byte array
+        if (length <= 8) {
+            long unscaled = bigint.longValue();
+
+            writeInt(length);
+
+            for (int i = length - 1; i >= 0; i--) {
+                write((int) (unscaled >>> (i * 8)));
+            }
+        } else {
+            writeByteArray(bigint.toByteArray());
+        }
 
-        writeByteArray(bytearr);
         writeInt(scale);
     }
 
+    /**
+     * Returns the length of the array returned by BigInteger.toByteArray()
+     */
+    static int getDecimalByteLength(BigInteger bigint) {
+        return bigint.bitLength() / 8 + 1;
+    }
+
     protected void writeBoolean(Boolean o) {
         write(o.booleanValue() ? 1
                                : 0);
@@ -369,7 +458,7 @@ public class RowOutputBinary extends RowOutputBase {
                 BigDecimal bigdecimal = (BigDecimal) o;
                 BigInteger bigint     = bigdecimal.unscaledValue();
 
-                s += bigint.toByteArray().length;
+                s += getDecimalByteLength(bigint);
                 break;
 
             case Types.SQL_BOOLEAN :
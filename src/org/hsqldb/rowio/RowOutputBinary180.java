@@ -42,7 +42,7 @@ import org.hsqldb.types.Types;
 
 /**
  * @author Fred Toussi (fredt@users dot sourceforge.net)
- * @version 2.2.9
+ * @version 2.3.3
  * @since 1.9.0
  */
 public class RowOutputBinary180 extends RowOutputBinary {
@@ -53,6 +53,10 @@ public class RowOutputBinary180 extends RowOutputBinary {
         super(initialSize, scale);
     }
 
+    public RowOutputInterface duplicate() {
+        return new RowOutputBinary180(128, scale);
+    }
+
     protected void writeDate(TimestampData o, Type type) {
 
         long millis = o.getSeconds() * 1000L;
@@ -0,0 +1,261 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.scriptio;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.hsqldb.Database;
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.IntKeyHashMap;
+import org.hsqldb.lib.java.JavaSystem;
+import org.hsqldb.persist.Crypto;
+import org.hsqldb.rowio.RowInputBinary;
+import org.hsqldb.types.Type;
+
+/**
+ * Reads a .log file written by ScriptWriterBinary. Row records are read as
+ * typed row images of the table referenced by the table id, with no
+ * SQL parsing or table name lookup per row. A truncated or unreadable
+ * record at the end of the file ends the log.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ScriptReaderBinary extends ScriptReaderBase {
+
+    InputStream     inputStream;
+    DataInputStream dataInput;
+    Crypto          crypto;
+    RowInputBinary  rowIn;
+    byte[]          buffer = new byte[256];
+    IntKeyHashMap   tables = new IntKeyHashMap();
+
+    public ScriptReaderBinary(Database db, String fileName,
+                              Crypto crypto) throws IOException {
+
+        super(db);
+
+        this.crypto = crypto;
+
+        try {
+            inputStream =
+                db.logger.getFileAccess().openInputStreamElement(fileName);
+            dataInput = new DataInputStream(
+                new BufferedInputStream(inputStream, 1 << 14));
+            rowIn = new RowInputBinary(new byte[256]);
+
+            if (dataInput.readInt() != ScriptWriterBinary.BINARY_LOG_MAGIC) {
+                throw Error.error(ErrorCode.FILE_IO_ERROR, fileName);
+            }
+        } catch (Throwable t) {
+            close();
+
+            throw JavaSystem.toIOException(t);
+        }
+    }
+
+    /**
+     * Returns true if the file starts with the header written by
+     * ScriptWriterBinary.
+     */
+    public static boolean isBinaryLog(Database db, String fileName) {
+
+        InputStream in = null;
+
+        try {
+            in = db.logger.getFileAccess().openInputStreamElement(fileName);
+
+            return new DataInputStream(in).readInt()
+                   == ScriptWriterBinary.BINARY_LOG_MAGIC;
+        } catch (Throwable t) {
+            return false;
+        } finally {
+            try {
+                if (in != null) {
+                    in.close();
+                }
+            } catch (Exception e) {}
+        }
+    }
+
+    protected void readDDL(Session session) {
+        throw Error.runtimeError(ErrorCode.U_S0500, "ScriptReaderBinary");
+    }
+
+    protected void readExistingData(Session session) {
+        throw Error.runtimeError(ErrorCode.U_S0500, "ScriptReaderBinary");
+    }
+
+    public boolean readLoggedStatement(Session session) {
+
+        while (true) {
+            if (!readRecord()) {
+                return false;
+            }
+
+            int type = rowIn.readByte();
+
+            sessionNumber = (int) rowIn.readLong();
+
+            switch (type) {
+
+                case ScriptWriterBinary.RECORD_TABLE : {
+                    int    id     = rowIn.readInt();
+                    String schema = rowIn.readString();
+                    String name   = rowIn.readString();
+
+                    tables.put(id,
+                               database.schemaManager.getUserTable(session,
+                                   name, schema));
+
+                    continue;
+                }
+                case ScriptWriterBinary.RECORD_SCHEMA :
+                    statementType = SET_SCHEMA_STATEMENT;
+                    rowData       = null;
+                    currentTable  = null;
+                    currentSchema = rowIn.readString();
+                    break;
+
+                case ScriptWriterBinary.RECORD_STATEMENT :
+                    statementType = ANY_STATEMENT;
+                    rowData       = null;
+                    currentTable  = null;
+                    statement     = rowIn.readString();
+                    break;
+
+                case ScriptWriterBinary.RECORD_COMMIT :
+                    statementType = COMMIT_STATEMENT;
+                    rowData       = null;
+                    currentTable  = null;
+                    break;
+
+                case ScriptWriterBinary.RECORD_INSERT : {
+                    currentTable  = (Table) tables.get(rowIn.readInt());
+                    statementType = INSERT_STATEMENT;
+                    rowData = rowIn.readData(currentTable.getColumnTypes());
+
+                    break;
+                }
+                case ScriptWriterBinary.RECORD_DELETE : {
+                    currentTable  = (Table) tables.get(rowIn.readInt());
+                    statementType = DELETE_STATEMENT;
+
+                    Type[] colTypes = currentTable.hasPrimaryKey()
+                                      ? currentTable.getPrimaryKeyTypes()
+                                      : currentTable.getColumnTypes();
+
+                    rowData = rowIn.readData(colTypes);
+
+                    break;
+                }
+                default :
+                    throw Error.error(ErrorCode.ERROR_IN_SCRIPT_FILE,
+                                      Integer.toString(lineCount));
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Reads the next record into rowIn. Returns false at the end of the
+     * file or if the last record was not written completely.
+     */
+    private boolean readRecord() {
+
+        try {
+            int size = dataInput.readInt();
+
+            if (crypto == null) {
+                if (size <= 4) {
+                    return false;
+                }
+
+                rowIn.resetRow(0, size);
+                dataInput.readFully(rowIn.getBuffer(), 4, size - 4);
+            } else {
+                if (size <= 0) {
+                    return false;
+                }
+
+                if (size > buffer.length) {
+                    buffer = new byte[size];
+                }
+
+                dataInput.readFully(buffer, 0, size);
+
+                crypto.decode(buffer, 0, size, buffer, 0);
+
+                size = ((buffer[0] & 0xff) << 24) + ((buffer[1] & 0xff) << 16)
+                       + ((buffer[2] & 0xff) << 8) + (buffer[3] & 0xff);
+
+                if (size <= 4) {
+                    return false;
+                }
+
+                rowIn.resetRow(0, size);
+                System.arraycopy(buffer, 4, rowIn.getBuffer(), 4, size - 4);
+            }
+        } catch (Throwable t) {
+            return false;
+        }
+
+        lineCount++;
+
+        return true;
+    }
+
+    public void close() {
+
+        try {
+            if (dataInput != null) {
+                dataInput.close();
+            }
+        } catch (Exception e) {}
+
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } catch (Exception e) {}
+    }
+}
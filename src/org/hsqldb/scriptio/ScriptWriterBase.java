@@ -204,6 +204,10 @@ public abstract class ScriptWriterBase implements Runnable {
 
         needsSync = false;
 
+        if (!isDump && database.lobManager != null) {
+            database.lobManager.synchData();
+        }
+
         synchronized (fileStreamOut) {
             try {
                 fileStreamOut.flush();
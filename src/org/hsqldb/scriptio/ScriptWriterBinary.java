@@ -0,0 +1,288 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.scriptio;
+
+import java.io.IOException;
+
+import org.hsqldb.Database;
+import org.hsqldb.NumberSequence;
+import org.hsqldb.Row;
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.error.Error;
+import org.hsqldb.error.ErrorCode;
+import org.hsqldb.lib.HsqlByteArrayOutputStream;
+import org.hsqldb.lib.IntValueHashMap;
+import org.hsqldb.persist.Crypto;
+import org.hsqldb.rowio.RowOutputBinary;
+import org.hsqldb.types.Type;
+
+/**
+ * Writes the .log file in binary format.<p>
+ *
+ * Each record is written with a leading size and contains the record type,
+ * the session id and, for row records, a table id followed by the typed
+ * row image written by RowOutputBinary. A table id is defined by a table
+ * record the first time a table is referenced in the file. All other
+ * statements are written as SQL strings. Each record is encrypted
+ * separately when the database is encrypted.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class ScriptWriterBinary extends ScriptWriterBase {
+
+    static final int BINARY_LOG_MAGIC = 0xC8A55B01;
+
+    //
+    static final byte RECORD_TABLE     = 1;
+    static final byte RECORD_SCHEMA    = 2;
+    static final byte RECORD_STATEMENT = 3;
+    static final byte RECORD_INSERT    = 4;
+    static final byte RECORD_DELETE    = 5;
+    static final byte RECORD_COMMIT    = 6;
+
+    //
+    RowOutputBinary           rowOut;
+    Crypto                    crypto;
+    HsqlByteArrayOutputStream byteOut;
+    IntValueHashMap           tableIds = new IntValueHashMap();
+
+    public ScriptWriterBinary(Database db, String file, Crypto crypto) {
+
+        super(db, file, false, false, false);
+
+        this.crypto = crypto;
+
+        if (crypto != null) {
+            byteOut = new HsqlByteArrayOutputStream();
+            isCrypt = true;
+        }
+
+        try {
+            rowOut.reset();
+            rowOut.writeInt(BINARY_LOG_MAGIC);
+            writeBytesToFile(rowOut.getBuffer(), rowOut.size());
+        } catch (IOException e) {
+            throw Error.error(e, ErrorCode.FILE_IO_ERROR,
+                              ErrorCode.M_Message_Pair, new Object[] {
+                e.toString(), outFile
+            });
+        }
+    }
+
+    protected void initBuffers() {
+        rowOut = new RowOutputBinary(256, 1);
+    }
+
+    protected void writeDataTerm() throws IOException {}
+
+    protected void writeSessionIdAndSchema(Session session)
+    throws IOException {
+
+        if (session == null) {
+            return;
+        }
+
+        if (schemaToLog != session.loggedSchema) {
+            startRecord(session, RECORD_SCHEMA);
+            rowOut.writeString(schemaToLog.name);
+            writeRecordToFile();
+
+            session.loggedSchema = schemaToLog;
+        }
+    }
+
+    public void writeLogStatement(Session session,
+                                  String s) throws IOException {
+
+        if (session != null) {
+            schemaToLog = session.currentSchema;
+
+            writeSessionIdAndSchema(session);
+        }
+
+        startRecord(session, RECORD_STATEMENT);
+        rowOut.writeString(s);
+        writeRecordToFile();
+
+        needsSync = true;
+    }
+
+    public void writeRow(Session session, Row row,
+                         Table table) throws IOException {
+
+        int    tableId = getTableId(session, table);
+        Type[] types   = table.getColumnTypes();
+
+        startRecord(session, RECORD_INSERT);
+        rowOut.writeInt(tableId);
+        rowOut.writeData(types.length, types, row.getData(), null, null);
+        writeRecordToFile();
+    }
+
+    public void writeOtherStatement(Session session,
+                                    String s) throws IOException {
+
+        writeLogStatement(session, s);
+
+        if (writeDelay == 0) {
+            sync();
+        }
+    }
+
+    public void writeInsertStatement(Session session, Row row,
+                                     Table table) throws IOException {
+        writeRow(session, row, table);
+    }
+
+    /**
+     * Only the primary key columns are written when the table has a
+     * primary key.
+     */
+    public void writeDeleteStatement(Session session, Table table,
+                                     Object[] data) throws IOException {
+
+        int tableId = getTableId(session, table);
+
+        startRecord(session, RECORD_DELETE);
+        rowOut.writeInt(tableId);
+        rowOut.writeData(table.getColumnCount(), table.getColumnTypes(), data,
+                         null, table.getPrimaryKey());
+        writeRecordToFile();
+    }
+
+    public void writeSequenceStatement(Session session,
+                                       NumberSequence seq) throws IOException {
+
+        StringBuffer sb = new StringBuffer(64);
+
+        sb.append("ALTER SEQUENCE ");
+        sb.append(seq.getSchemaName().statementName).append('.');
+        sb.append(seq.getName().statementName);
+        sb.append(" RESTART WITH ").append(seq.getLogValue());
+        startRecord(session, RECORD_STATEMENT);
+        rowOut.writeString(sb.toString());
+        writeRecordToFile();
+
+        needsSync = true;
+    }
+
+    public void writeCommitStatement(Session session) throws IOException {
+
+        startRecord(session, RECORD_COMMIT);
+        writeRecordToFile();
+
+        needsSync = true;
+
+        if (writeDelay == 0) {
+            sync();
+        }
+    }
+
+    /**
+     * Returns the id of the table in this file, writing the table record
+     * when the table is referenced for the first time.
+     */
+    private int getTableId(Session session,
+                           Table table) throws IOException {
+
+        int id = tableIds.get(table, -1);
+
+        if (id < 0) {
+            id = tableIds.size();
+
+            tableIds.put(table, id);
+            startRecord(session, RECORD_TABLE);
+            rowOut.writeInt(id);
+            rowOut.writeString(table.getName().schema.name);
+            rowOut.writeString(table.getName().name);
+            writeRecordToFile();
+        }
+
+        return id;
+    }
+
+    private void startRecord(Session session, byte type) {
+
+        if (session != null) {
+            currentSession = session;
+        }
+
+        rowOut.reset();
+        rowOut.writeSize(0);
+        rowOut.writeByte(type);
+        rowOut.writeLong(currentSession.getId());
+    }
+
+    private void writeRecordToFile() throws IOException {
+
+        rowOut.writeSize(rowOut.size());
+
+        if (byteOut == null) {
+            writeBytesToFile(rowOut.getBuffer(), rowOut.size());
+
+            return;
+        }
+
+        int count = crypto.getEncodedSize(rowOut.size());
+
+        byteOut.reset();
+        byteOut.ensureRoom(count + 4);
+
+        count = crypto.encode(rowOut.getBuffer(), 0, rowOut.size(),
+                              byteOut.getBuffer(), 4);
+
+        byteOut.setPosition(0);
+        byteOut.writeInt(count);
+        writeBytesToFile(byteOut.getBuffer(), count + 4);
+    }
+
+    private void writeBytesToFile(byte[] bytes,
+                                  int length) throws IOException {
+
+        if (fileStreamOut == null) {
+            return;
+        }
+
+        synchronized (fileStreamOut) {
+            fileStreamOut.write(bytes, 0, length);
+
+            byteCount += length;
+
+            lineCount++;
+        }
+    }
+}
@@ -283,7 +283,7 @@ public class ScriptWriterText extends ScriptWriterBase {
         rowOut.write('.');
         rowOut.writeString(seq.getName().statementName);
         rowOut.write(BYTES_SEQUENCE_MID);
-        rowOut.writeLong(seq.peek());
+        rowOut.writeLong(seq.getLogValue());
         rowOut.write(BYTES_LINE_SEP);
         writeRowOutToFile();
 
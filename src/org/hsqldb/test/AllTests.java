@@ -64,6 +64,27 @@ public class AllTests extends TestCase {
         suite.addTestSuite(org.hsqldb.test.TestUpdatableResults.class);
         suite.addTestSuite(org.hsqldb.test.TestUpdatableResultSets.class);
         suite.addTestSuite(org.hsqldb.test.TestTriggers.class);
+        suite.addTestSuite(org.hsqldb.test.TestResultCache.class);
+        suite.addTestSuite(org.hsqldb.test.TestStatementCache.class);
+        suite.addTestSuite(org.hsqldb.test.TestRowLocks.class);
+        suite.addTestSuite(org.hsqldb.test.TestColumnStore.class);
+        suite.addTestSuite(org.hsqldb.test.TestChangeCapture.class);
+        suite.addTestSuite(org.hsqldb.test.TestBinaryLog.class);
+        suite.addTestSuite(org.hsqldb.test.TestCompressedTable.class);
+        suite.addTestSuite(org.hsqldb.test.TestExpressionCompiler.class);
+        suite.addTestSuite(org.hsqldb.test.TestMaterializedView.class);
+        suite.addTestSuite(org.hsqldb.test.TestBatchAggregate.class);
+        suite.addTestSuite(org.hsqldb.test.TestLiteralParameterizer.class);
+        suite.addTestSuite(org.hsqldb.test.TestMappedDataFile.class);
+        suite.addTestSuite(org.hsqldb.test.TestPoolValues.class);
+        suite.addTestSuite(org.hsqldb.test.TestDecimalStorage.class);
+        suite.addTestSuite(org.hsqldb.test.TestMergeJoin.class);
+        suite.addTestSuite(org.hsqldb.test.TestExternalSort.class);
+        suite.addTestSuite(org.hsqldb.test.TestTopRows.class);
+        suite.addTestSuite(org.hsqldb.test.TestTextTableRead.class);
+        suite.addTestSuite(org.hsqldb.test.TestLobRead.class);
+        suite.addTestSuite(org.hsqldb.test.TestBatchTrigger.class);
+        suite.addTestSuite(org.hsqldb.test.TestMVCCCommits.class);
 
         // Suites that extend TestCase
         suite.addTestSuite(org.hsqldb.test.TestJDBCSavepoints.class);
@@ -0,0 +1,291 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+/**
+ * Compares the results of aggregate queries executed in batches (feature
+ * H901_05) with those of row-by-row execution, for MEMORY and COLUMNAR
+ * tables.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestBatchAggregate extends TestBase {
+
+    static final int rowCount = 10000;
+
+    //
+    static final String[] tables = {
+        "T", "C"
+    };
+    static final String[] selects = {
+        "SELECT COUNT(*), COUNT(V), COUNT(G), SUM(V), MIN(V), MAX(V), AVG(V),"
+        + " SUM(G), AVG(G) FROM ",
+        "SELECT G, COUNT(*), COUNT(V), SUM(V), MIN(K), MAX(V), AVG(V) FROM ",
+        "SELECT COUNT(V), G, SUM(K) FROM "
+    };
+    static final String[] conditions = {
+        "", " WHERE K > 9000", " WHERE K >= 2000 AND K < 3000",
+        " WHERE K = 4097", " WHERE K <> 1", " WHERE K < 0",
+        " WHERE V IS NULL", " WHERE V IS NOT NULL AND G = 2",
+        " WHERE G IS NULL", " WHERE NOT (G IS NULL) AND G <> 1",
+        " WHERE G >= 3 AND K <= 5000 AND V > -1000000"
+    };
+
+    //
+    Connection batch;
+    Connection rows;
+
+    public TestBatchAggregate(String name) {
+        super(name, "jdbc:hsqldb:mem:batchaggregate", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        batch = newConnection();
+        rows  = newConnection();
+
+        Statement statement = batch.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute("SET SESSION FEATURE H901_05 TRUE");
+        rows.createStatement().execute("SET SESSION FEATURE H901_05 FALSE");
+        statement.execute(
+            "CREATE TABLE T (ID INT PRIMARY KEY, K INT, G SMALLINT, V BIGINT)");
+        statement.execute(
+            "CREATE COLUMNAR TABLE C (ID INT PRIMARY KEY, K INT, G SMALLINT,"
+            + " V BIGINT)");
+
+        for (int i = 0; i < tables.length; i++) {
+            PreparedStatement ps = batch.prepareStatement("INSERT INTO "
+                + tables[i] + " VALUES (?, ?, ?, ?)");
+
+            // G and V have NULLs, K is ascending so segments can be skipped
+            for (int row = 1; row <= rowCount; row++) {
+                ps.setInt(1, rowCount - row);
+                ps.setInt(2, row);
+
+                if (row % 7 == 0) {
+                    ps.setNull(3, Types.SMALLINT);
+                } else {
+                    ps.setInt(3, row % 5);
+                }
+
+                if (row % 3 == 0) {
+                    ps.setNull(4, Types.BIGINT);
+                } else {
+                    ps.setLong(4, row * 1000L - 5000000);
+                }
+
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+            ps.close();
+        }
+    }
+
+    protected void tearDown() {
+
+        try {
+            batch.createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testAggregates() throws SQLException {
+
+        for (int i = 0; i < tables.length; i++) {
+            for (int j = 0; j < conditions.length; j++) {
+                compare(selects[0] + tables[i] + conditions[j]);
+            }
+        }
+    }
+
+    /**
+     * The groups are returned in the same order with and without batches.
+     */
+    public void testGroupBy() throws SQLException {
+
+        for (int i = 0; i < tables.length; i++) {
+            for (int j = 0; j < conditions.length; j++) {
+                compare(selects[1] + tables[i] + conditions[j] + " GROUP BY G");
+                compare(selects[2] + tables[i] + conditions[j] + " GROUP BY G");
+            }
+        }
+
+        assertEquals("2,1143,2,;", getString(batch,
+                "SELECT G, COUNT(V), MIN(K) FROM T WHERE G = 2 GROUP BY G"));
+    }
+
+    /**
+     * SUM of BIGINT values past Long.MAX_VALUE returns the exact DECIMAL
+     * value.
+     */
+    public void testSumOverflow() throws SQLException {
+
+        for (int i = 0; i < tables.length; i++) {
+            Statement statement = batch.createStatement();
+
+            statement.execute("UPDATE " + tables[i] + " SET V = "
+                              + Long.MAX_VALUE + " WHERE K > 9990");
+            statement.execute("UPDATE " + tables[i] + " SET V = "
+                              + Long.MIN_VALUE + " WHERE K < 3");
+
+            String sql = "SELECT SUM(V), AVG(V), MIN(V), MAX(V) FROM "
+                         + tables[i] + " WHERE K > 9990";
+
+            compare(sql);
+            assertEquals("92233720368547758070,9223372036854775807,"
+                         + "9223372036854775807,9223372036854775807,;",
+                         getString(batch, sql));
+            compare(selects[0] + tables[i]);
+            compare(selects[1] + tables[i] + " GROUP BY G");
+        }
+    }
+
+    /**
+     * Parameter values set as numbers, strings or NULL.
+     */
+    public void testParameters() throws SQLException {
+
+        for (int i = 0; i < tables.length; i++) {
+            String sql = selects[1] + tables[i]
+                         + " WHERE K > ? AND V < ? GROUP BY G";
+            PreparedStatement batchStatement = batch.prepareStatement(sql);
+            PreparedStatement rowStatement   = rows.prepareStatement(sql);
+            PreparedStatement[] statements   = {
+                batchStatement, rowStatement
+            };
+            String[] results = new String[2];
+
+            for (int j = 0; j < 4; j++) {
+                for (int k = 0; k < statements.length; k++) {
+                    PreparedStatement ps = statements[k];
+
+                    switch (j) {
+
+                        case 0 :
+                            ps.setInt(1, 5000);
+                            ps.setLong(2, 3000000);
+                            break;
+
+                        case 1 :
+                            ps.setString(1, "5000");
+                            ps.setString(2, "3000000");
+                            break;
+
+                        case 2 :
+                            ps.setNull(1, Types.INTEGER);
+                            ps.setLong(2, 0);
+                            break;
+
+                        case 3 :
+                            ps.setDouble(1, 4999.6);
+                            ps.setObject(2, new java.math.BigDecimal("3e6"));
+                            break;
+                    }
+
+                    results[k] = getString(ps.executeQuery());
+                }
+
+                assertEquals(sql + " " + j, results[1], results[0]);
+            }
+
+            batchStatement.close();
+            rowStatement.close();
+        }
+    }
+
+    /**
+     * The COLUMNAR table gives the same results after changes that replace
+     * the column segments.
+     */
+    public void testColumnarChanges() throws SQLException {
+
+        Statement statement = batch.createStatement();
+
+        statement.execute("DELETE FROM C WHERE K BETWEEN 4000 AND 4500");
+        statement.execute("UPDATE C SET K = -K WHERE MOD(K, 1000) = 0");
+        statement.execute("INSERT INTO C VALUES (-1, 20000, 2, 1)");
+
+        for (int j = 0; j < conditions.length; j++) {
+            compare(selects[0] + "C" + conditions[j]);
+            compare(selects[1] + "C" + conditions[j] + " GROUP BY G");
+        }
+    }
+
+    void compare(String sql) throws SQLException {
+        assertEquals(sql, getString(rows, sql), getString(batch, sql));
+    }
+
+    static String getString(Connection c, String sql) throws SQLException {
+
+        Statement statement = c.createStatement();
+        String    result    = getString(statement.executeQuery(sql));
+
+        statement.close();
+
+        return result;
+    }
+
+    static String getString(ResultSet rs) throws SQLException {
+
+        StringBuffer sb    = new StringBuffer();
+        int          count = rs.getMetaData().getColumnCount();
+
+        while (rs.next()) {
+            for (int i = 1; i <= count; i++) {
+                sb.append(rs.getString(i)).append(',');
+            }
+
+            sb.append(';');
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
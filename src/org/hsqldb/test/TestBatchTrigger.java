@@ -0,0 +1,293 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import org.hsqldb.BatchTrigger;
+
+/**
+ * Tests queued triggers that implement BatchTrigger.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestBatchTrigger extends TestBase {
+
+    static final String path = "testbatchtrigger/test";
+
+    //
+    static final int rowCount = 500;
+
+    // rows received, and the sizes of the batches, in the order of arrival
+    static final ArrayList rows    = new ArrayList();
+    static final ArrayList batches = new ArrayList();
+
+    // the first batch waits until the test has queued the other rows
+    static final Object lock = new Object();
+    static boolean      released;
+
+    //
+    Connection connection;
+    Statement  statement;
+
+    public TestBatchTrigger(String name) {
+        super(name, "jdbc:hsqldb:file:" + path + ";hsqldb.applog=1", false,
+              false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+
+        synchronized (rows) {
+            rows.clear();
+            batches.clear();
+        }
+
+        released   = false;
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute(
+            "CREATE TABLE T (ID INT PRIMARY KEY, V VARCHAR(10))");
+    }
+
+    protected void tearDown() {
+
+        release();
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    /**
+     * The rows queued while the first batch is being fired are delivered
+     * in later batches, in the order of the inserts.
+     */
+    public void testOrder() throws Exception {
+
+        statement.execute("CREATE TRIGGER TR AFTER INSERT ON T FOR EACH ROW"
+                          + " QUEUE " + rowCount + " CALL \""
+                          + Recorder.class.getName() + "\"");
+        insertRows(0, rowCount, -1);
+        release();
+        waitForRows(rowCount);
+
+        synchronized (rows) {
+            for (int i = 0; i < rowCount; i++) {
+                assertEquals(new Integer(i), rows.get(i));
+            }
+
+            // the rows queued while a batch waits are fired together
+            assertTrue(batches.size() < rowCount / 2);
+        }
+    }
+
+    /**
+     * A batch that fails is logged and its rows are fired one by one. A row
+     * that fails again is logged and does not stop the other rows of the
+     * batch or the later batches.
+     */
+    public void testFailure() throws Exception {
+
+        statement.execute("CREATE TRIGGER TR AFTER INSERT ON T FOR EACH ROW"
+                          + " QUEUE " + rowCount + " CALL \""
+                          + Failing.class.getName() + "\"");
+        insertRows(0, 100, 50);
+        release();
+        waitForRows(99);
+        insertRows(100, 200, -1);
+        waitForRows(199);
+
+        synchronized (rows) {
+            for (int i = 0, id = 0; i < 199; i++, id++) {
+                if (id == 50) {
+                    id++;
+                }
+
+                assertEquals(new Integer(id), rows.get(i));
+            }
+        }
+
+        statement.execute("SHUTDOWN");
+
+        String log = readLog();
+
+        assertEquals(1, getCount(log, "trigger batch failed TR"));
+        assertEquals(1, getCount(log, "trigger failed TR"));
+    }
+
+    void insertRows(int start, int limit, int badRow) throws SQLException {
+
+        PreparedStatement ps = connection.prepareStatement(
+            "INSERT INTO T VALUES (?, ?)");
+
+        for (int i = start; i < limit; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, i == badRow ? "bad"
+                                        : "v");
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    static void release() {
+
+        synchronized (lock) {
+            released = true;
+
+            lock.notifyAll();
+        }
+    }
+
+    static void waitForRows(int count) throws InterruptedException {
+
+        for (int i = 0; i < 1000; i++) {
+            synchronized (rows) {
+                if (rows.size() >= count) {
+                    assertEquals(count, rows.size());
+
+                    return;
+                }
+            }
+
+            Thread.sleep(10);
+        }
+
+        fail("rows not fired");
+    }
+
+    static String readLog() throws IOException {
+
+        BufferedReader reader = new BufferedReader(new FileReader(path
+            + ".app.log"));
+        StringBuffer sb = new StringBuffer();
+
+        for (String line; (line = reader.readLine()) != null; ) {
+            sb.append(line).append('\n');
+        }
+
+        reader.close();
+
+        return sb.toString();
+    }
+
+    static int getCount(String s, String part) {
+
+        int count = 0;
+
+        for (int i = s.indexOf(part); i >= 0;
+                i = s.indexOf(part, i + part.length())) {
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Records the batches. The first batch waits for release().
+     */
+    public static class Recorder implements BatchTrigger {
+
+        public void fire(int type, String trigName, String tabName,
+                         Object[] oldRow, Object[] newRow) {
+            throw new RuntimeException("fire() called");
+        }
+
+        public void fireBatch(int type, String trigName, String tabName,
+                              Object[][] oldRows, Object[][] newRows) {
+
+            synchronized (lock) {
+                while (!released) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {}
+                }
+            }
+
+            synchronized (rows) {
+                batches.add(new Integer(newRows.length));
+
+                for (int i = 0; i < newRows.length; i++) {
+                    rows.add(newRows[i][0]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fails for a batch or a row that contains the bad row.
+     */
+    public static class Failing extends Recorder {
+
+        public void fire(int type, String trigName, String tabName,
+                         Object[] oldRow, Object[] newRow) {
+
+            if ("bad".equals(newRow[1])) {
+                throw new RuntimeException("bad row");
+            }
+
+            synchronized (rows) {
+                rows.add(newRow[0]);
+            }
+        }
+
+        public void fireBatch(int type, String trigName, String tabName,
+                              Object[][] oldRows, Object[][] newRows) {
+
+            for (int i = 0; i < newRows.length; i++) {
+                if ("bad".equals(newRows[i][1])) {
+                    throw new RuntimeException("bad batch");
+                }
+            }
+
+            super.fireBatch(type, trigName, tabName, oldRows, newRows);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.io.RandomAccessFile;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests the replay of the binary .log file after the database is closed
+ * without a checkpoint.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestBinaryLog extends TestBase {
+
+    static final String path = "testbinarylog/test";
+
+    public TestBinaryLog(String name) {
+        super(name, "jdbc:hsqldb:file:" + path + ";hsqldb.log_format=1",
+              false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        statement.execute(
+            "CREATE MEMORY TABLE M (ID INT PRIMARY KEY, V VARCHAR(20))");
+        statement.execute("CREATE CACHED TABLE C (ID INT, D DECIMAL(10,2))");
+        connection.close();
+    }
+
+    protected void tearDown() {
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    public void testReplay() throws Exception {
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        statement.execute("INSERT INTO M VALUES (1, 'one'), (2, 'two'), "
+                          + "(3, 'three')");
+        statement.execute("INSERT INTO C VALUES (1, 1.5), (2, 2.5), "
+                          + "(2, 2.5), (3, NULL)");
+        statement.execute("UPDATE M SET V = 'TWO' WHERE ID = 2");
+        statement.execute("DELETE FROM M WHERE ID = 3");
+        statement.execute("DELETE FROM C WHERE ID = 3");
+        statement.execute("ALTER TABLE M ADD COLUMN N INT DEFAULT 7");
+        statement.execute("INSERT INTO M VALUES (4, 'four', 8)");
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        RandomAccessFile file = new RandomAccessFile(path + ".log", "r");
+
+        // header of ScriptWriterBinary
+        assertEquals(0xC8A55B01, file.readInt());
+        file.close();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertEquals("1,one,7;2,TWO,7;4,four,8;",
+                     getRows(statement, "SELECT * FROM M ORDER BY ID"));
+        assertEquals("1,1.50;2,2.50;2,2.50;",
+                     getRows(statement, "SELECT * FROM C ORDER BY ID"));
+        statement.execute("SHUTDOWN");
+    }
+
+    public void testUncommitted() throws SQLException {
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        statement.execute("INSERT INTO M VALUES (1, 'one')");
+        connection.setAutoCommit(false);
+        statement.execute("INSERT INTO M VALUES (2, 'two')");
+        statement.execute("DELETE FROM M WHERE ID = 1");
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertEquals("1,one;",
+                     getRows(statement, "SELECT * FROM M ORDER BY ID"));
+        statement.execute("SHUTDOWN");
+    }
+
+    /**
+     * A record cut short at the end of the file ends the replay.
+     */
+    public void testTruncatedRecord() throws Exception {
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        statement.execute("INSERT INTO M VALUES (1, 'one'), (2, 'two')");
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        RandomAccessFile file = new RandomAccessFile(path + ".log", "rw");
+
+        file.seek(file.length());
+        file.writeInt(1000);
+        file.writeByte(1);
+        file.close();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertEquals("1,one;2,two;",
+                     getRows(statement, "SELECT * FROM M ORDER BY ID"));
+        statement.execute("INSERT INTO M VALUES (3, 'three')");
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertEquals("1,one;2,two;3,three;",
+                     getRows(statement, "SELECT * FROM M ORDER BY ID"));
+        statement.execute("SHUTDOWN");
+    }
+
+    static String getRows(Statement statement,
+                          String sql) throws SQLException {
+
+        ResultSet    rs = statement.executeQuery(sql);
+        int          columnCount = rs.getMetaData().getColumnCount();
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                if (i > 1) {
+                    sb.append(',');
+                }
+
+                sb.append(rs.getString(i));
+            }
+
+            sb.append(';');
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,304 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.ChangeListener;
+import org.hsqldb.ChangeRecord;
+import org.hsqldb.Database;
+import org.hsqldb.Session;
+import org.hsqldb.jdbc.JDBCConnection;
+import org.hsqldb.lib.HsqlArrayList;
+
+/**
+ * Tests the changes reported by change data capture.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestChangeCapture extends TestBase {
+
+    Connection connection;
+    Statement  statement;
+
+    public TestChangeCapture(String name) {
+        super(name,
+              "jdbc:hsqldb:mem:changecapture;hsqldb.change_capture_size=100",
+              false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute(
+            "CREATE TABLE T (ID INT PRIMARY KEY, V VARCHAR(10))");
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testUpdatePairing() throws Exception {
+
+        statement.execute("INSERT INTO T VALUES (1, 'a'), (2, 'b')");
+        statement.execute("UPDATE T SET V = 'c' WHERE ID = 1");
+        statement.execute("DELETE FROM T WHERE ID = 2");
+
+        ResultSet rs = getChanges(0, 4);
+
+        assertTrue(rs.next());
+        assertEquals("INSERT", rs.getString("CHANGE_TYPE"));
+        assertTrue(rs.next());
+        assertEquals("INSERT", rs.getString("CHANGE_TYPE"));
+        assertTrue(rs.next());
+        assertEquals("UPDATE", rs.getString("CHANGE_TYPE"));
+        assertEquals("(1,'a')", rs.getString("BEFORE_IMAGE"));
+        assertEquals("(1,'c')", rs.getString("AFTER_IMAGE"));
+        assertTrue(rs.next());
+        assertEquals("DELETE", rs.getString("CHANGE_TYPE"));
+        assertEquals("(2,'b')", rs.getString("BEFORE_IMAGE"));
+        assertNull(rs.getString("AFTER_IMAGE"));
+        assertFalse(rs.next());
+    }
+
+    public void testResume() throws Exception {
+
+        statement.execute("INSERT INTO T VALUES (1, 'a')");
+
+        ResultSet rs = getChanges(0, 1);
+
+        assertTrue(rs.next());
+
+        long position = rs.getLong("CHANGE_POSITION");
+
+        statement.execute("INSERT INTO T VALUES (2, 'b')");
+        statement.execute("UPDATE T SET V = 'c' WHERE ID = 2");
+
+        rs = getChanges(position, 2);
+
+        assertTrue(rs.next());
+        assertEquals(position + 1, rs.getLong("CHANGE_POSITION"));
+        assertEquals("INSERT", rs.getString("CHANGE_TYPE"));
+        assertTrue(rs.next());
+        assertEquals("UPDATE", rs.getString("CHANGE_TYPE"));
+        assertFalse(rs.next());
+
+        Listener listener = new Listener();
+
+        getDatabase().addChangeListener(listener, position);
+        statement.execute("DELETE FROM T WHERE ID = 1");
+
+        ChangeRecord[] records = listener.waitFor(3);
+
+        assertEquals(position + 1, records[0].getPosition());
+        assertEquals(ChangeRecord.UPDATE, records[1].getChangeType());
+        assertEquals(ChangeRecord.DELETE, records[2].getChangeType());
+        getDatabase().removeChangeListener(listener);
+    }
+
+    public void testSelectPrivilege() throws Exception {
+
+        statement.execute("CREATE USER U PASSWORD 'u'");
+        statement.execute("GRANT SELECT (ID) ON T TO U");
+        statement.execute("INSERT INTO T VALUES (1, 'a')");
+        getChanges(0, 1).close();
+
+        Connection c = DriverManager.getConnection(url, "U", "u");
+        Statement  st = c.createStatement();
+        ResultSet  rs = st.executeQuery(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_CHANGES");
+
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+        statement.execute("GRANT SELECT ON T TO U");
+
+        rs = st.executeQuery(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_CHANGES");
+
+        rs.next();
+        assertEquals(1, rs.getInt(1));
+        c.close();
+    }
+
+    public void testDroppedChanges() throws Exception {
+
+        final Object lock     = new Object();
+        final boolean[] block = new boolean[]{ true };
+        Listener listener     = new Listener() {
+
+            public void changesCommitted(ChangeRecord[] changes) {
+
+                synchronized (lock) {
+                    while (block[0]) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+
+                super.changesCommitted(changes);
+            }
+        };
+
+        getDatabase().addChangeListener(listener, -1);
+
+        int count = 1200;
+
+        for (int i = 0; i < count; i++) {
+            statement.execute("INSERT INTO T VALUES (" + i + ", 'a')");
+        }
+
+        synchronized (lock) {
+            block[0] = false;
+
+            lock.notifyAll();
+        }
+
+        listener.waitFor(1024);
+        statement.execute("INSERT INTO T VALUES (" + count + ", 'b')");
+
+        ChangeRecord[] records = listener.waitFor(0);
+        long           dropped = 0;
+
+        for (int i = 0; i < records.length; i++) {
+            dropped += records[i].getDroppedCount();
+
+            if (i > 0) {
+                assertEquals(records[i - 1].getPosition() + 1
+                             + records[i].getDroppedCount(),
+                             records[i].getPosition());
+            }
+        }
+
+        assertTrue(dropped > 0);
+        assertEquals(count + 1, records.length + dropped);
+        assertEquals(count + 1, records[records.length - 1].getPosition());
+        getDatabase().removeChangeListener(listener);
+    }
+
+    /**
+     * Waits until the count of changes after the position are captured.
+     */
+    private ResultSet getChanges(long position,
+                                 int count)
+                                 throws SQLException, InterruptedException {
+
+        for (int i = 0; i < 100; i++) {
+            ResultSet rs = statement.executeQuery(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SYSTEM_CHANGES "
+                + "WHERE CHANGE_POSITION > " + position);
+
+            rs.next();
+
+            if (rs.getInt(1) >= count) {
+                break;
+            }
+
+            Thread.sleep(20);
+        }
+
+        return statement.executeQuery(
+            "SELECT * FROM INFORMATION_SCHEMA.SYSTEM_CHANGES "
+            + "WHERE CHANGE_POSITION > " + position
+            + " ORDER BY CHANGE_POSITION");
+    }
+
+    private Database getDatabase() {
+        return ((Session) ((JDBCConnection) connection).getSession())
+            .getDatabase();
+    }
+
+    static class Listener implements ChangeListener {
+
+        HsqlArrayList list = new HsqlArrayList();
+
+        public void changesCommitted(ChangeRecord[] changes) {
+
+            synchronized (list) {
+                for (int i = 0; i < changes.length; i++) {
+                    list.add(changes[i]);
+                }
+
+                list.notifyAll();
+            }
+        }
+
+        /**
+         * Waits until the count of changes, or with zero count, until no
+         * more changes are reported.
+         */
+        ChangeRecord[] waitFor(int count) throws InterruptedException {
+
+            synchronized (list) {
+                for (int i = 0; i < 100; i++) {
+                    int size = list.size();
+
+                    if (count > 0 && size >= count) {
+                        break;
+                    }
+
+                    list.wait(50);
+
+                    if (count == 0 && size > 0 && size == list.size()) {
+                        break;
+                    }
+                }
+
+                ChangeRecord[] records = new ChangeRecord[list.size()];
+
+                list.toArray(records);
+
+                return records;
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests queries on COLUMNAR tables after the committed changes that extend
+ * or replace the column segment snapshot.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestColumnStore extends TestBase {
+
+    Connection connection;
+    Statement  statement;
+
+    public TestColumnStore(String name) {
+        super(name, "jdbc:hsqldb:mem:columnstore", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute(
+            "CREATE COLUMNAR TABLE T (ID INT PRIMARY KEY, V INT)");
+        statement.execute("INSERT INTO T SELECT ROWNUM() * 2, ROWNUM() "
+                          + "FROM INFORMATION_SCHEMA.COLUMNS, "
+                          + "INFORMATION_SCHEMA.TABLES LIMIT 5000");
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testAppend() throws SQLException {
+
+        assertEquals(12502500, getSum());
+        statement.execute("INSERT INTO T VALUES (20001, 10), (20003, 20)");
+        assertEquals(12502530, getSum());
+        statement.execute("INSERT INTO T VALUES (20005, 30)");
+        assertEquals(12502560, getSum());
+        assertEquals(30, getLong("SELECT MAX(V) FROM T WHERE ID > 20000"));
+    }
+
+    public void testChanges() throws SQLException {
+
+        assertEquals(12502500, getSum());
+        statement.execute("INSERT INTO T VALUES (3, 1000)");
+        assertEquals(12503500, getSum());
+        statement.execute("DELETE FROM T WHERE ID = 2");
+        assertEquals(12503499, getSum());
+        statement.execute("UPDATE T SET V = 0 WHERE ID = 3");
+        assertEquals(12502499, getSum());
+        statement.execute("TRUNCATE TABLE T");
+        statement.execute("INSERT INTO T VALUES (30000, 7)");
+        assertEquals(7, getSum());
+    }
+
+    public void testMaxRows() throws SQLException {
+
+        Connection c = DriverManager.getConnection(
+            "jdbc:hsqldb:mem:columnstoremax;hsqldb.columnar_max_rows=100",
+            "SA", "");
+        Statement st = c.createStatement();
+
+        st.execute("CREATE COLUMNAR TABLE T (ID INT PRIMARY KEY, V INT)");
+        st.execute("INSERT INTO T SELECT ROWNUM(), 1 "
+                   + "FROM INFORMATION_SCHEMA.COLUMNS LIMIT 150");
+
+        ResultSet rs = st.executeQuery("SELECT SUM(V) FROM T WHERE V > 0");
+
+        rs.next();
+        assertEquals(150, rs.getLong(1));
+        st.execute("SHUTDOWN");
+    }
+
+    private long getSum() throws SQLException {
+        return getLong("SELECT SUM(V) FROM T WHERE V >= 0");
+    }
+
+    private long getLong(String sql) throws SQLException {
+
+        ResultSet rs = statement.executeQuery(sql);
+
+        rs.next();
+
+        long value = rs.getLong(1);
+
+        rs.close();
+
+        return value;
+    }
+}
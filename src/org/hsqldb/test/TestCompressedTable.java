@@ -0,0 +1,201 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.jdbc.JDBCConnection;
+
+/**
+ * Tests the rows of CACHED tables with compressed row storage after the
+ * database is reopened from the .script and .log files.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestCompressedTable extends TestBase {
+
+    static final String path = "testcompressed/test";
+
+    public TestCompressedTable(String name) {
+        super(name, "jdbc:hsqldb:file:" + path, false, false);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+    }
+
+    protected void tearDown() {
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    /**
+     * SET TABLE COMPRESSED and the row changes are replayed from the log.
+     */
+    public void testLogReplay() throws SQLException {
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        createTable(statement);
+        statement.execute("SET TABLE T COMPRESSED TRUE");
+        changeRows(statement);
+        assertTrue(isCompressed(connection));
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertTrue(isCompressed(connection));
+        checkRows(statement);
+        statement.execute("SET TABLE T COMPRESSED FALSE");
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertFalse(isCompressed(connection));
+        checkRows(statement);
+        statement.execute("SHUTDOWN");
+    }
+
+    /**
+     * The compressed rows are read from the .data file saved at the
+     * checkpoint, then the changes made after it are replayed.
+     */
+    public void testCheckpointReplay() throws SQLException {
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        createTable(statement);
+        statement.execute("SET TABLE T COMPRESSED TRUE");
+        statement.execute("CHECKPOINT");
+        changeRows(statement);
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertTrue(isCompressed(connection));
+        checkRows(statement);
+        statement.execute("SHUTDOWN");
+    }
+
+    /**
+     * The rows of a compressed table are replayed from a binary log.
+     */
+    public void testBinaryLogReplay() throws SQLException {
+
+        String     url        = this.url + ";hsqldb.log_format=1";
+        Connection connection = DriverManager.getConnection(url, user,
+            password);
+        Statement  statement  = connection.createStatement();
+
+        createTable(statement);
+        statement.execute("SET TABLE T COMPRESSED TRUE");
+        statement.execute("CHECKPOINT");
+        changeRows(statement);
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = DriverManager.getConnection(url, user, password);
+        statement  = connection.createStatement();
+
+        assertTrue(isCompressed(connection));
+        checkRows(statement);
+        statement.execute("SHUTDOWN");
+    }
+
+    private void createTable(Statement statement) throws SQLException {
+
+        statement.execute("CREATE CACHED TABLE T (ID INT PRIMARY KEY, "
+                          + "NAME VARCHAR(100), V INT)");
+        statement.execute("INSERT INTO T SELECT ROWNUM(), "
+                          + "'customer name ' || MOD(ROWNUM(), 10), ROWNUM() "
+                          + "FROM INFORMATION_SCHEMA.COLUMNS LIMIT 300");
+    }
+
+    private void changeRows(Statement statement) throws SQLException {
+
+        statement.execute("INSERT INTO T VALUES (1000, 'customer name x', 1)");
+        statement.execute("UPDATE T SET NAME = 'changed' WHERE ID <= 10");
+        statement.execute("DELETE FROM T WHERE ID > 200 AND ID <= 300");
+    }
+
+    private void checkRows(Statement statement) throws SQLException {
+
+        assertEquals("201", getString(statement, "SELECT COUNT(*) FROM T"));
+        assertEquals("20101", getString(statement, "SELECT SUM(V) FROM T"));
+        assertEquals("10",
+                     getString(statement, "SELECT COUNT(*) FROM T "
+                                          + "WHERE NAME = 'changed'"));
+        assertEquals("customer name x",
+                     getString(statement,
+                               "SELECT NAME FROM T WHERE ID = 1000"));
+    }
+
+    private String getString(Statement statement,
+                             String sql) throws SQLException {
+
+        ResultSet rs = statement.executeQuery(sql);
+
+        rs.next();
+
+        String value = rs.getString(1);
+
+        rs.close();
+
+        return value;
+    }
+
+    private boolean isCompressed(Connection connection) {
+
+        Session session =
+            (Session) ((JDBCConnection) connection).getSession();
+        Table table = session.database.schemaManager.findUserTable(session,
+            "T", "PUBLIC");
+
+        return table.isCompressed();
+    }
+}
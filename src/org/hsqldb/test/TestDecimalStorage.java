@@ -0,0 +1,232 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.lib.HsqlByteArrayOutputStream;
+import org.hsqldb.rowio.RowInputBinary;
+import org.hsqldb.rowio.RowOutputBinary;
+import org.hsqldb.types.NumberType;
+import org.hsqldb.types.Type;
+import org.hsqldb.types.Types;
+
+/**
+ * Tests the binary format of DECIMAL values around the 8 byte limit of the
+ * unscaled values that are read and written as a long.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestDecimalStorage extends TestBase {
+
+    static final String path = "testdecimalstorage/test";
+
+    //
+    static final BigInteger longMax = BigInteger.valueOf(Long.MAX_VALUE);
+    static final BigInteger longMin = BigInteger.valueOf(Long.MIN_VALUE);
+    static final BigInteger[] unscaledValues = {
+        BigInteger.ZERO, BigInteger.valueOf(-1), BigInteger.ONE,
+        BigInteger.valueOf(127), BigInteger.valueOf(128),
+        BigInteger.valueOf(-128), BigInteger.valueOf(-129),
+        BigInteger.valueOf(255), BigInteger.valueOf(256),
+        BigInteger.valueOf(-256), BigInteger.valueOf(-257),
+        BigInteger.valueOf(Integer.MAX_VALUE),
+        BigInteger.valueOf(Integer.MIN_VALUE),
+        BigInteger.valueOf(1L << 55), BigInteger.valueOf(-(1L << 55)),
+        BigInteger.valueOf((1L << 55) - 1),
+        BigInteger.valueOf(-(1L << 55) - 1), longMax, longMax.negate(),
+        longMin, longMax.add(BigInteger.ONE), longMin.subtract(BigInteger.ONE),
+        longMax.multiply(longMax), longMin.multiply(longMax)
+    };
+    static final int[] scales = {
+        0, 2, 18, -3
+    };
+
+    public TestDecimalStorage(String name) {
+        super(name, "jdbc:hsqldb:file:" + path + ";hsqldb.cache_rows=100",
+              false, false);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+    }
+
+    protected void tearDown() {
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    /**
+     * The bytes written are the same as those of BigInteger.toByteArray()
+     * and the values read back are equal, with the same scale.
+     */
+    public void testBinaryFormat() {
+
+        Type type = NumberType.getNumberType(Types.SQL_DECIMAL, 128, 18);
+
+        for (int i = 0; i < unscaledValues.length; i++) {
+            for (int j = 0; j < scales.length; j++) {
+                BigDecimal      value = new BigDecimal(unscaledValues[i],
+                    scales[j]);
+                RowOutputBinary out   = new RowOutputBinary(64, 1);
+
+                out.writeData(value, type);
+
+                byte[] bytes = toBinary(value);
+                String label = value.toString();
+
+                assertEquals(label, bytes.length, out.size());
+
+                for (int k = 0; k < bytes.length; k++) {
+                    assertEquals(label, bytes[k], out.getBuffer()[k]);
+                }
+
+                assertEquals(label, bytes.length,
+                             out.getSize(new Object[]{ value }, 1,
+                                         new Type[]{ type }));
+
+                RowInputBinary in = new RowInputBinary(out.getBuffer());
+                Object[]       data = in.readData(new Type[]{ type });
+
+                assertEquals(label, value, data[0]);
+            }
+        }
+    }
+
+    /**
+     * Values stored in a CACHED table read back equal before and after the
+     * database is reopened.
+     */
+    public void testCachedTable() throws SQLException {
+
+        Connection c = newConnection();
+        Statement  st = c.createStatement();
+
+        st.execute("CREATE CACHED TABLE T (ID INT PRIMARY KEY,"
+                   + " A DECIMAL(40, 0), B DECIMAL(40, 2), C DECIMAL(40, 18))");
+
+        PreparedStatement ps = c.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?, ?)");
+
+        for (int i = 0; i < unscaledValues.length; i++) {
+            ps.setInt(1, i);
+            ps.setBigDecimal(2, new BigDecimal(unscaledValues[i], 0));
+            ps.setBigDecimal(3, new BigDecimal(unscaledValues[i], 2));
+            ps.setBigDecimal(4, getScaledValue(i));
+            ps.execute();
+        }
+
+        ps.close();
+        checkRows(st);
+        st.execute("CHECKPOINT");
+        checkRows(st);
+        st.execute("SHUTDOWN");
+        c.close();
+
+        c  = newConnection();
+        st = c.createStatement();
+
+        checkRows(st);
+        st.execute("UPDATE T SET A = -A, B = -B, C = -C");
+        st.execute("UPDATE T SET A = -A, B = -B, C = -C");
+        st.execute("SHUTDOWN COMPACT");
+        c.close();
+
+        c  = newConnection();
+        st = c.createStatement();
+
+        checkRows(st);
+        st.execute("SHUTDOWN");
+        c.close();
+    }
+
+    void checkRows(Statement st) throws SQLException {
+
+        ResultSet rs = st.executeQuery("SELECT * FROM T ORDER BY ID");
+        int       i  = 0;
+
+        for (; rs.next(); i++) {
+            assertEquals(i, rs.getInt(1));
+            assertEquals(new BigDecimal(unscaledValues[i], 0),
+                         rs.getBigDecimal(2));
+            assertEquals(new BigDecimal(unscaledValues[i], 2),
+                         rs.getBigDecimal(3));
+            assertEquals(getScaledValue(i), rs.getBigDecimal(4));
+        }
+
+        rs.close();
+        assertEquals(unscaledValues.length, i);
+    }
+
+    /**
+     * Values with scale 18 limited to the precision of the column.
+     */
+    static BigDecimal getScaledValue(int i) {
+
+        BigInteger unscaled = unscaledValues[i];
+
+        if (unscaled.bitLength() > 120) {
+            unscaled = unscaled.shiftRight(64);
+        }
+
+        return new BigDecimal(unscaled, 18);
+    }
+
+    /**
+     * Returns the bytes in the format used before the long was used: null
+     * flag, length of the unscaled byte array, the array and the scale.
+     */
+    static byte[] toBinary(BigDecimal value) {
+
+        byte[]                    unscaled = value.unscaledValue().toByteArray();
+        HsqlByteArrayOutputStream out      = new HsqlByteArrayOutputStream();
+
+        out.write(1);
+        out.writeInt(unscaled.length);
+        out.write(unscaled, 0, unscaled.length);
+        out.writeInt(value.scale());
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,265 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.ExpressionCompiler;
+
+/**
+ * Compares the results of compiled expressions (feature H901_04) with those
+ * of the interpreted expressions for NULL, NaN and signed zero operands and
+ * for mixed numeric types.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestExpressionCompiler extends TestBase {
+
+    static final int maxClassCount = 1024;
+
+    //
+    static final String[] booleanExpressions = {
+        "B1 AND B2", "B1 OR B2", "NOT B1", "NOT (B1 AND B2)",
+        "(I > 1) AND (L < 5)", "(I > 1) OR (D IS NULL)", "NOT (I = L)",
+        "B1 AND (I IS NULL)", "B2 OR (L IS NOT NULL)", "I IS NULL",
+        "I IS NOT NULL", "NOT (D IS NULL)", "D IS NOT NULL AND B1",
+        "D = 0E0", "D = -0E0", "D < 0E0", "D > -1E0", "D <> D", "D = D",
+        "D >= D", "D < 1E308", "D > Z", "I < D", "L = I", "L >= D",
+        "I / Z > 0", "D / Z > 0E0"
+    };
+    static final String[] numberExpressions = {
+        "I + L", "I * D", "L - I", "I - D", "L * D", "-I", "I + 1",
+        "L * 2 + I", "I + 2147483647", "L + 1", "I * L", "D * 0E0",
+        "D + Z", "I / Z", "L / Z", "D / Z", "Z / I", "(I + L) / Z",
+        "NULL / Z", "I / (Z - Z)", "D / (Z - Z)", "-D", "D - D"
+    };
+
+    //
+    Connection interpreted;
+    Connection compiled;
+
+    public TestExpressionCompiler(String name) {
+        super(name, "jdbc:hsqldb:mem:expressioncompiler", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        interpreted = newConnection();
+        compiled    = newConnection();
+
+        Statement statement = interpreted.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute(
+            "CREATE TABLE T (ID INT PRIMARY KEY, I INT, L BIGINT, D DOUBLE,"
+            + " Z INT, B1 BOOLEAN, B2 BOOLEAN)");
+        statement.execute("SET SESSION FEATURE H901_04 FALSE");
+        compiled.createStatement().execute("SET SESSION FEATURE H901_04 TRUE");
+
+        PreparedStatement ps = interpreted.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?, ?, ?, ?, ?)");
+        Object[][] rows = {
+            {
+                1, 1, 10L, 1.5, 0, true, false
+            }, {
+                2, null, 20L, Double.NaN, 1, null, true
+            }, {
+                3, 3, null, -0.0, 0, false, null
+            }, {
+                4, -4, 4L, 0.0, null, null, null
+            }, {
+                5, Integer.MAX_VALUE, Long.MAX_VALUE, null, 2, true, true
+            }, {
+                6, 0, -1L, -1.0E300, -1, false, false
+            }, {
+                7, Integer.MIN_VALUE, Long.MIN_VALUE, Double.NEGATIVE_INFINITY,
+                -1, true, null
+            }
+        };
+
+        for (int i = 0; i < rows.length; i++) {
+            for (int j = 0; j < rows[i].length; j++) {
+                ps.setObject(j + 1, rows[i][j]);
+            }
+
+            ps.execute();
+        }
+    }
+
+    protected void tearDown() {
+
+        try {
+            interpreted.createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testConditions() throws SQLException {
+
+        int count = ExpressionCompiler.getClassCount();
+
+        for (int i = 0; i < booleanExpressions.length; i++) {
+            String e = booleanExpressions[i];
+
+            compare("SELECT ID FROM T WHERE " + e + " ORDER BY ID");
+            compare("SELECT ID FROM T WHERE NOT (" + e + ") ORDER BY ID");
+            compareRows("SELECT " + e + " FROM T WHERE ID = ");
+        }
+
+        checkCompiled(count);
+    }
+
+    public void testArithmetic() throws SQLException {
+
+        int count = ExpressionCompiler.getClassCount();
+
+        for (int i = 0; i < numberExpressions.length; i++) {
+            String e = numberExpressions[i];
+
+            compareRows("SELECT " + e + " FROM T WHERE ID = ");
+            compare("SELECT ID FROM T WHERE " + e + " > 0 ORDER BY ID");
+        }
+
+        checkCompiled(count);
+    }
+
+    /**
+     * Statements with the same shape share a generated class and use it
+     * with their own parameter values. Once the number of classes reaches
+     * the limit, new shapes are interpreted.
+     */
+    public void testShapeSharing() throws SQLException {
+
+        String sql = "SELECT COUNT(*) FROM T WHERE I + ? > L AND D IS NULL";
+        int    count = ExpressionCompiler.getClassCount();
+
+        for (int i = -2; i < 3; i++) {
+            PreparedStatement ps = compiled.prepareStatement(sql);
+
+            ps.setInt(1, i);
+            assertEquals(getString(interpreted, sql, i),
+                         getString(ps.executeQuery()));
+
+            if (i == -2 && count < maxClassCount) {
+                count++;
+            }
+
+            assertEquals(count, ExpressionCompiler.getClassCount());
+            ps.close();
+        }
+
+        // each literal gives a distinct shape
+        for (int i = 0; count < maxClassCount + 10; i++, count++) {
+            String query = "SELECT COUNT(*) FROM T WHERE I + " + (i + 1000)
+                           + " > L";
+
+            assertEquals(query, getString(interpreted, query, null),
+                         getString(compiled, query, null));
+        }
+
+        assertEquals(maxClassCount, ExpressionCompiler.getClassCount());
+        testConditions();
+        testArithmetic();
+        assertEquals(maxClassCount, ExpressionCompiler.getClassCount());
+    }
+
+    static void checkCompiled(int count) {
+
+        if (count < maxClassCount) {
+            assertTrue(ExpressionCompiler.getClassCount() > count);
+        }
+    }
+
+    void compareRows(String sql) throws SQLException {
+
+        for (int id = 1; id <= 7; id++) {
+            compare(sql + id);
+        }
+    }
+
+    void compare(String sql) throws SQLException {
+
+        int    count    = ExpressionCompiler.getClassCount();
+        String expected = getString(interpreted, sql, null);
+
+        assertEquals(count, ExpressionCompiler.getClassCount());
+        assertEquals(sql, expected, getString(compiled, sql, null));
+    }
+
+    static String getString(Connection c, String sql,
+                            Integer parameter) throws SQLException {
+
+        PreparedStatement ps;
+
+        try {
+            ps = c.prepareStatement(sql);
+        } catch (SQLException e) {
+            return "prepare error " + e.getErrorCode();
+        }
+
+        try {
+            if (parameter != null) {
+                ps.setInt(1, parameter.intValue());
+            }
+
+            return getString(ps.executeQuery());
+        } catch (SQLException e) {
+            return "error " + e.getErrorCode();
+        } finally {
+            ps.close();
+        }
+    }
+
+    static String getString(ResultSet rs) throws SQLException {
+
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            sb.append(rs.getString(1)).append(';');
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
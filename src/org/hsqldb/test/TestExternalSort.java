@@ -0,0 +1,237 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+
+/**
+ * Tests ORDER BY results that exceed the result memory row limit and are
+ * sorted in temporary files. The results are compared with those of a
+ * session without the limit, which sorts in memory.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestExternalSort extends TestBase {
+
+    static final String path = "testexternalsort/test";
+
+    // the rows are sorted in ten runs
+    static final int memoryRows = 1000;
+    static final int rowCount   = 10000;
+
+    //
+    Connection connection;
+    Connection memoryConnection;
+    Statement  statement;
+    Statement  memoryStatement;
+
+    public TestExternalSort(String name) {
+        super(name, "jdbc:hsqldb:file:" + path, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+
+        connection       = newConnection();
+        statement        = connection.createStatement();
+        memoryConnection = newConnection();
+        memoryStatement  = memoryConnection.createStatement();
+
+        statement.execute("SET SESSION RESULT MEMORY ROWS " + memoryRows);
+        memoryStatement.execute("SET SESSION RESULT MEMORY ROWS 0");
+        statement.execute("CREATE CACHED TABLE T (ID INT PRIMARY KEY,"
+                          + " K INT, V VARCHAR(20))");
+
+        PreparedStatement ps = connection.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?)");
+
+        // duplicate and NULL keys, not in the order of the primary key
+        for (int i = 0; i < rowCount; i++) {
+            ps.setInt(1, i);
+
+            if (i % 53 == 0) {
+                ps.setNull(2, Types.INTEGER);
+            } else {
+                ps.setInt(2, (i * 7919) % 2003);
+            }
+
+            ps.setString(3, "v" + (i * 31) % 997);
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    /**
+     * The runs are merged in the order of the ORDER BY and the temporary
+     * files are deleted when the result is closed.
+     */
+    public void testOrder() throws SQLException {
+
+        checkQuery("SELECT * FROM T ORDER BY K, ID");
+        checkQuery("SELECT * FROM T ORDER BY K DESC, ID");
+        checkQuery("SELECT ID, V, K FROM T ORDER BY V, K DESC NULLS FIRST, ID");
+        checkQuery("SELECT * FROM T WHERE ID < 5500 ORDER BY K, ID");
+    }
+
+    /**
+     * OFFSET and LIMIT are applied to the merged rows.
+     */
+    public void testLimit() throws SQLException {
+
+        checkQuery("SELECT * FROM T ORDER BY K, ID LIMIT 3000 OFFSET 4500");
+        checkQuery("SELECT * FROM T ORDER BY K DESC, ID OFFSET 9990 ROWS");
+        checkQuery("SELECT * FROM T ORDER BY V, ID OFFSET 20000 ROWS");
+        checkQuery(
+            "SELECT * FROM T ORDER BY V, ID FETCH FIRST 5000 ROWS ONLY");
+    }
+
+    /**
+     * A scrollable result is read backwards and at absolute positions.
+     */
+    public void testScroll() throws SQLException {
+
+        String sql = "SELECT * FROM T ORDER BY K, ID LIMIT 8000 OFFSET 1000";
+        String[] expected = getRows(memoryStatement.executeQuery(sql));
+        Statement st = connection.createStatement(
+            ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        ResultSet rs = st.executeQuery(sql);
+
+        assertTrue(getTempFileCount() > 1);
+        assertTrue(rs.last());
+
+        for (int i = expected.length - 1; i >= 0; i--) {
+            assertEquals(expected[i], getRow(rs));
+            assertEquals(i + 1, rs.getRow());
+            rs.previous();
+        }
+
+        assertTrue(rs.isBeforeFirst());
+
+        int[] positions = {
+            4000, 17, 7999, 1, 3500, 3499, 8000
+        };
+
+        for (int i = 0; i < positions.length; i++) {
+            assertTrue(rs.absolute(positions[i]));
+            assertEquals(expected[positions[i] - 1], getRow(rs));
+        }
+
+        assertTrue(rs.absolute(-2));
+        assertEquals(expected[expected.length - 2], getRow(rs));
+        rs.beforeFirst();
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(rs.next());
+            assertEquals(expected[i], getRow(rs));
+        }
+
+        rs.close();
+        assertEquals(0, getTempFileCount());
+        st.close();
+    }
+
+    void checkQuery(String sql) throws SQLException {
+
+        String[]  expected = getRows(memoryStatement.executeQuery(sql));
+        ResultSet rs       = statement.executeQuery(sql);
+
+        assertTrue(sql, expected.length == 0 || getTempFileCount() > 1);
+
+        String[] result = getRows(rs);
+
+        assertEquals(sql, 0, getTempFileCount());
+        assertEquals(sql, expected.length, result.length);
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(sql, expected[i], result[i]);
+        }
+    }
+
+    /**
+     * Reads and closes the result.
+     */
+    static String[] getRows(ResultSet rs) throws SQLException {
+
+        ArrayList list = new ArrayList();
+
+        while (rs.next()) {
+            list.add(getRow(rs));
+        }
+
+        rs.close();
+
+        return (String[]) list.toArray(new String[list.size()]);
+    }
+
+    static String getRow(ResultSet rs) throws SQLException {
+        return rs.getString(1) + "," + rs.getString(2) + ","
+               + rs.getString(3);
+    }
+
+    static int getTempFileCount() {
+
+        File[] files = new File(path + ".tmp").listFiles();
+        int    count = 0;
+
+        for (int i = 0; files != null && i < files.length; i++) {
+            if (files[i].getName().startsWith("sort_")) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,231 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.Session;
+import org.hsqldb.jdbc.JDBCConnection;
+
+/**
+ * Compares the results of direct statements in a database with
+ * SQL PARAMETERIZE TRUE with those in a database without it, and checks the
+ * reuse of the compiled statements.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestLiteralParameterizer extends TestBase {
+
+    Connection connection;
+    Connection plainConnection;
+    Statement  statement;
+    Statement  plainStatement;
+
+    public TestLiteralParameterizer(String name) {
+        super(name, "jdbc:hsqldb:mem:parameterize", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection      = newConnection();
+        plainConnection = DriverManager.getConnection(
+            "jdbc:hsqldb:mem:parameterizeplain", "SA", "");
+        statement      = connection.createStatement();
+        plainStatement = plainConnection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute("SET DATABASE SQL PARAMETERIZE TRUE");
+        plainStatement.execute("DROP SCHEMA PUBLIC CASCADE");
+        execute("CREATE TABLE T (ID INT PRIMARY KEY, I INT, C CHAR(5),"
+                + " V VARCHAR(5), N NUMERIC(5, 2))");
+        execute("INSERT INTO T VALUES (1, 1, 'ab', 'ab', 1.5),"
+                + " (2, 2, 'abc', 'ab ', 2), (3, NULL, NULL, NULL, NULL)");
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        try {
+            plainStatement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Literals that cannot be converted exactly to the parameter type are
+     * executed with the original text.
+     */
+    public void testConversion() throws SQLException {
+
+        compare("SELECT ID FROM T WHERE I = 1.5");
+        compare("SELECT ID FROM T WHERE I = 2.0");
+        compare("SELECT ID FROM T WHERE I < 1.5 ORDER BY ID");
+        compare("SELECT ID FROM T WHERE I = 1");
+        compare("SELECT ID FROM T WHERE I = 9999999999");
+        compare("SELECT ID FROM T WHERE I = '2'");
+        compare("SELECT ID FROM T WHERE N = 1.505");
+        compare("SELECT ID FROM T WHERE N = 1.50");
+        compare("SELECT ID FROM T WHERE N > 1 AND I >= 1 ORDER BY ID");
+        compare("SELECT ID FROM T WHERE I = 'x'");
+    }
+
+    public void testCharacterPadding() throws SQLException {
+
+        compare("SELECT ID FROM T WHERE C = 'ab'");
+        compare("SELECT ID FROM T WHERE C = 'ab   '");
+        compare("SELECT ID FROM T WHERE C = 'ab    '");
+        compare("SELECT ID FROM T WHERE C = 'ab    x'");
+        compare("SELECT ID FROM T WHERE V = 'ab' ORDER BY ID");
+        compare("SELECT ID FROM T WHERE V = 'ab ' ORDER BY ID");
+        compare("SELECT ID FROM T WHERE V = 'abcdefg'");
+        compare("SELECT ID FROM T WHERE V > '' ORDER BY ID");
+    }
+
+    public void testLists() throws SQLException {
+
+        compare("SELECT ID FROM T WHERE ID IN (1, 3, 5) ORDER BY ID");
+        compare("SELECT ID FROM T WHERE I IN (1.5, 2) ORDER BY ID");
+        compare("SELECT ID FROM T WHERE C IN ('ab', 'abc  ') ORDER BY ID");
+        compare("SELECT ID FROM T WHERE (ID, I) IN ((1, 1), (2, 3))");
+        compare("INSERT INTO T VALUES (4, 4, 'x', 'y', 4.25),"
+                + " (5, NULL, 'xy', 'xy ', -1)");
+        compare("INSERT INTO T (ID, N) VALUES (6, 1.005)");
+        compare("INSERT INTO T (ID, C) VALUES (7, 'abcdefgh')");
+        compare("INSERT INTO T (ID, I) VALUES (8, 1), (9, 2.5)");
+        compare("SELECT * FROM T ORDER BY ID");
+    }
+
+    public void testUpdate() throws SQLException {
+
+        compare("UPDATE T SET I = 7 WHERE ID = 1");
+        compare("UPDATE T SET I = 7.5 WHERE ID = 2");
+        compare("UPDATE T SET C = 'xyz', N = 3.125 WHERE ID = 2");
+        compare("UPDATE T SET V = 'abcdefgh' WHERE ID = 3");
+        compare("UPDATE T SET N = 0.5 WHERE I = 1 OR I = 2");
+        compare("DELETE FROM T WHERE N = 1.5");
+        compare("SELECT * FROM T ORDER BY ID");
+    }
+
+    /**
+     * Statements that differ only in literal values share one compiled
+     * statement, and the number of such statements is limited.
+     */
+    public void testReuse() throws SQLException {
+
+        Session session = (Session) ((JDBCConnection) connection).getSession();
+        int     count   = session.statementManager.getParameterizedCount();
+
+        for (int i = 0; i < 10; i++) {
+            compare("SELECT ID FROM T WHERE ID = " + i);
+            compare("SELECT ID, V FROM T WHERE C = 'ab' AND I < " + i);
+        }
+
+        assertEquals(count + 2,
+                     session.statementManager.getParameterizedCount());
+
+        for (int i = 0; i < 300; i++) {
+            compare("SELECT ID AS A" + i + " FROM T WHERE I = " + i);
+        }
+
+        assertEquals(256, session.statementManager.getParameterizedCount());
+        compare("SELECT ID FROM T WHERE ID = 2");
+    }
+
+    /**
+     * A compiled statement is not reused after a schema change.
+     */
+    public void testSchemaChange() throws SQLException {
+
+        compare("SELECT * FROM T WHERE ID = 1");
+        execute("ALTER TABLE T ADD COLUMN X INT DEFAULT 5");
+        compare("SELECT * FROM T WHERE ID = 2");
+        execute("ALTER TABLE T ALTER COLUMN I VARCHAR(10)");
+        compare("SELECT * FROM T WHERE I = 1");
+        compare("SELECT * FROM T WHERE I = '1'");
+        execute("DROP TABLE T");
+        execute("CREATE TABLE T (ID BIGINT, I DOUBLE)");
+        execute("INSERT INTO T VALUES (1, 1.5)");
+        compare("SELECT * FROM T WHERE I = 1.5");
+        compare("SELECT * FROM T WHERE ID = 1");
+    }
+
+    void execute(String sql) throws SQLException {
+        statement.execute(sql);
+        plainStatement.execute(sql);
+    }
+
+    void compare(String sql) {
+        assertEquals(sql, getString(plainStatement, sql),
+                     getString(statement, sql));
+    }
+
+    static String getString(Statement statement, String sql) {
+
+        try {
+            if (!statement.execute(sql)) {
+                return "update count " + statement.getUpdateCount();
+            }
+
+            ResultSet    rs    = statement.getResultSet();
+            StringBuffer sb    = new StringBuffer();
+            int          count = rs.getMetaData().getColumnCount();
+
+            while (rs.next()) {
+                for (int i = 1; i <= count; i++) {
+                    sb.append(rs.getString(i)).append(',');
+                }
+
+                sb.append(';');
+            }
+
+            rs.close();
+
+            return sb.toString();
+        } catch (SQLException e) {
+            return "error " + e.getErrorCode();
+        }
+    }
+}
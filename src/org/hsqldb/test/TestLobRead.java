@@ -0,0 +1,309 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.io.File;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Tests concurrent reads of plain and compressed LOBs, and LOBs committed
+ * with write delay 0 after the database is reopened without a checkpoint.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestLobRead extends TestBase {
+
+    static final String path           = "testlobread/test";
+    static final String compressedPath = "testlobread/compressed";
+
+    //
+    static final int lobCount    = 24;
+    static final int threadCount = 8;
+    static final int readCount   = 60;
+
+    //
+    String url;
+
+    public TestLobRead(String name) {
+        super(name, "jdbc:hsqldb:file:" + path, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+        TestUtil.deleteDatabase(compressedPath);
+    }
+
+    protected void tearDown() {
+
+        TestUtil.deleteDatabase(path);
+        TestUtil.deleteDatabase(compressedPath);
+        super.tearDown();
+    }
+
+    public void testConcurrentRead() throws Exception {
+
+        url = "jdbc:hsqldb:file:" + path;
+
+        checkConcurrentRead();
+    }
+
+    public void testConcurrentReadCompressed() throws Exception {
+
+        url = "jdbc:hsqldb:file:" + compressedPath
+              + ";hsqldb.lob_compressed=true";
+
+        checkConcurrentRead();
+
+        // the CLOB data is stored in fewer blocks than in the plain file
+        url = "jdbc:hsqldb:file:" + path;
+
+        Connection c = getConnection();
+
+        createTable(c);
+        c.createStatement().execute("SHUTDOWN");
+        assertTrue(new File(compressedPath + ".lobs").length()
+                   < new File(path + ".lobs").length());
+    }
+
+    /**
+     * LOBs committed with write delay 0 are read back after the database
+     * is closed without a checkpoint and the log is replayed.
+     */
+    public void testReopen() throws Exception {
+
+        for (int i = 0; i < 2; i++) {
+            url = i == 0 ? "jdbc:hsqldb:file:" + path
+                         : "jdbc:hsqldb:file:" + compressedPath
+                           + ";hsqldb.lob_compressed=true";
+
+            Connection c  = getConnection();
+            Statement  st = c.createStatement();
+
+            st.execute("SET FILES WRITE DELAY 0");
+            createTable(c);
+            st.execute("DELETE FROM T WHERE MOD(ID, 3) = 0");
+            st.execute("SHUTDOWN IMMEDIATELY");
+
+            c  = getConnection();
+            st = c.createStatement();
+
+            ResultSet rs = st.executeQuery("SELECT * FROM T ORDER BY ID");
+            int       count = 0;
+
+            while (rs.next()) {
+                int id = rs.getInt(1);
+
+                assertTrue(id % 3 != 0);
+                checkLob(id, rs.getClob(2), rs.getBlob(3), 0);
+
+                count++;
+            }
+
+            rs.close();
+            assertEquals(lobCount - (lobCount + 2) / 3, count);
+            st.execute("SHUTDOWN");
+        }
+    }
+
+    void checkConcurrentRead() throws Exception {
+
+        Connection c = getConnection();
+
+        createTable(c);
+
+        final Throwable[] errors  = new Throwable[threadCount];
+        Thread[]          threads = new Thread[threadCount];
+
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+
+            threads[i] = new Thread() {
+
+                public void run() {
+
+                    try {
+                        readLobs(index);
+                    } catch (Throwable t) {
+                        errors[index] = t;
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        c.createStatement().execute("SHUTDOWN");
+
+        for (int i = 0; i < threadCount; i++) {
+            if (errors[i] != null) {
+                errors[i].printStackTrace();
+                fail(errors[i].toString());
+            }
+        }
+    }
+
+    /**
+     * Reads whole LOBs and parts of LOBs at random offsets.
+     */
+    void readLobs(int seed) throws SQLException {
+
+        Connection        c      = getConnection();
+        Random            random = new Random(seed);
+        PreparedStatement ps     = c.prepareStatement(
+            "SELECT C, B FROM T WHERE ID = ?");
+
+        for (int i = 0; i < readCount; i++) {
+            int id = random.nextInt(lobCount);
+
+            ps.setInt(1, id);
+
+            ResultSet rs = ps.executeQuery();
+
+            assertTrue(rs.next());
+            checkLob(id, rs.getClob(1), rs.getBlob(2), random.nextInt(3));
+            rs.close();
+        }
+
+        ps.close();
+        c.close();
+    }
+
+    void checkLob(int id, Clob clob, Blob blob,
+                  int mode) throws SQLException {
+
+        String string = getString(id);
+        byte[] bytes  = getBytes(id);
+
+        assertEquals(string.length(), clob.length());
+        assertEquals(bytes.length, blob.length());
+
+        if (mode == 0) {
+            assertEquals(string, clob.getSubString(1, string.length()));
+            assertTrue(java.util.Arrays.equals(bytes,
+                                               blob.getBytes(1,
+                                                   bytes.length)));
+
+            return;
+        }
+
+        // a part that starts near the end of a block
+        int start = mode == 1 ? 32 * 1024 - 7
+                              : 1000;
+        int offset = start % string.length();
+        int length = Math.min(70000, string.length() - offset);
+
+        assertEquals(string.substring(offset, offset + length),
+                     clob.getSubString(offset + 1, length));
+
+        offset = start % bytes.length;
+        length = Math.min(70000, bytes.length - offset);
+
+        byte[] part = blob.getBytes(offset + 1, length);
+
+        assertEquals(length, part.length);
+
+        for (int i = 0; i < length; i++) {
+            assertEquals(bytes[offset + i], part[i]);
+        }
+    }
+
+    void createTable(Connection c) throws SQLException {
+
+        Statement st = c.createStatement();
+
+        st.execute("CREATE TABLE T (ID INT PRIMARY KEY, C CLOB, B BLOB)");
+
+        PreparedStatement ps = c.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?)");
+
+        for (int i = 0; i < lobCount; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, getString(i));
+            ps.setBytes(3, getBytes(i));
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(url, "SA", "");
+    }
+
+    /**
+     * Text of different sizes, some of several blocks
+     */
+    static String getString(int id) {
+
+        int          length = 100 + id * id * 500;
+        StringBuffer sb     = new StringBuffer(length);
+
+        for (int i = 0; sb.length() < length; i++) {
+            sb.append("row ").append(id).append(" line ").append(i).append(
+                '\n');
+        }
+
+        sb.setLength(length);
+
+        return sb.toString();
+    }
+
+    /**
+     * Bytes that do not compress
+     */
+    static byte[] getBytes(int id) {
+
+        byte[] bytes = new byte[50 + id * 20000];
+
+        new Random(id).nextBytes(bytes);
+
+        return bytes;
+    }
+}
@@ -0,0 +1,301 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Tests statements of MVCC sessions that run while other sessions commit
+ * changes to CACHED tables. Each commit keeps the totals of the tables
+ * unchanged, so a statement that saw a commit half-way would see different
+ * totals.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestMVCCCommits extends TestBase {
+
+    static final String path = "testmvcccommits/test";
+
+    //
+    static final int accountCount = 200;
+    static final int groupCount   = 20;
+    static final int balance      = 1000;
+    static final int writerCount  = 4;
+    static final int readerCount  = 4;
+    static final int commitCount  = 300;
+
+    //
+    volatile boolean writing;
+    int[]            commits;
+
+    public TestMVCCCommits(String name) {
+        super(name, "jdbc:hsqldb:file:" + path, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+
+        st.execute("SET DATABASE TRANSACTION CONTROL MVCC");
+        st.execute("CREATE CACHED TABLE A (ID INT PRIMARY KEY, G INT,"
+                   + " BAL INT, VER INT)");
+        st.execute("CREATE CACHED TABLE B (ID INT PRIMARY KEY, G INT,"
+                   + " BAL INT, VER INT)");
+
+        PreparedStatement ps = c.prepareStatement(
+            "INSERT INTO A VALUES (?, ?, ?, 0)");
+
+        for (int i = 0; i < accountCount; i++) {
+            ps.setInt(1, i);
+            ps.setInt(2, i % groupCount);
+            ps.setInt(3, balance);
+            ps.execute();
+        }
+
+        ps.close();
+        c.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            newConnection().createStatement().execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    /**
+     * Readers in autocommit mode and in open transactions check the totals
+     * while the writers commit.
+     */
+    public void testInterleaving() throws Exception {
+
+        final Throwable[] errors  = new Throwable[writerCount + readerCount];
+        final int[]       reads   = new int[readerCount];
+        Thread[]          threads = new Thread[writerCount + readerCount];
+
+        writing = true;
+        commits = new int[writerCount];
+
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+
+            threads[i] = new Thread() {
+
+                public void run() {
+
+                    try {
+                        if (index < writerCount) {
+                            write(index);
+                        } else {
+                            reads[index - writerCount] =
+                                read(index % 2 == 0);
+                        }
+                    } catch (Throwable t) {
+                        errors[index] = t;
+                    } finally {
+                        if (index < writerCount) {
+                            synchronized (errors) {
+                                errors.notifyAll();
+                            }
+                        }
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        for (int i = 0; i < writerCount; i++) {
+            threads[i].join();
+        }
+
+        writing = false;
+
+        for (int i = writerCount; i < threads.length; i++) {
+            threads[i].join();
+        }
+
+        for (int i = 0; i < threads.length; i++) {
+            if (errors[i] != null) {
+                errors[i].printStackTrace();
+                fail(errors[i].toString());
+            }
+        }
+
+        for (int i = 0; i < writerCount; i++) {
+            assertTrue(commits[i] > commitCount / 4);
+        }
+
+        for (int i = 0; i < readerCount; i++) {
+            assertTrue(reads[i] > 0);
+        }
+
+        // the final state is also consistent
+        checkTotals(newConnection().createStatement());
+    }
+
+    /**
+     * Each transaction moves an amount between two accounts, moves an
+     * account to the other table, and sets a new version for all the rows
+     * of a group. Transactions that fail because of a conflict are rolled
+     * back.
+     */
+    void write(int seed) throws SQLException {
+
+        Connection c      = newConnection();
+        Random     random = new Random(seed);
+
+        // with SNAPSHOT ISOLATION, transactions that change the same rows
+        // conflict and the totals are the same after each commit
+        c.setAutoCommit(false);
+        c.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+
+        Statement st = c.createStatement();
+        PreparedStatement[] transfer = {
+            c.prepareStatement("UPDATE A SET BAL = BAL + ? WHERE ID = ?"),
+            c.prepareStatement("UPDATE B SET BAL = BAL + ? WHERE ID = ?")
+        };
+        PreparedStatement[] version = {
+            c.prepareStatement("UPDATE A SET VER = ? WHERE G = ?"),
+            c.prepareStatement("UPDATE B SET VER = ? WHERE G = ?")
+        };
+
+        for (int i = 0; i < commitCount; i++) {
+            int from   = random.nextInt(accountCount);
+            int to     = random.nextInt(accountCount);
+            int amount = random.nextInt(100);
+
+            try {
+
+                // the account is in one of the tables
+                for (int j = 0; j < 2; j++) {
+                    transfer[j].setInt(1, -amount);
+                    transfer[j].setInt(2, from);
+                    transfer[j].execute();
+                    transfer[j].setInt(1, amount);
+                    transfer[j].setInt(2, to);
+                    transfer[j].execute();
+                }
+
+                int id = random.nextInt(accountCount);
+
+                if (st.executeUpdate("INSERT INTO B SELECT * FROM A WHERE ID = "
+                                     + id) == 1) {
+                    st.execute("DELETE FROM A WHERE ID = " + id);
+                } else if (st.executeUpdate(
+                        "INSERT INTO A SELECT * FROM B WHERE ID = "
+                        + id) == 1) {
+                    st.execute("DELETE FROM B WHERE ID = " + id);
+                }
+
+                int group = random.nextInt(groupCount);
+
+                for (int j = 0; j < 2; j++) {
+                    version[j].setInt(1, seed * commitCount + i + 1);
+                    version[j].setInt(2, group);
+                    version[j].execute();
+                }
+
+                c.commit();
+
+                commits[seed]++;
+            } catch (SQLException e) {
+                c.rollback();
+            }
+        }
+
+        c.close();
+    }
+
+    /**
+     * Checks the totals until the writers are done. Returns the number of
+     * checks.
+     */
+    int read(boolean autoCommit) throws SQLException {
+
+        Connection c  = newConnection();
+        Statement  st = c.createStatement();
+        int        count;
+
+        c.setAutoCommit(autoCommit);
+
+        for (count = 0; writing; count++) {
+            checkTotals(st);
+
+            if (!autoCommit && count % 10 == 9) {
+                c.commit();
+            }
+        }
+
+        c.commit();
+        c.close();
+
+        return count;
+    }
+
+    static void checkTotals(Statement st) throws SQLException {
+
+        ResultSet rs = st.executeQuery(
+            "SELECT (SELECT SUM(BAL) FROM A) + COALESCE((SELECT SUM(BAL)"
+            + " FROM B), 0), (SELECT COUNT(*) FROM A) + (SELECT COUNT(*)"
+            + " FROM B) FROM (VALUES(0))");
+
+        rs.next();
+        assertEquals(accountCount * balance, rs.getInt(1));
+        assertEquals(accountCount, rs.getInt(2));
+        rs.close();
+
+        // the rows of a group have the same version
+        rs = st.executeQuery("SELECT G FROM (SELECT G, VER FROM A UNION ALL"
+                             + " SELECT G, VER FROM B) GROUP BY G"
+                             + " HAVING MIN(VER) <> MAX(VER)");
+
+        assertFalse(rs.next());
+        rs.close();
+    }
+}
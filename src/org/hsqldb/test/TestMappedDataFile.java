@@ -0,0 +1,184 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.Row;
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.jdbc.JDBCConnection;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.persist.PersistentStore;
+
+/**
+ * Tests the rows of a CACHED table read from a .data file accessed with
+ * NIO, including rows that cross the boundary between two mapped buffers.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestMappedDataFile extends TestBase {
+
+    static final String path = "testmapped/test";
+
+    // size of each mapped buffer
+    static final long bufferSize = 1 << 24;
+
+    //
+    static final int rowCount = 2200;
+
+    public TestMappedDataFile(String name) {
+        super(name, "jdbc:hsqldb:file:" + path
+                    + ";hsqldb.nio_data_file=true;hsqldb.cache_rows=100",
+              false, false);
+    }
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+    }
+
+    protected void tearDown() {
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    public void testBufferBoundary() throws SQLException {
+
+        Connection connection = newConnection();
+        Statement  statement  = connection.createStatement();
+
+        statement.execute("CREATE CACHED TABLE T (ID INT PRIMARY KEY,"
+                          + " V VARCHAR(20000), N BIGINT)");
+
+        PreparedStatement ps =
+            connection.prepareStatement("INSERT INTO T VALUES (?, ?, ?)");
+
+        for (int i = 0; i < rowCount; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, getValue(i));
+            ps.setLong(3, i * 1000000007L);
+            ps.execute();
+        }
+
+        statement.execute("SHUTDOWN");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        assertTrue(getCrossingCount(connection) > 0);
+        checkRows(statement, false);
+        statement.execute("UPDATE T SET V = V || 'x' WHERE MOD(ID, 3) = 0");
+        statement.execute("CHECKPOINT");
+        statement.execute("SHUTDOWN");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        checkRows(statement, true);
+        statement.execute("SHUTDOWN");
+    }
+
+    /**
+     * Returns the number of rows that cross the boundary between two mapped
+     * buffers.
+     */
+    static int getCrossingCount(Connection connection) {
+
+        Session session = (Session) ((JDBCConnection) connection).getSession();
+        Table table = session.database.schemaManager.findUserTable(session,
+            "T", "PUBLIC");
+        PersistentStore store = table.getRowStore(session);
+        RowIterator     it    = table.getPrimaryIndex().firstRow(store);
+        int             scale = session.database.logger.getDataFileScale();
+        int             count = 0;
+
+        for (Row row = it.getNextRow(); row != null; row = it.getNextRow()) {
+            long start = row.getPos() * scale;
+            long end   = start + row.getStorageSize() - 1;
+
+            if (start / bufferSize != end / bufferSize) {
+                count++;
+            }
+        }
+
+        it.release();
+
+        return count;
+    }
+
+    static void checkRows(Statement statement,
+                          boolean updated) throws SQLException {
+
+        ResultSet rs =
+            statement.executeQuery("SELECT ID, V, N FROM T ORDER BY ID");
+        int count = 0;
+
+        while (rs.next()) {
+            int    id    = rs.getInt(1);
+            String value = getValue(id);
+
+            if (updated && id % 3 == 0) {
+                value += 'x';
+            }
+
+            assertEquals(count, id);
+            assertEquals(value, rs.getString(2));
+            assertEquals(id * 1000000007L, rs.getLong(3));
+
+            count++;
+        }
+
+        rs.close();
+        assertEquals(rowCount, count);
+    }
+
+    static String getValue(int id) {
+
+        StringBuffer sb = new StringBuffer();
+
+        for (int i = 0; i < 9000 + id % 500; i++) {
+            sb.append((char) ('a' + (id + i) % 26));
+        }
+
+        return sb.toString();
+    }
+}
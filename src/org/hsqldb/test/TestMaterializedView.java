@@ -0,0 +1,268 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Compares the contents of materialized views with the result of their
+ * queries after changes to the base table are committed or rolled back,
+ * after TRUNCATE and REFRESH, and after the database is reopened.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestMaterializedView extends TestBase {
+
+    static final String path = "testmaterializedview/test";
+
+    //
+    static final String[] views = {
+        "P", "A", "D"
+    };
+    static final String[] queries = {
+        "SELECT ID, V * 2 FROM B WHERE G > 0 ORDER BY ID",
+        "SELECT G, COUNT(*), SUM(V), COUNT(V) FROM B GROUP BY G ORDER BY G",
+        "SELECT DISTINCT G FROM B ORDER BY G"
+    };
+
+    //
+    Connection connection;
+    Statement  statement;
+
+    public TestMaterializedView(String name) {
+        super(name, "jdbc:hsqldb:file:" + path, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute(
+            "CREATE CACHED TABLE B (ID INT PRIMARY KEY, G INT, V INT)");
+        statement.execute("INSERT INTO B VALUES (1, 1, 10), (2, 1, 20),"
+                          + " (3, 2, NULL), (4, 3, 40), (5, -1, 50)");
+        statement.execute(
+            "CREATE MATERIALIZED VIEW P (ID, W) AS SELECT ID, V * 2 FROM B"
+            + " WHERE G > 0");
+        statement.execute(
+            "CREATE MATERIALIZED VIEW A (G, C, S, CV) AS SELECT G, COUNT(*),"
+            + " SUM(V), COUNT(V) FROM B GROUP BY G");
+
+        // not maintained
+        statement.execute(
+            "CREATE MATERIALIZED VIEW D AS SELECT DISTINCT G FROM B");
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        TestUtil.deleteDatabase(path);
+        super.tearDown();
+    }
+
+    public void testInsertUpdateDelete() throws SQLException {
+
+        checkViews(true);
+        statement.execute("INSERT INTO B VALUES (6, 2, 60), (7, 4, 70)");
+        checkViews(false);
+        statement.execute("UPDATE B SET V = V + 1 WHERE G = 1");
+        checkViews(false);
+
+        // moves rows between groups and into and out of the condition
+        statement.execute("UPDATE B SET G = 2 WHERE ID IN (1, 4)");
+        statement.execute("UPDATE B SET G = -1 WHERE ID = 6");
+        statement.execute("UPDATE B SET G = 3 WHERE ID = 5");
+        checkViews(false);
+        statement.execute("UPDATE B SET ID = ID + 10 WHERE G = 2");
+        checkViews(false);
+        statement.execute("DELETE FROM B WHERE V > 40");
+        checkViews(false);
+        statement.execute("DELETE FROM B");
+        checkViews(false);
+        assertEquals("", getString("SELECT * FROM A"));
+    }
+
+    public void testRollback() throws SQLException {
+
+        String contents = getString("SELECT * FROM A ORDER BY G");
+
+        connection.setAutoCommit(false);
+        statement.execute("INSERT INTO B VALUES (6, 2, 60)");
+        statement.execute("UPDATE B SET G = 4 WHERE ID = 1");
+        statement.execute("DELETE FROM B WHERE ID = 4");
+        connection.rollback();
+        assertEquals(contents, getString("SELECT * FROM A ORDER BY G"));
+        checkViews(true);
+
+        // a savepoint rollback leaves only the later changes uncommitted
+        statement.execute("INSERT INTO B VALUES (6, 2, 60)");
+        statement.execute("SAVEPOINT S1");
+        statement.execute("UPDATE B SET G = 4 WHERE ID = 1");
+        statement.execute("DELETE FROM B WHERE ID = 4");
+        statement.execute("ROLLBACK TO SAVEPOINT S1");
+        connection.commit();
+        checkViews(false);
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * The row of a group is removed when its count drops to zero and is
+     * added again by a later insert.
+     */
+    public void testEmptyGroup() throws SQLException {
+
+        statement.execute("DELETE FROM B WHERE G = 1");
+        assertEquals("", getString("SELECT * FROM A WHERE G = 1"));
+        checkViews(false);
+        statement.execute("UPDATE B SET G = 5 WHERE ID = 4");
+        assertEquals("", getString("SELECT * FROM A WHERE G = 3"));
+        assertEquals("5,1,40,1;", getString("SELECT * FROM A WHERE G = 5"));
+        statement.execute("INSERT INTO B VALUES (1, 1, 10)");
+        assertEquals("1,1,10,1;", getString("SELECT * FROM A WHERE G = 1"));
+        checkViews(false);
+    }
+
+    /**
+     * SUM over a nullable column is NULL while all the values of the group
+     * are NULL, including after the non-null values are removed.
+     */
+    public void testNullableSum() throws SQLException {
+
+        assertEquals("2,1,null,0;", getString("SELECT * FROM A WHERE G = 2"));
+        statement.execute("INSERT INTO B VALUES (6, 2, 5)");
+        assertEquals("2,2,5,1;", getString("SELECT * FROM A WHERE G = 2"));
+        statement.execute("UPDATE B SET V = NULL WHERE ID = 6");
+        assertEquals("2,2,null,0;", getString("SELECT * FROM A WHERE G = 2"));
+        statement.execute("UPDATE B SET V = NULL WHERE G = 1");
+        assertEquals("1,2,null,0;", getString("SELECT * FROM A WHERE G = 1"));
+        statement.execute("UPDATE B SET V = -7 WHERE ID = 1");
+        assertEquals("1,2,-7,1;", getString("SELECT * FROM A WHERE G = 1"));
+        checkViews(false);
+    }
+
+    public void testRefreshAndTruncate() throws SQLException {
+
+        statement.execute("TRUNCATE TABLE B");
+        checkViews(false);
+        assertEquals("", getString("SELECT * FROM P"));
+        statement.execute("INSERT INTO B VALUES (1, 1, 10), (2, 7, 20)");
+        checkViews(false);
+        assertEquals("-1;1;2;3;", getString("SELECT * FROM D ORDER BY G"));
+        statement.execute("REFRESH MATERIALIZED VIEW D");
+        statement.execute("REFRESH MATERIALIZED VIEW A");
+        checkViews(true);
+        statement.execute("UPDATE B SET G = 1");
+        checkViews(false);
+    }
+
+    /**
+     * The view rows are restored from the .script file after SHUTDOWN and
+     * from the .log file after SHUTDOWN IMMEDIATELY, and maintenance goes on
+     * after the database is reopened.
+     */
+    public void testReopen() throws SQLException {
+
+        statement.execute("INSERT INTO B VALUES (6, 2, 60)");
+        statement.execute("REFRESH MATERIALIZED VIEW D");
+        statement.execute("SHUTDOWN");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        checkViews(true);
+        statement.execute("DELETE FROM B WHERE G = 1");
+        statement.execute("UPDATE B SET V = 3 WHERE ID = 3");
+        statement.execute("SHUTDOWN IMMEDIATELY");
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        checkViews(false);
+        statement.execute("INSERT INTO B VALUES (1, 2, 1)");
+        statement.execute("UPDATE B SET G = 3 WHERE ID = 3");
+        checkViews(false);
+    }
+
+    /**
+     * Checks the maintained views. The view that is not maintained is
+     * checked only when it has been refreshed.
+     */
+    void checkViews(boolean refreshed) throws SQLException {
+
+        for (int i = 0; i < views.length; i++) {
+            if (!refreshed && views[i].equals("D")) {
+                continue;
+            }
+
+            assertEquals(views[i], getString(queries[i]),
+                         getString("SELECT * FROM " + views[i]
+                                   + " ORDER BY 1"));
+        }
+    }
+
+    String getString(String sql) throws SQLException {
+
+        ResultSet    rs = statement.executeQuery(sql);
+        StringBuffer sb = new StringBuffer();
+        int          count = rs.getMetaData().getColumnCount();
+
+        while (rs.next()) {
+            for (int i = 1; i <= count; i++) {
+                if (i > 1) {
+                    sb.append(',');
+                }
+
+                sb.append(rs.getString(i));
+            }
+
+            sb.append(';');
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,250 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Random;
+
+/**
+ * Tests equi-joins of large tables that continue the index probes from the
+ * last match. The results are compared with the same joins where the
+ * condition is not a plain column and the index is searched for each outer
+ * row.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestMergeJoin extends TestBase {
+
+    // tables A and B are above the minimum size for a merge join
+    static final int countA = 5000;
+    static final int countB = 6000;
+    static final int countC = 3000;
+
+    //
+    Connection connection;
+    Statement  statement;
+
+    public TestMergeJoin(String name) {
+        super(name, "jdbc:hsqldb:mem:mergejoin", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute(
+            "CREATE TABLE A (ID INT PRIMARY KEY, K INT, V VARCHAR(10))");
+        statement.execute(
+            "CREATE TABLE B (ID INT PRIMARY KEY, K INT, W VARCHAR(10))");
+        statement.execute("CREATE TABLE C (ID INT PRIMARY KEY, X INT)");
+        statement.execute("CREATE INDEX IA ON A (K)");
+        statement.execute("CREATE INDEX IB ON B (K)");
+
+        // duplicate and NULL keys in both tables, with keys of each table
+        // that are not in the other
+        insertRows("A", countA, 1500, 97);
+        insertRows("B", countB, 2000, 101);
+
+        PreparedStatement ps = connection.prepareStatement(
+            "INSERT INTO C VALUES (?, ?)");
+        Random random = new Random(35);
+
+        // keys in random order
+        for (int i = 0; i < countC; i++) {
+            ps.setInt(1, i);
+
+            if (i % 89 == 0) {
+                ps.setNull(2, Types.INTEGER);
+            } else {
+                ps.setInt(2, random.nextInt(2100));
+            }
+
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Outer rows in key order with duplicate keys.
+     */
+    public void testInnerJoin() throws SQLException {
+
+        checkJoin("SELECT A.ID, B.ID, A.K FROM A JOIN B ON A.K = B.K"
+                  + " WHERE A.K >= 0", "A.K = B.K + 0");
+        checkJoin("SELECT A.ID, B.ID FROM A JOIN B ON A.ID = B.K",
+                  "A.ID = B.K + 0");
+    }
+
+    /**
+     * Outer rows without a match, including rows with a NULL key.
+     */
+    public void testLeftJoin() throws SQLException {
+
+        checkJoin("SELECT A.ID, B.ID, A.K FROM A LEFT JOIN B ON A.K = B.K"
+                  + " WHERE A.K > 1000", "A.K = B.K + 0");
+        checkJoin("SELECT A.ID, B.ID, B.K FROM A LEFT JOIN B ON A.ID = B.K",
+                  "A.ID = B.K + 0");
+    }
+
+    /**
+     * Outer rows that are not in key order, with NULL keys from an outer
+     * join.
+     */
+    public void testOuterOrder() throws SQLException {
+
+        checkJoin("SELECT C.ID, A.ID, B.ID FROM C JOIN A ON C.X = A.K"
+                  + " JOIN B ON A.K = B.K", "A.K = B.K + 0");
+        checkJoin("SELECT C.ID, A.ID, B.ID FROM C LEFT JOIN A ON C.X = A.K"
+                  + " LEFT JOIN B ON A.K = B.K", "A.K = B.K + 0");
+    }
+
+    /**
+     * Checks that the query uses a merge join and returns the same rows as
+     * the query with the last ON condition replaced.
+     */
+    void checkJoin(String sql, String condition) throws SQLException {
+
+        int    index = sql.lastIndexOf(" ON ") + 4;
+        int    end   = sql.indexOf(" WHERE ", index);
+        String other;
+
+        if (end < 0) {
+            end = sql.length();
+        }
+
+        other = sql.substring(0, index) + condition + sql.substring(end);
+
+        assertTrue(sql, getPlan(sql).indexOf("join method=MERGE") >= 0);
+        assertTrue(other, getPlan(other).indexOf("join method=MERGE") < 0);
+
+        String order    = getOrder(sql);
+        String expected = getResult(other + order);
+        String result   = getResult(sql + order);
+
+        assertTrue(sql, expected.length() > 0);
+        assertEquals(sql, expected, result);
+    }
+
+    void insertRows(String table, int count, int range,
+                    int nullInterval) throws SQLException {
+
+        PreparedStatement ps = connection.prepareStatement("INSERT INTO "
+            + table + " VALUES (?, ?, ?)");
+
+        for (int i = 0; i < count; i++) {
+            ps.setInt(1, i);
+
+            if (i % nullInterval == 0) {
+                ps.setNull(2, Types.INTEGER);
+            } else {
+                ps.setInt(2, (i * 7) % range);
+            }
+
+            ps.setString(3, table + i);
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    String getPlan(String sql) throws SQLException {
+
+        ResultSet    rs = statement.executeQuery("EXPLAIN PLAN FOR " + sql);
+        StringBuffer sb = new StringBuffer();
+
+        while (rs.next()) {
+            sb.append(rs.getString(1)).append('\n');
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns an ORDER BY clause with all the columns of the query.
+     */
+    static String getOrder(String sql) {
+
+        int    count = sql.substring(0, sql.indexOf(" FROM ")).split(",").length;
+        StringBuffer sb = new StringBuffer(" ORDER BY 1");
+
+        for (int i = 2; i <= count; i++) {
+            sb.append(", ").append(i);
+        }
+
+        return sb.toString();
+    }
+
+    String getResult(String sql) throws SQLException {
+
+        ResultSet         rs   = statement.executeQuery(sql);
+        ResultSetMetaData meta = rs.getMetaData();
+        StringBuffer      sb   = new StringBuffer();
+
+        while (rs.next()) {
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                sb.append(rs.getString(i)).append(',');
+            }
+
+            sb.append('\n');
+        }
+
+        rs.close();
+
+        return sb.toString();
+    }
+}
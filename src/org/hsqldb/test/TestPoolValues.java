@@ -0,0 +1,222 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.Row;
+import org.hsqldb.Session;
+import org.hsqldb.Table;
+import org.hsqldb.jdbc.JDBCConnection;
+import org.hsqldb.navigator.RowIterator;
+import org.hsqldb.persist.RowStoreAVLMemory;
+
+/**
+ * Tests the shared values of MEMORY tables with the
+ * hsqldb.memory_pool_values property.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestPoolValues extends TestBase {
+
+    static final int rowCount = 1000;
+
+    //
+    static final String[] strings = {
+        "a", "b", "a ", "A", ""
+    };
+    static final double[] doubles = {
+        0.0, -0.0, Double.NaN, 1.5, -1.5
+    };
+
+    //
+    Connection connection;
+    Statement  statement;
+
+    public TestPoolValues(String name) {
+        super(name, "jdbc:hsqldb:mem:poolvalues;hsqldb.memory_pool_values=true",
+              false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute(
+            "CREATE TABLE T (ID INT PRIMARY KEY, V VARCHAR(10), D DOUBLE,"
+            + " N DECIMAL(10, 2), L BIGINT)");
+        insertRows();
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Rows with equal values share one instance and read back the values
+     * that were inserted.
+     */
+    public void testSharedValues() throws SQLException {
+
+        checkRows();
+
+        Row[] rows = getRows();
+
+        assertTrue(rows[0].getData()[1] == rows[5].getData()[1]);
+        assertTrue(rows[1].getData()[2] == rows[6].getData()[2]);
+        assertTrue(rows[2].getData()[4] == rows[9].getData()[4]);
+        assertTrue(getStore().getPoolSize() > 0);
+
+        // values that are equal in SQL but not the same are not shared
+        assertTrue(rows[0].getData()[2] != rows[1].getData()[2]);
+        assertTrue(rows[0].getData()[1] != rows[2].getData()[1]);
+    }
+
+    /**
+     * TRUNCATE releases the shared values of the removed rows.
+     */
+    public void testTruncate() throws SQLException {
+
+        assertTrue(getStore().getPoolSize() > 0);
+        statement.execute("TRUNCATE TABLE T");
+        assertEquals(0, getStore().getPoolSize());
+        statement.execute("INSERT INTO T VALUES (1, 'x', 2, 3, 4)");
+        assertEquals(4, getStore().getPoolSize());
+        statement.execute("DELETE FROM T");
+        insertRows();
+        checkRows();
+        statement.execute("TRUNCATE SCHEMA PUBLIC AND COMMIT");
+        assertEquals(0, getStore().getPoolSize());
+        insertRows();
+        checkRows();
+    }
+
+    /**
+     * With MVCC the rows are removed at commit and the shared values are
+     * released then.
+     */
+    public void testTruncateMVCC() throws SQLException {
+
+        statement.execute("SET DATABASE TRANSACTION CONTROL MVCC");
+        connection.setAutoCommit(false);
+        statement.execute("TRUNCATE TABLE T");
+        connection.rollback();
+        checkRows();
+        statement.execute("TRUNCATE TABLE T");
+        connection.commit();
+        assertEquals(0, getStore().getPoolSize());
+        insertRows();
+        connection.commit();
+        checkRows();
+    }
+
+    void insertRows() throws SQLException {
+
+        PreparedStatement ps = connection.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?, ?, ?)");
+
+        for (int i = 0; i < rowCount; i++) {
+            ps.setInt(1, i);
+            ps.setString(2, strings[i % strings.length]);
+            ps.setDouble(3, doubles[i % doubles.length]);
+            ps.setBigDecimal(4, new java.math.BigDecimal(i % 3 + ".25"));
+            ps.setLong(5, i % 7);
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    void checkRows() throws SQLException {
+
+        ResultSet rs = statement.executeQuery("SELECT * FROM T ORDER BY ID");
+        int       i  = 0;
+
+        for (; rs.next(); i++) {
+            assertEquals(i, rs.getInt(1));
+            assertEquals(strings[i % strings.length], rs.getString(2));
+            assertEquals(Double.doubleToLongBits(doubles[i % doubles.length]),
+                         Double.doubleToLongBits(rs.getDouble(3)));
+            assertEquals(i % 3 + ".25", rs.getBigDecimal(4).toString());
+            assertEquals(i % 7, rs.getLong(5));
+        }
+
+        rs.close();
+        assertEquals(rowCount, i);
+    }
+
+    Table getTable() {
+
+        Session session = (Session) ((JDBCConnection) connection).getSession();
+
+        return session.database.schemaManager.findUserTable(session, "T",
+                "PUBLIC");
+    }
+
+    RowStoreAVLMemory getStore() {
+
+        Session session = (Session) ((JDBCConnection) connection).getSession();
+
+        return (RowStoreAVLMemory) getTable().getRowStore(session);
+    }
+
+    Row[] getRows() {
+
+        Row[]       rows = new Row[rowCount];
+        RowIterator it   = getTable().getPrimaryIndex().firstRow(getStore());
+
+        for (int i = 0; i < rowCount; i++) {
+            rows[i] = it.getNextRow();
+        }
+
+        it.release();
+
+        return rows;
+    }
+}
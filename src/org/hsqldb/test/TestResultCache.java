@@ -0,0 +1,193 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests that entries of the result cache are shared by sessions and are
+ * invalidated by committed changes to the tables read through views and
+ * subqueries.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestResultCache extends TestBase {
+
+    Connection connection;
+    Connection otherConnection;
+    Statement  statement;
+
+    public TestResultCache(String name) {
+        super(name, "jdbc:hsqldb:mem:resultcache", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection      = newConnection();
+        otherConnection = newConnection();
+        statement       = connection.createStatement();
+
+        statement.execute("SET DATABASE RESULT CACHE ROWS 1000");
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute("CREATE TABLE T (ID INT PRIMARY KEY, V INT)");
+        statement.execute("CREATE TABLE S (ID INT PRIMARY KEY)");
+        statement.execute(
+            "CREATE VIEW V1 AS SELECT ID, V FROM T WHERE V > 0");
+        statement.execute("CREATE VIEW V2 AS SELECT COUNT(*) C FROM V1");
+        statement.execute("INSERT INTO T VALUES (1, 10), (2, 20)");
+        statement.execute("INSERT INTO S VALUES (1), (3)");
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testView() throws SQLException {
+        checkInvalidation("SELECT COUNT(*) FROM V1", 2, 3);
+    }
+
+    public void testNestedView() throws SQLException {
+        checkInvalidation("SELECT C FROM V2", 2, 3);
+    }
+
+    public void testDerivedTable() throws SQLException {
+        checkInvalidation("SELECT SUM(V) FROM (SELECT V FROM T) D", 30, 60);
+    }
+
+    public void testSubquery() throws SQLException {
+        checkInvalidation(
+            "SELECT COUNT(*) FROM S WHERE ID IN (SELECT ID FROM T)", 1, 2);
+    }
+
+    /**
+     * The statements of two sessions share one entry. A session with a
+     * different current schema does not use it.
+     */
+    public void testSharedEntry() throws SQLException {
+
+        String            sql     = "SELECT SUM(V) FROM T WHERE ID > ?";
+        PreparedStatement ps      = connection.prepareStatement(sql);
+        PreparedStatement otherPs = otherConnection.prepareStatement(sql);
+        long              hits    = getCacheCount("RESULT CACHE HITS");
+        long              misses  = getCacheCount("RESULT CACHE MISSES");
+
+        ps.setInt(1, 0);
+        assertEquals(30, getInt(ps));
+        otherPs.setInt(1, 0);
+        assertEquals(30, getInt(otherPs));
+        otherPs.setInt(1, 1);
+        assertEquals(20, getInt(otherPs));
+        ps.setInt(1, 1);
+        assertEquals(20, getInt(ps));
+        assertEquals(hits + 2, getCacheCount("RESULT CACHE HITS"));
+        assertEquals(misses + 2, getCacheCount("RESULT CACHE MISSES"));
+
+        Statement otherStatement = otherConnection.createStatement();
+
+        otherStatement.execute("CREATE SCHEMA S2");
+        otherStatement.execute("SET SCHEMA S2");
+        otherStatement.execute("CREATE TABLE T (ID INT, V INT)");
+        otherStatement.execute("INSERT INTO T VALUES (5, 5)");
+
+        otherPs = otherConnection.prepareStatement(sql);
+
+        otherPs.setInt(1, 0);
+        assertEquals(5, getInt(otherPs));
+        assertEquals(hits + 2, getCacheCount("RESULT CACHE HITS"));
+    }
+
+    /**
+     * Executes the query twice so that the second execution uses the cache,
+     * then inserts a row in the base table in another session and checks
+     * the query returns the new result.
+     */
+    private void checkInvalidation(String sql, int before,
+                                   int after) throws SQLException {
+
+        PreparedStatement ps     = connection.prepareStatement(sql);
+        long              hits   = getCacheCount("RESULT CACHE HITS");
+        long              misses = getCacheCount("RESULT CACHE MISSES");
+
+        assertEquals(before, getInt(ps));
+        assertEquals(before, getInt(ps));
+        assertEquals(hits + 1, getCacheCount("RESULT CACHE HITS"));
+        assertEquals(misses + 1, getCacheCount("RESULT CACHE MISSES"));
+        otherConnection.createStatement().execute(
+            "INSERT INTO T VALUES (3, 30)");
+        assertEquals(after, getInt(ps));
+        assertEquals(hits + 1, getCacheCount("RESULT CACHE HITS"));
+        assertEquals(misses + 2, getCacheCount("RESULT CACHE MISSES"));
+    }
+
+    private long getCacheCount(String key) throws SQLException {
+
+        ResultSet rs = statement.executeQuery(
+            "SELECT VALUE FROM INFORMATION_SCHEMA.SYSTEM_SESSIONINFO "
+            + "WHERE KEY = '" + key + "'");
+
+        rs.next();
+
+        long value = Long.parseLong(rs.getString(1));
+
+        rs.close();
+
+        return value;
+    }
+
+    private static int getInt(PreparedStatement ps) throws SQLException {
+
+        ResultSet rs = ps.executeQuery();
+
+        rs.next();
+
+        int value = rs.getInt(1);
+
+        rs.close();
+
+        return value;
+    }
+}
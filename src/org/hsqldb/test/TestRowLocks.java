@@ -0,0 +1,147 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests inserts that conflict with uncommitted changes of another session
+ * when MVLOCKS transactions use row locks.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestRowLocks extends TestBase {
+
+    Connection connection;
+    Connection otherConnection;
+    Statement  statement;
+
+    public TestRowLocks(String name) {
+        super(name, "jdbc:hsqldb:mem:rowlocks", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection      = newConnection();
+        otherConnection = newConnection();
+        statement       = connection.createStatement();
+
+        statement.execute("SET DATABASE TRANSACTION CONTROL MVLOCKS");
+        statement.execute("SET DATABASE TRANSACTION ROW LOCKS 1000");
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute("CREATE TABLE T (ID INT PRIMARY KEY, V INT)");
+        statement.execute("INSERT INTO T VALUES (1, 10), (2, 20)");
+        connection.setAutoCommit(false);
+        otherConnection.setAutoCommit(false);
+    }
+
+    protected void tearDown() {
+
+        try {
+            connection.rollback();
+            otherConnection.rollback();
+            connection.setAutoCommit(true);
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testInsertAfterCommittedDelete() throws Exception {
+
+        statement.execute("DELETE FROM T WHERE ID = 1");
+
+        InsertThread thread = new InsertThread();
+
+        thread.start();
+        thread.join(500);
+        assertTrue("insert did not wait", thread.isAlive());
+        connection.commit();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertNull(thread.exception);
+        assertEquals(1, thread.count);
+    }
+
+    public void testInsertAfterRolledBackDelete() throws Exception {
+
+        statement.execute("DELETE FROM T WHERE ID = 1");
+
+        InsertThread thread = new InsertThread();
+
+        thread.start();
+        thread.join(500);
+        assertTrue("insert did not wait", thread.isAlive());
+        connection.rollback();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertNotNull(thread.exception);
+    }
+
+    public void testChangeDifferentRows() throws Exception {
+
+        statement.execute("UPDATE T SET V = 11 WHERE ID = 1");
+
+        Statement other = otherConnection.createStatement();
+
+        assertEquals(1, other.executeUpdate("UPDATE T SET V = 21 WHERE ID = 2"));
+        otherConnection.commit();
+        connection.commit();
+    }
+
+    class InsertThread extends Thread {
+
+        SQLException exception;
+        int          count;
+
+        public void run() {
+
+            try {
+                Statement other = otherConnection.createStatement();
+
+                count = other.executeUpdate("INSERT INTO T VALUES (1, 30)");
+
+                otherConnection.commit();
+            } catch (SQLException e) {
+                exception = e;
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.hsqldb.server.Server;
+
+/**
+ * Tests reuse of prepared statements from the statement cache of a connection
+ * when the current schema changes and after the cached statement becomes
+ * invalid.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestStatementCache extends TestBase {
+
+    Connection connection;
+    Statement  statement;
+
+    public TestStatementCache(String name) {
+        super(name, "jdbc:hsqldb:mem:stmtcache", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection = DriverManager.getConnection(
+            "jdbc:hsqldb:mem:stmtcache;statement_cache_size=10", "SA", "");
+        statement = connection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute("DROP SCHEMA A IF EXISTS CASCADE");
+        statement.execute("DROP SCHEMA B IF EXISTS CASCADE");
+        statement.execute("CREATE SCHEMA A");
+        statement.execute("CREATE SCHEMA B");
+        statement.execute("CREATE TABLE A.T (V INT)");
+        statement.execute("CREATE TABLE B.T (V INT)");
+        statement.execute("INSERT INTO A.T VALUES (1)");
+        statement.execute("INSERT INTO B.T VALUES (2)");
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    public void testSetSchema() throws SQLException {
+
+        statement.execute("SET SCHEMA A");
+        assertEquals(1, getInt("SELECT V FROM T"));
+        assertEquals(1, getInt("SELECT V FROM T"));
+        statement.execute("SET SCHEMA B");
+        assertEquals(2, getInt("SELECT V FROM T"));
+        statement.execute("SET SCHEMA A");
+        assertEquals(1, getInt("SELECT V FROM T"));
+    }
+
+    public void testInvalidStatement() throws SQLException {
+
+        statement.execute("SET SCHEMA A");
+        assertEquals(1, getInt("SELECT V FROM T"));
+
+        PreparedStatement ps = connection.prepareStatement("SELECT V FROM T");
+
+        statement.execute("DROP TABLE T");
+
+        try {
+            ps.executeQuery();
+            fail("statement on dropped table executed");
+        } catch (SQLException e) {}
+
+        ps.close();
+        statement.execute("CREATE TABLE T (V INT)");
+        statement.execute("INSERT INTO T VALUES (3)");
+        assertEquals(3, getInt("SELECT V FROM T"));
+        assertEquals(3, getInt("SELECT V FROM T"));
+    }
+
+    /**
+     * The current schema is updated from the results of statements that
+     * change it.
+     */
+    public void testSchemaChanges() throws SQLException {
+        checkSchemaChanges(connection, statement);
+    }
+
+    /**
+     * With a network connection, the current schema is not requested from
+     * the server for each prepared statement.
+     */
+    public void testNetworkSchemaRequests() throws SQLException {
+
+        StringWriter writer = new StringWriter();
+        Server       server = new Server();
+
+        server.setPort(9557);
+        server.setDatabaseName(0, "test");
+        server.setDatabasePath(0, "mem:stmtcache");
+        server.setLogWriter(new PrintWriter(writer));
+        server.setErrWriter(null);
+        server.setSilent(false);
+        server.start();
+
+        try {
+            Connection c = DriverManager.getConnection(
+                "jdbc:hsqldb:hsql://localhost:9557/test;statement_cache_size=10",
+                "SA", "");
+            Statement st    = c.createStatement();
+            int       count = getCount(writer, "GETSESSIONATTR");
+
+            st.execute("SET SCHEMA A");
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals(1, getInt(c, "SELECT V FROM T"));
+            }
+
+            checkSchemaChanges(c, st);
+            assertEquals(count, getCount(writer, "GETSESSIONATTR"));
+            c.close();
+        } finally {
+            server.stop();
+        }
+    }
+
+    private void checkSchemaChanges(Connection c,
+                                    Statement st) throws SQLException {
+
+        st.execute("SET SCHEMA A");
+        assertEquals(1, getInt(c, "SELECT V FROM T"));
+        c.setSchema("B");
+        assertEquals(2, getInt(c, "SELECT V FROM T"));
+        st.addBatch("SET SCHEMA A");
+        st.addBatch("INSERT INTO T VALUES (1)");
+        st.executeBatch();
+        assertEquals(2, getInt(c, "SELECT COUNT(V) FROM T"));
+        st.execute("SET SCHEMA B; SELECT V FROM T");
+        assertEquals(2, getInt(c, "SELECT V FROM T"));
+        st.execute("SET SCHEMA A; DELETE FROM A.T WHERE V = 1");
+        assertEquals(0, getInt(c, "SELECT COUNT(V) FROM T"));
+
+        PreparedStatement ps = c.prepareStatement("SET SCHEMA B");
+
+        ps.execute();
+        ps.close();
+        assertEquals(2, getInt(c, "SELECT V FROM T"));
+
+        // a failed statement leaves the schema unchanged
+        try {
+            st.execute("SET SCHEMA X");
+            fail("missing schema set");
+        } catch (SQLException e) {}
+
+        assertEquals(2, getInt(c, "SELECT V FROM T"));
+        assertEquals("B", c.getSchema());
+    }
+
+    private static int getCount(StringWriter writer, String s) {
+
+        String log   = writer.toString();
+        int    count = 0;
+
+        for (int i = log.indexOf(s); i >= 0; i = log.indexOf(s, i + 1)) {
+            count++;
+        }
+
+        return count;
+    }
+
+    private int getInt(String sql) throws SQLException {
+        return getInt(connection, sql);
+    }
+
+    private static int getInt(Connection connection,
+                              String sql) throws SQLException {
+
+        PreparedStatement ps = connection.prepareStatement(sql);
+        ResultSet         rs = ps.executeQuery();
+
+        rs.next();
+
+        int value = rs.getInt(1);
+
+        rs.close();
+        ps.close();
+
+        return value;
+    }
+}
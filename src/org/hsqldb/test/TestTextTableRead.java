@@ -0,0 +1,280 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests TEXT table sources read in batches of rows, with the
+ * textdb.parallel_read_size property set to 0, against the same sources
+ * read one row at a time.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestTextTableRead extends TestBase {
+
+    static final String directory = "testtextread";
+    static final String path      = directory + "/test";
+
+    // more than two batches of rows
+    static final int rowCount = 20000;
+
+    //
+    static final String batchSource  = ";parallel_read_size=0";
+    static final String singleSource = ";parallel_read_size=1000000";
+
+    //
+    Connection connection;
+    Statement  statement;
+
+    public TestTextTableRead(String name) {
+        super(name, "jdbc:hsqldb:file:" + path, false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+        TestUtil.deleteDatabase(path);
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        TestUtil.deleteDatabase(path);
+        new java.io.File(directory + "/t.csv").delete();
+        new java.io.File(directory + "/s.csv").delete();
+        super.tearDown();
+    }
+
+    /**
+     * Quoted values with line ends, separators and quotes, and blank lines,
+     * are read the same way with both settings.
+     */
+    public void testRows() throws Exception {
+
+        writeFile("t.csv", -1);
+        writeFile("s.csv", -1);
+        createTable("P", "t.csv" + batchSource);
+        createTable("S", "s.csv" + singleSource);
+        checkRows("P");
+        checkRows("S");
+    }
+
+    /**
+     * The identity sequence continues after the largest value read.
+     */
+    public void testIdentity() throws Exception {
+
+        writeFile("t.csv", -1);
+        createTable("P", "t.csv" + batchSource);
+        statement.execute("INSERT INTO P (V, N) VALUES ('x', 1)");
+
+        ResultSet rs = statement.executeQuery("SELECT MAX(ID) FROM P");
+
+        rs.next();
+        assertEquals(rowCount, rs.getInt(1));
+        rs.close();
+        statement.execute("SET TABLE P SOURCE OFF");
+        statement.execute("SET TABLE P SOURCE ON");
+        statement.execute("INSERT INTO P (V, N) VALUES ('y', 2)");
+
+        rs = statement.executeQuery("SELECT ID, V FROM P WHERE N < 3"
+                                    + " AND ID >= " + rowCount
+                                    + " ORDER BY ID");
+
+        assertTrue(rs.next());
+        assertEquals(rowCount, rs.getInt(1));
+        assertEquals("x", rs.getString(2));
+        assertTrue(rs.next());
+        assertEquals(rowCount + 1, rs.getInt(1));
+        assertEquals("y", rs.getString(2));
+        rs.close();
+    }
+
+    /**
+     * The error for a bad row in a later batch reports the number of the
+     * row in the file, counting blank lines. Line ends in quoted values do
+     * not start a new line.
+     */
+    public void testBadRow() throws Exception {
+
+        int badRow = rowCount - 100;
+        int line   = writeFile("t.csv", badRow);
+
+        writeFile("s.csv", badRow);
+        statement.execute("CREATE TEXT TABLE P (ID INT GENERATED BY DEFAULT"
+                          + " AS IDENTITY PRIMARY KEY, V VARCHAR(200), N INT)");
+        statement.execute("CREATE TEXT TABLE S (ID INT GENERATED BY DEFAULT"
+                          + " AS IDENTITY PRIMARY KEY, V VARCHAR(200), N INT)");
+
+        String batchError  = getSourceError("P", "t.csv" + batchSource);
+        String singleError = getSourceError("S", "s.csv" + singleSource);
+
+        assertTrue(batchError,
+                   batchError.indexOf("line number: " + line + " ") >= 0);
+        assertTrue(singleError, singleError.indexOf("line number: ") >= 0);
+
+        // the table is left empty
+        ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM P");
+
+        rs.next();
+        assertEquals(0, rs.getInt(1));
+        rs.close();
+    }
+
+    void createTable(String name, String source) throws SQLException {
+
+        statement.execute("CREATE TEXT TABLE " + name
+                          + " (ID INT GENERATED BY DEFAULT AS IDENTITY"
+                          + " PRIMARY KEY, V VARCHAR(200), N INT)");
+        statement.execute("SET TABLE " + name + " SOURCE \"" + source
+                          + "\"");
+    }
+
+    String getSourceError(String name, String source) {
+
+        try {
+            statement.execute("SET TABLE " + name + " SOURCE \"" + source
+                              + "\"");
+        } catch (SQLException e) {
+            return e.getMessage();
+        }
+
+        fail(name);
+
+        return null;
+    }
+
+    void checkRows(String name) throws SQLException {
+
+        ResultSet rs = statement.executeQuery("SELECT * FROM " + name
+                                              + " ORDER BY ID");
+        int       i  = 0;
+
+        for (; rs.next(); i++) {
+            assertEquals(i, rs.getInt(1));
+            assertEquals(getValue(i), rs.getString(2));
+
+            if (i % 11 == 0) {
+                assertNull(rs.getObject(3));
+            } else {
+                assertEquals(i * 3, rs.getInt(3));
+            }
+        }
+
+        rs.close();
+        assertEquals(rowCount, i);
+    }
+
+    /**
+     * Values with line ends, separators and quotes.
+     */
+    static String getValue(int i) {
+
+        switch (i % 5) {
+
+            case 0 :
+                return "v" + i;
+
+            case 1 :
+                return "a\nb" + i;
+
+            case 2 :
+                return "c,\"d\"," + i;
+
+            case 3 :
+                return "e\r\n\nf" + i;
+
+            default :
+                return "";
+        }
+    }
+
+    /**
+     * Writes the file and returns the line number of the bad row, or 0.
+     */
+    static int writeFile(String name, int badRow) throws IOException {
+
+        new java.io.File(directory).mkdirs();
+
+        Writer writer = new OutputStreamWriter(
+            new FileOutputStream(directory + "/" + name), "ISO-8859-1");
+        int line    = 1;
+        int badLine = 0;
+
+        for (int i = 0; i < rowCount; i++) {
+            if (i % 1000 == 999) {
+                writer.write("\n");
+
+                line++;
+            }
+
+            if (i == badRow) {
+                badLine = line;
+            }
+
+            String value = getValue(i);
+            String row   = i + ",\"" + value.replaceAll("\"", "\"\"")
+                           + "\"," + (i == badRow ? "bad"
+                                                  : i % 11 == 0 ? ""
+                                                                : String
+                                                                .valueOf(i
+                                                                * 3));
+
+            writer.write(row);
+            writer.write("\n");
+
+            line++;
+        }
+
+        writer.close();
+
+        return badLine;
+    }
+}
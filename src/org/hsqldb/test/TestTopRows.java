@@ -0,0 +1,226 @@
+/* Copyright (c) 2001-2015, The HSQL Development Group
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ *
+ * Neither the name of the HSQL Development Group nor the names of its
+ * contributors may be used to endorse or promote products derived from this
+ * software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL HSQL DEVELOPMENT GROUP, HSQLDB.ORG,
+ * OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+ * PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+
+
+package org.hsqldb.test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+
+/**
+ * Tests ORDER BY with LIMIT, OFFSET and FETCH FIRST where only the first
+ * rows are kept in a heap. The results are compared with the rows of the
+ * same query without the limit, which sorts all the rows.
+ *
+ * @author agent (agent@local)
+ * @version 2.3.3
+ * @since 2.3.3
+ */
+public class TestTopRows extends TestBase {
+
+    static final int rowCount = 3000;
+
+    //
+    Connection connection;
+    Statement  statement;
+
+    public TestTopRows(String name) {
+        super(name, "jdbc:hsqldb:mem:toprows", false, false);
+    }
+
+    protected void setUp() throws Exception {
+
+        super.setUp();
+
+        connection = newConnection();
+        statement  = connection.createStatement();
+
+        statement.execute("DROP SCHEMA PUBLIC CASCADE");
+        statement.execute("CREATE TABLE T (ID INT PRIMARY KEY, K INT,"
+                          + " V VARCHAR(10), D DOUBLE)");
+
+        PreparedStatement ps = connection.prepareStatement(
+            "INSERT INTO T VALUES (?, ?, ?, ?)");
+
+        // K has many ties and NULLs, V has few distinct values
+        for (int i = 0; i < rowCount; i++) {
+            ps.setInt(1, i);
+
+            if (i % 23 == 0) {
+                ps.setNull(2, Types.INTEGER);
+            } else {
+                ps.setInt(2, (i * 37) % 101);
+            }
+
+            if (i % 31 == 0) {
+                ps.setNull(3, Types.VARCHAR);
+            } else {
+                ps.setString(3, "v" + i % 7);
+            }
+
+            ps.setDouble(4, (i * 13) % 1000 / 4.0);
+            ps.execute();
+        }
+
+        ps.close();
+    }
+
+    protected void tearDown() {
+
+        try {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException e) {}
+
+        super.tearDown();
+    }
+
+    /**
+     * Keys that are unique, so the rows are in a single order.
+     */
+    public void testUniqueOrder() throws SQLException {
+
+        String[] orders = {
+            "K, ID", "K DESC, ID", "K DESC NULLS LAST, ID DESC",
+            "V NULLS LAST, K DESC, ID", "D DESC, ID", "ID DESC"
+        };
+
+        for (int i = 0; i < orders.length; i++) {
+            checkLimits("SELECT ID, K, V, D FROM T", orders[i], 4);
+        }
+
+        checkLimits("SELECT ID, K, V FROM T WHERE D > 100", "K DESC, ID", 3);
+        checkLimits("SELECT ID, K + 1, V FROM T", "2, ID", 3);
+    }
+
+    /**
+     * Keys with ties. Which of the tied rows are returned is not defined,
+     * so only the ORDER BY columns are compared.
+     */
+    public void testTies() throws SQLException {
+
+        checkLimits("SELECT K FROM T", "K", 1);
+        checkLimits("SELECT K FROM T", "K DESC", 1);
+        checkLimits("SELECT V, K FROM T", "V DESC NULLS FIRST, K", 2);
+        checkLimits("SELECT K, V FROM T WHERE ID > 100", "K DESC, V", 2);
+    }
+
+    /**
+     * Compares the rows for several OFFSET and LIMIT values with the rows
+     * of the query without them. Only the first columnCount columns are
+     * compared.
+     */
+    void checkLimits(String select, String order,
+                     int columnCount) throws SQLException {
+
+        String   sql = select + " ORDER BY " + order;
+        String[] all = getRows(sql, columnCount);
+        int[][]  limits = {
+            {
+                0, 1
+            }, {
+                0, 10
+            }, {
+                5, 10
+            }, {
+                0, 200
+            }, {
+                150, 57
+            }, {
+                0, 2999
+            }, {
+                1, 3000
+            }, {
+                2990, 100
+            }, {
+                3000, 5
+            }, {
+                0, 5000
+            }
+        };
+
+        for (int i = 0; i < limits.length; i++) {
+            int offset = limits[i][0];
+            int count  = limits[i][1];
+
+            checkRows(all, offset, count,
+                      getRows(sql + " LIMIT " + count + " OFFSET " + offset,
+                              columnCount));
+            checkRows(all, offset, count,
+                      getRows(sql + " OFFSET " + offset + " ROWS FETCH FIRST "
+                              + count + " ROWS ONLY", columnCount));
+        }
+
+        checkRows(all, 0, 20,
+                  getRows("SELECT TOP 20 " + sql.substring(7), columnCount));
+
+        // the limit of a subquery
+        checkRows(all, 0, 20,
+                  getRows("SELECT * FROM (" + sql + " LIMIT 20) X ORDER BY "
+                          + order, columnCount));
+    }
+
+    void checkRows(String[] all, int offset, int count, String[] result) {
+
+        int expected = Math.max(0, Math.min(count, all.length - offset));
+
+        assertEquals(expected, result.length);
+
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(all[offset + i], result[i]);
+        }
+    }
+
+    String[] getRows(String sql, int columnCount) throws SQLException {
+
+        ArrayList list = new ArrayList();
+        ResultSet rs   = statement.executeQuery(sql);
+
+        while (rs.next()) {
+            StringBuffer sb = new StringBuffer();
+
+            for (int i = 1; i <= columnCount; i++) {
+                sb.append(rs.getString(i)).append(',');
+            }
+
+            list.add(sb.toString());
+        }
+
+        rs.close();
+
+        return (String[]) list.toArray(new String[list.size()]);
+    }
+}
@@ -800,9 +800,7 @@ public final class NumberType extends Type {
                     dec = dec.setScale(scale, BigDecimal.ROUND_HALF_DOWN);
                 }
 
-                int p = JavaSystem.precision(dec);
-
-                if (p > precision) {
+                if (isPrecisionExceeded(dec)) {
                     throw Error.error(ErrorCode.X_22003);
                 }
 
@@ -813,6 +811,17 @@ public final class NumberType extends Type {
         }
     }
 
+    /**
+     * For values with the scale of this type. BigDecimal.precision() is
+     * cached and JavaSystem.precision() returns either the same value or the
+     * scale of the value, so the second check is needed only when the first
+     * or the scale exceeds the precision.
+     */
+    private boolean isPrecisionExceeded(BigDecimal dec) {
+        return (dec.precision() > precision || scale > precision)
+               && JavaSystem.precision(dec) > precision;
+    }
+
     public Object convertToType(SessionInterface session, Object a,
                                 Type otherType) {
 
@@ -831,7 +840,7 @@ public final class NumberType extends Type {
                         dec = dec.setScale(scale, BigDecimal.ROUND_HALF_DOWN);
                     }
 
-                    if (JavaSystem.precision(dec) > precision) {
+                    if (isPrecisionExceeded(dec)) {
                         throw Error.error(ErrorCode.X_22003);
                     }
 
@@ -1465,8 +1474,13 @@ public final class NumberType extends Type {
             }
             case Types.SQL_NUMERIC :
             case Types.SQL_DECIMAL : {
-                a = convertToDefaultType(null, a);
-                b = convertToDefaultType(null, b);
+                if (!(a instanceof BigDecimal)) {
+                    a = convertToDefaultType(null, a);
+                }
+
+                if (!(b instanceof BigDecimal)) {
+                    b = convertToDefaultType(null, b);
+                }
 
                 BigDecimal abd = (BigDecimal) a;
                 BigDecimal bbd = (BigDecimal) b;
@@ -1513,8 +1527,13 @@ public final class NumberType extends Type {
             }
             case Types.SQL_NUMERIC :
             case Types.SQL_DECIMAL : {
-                a = convertToDefaultType(null, a);
-                b = convertToDefaultType(null, b);
+                if (!(a instanceof BigDecimal)) {
+                    a = convertToDefaultType(null, a);
+                }
+
+                if (!(b instanceof BigDecimal)) {
+                    b = convertToDefaultType(null, b);
+                }
 
                 BigDecimal abd = (BigDecimal) a;
                 BigDecimal bbd = (BigDecimal) b;